@@ -203,7 +203,7 @@ public class TestSurveyInstaller {
         if (!TextUtils.isEmpty(cascadeFileName)) {
             File db = new File(cascadeFolder, cascadeFileName);
             if (db.exists()) {
-                CascadeDB cascadeDB = new CascadeDB(context, db.getAbsolutePath());
+                CascadeDB cascadeDB = new CascadeDB(db.getAbsolutePath());
                 cascadeDB.open();
                 SparseArray<List<Node>> values = cascadeDB.getValues();
                 cascadeDB.close();
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.data.datasource.files;
+
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.LinearGradient;
+import android.graphics.Paint;
+import android.graphics.Shader;
+import android.os.Build;
+import android.os.Debug;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.akvo.flow.domain.util.ImageSize;
+import org.akvo.flow.utils.FileHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the previous photo resizing, a full subsampled decode compressed at quality 100,
+ * with the strip based one for several camera resolutions. The peak memory used and the
+ * output size are logged with the tag of this class.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ImagePipelineBenchmarkTest {
+
+    private static final String TAG = "ImagePipelineBenchmark";
+    private static final int[][] SOURCE_SIZES = {
+            { 1600, 1200 }, { 4000, 3000 }, { 6000, 4500 }, { 8000, 6000 }
+    };
+    private static final int LEGACY_QUALITY = 100;
+
+    private File folder;
+    private BitmapHelper bitmapHelper;
+    private BitmapPool bitmapPool;
+
+    @Before
+    public void setUp() {
+        folder = new File(ApplicationProvider.getApplicationContext().getCacheDir(), "benchmark");
+        folder.mkdirs();
+        bitmapPool = new BitmapPool(ApplicationProvider.getApplicationContext());
+        bitmapHelper = new BitmapHelper(new FileHelper(), bitmapPool);
+    }
+
+    @After
+    public void tearDown() {
+        bitmapPool.clear();
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        folder.delete();
+    }
+
+    @Test
+    public void resizeShouldUseLessMemoryAndProduceSmallerFiles() throws IOException {
+        for (int[] size : SOURCE_SIZES) {
+            File source = createSourceImage(size[0], size[1]);
+            if (source == null) {
+                Log.i(TAG, String.format("%d x %d: source image does not fit in memory",
+                        size[0], size[1]));
+                continue;
+            }
+            File legacyOutput = new File(folder, "legacy.jpg");
+            File output = new File(folder, "output.jpg");
+
+            long legacyPeak = measurePeak(() -> resizeLegacy(source, legacyOutput));
+            long peak = measurePeak(() -> resize(source, output));
+
+            Log.i(TAG, String.format("%d x %d (%d KB): legacy peak %d KB, %d KB output;"
+                            + " strips peak %d KB, %d KB output",
+                    size[0], size[1], source.length() / 1024, legacyPeak / 1024,
+                    legacyOutput.length() / 1024, peak / 1024, output.length() / 1024));
+
+            BitmapFactory.Options bounds = new BitmapFactory.Options();
+            bounds.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(output.getAbsolutePath(), bounds);
+            assertTrue(bounds.outWidth <= 1280 && bounds.outHeight <= 980);
+            assertTrue(output.length() <= legacyOutput.length());
+            source.delete();
+        }
+    }
+
+    private void resize(File source, File output) {
+        try {
+            ParcelFileDescriptor descriptor = ParcelFileDescriptor
+                    .open(source, ParcelFileDescriptor.MODE_READ_ONLY);
+            assertTrue(bitmapHelper.saveResizedImage(ImageSize.IMAGE_SIZE_1280_960, descriptor,
+                    output.getAbsolutePath()));
+        } catch (FileNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The decoding and compression done before images were decoded in strips
+     */
+    private void resizeLegacy(File source, File output) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(source.getAbsolutePath(), options);
+        int width = options.outWidth;
+        int height = options.outHeight;
+        int requestedWidth = width > height ? 1280 : 980;
+        int requestedHeight = width > height ? 980 : 1280;
+        int inSampleSize = 1;
+        if (height > requestedHeight || width > requestedWidth) {
+            inSampleSize = Math.min(Math.round((float) height / requestedHeight),
+                    Math.round((float) width / requestedWidth));
+            float totalPixels = width * height;
+            float totalReqPixelsCap = requestedWidth * requestedHeight * 2;
+            while (totalPixels / (inSampleSize * inSampleSize) > totalReqPixelsCap) {
+                inSampleSize++;
+            }
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = inSampleSize;
+        Bitmap bitmap = BitmapFactory.decodeFile(source.getAbsolutePath(), options);
+        try (OutputStream out = new FileOutputStream(output)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, LEGACY_QUALITY, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * Draws a photo like image, gradients and a lot of small shapes so it does not compress
+     * too well, and saves it as a camera would
+     *
+     * @return null if the image cannot be allocated on this device
+     */
+    private File createSourceImage(int width, int height) throws IOException {
+        long bytes = (long) width * height * 2;
+        boolean bitmapsInJavaHeap = Build.VERSION.SDK_INT < Build.VERSION_CODES.O;
+        if (bitmapsInJavaHeap && bytes > Runtime.getRuntime().maxMemory() / 2) {
+            return null;
+        }
+        Bitmap bitmap;
+        try {
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565);
+        } catch (OutOfMemoryError e) {
+            return null;
+        }
+        Canvas canvas = new Canvas(bitmap);
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setShader(new LinearGradient(0, 0, width, height, 0xff336699, 0xffcc9933,
+                Shader.TileMode.CLAMP));
+        canvas.drawRect(0, 0, width, height, paint);
+        paint.setShader(null);
+        Random random = new Random(width);
+        float radius = width / 200f;
+        for (int i = 0; i < 20000; i++) {
+            paint.setColor(0xff000000 | random.nextInt(0xffffff));
+            canvas.drawCircle(random.nextFloat() * width, random.nextFloat() * height,
+                    radius * (0.5f + random.nextFloat()), paint);
+        }
+        File file = new File(folder, "source_" + width + "x" + height + ".jpg");
+        try (OutputStream out = new FileOutputStream(file)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, 95, out);
+        } finally {
+            bitmap.recycle();
+        }
+        return file;
+    }
+
+    /**
+     * @return the highest memory used while running, over what was used before, sampling both
+     * the java and the native heap since bitmaps live in one or the other depending on the
+     * api level
+     */
+    private long measurePeak(Runnable runnable) {
+        Runtime.getRuntime().gc();
+        final long baseline = usedMemory();
+        final AtomicLong peak = new AtomicLong(baseline);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                updatePeak(peak);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.start();
+        try {
+            runnable.run();
+            updatePeak(peak);
+        } finally {
+            running.set(false);
+            try {
+                sampler.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return peak.get() - baseline;
+    }
+
+    private void updatePeak(AtomicLong peak) {
+        long used = usedMemory();
+        long current;
+        do {
+            current = peak.get();
+        } while (used > current && !peak.compareAndSet(current, used));
+    }
+
+    private long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory() + Debug.getNativeHeapAllocatedSize();
+    }
+}
@@ -42,6 +42,7 @@ import org.akvo.flow.domain.entity.DomainFormInstance
 import org.akvo.flow.domain.entity.User
 import org.akvo.flow.domain.executor.CoroutineDispatcher
 import org.akvo.flow.domain.executor.SchedulerCreator
+import org.akvo.flow.domain.executor.TaskPriority
 import org.akvo.flow.domain.repository.FormInstanceRepository
 import org.akvo.flow.domain.repository.FormRepository
 import org.akvo.flow.domain.repository.UserRepository
@@ -107,7 +108,8 @@ class RecordActivityTest {
         `when`(dataPoint.latitude).thenReturn(41.3819219)
         `when`(dataPoint.longitude).thenReturn(2.148909)
         `when`(dataPoint.name).thenReturn(DATAPOINT_NAME)
-        `when`(schedulerCreator.obtainScheduler()).thenReturn(TrampolineScheduler.instance())
+        `when`(schedulerCreator.obtainScheduler(TaskPriority.INTERACTIVE))
+            .thenReturn(TrampolineScheduler.instance())
         `when`(dispatcher.getDispatcher()).thenReturn(Dispatchers.Main)
     }
 
@@ -49,6 +49,7 @@ import com.google.firebase.perf.metrics.AddTrace;
 
 import org.akvo.flow.R;
 import org.akvo.flow.app.FlowApp;
+import org.akvo.flow.data.database.ResponseWriteQueue;
 import org.akvo.flow.data.database.SurveyDbDataSource;
 import org.akvo.flow.data.preference.Prefs;
 import org.akvo.flow.database.SurveyDbAdapter;
@@ -155,6 +156,7 @@ public class FormActivity extends BackActivity implements SurveyListener,
 
     // QuestionId - QuestionResponse
     private Map<String, QuestionResponse> mQuestionResponses = new HashMap<>();
+    private ResponseWriteQueue responseWriteQueue;
     private String formId;
 
     private Uri imagePath;
@@ -172,6 +174,7 @@ public class FormActivity extends BackActivity implements SurveyListener,
         extractExtras();
         restoreState(savedInstanceState);
         mDatabase.open();
+        responseWriteQueue = new ResponseWriteQueue(mDatabase);
 
         initViews();
         presenter.loadForm(formId, formInstanceId, survey);
@@ -300,7 +303,15 @@ public class FormActivity extends BackActivity implements SurveyListener,
         mSessionStartTime = time;
     }
 
-    private void saveState() {
+    /**
+     * @return false if the responses could not be written, they are retried in the background
+     */
+    private boolean saveState() {
+        // Record meta-data and submission read the responses back from the database
+        if (!responseWriteQueue.flush()) {
+            Timber.e("Responses of form instance %d could not be saved", formInstanceId);
+            return false;
+        }
         mDatabase.updateSurveyInstanceStatus(formInstanceId, SurveyInstanceStatus.SAVED);
         mDatabase.updateRecordModifiedDate(dataPointId, System.currentTimeMillis());
 
@@ -308,6 +319,7 @@ public class FormActivity extends BackActivity implements SurveyListener,
         if (!survey.isMonitored() || form != null && form.getId().equals(survey.getRegisterSurveyId())) {
             saveRecordMetaData();
         }
+        return true;
     }
 
     private void saveRecordMetaData() {
@@ -397,7 +409,10 @@ public class FormActivity extends BackActivity implements SurveyListener,
         if (mAdapter != null) {
             mAdapter.onDestroy();
         }
-        if (mDatabase != null) {
+        if (responseWriteQueue != null) {
+            // the database stays open until the pending responses are written
+            responseWriteQueue.shutdown(mDatabase::close);
+        } else if (mDatabase != null) {
             mDatabase.close();
         }
         presenter.destroy();
@@ -447,6 +462,11 @@ public class FormActivity extends BackActivity implements SurveyListener,
     private void clearSurvey() {
         showConfirmDialog(R.string.cleartitle, R.string.cleardesc, this, true,
                 (dialog, which) -> {
+                    if (!responseWriteQueue.flush()) {
+                        snackBarManager.displaySnackBar(rootView,
+                                R.string.error_saving_responses, this);
+                        return;
+                    }
                     mDatabase.deleteResponses(String.valueOf(formInstanceId));
                     resetRecordName();
                     displayResponses(new HashMap<>());
@@ -618,8 +638,11 @@ public class FormActivity extends BackActivity implements SurveyListener,
     @Override
     public void onSurveySubmit() {
         recordDuration(false);
-        saveState();
-        presenter.onSubmitPressed(formInstanceId, formId, survey);
+        if (saveState()) {
+            presenter.onSubmitPressed(formInstanceId, formId, survey);
+        } else {
+            showErrorExport();
+        }
     }
 
     @Override
@@ -676,7 +699,11 @@ public class FormActivity extends BackActivity implements SurveyListener,
 
     @Override
     public void onMobileUploadSet(long instanceId) {
-        presenter.onSubmitPressed(instanceId, formId, survey);
+        if (responseWriteQueue.flush()) {
+            presenter.onSubmitPressed(instanceId, formId, survey);
+        } else {
+            showErrorExport();
+        }
     }
 
     @Override
@@ -696,10 +723,10 @@ public class FormActivity extends BackActivity implements SurveyListener,
     public void deleteResponse(String questionId) {
         QuestionResponse questionResponse = mQuestionResponses.remove(questionId);
         if (questionResponse != null && questionResponse.isAnswerToRepeatableGroup()) {
-            mDatabase.deleteResponse(formInstanceId, questionResponse.getQuestionId(),
-                    questionResponse.getIteration() + "");
+            responseWriteQueue.delete(questionId, formInstanceId,
+                    questionResponse.getQuestionId(), questionResponse.getIteration() + "");
         } else {
-            mDatabase.deleteResponse(formInstanceId, questionId);
+            responseWriteQueue.delete(questionId, formInstanceId, questionId, null);
         }
     }
 
@@ -801,7 +828,7 @@ public class FormActivity extends BackActivity implements SurveyListener,
                     .setIncludeFlag(eventResponse.getIncludeFlag())
                     .setIteration(eventResponse.getIteration())
                     .createQuestionResponse();
-            responseToSave = mDatabase.createOrUpdateSurveyResponse(responseToSave);
+            responseWriteQueue.save(questionIdKey, responseToSave);
             mQuestionResponses.put(questionIdKey, responseToSave);
         } else {
             event.getSource().setResponse(null, true);// Invalidate previous response
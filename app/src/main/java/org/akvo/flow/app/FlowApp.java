@@ -34,6 +34,10 @@ import org.akvo.flow.domain.interactor.setup.SetUpParams;
 import org.akvo.flow.injector.component.ApplicationComponent;
 import org.akvo.flow.injector.component.DaggerApplicationComponent;
 import org.akvo.flow.injector.module.ApplicationModule;
+import org.akvo.flow.maps.di.DaggerOfflineFeatureComponent;
+import org.akvo.flow.maps.di.OfflineFeatureComponent;
+import org.akvo.flow.maps.di.OfflineFeatureComponentProvider;
+import org.akvo.flow.maps.di.OfflineFeatureModule;
 import org.akvo.flow.service.ApkUpdateWorker;
 import org.akvo.flow.service.FileChangeTrackingWorker;
 import org.akvo.flow.util.logging.LoggingHelper;
@@ -46,7 +50,7 @@ import javax.inject.Named;
 
 import timber.log.Timber;
 
-public class FlowApp extends MultiDexApplication {
+public class FlowApp extends MultiDexApplication implements OfflineFeatureComponentProvider {
 
     @Inject
     LoggingHelper loggingHelper;
@@ -61,6 +65,8 @@ public class FlowApp extends MultiDexApplication {
     @VisibleForTesting
     public ApplicationComponent applicationComponent;
 
+    private OfflineFeatureComponent offlineFeatureComponent;
+
     @Override
     public void onCreate() {
         super.onCreate();
@@ -104,12 +110,20 @@ public class FlowApp extends MultiDexApplication {
                 DaggerApplicationComponent.builder().applicationModule(new ApplicationModule(this))
                         .build();
         this.applicationComponent.inject(this);
+        this.offlineFeatureComponent = DaggerOfflineFeatureComponent.builder()
+                .offlineFeatureModule(new OfflineFeatureModule(this))
+                .build();
     }
 
     public ApplicationComponent getApplicationComponent() {
         return this.applicationComponent;
     }
 
+    @Override
+    public OfflineFeatureComponent getOfflineFeatureComponent() {
+        return offlineFeatureComponent;
+    }
+
     private void initLogging() {
         loggingHelper.init();
     }
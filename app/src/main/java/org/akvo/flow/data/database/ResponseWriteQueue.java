@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.data.database;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.akvo.flow.domain.QuestionResponse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import timber.log.Timber;
+
+/**
+ * Writes the responses of the form being filled in off the main thread.
+ * Changes are keyed by question: when a question changes several times before the pending
+ * changes are written, only its latest value is. Pending changes are written in a single
+ * transaction at most {@link #DEFAULT_DELAY_MS} after the first of them was queued.
+ * A write that fails is queued again, unless the question changed in the meantime, and retried
+ * later so that no response is lost. {@link #flush()} needs to be called before reading
+ * responses back from the database, and its result checked before relying on them.
+ */
+public class ResponseWriteQueue {
+
+    static final long DEFAULT_DELAY_MS = 500;
+
+    /**
+     * Writes attempted by {@link #flush()} before reporting a failure
+     */
+    static final int FLUSH_ATTEMPTS = 3;
+
+    private static final long MAX_RETRY_DELAY_MS = 30 * 1000L;
+
+    private final SurveyDbDataSource database;
+    private final ScheduledExecutorService executor;
+    private final long delayMs;
+
+    private final Object writeLock = new Object();
+    private final Map<String, Write> pending = new LinkedHashMap<>();
+    @Nullable
+    private ScheduledFuture<?> scheduledWrite;
+    private int failedWrites;
+    @Nullable
+    private Runnable onShutdown;
+
+    public ResponseWriteQueue(@NonNull SurveyDbDataSource database) {
+        this(database, Executors.newSingleThreadScheduledExecutor(), DEFAULT_DELAY_MS);
+    }
+
+    @VisibleForTesting
+    ResponseWriteQueue(@NonNull SurveyDbDataSource database,
+            @NonNull ScheduledExecutorService executor, long delayMs) {
+        this.database = database;
+        this.executor = executor;
+        this.delayMs = delayMs;
+    }
+
+    /**
+     * @param key the key of the question in the form, which includes the iteration for
+     *            questions in repeatable groups
+     */
+    public void save(@NonNull String key, @NonNull final QuestionResponse response) {
+        queue(key, new Write() {
+            @Override
+            public void apply(SurveyDbDataSource database) {
+                database.createOrUpdateSurveyResponse(response);
+            }
+        });
+    }
+
+    /**
+     * @param iteration the iteration of the response for questions in repeatable groups, null
+     *                  otherwise
+     */
+    public void delete(@NonNull String key, final long surveyInstanceId,
+            @NonNull final String questionId, @Nullable final String iteration) {
+        queue(key, new Write() {
+            @Override
+            public void apply(SurveyDbDataSource database) {
+                if (iteration != null) {
+                    database.deleteResponse(surveyInstanceId, questionId, iteration);
+                } else {
+                    database.deleteResponse(surveyInstanceId, questionId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Blocks until all the changes queued so far have been written, retrying a failed write a
+     * few times
+     *
+     * @return false if some changes could still not be written, they stay queued and are
+     * retried later
+     */
+    public boolean flush() {
+        for (int attempt = 0; attempt < FLUSH_ATTEMPTS; attempt++) {
+            if (writeOnExecutor()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes the pending changes and stops the writer thread. If they cannot be written yet the
+     * thread keeps retrying and only stops once they are.
+     *
+     * @param onShutdown run once the writer thread is done with the database, so it can be
+     *                   closed
+     */
+    public void shutdown(@NonNull Runnable onShutdown) {
+        if (flush()) {
+            executor.shutdown();
+            onShutdown.run();
+        } else {
+            Timber.w("Responses could not be written yet, keeping the writer until they are");
+            synchronized (this) {
+                this.onShutdown = onShutdown;
+                // the retry may have succeeded before the callback was set
+                schedule(0);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    private synchronized void queue(String key, Write write) {
+        // Re-inserting moves the key last so changes are applied in the order they were made
+        pending.remove(key);
+        pending.put(key, write);
+        schedule(delayMs);
+    }
+
+    private boolean writeOnExecutor() {
+        Future<Boolean> future;
+        try {
+            future = executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return writePending();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return writePending();
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return writePending();
+        } catch (ExecutionException e) {
+            Timber.e(e.getCause(), "Error writing responses");
+            return false;
+        }
+    }
+
+    private synchronized void schedule(long delay) {
+        if (scheduledWrite == null && !executor.isShutdown()) {
+            scheduledWrite = executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    writePending();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Failed writes are retried less and less often, a database which stays locked is not
+     * hammered
+     */
+    private synchronized void scheduleRetry() {
+        long delay = Math.min(delayMs << Math.min(failedWrites, 16), MAX_RETRY_DELAY_MS);
+        schedule(Math.max(delay, delayMs));
+    }
+
+    private synchronized void onWritten() {
+        failedWrites = 0;
+        if (onShutdown != null && pending.isEmpty()) {
+            Runnable callback = onShutdown;
+            onShutdown = null;
+            executor.shutdown();
+            callback.run();
+        }
+    }
+
+    /**
+     * Runs on the writer thread, or on the calling thread once it can no longer wait for it.
+     * The database is written without holding the queue lock so answering questions is never
+     * blocked by a write in progress.
+     *
+     * @return true if all the pending changes were written
+     */
+    private boolean writePending() {
+        synchronized (writeLock) {
+            final Map<String, Write> writes;
+            synchronized (this) {
+                if (scheduledWrite != null) {
+                    scheduledWrite.cancel(false);
+                    scheduledWrite = null;
+                }
+                if (pending.isEmpty()) {
+                    onWritten();
+                    return true;
+                }
+                writes = new LinkedHashMap<>(pending);
+                pending.clear();
+            }
+            try {
+                database.runInTransaction(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (Write write : writes.values()) {
+                            write.apply(database);
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                Timber.e(e, "Error writing %d responses, they will be retried", writes.size());
+                requeue(writes);
+                return false;
+            }
+            onWritten();
+            return true;
+        }
+    }
+
+    /**
+     * Puts back the changes of a failed write before the ones queued while it was running,
+     * which replace them
+     */
+    private synchronized void requeue(Map<String, Write> failed) {
+        failedWrites++;
+        Map<String, Write> newer = new LinkedHashMap<>(pending);
+        pending.clear();
+        pending.putAll(failed);
+        for (Map.Entry<String, Write> entry : newer.entrySet()) {
+            pending.remove(entry.getKey());
+            pending.put(entry.getKey(), entry.getValue());
+        }
+        scheduleRetry();
+    }
+
+    private interface Write {
+        void apply(SurveyDbDataSource database);
+    }
+}
@@ -84,6 +84,20 @@ public class SurveyDbDataSource {
         surveyDbAdapter.close();
     }
 
+    /**
+     * Runs all the database operations done by the given runnable in a single transaction,
+     * which is rolled back if it throws
+     */
+    public void runInTransaction(@NonNull Runnable runnable) {
+        BriteDatabase.Transaction transaction = briteSurveyDbAdapter.beginTransaction();
+        try {
+            runnable.run();
+            transaction.markSuccessful();
+        } finally {
+            transaction.end();
+        }
+    }
+
     private QuestionResponse.QuestionResponseBuilder getQuestionResponseBuilder(Cursor cursor,
           QuestionResponseColumns columns) {
         return new QuestionResponse.QuestionResponseBuilder()
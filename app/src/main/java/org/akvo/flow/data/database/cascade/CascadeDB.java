@@ -1,5 +1,5 @@
 /*
- * Copyright (C) 2010-2018 Stichting Akvo (Akvo Foundation)
+ * Copyright (C) 2010-2018,2021 Stichting Akvo (Akvo Foundation)
  *
  * This file is part of Akvo Flow.
  *
@@ -20,69 +20,213 @@
 
 package org.akvo.flow.data.database.cascade;
 
-import android.content.Context;
 import android.database.Cursor;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
+import android.util.LongSparseArray;
+import android.util.LruCache;
 import android.util.SparseArray;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.akvo.flow.database.CascadeSearchIndex;
 import org.akvo.flow.domain.Node;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
 import java.util.List;
 
+import timber.log.Timber;
+
+/**
+ * Read only access to a cascade resource. The children of the nodes which were looked up are
+ * kept in an LRU cache bounded by the total number of cached nodes, so going back and forth
+ * between levels, or several questions using the same resource, do not query the file again.
+ * Returned lists are shared and must not be modified.
+ * Nodes of any level can also be searched by name, see {@link CascadeSearchIndex}.
+ */
 public class CascadeDB {
 
     private static final String TABLE_NODE = "nodes";
+    private static final long ID_ROOT = 0;
+    /**
+     * Guards against parent loops in malformed resources
+     */
+    private static final int MAX_DEPTH = 64;
+    static final int DEFAULT_CACHE_SIZE = 20000;
 
     private final String mDBPath;
-    private final Context mContext;
     private final NodeMapper nodeMapper = new NodeMapper();
+    private final LruCache<Long, List<Node>> mChildren;
+
+    private volatile SQLiteDatabase mDatabase;
 
-    private SQLiteDatabase mDatabase;
-    private CascadeDatabaseHelper mHelper;
+    public CascadeDB(String dbPath) {
+        this(dbPath, DEFAULT_CACHE_SIZE);
+    }
 
-    public CascadeDB(Context context, String dbPath) {
-        mContext = context;
+    CascadeDB(String dbPath, int cacheSize) {
         mDBPath = dbPath;
+        mChildren = new LruCache<Long, List<Node>>(cacheSize) {
+            @Override
+            protected int sizeOf(Long parent, List<Node> children) {
+                // Leaves are cached too, so that they are not looked up again
+                return Math.max(1, children.size());
+            }
+        };
     }
 
     public void open() throws SQLException {
-        mHelper = new CascadeDatabaseHelper(mContext, mDBPath);
-        mDatabase = mHelper.getReadableDatabase();
+        mDatabase = SQLiteDatabase.openDatabase(mDBPath, null, SQLiteDatabase.OPEN_READONLY);
     }
 
     public void close() {
-        mHelper.close();
+        SQLiteDatabase database = mDatabase;
         mDatabase = null;
+        if (database != null) {
+            database.close();
+        }
+        mChildren.evictAll();
     }
 
     public boolean isOpen() {
         return mDatabase != null;
     }
 
+    public boolean hasSearchIndex() {
+        SQLiteDatabase database = mDatabase;
+        return database != null && CascadeSearchIndex.exists(database);
+    }
+
     public List<Node> getValues(long parent) {
-        List<Node> result = new ArrayList<>();
-        if (!isOpen()) {
-            return result;
+        List<Node> cached = mChildren.get(parent);
+        if (cached != null) {
+            return cached;
         }
-        Cursor c = mDatabase.query(TABLE_NODE, null,
+        SQLiteDatabase database = mDatabase;
+        if (database == null) {
+            return new ArrayList<>();
+        }
+        Cursor c = database.query(TABLE_NODE, null,
                 NodeColumns.PARENT + "=?",
                 new String[]{String.valueOf(parent)},
                 null, null, NodeColumns.NAME);
 
+        List<Node> result = new ArrayList<>();
         if (c != null) {
-            result = nodeMapper.mapNodes(c);
+            result = Collections.unmodifiableList(nodeMapper.mapNodes(c));
+            mChildren.put(parent, result);
+        }
+        return result;
+    }
+
+    /**
+     * Loads the children of all the children of the given node with a single query, so the
+     * level shown after the next selection is already cached. Meant to be run off the main
+     * thread: the nodes which were cached in the meantime are left untouched.
+     */
+    public void prefetchNextLevel(long parent) {
+        SQLiteDatabase database = mDatabase;
+        if (database == null) {
+            return;
+        }
+        try {
+            List<Node> children = getValues(parent);
+            if (children.isEmpty()) {
+                return;
+            }
+            Cursor c = database.query(TABLE_NODE, null,
+                    NodeColumns.PARENT + " IN (SELECT " + NodeColumns.ID + " FROM " + TABLE_NODE
+                            + " WHERE " + NodeColumns.PARENT + "=?)",
+                    new String[]{String.valueOf(parent)},
+                    null, null, NodeColumns.PARENT + ", " + NodeColumns.NAME);
+            if (c == null) {
+                return;
+            }
+            SparseArray<List<Node>> grandChildren = nodeMapper.nodesAsMap(c);
+            for (Node child : children) {
+                long childId = child.getId();
+                if (mChildren.get(childId) == null) {
+                    List<Node> nodes = grandChildren.get((int) childId);
+                    mChildren.put(childId, nodes == null ? Collections.<Node>emptyList()
+                            : Collections.unmodifiableList(nodes));
+                }
+            }
+        } catch (IllegalStateException e) {
+            // The resource was closed while prefetching
+            Timber.d("Cascade resource closed, skipping prefetch of %d", parent);
+        }
+    }
+
+    /**
+     * Finds the nodes of any level whose name starts with the given text, ignoring case
+     *
+     * @return the path from the first level down to each node found, ordered by node name
+     */
+    @NonNull
+    public List<List<Node>> search(@NonNull String prefix, int limit) {
+        List<List<Node>> result = new ArrayList<>();
+        SQLiteDatabase database = mDatabase;
+        if (database == null || prefix.isEmpty()) {
+            return result;
+        }
+        // A range rather than LIKE so the NOCASE index is used whatever the column collation
+        Cursor c = database.query(TABLE_NODE, null,
+                NodeColumns.NAME + " >= ? COLLATE NOCASE AND "
+                        + NodeColumns.NAME + " < ? COLLATE NOCASE",
+                new String[]{prefix, prefix + Character.MAX_VALUE},
+                null, null, NodeColumns.NAME + " COLLATE NOCASE", String.valueOf(limit));
+        if (c == null) {
+            return result;
+        }
+        LongSparseArray<Node> ancestors = new LongSparseArray<>();
+        for (Node node : nodeMapper.mapNodes(c)) {
+            result.add(getPath(database, node, ancestors));
         }
         return result;
     }
 
+    private List<Node> getPath(SQLiteDatabase database, Node node,
+            LongSparseArray<Node> ancestors) {
+        LinkedList<Node> path = new LinkedList<>();
+        path.add(node);
+        long parent = node.getParent();
+        while (parent != ID_ROOT && path.size() < MAX_DEPTH) {
+            Node ancestor = ancestors.get(parent);
+            if (ancestor == null) {
+                ancestor = getNode(database, parent);
+                if (ancestor == null) {
+                    break;
+                }
+                ancestors.put(parent, ancestor);
+            }
+            path.addFirst(ancestor);
+            parent = ancestor.getParent();
+        }
+        return path;
+    }
+
+    @Nullable
+    private Node getNode(SQLiteDatabase database, long id) {
+        Cursor c = database.query(TABLE_NODE, null, NodeColumns.ID + "=?",
+                new String[]{String.valueOf(id)}, null, null, null);
+        if (c == null) {
+            return null;
+        }
+        List<Node> nodes = nodeMapper.mapNodes(c);
+        return nodes.isEmpty() ? null : nodes.get(0);
+    }
+
+    @NonNull
     public SparseArray<List<Node>> getValues() {
         SparseArray<List<Node>> result = new SparseArray<>();
-        if (!isOpen()) {
+        SQLiteDatabase database = mDatabase;
+        if (database == null) {
             return result;
         }
-        Cursor c = mDatabase.query(TABLE_NODE, null, null, null, null, null, NodeColumns.NAME);
+        Cursor c = database.query(TABLE_NODE, null, null, null, null, null, NodeColumns.NAME);
 
         if (c != null) {
             result = nodeMapper.nodesAsMap(c);
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.data.database.cascade;
+
+import android.database.SQLException;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.akvo.flow.database.CascadeSearchIndex;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import timber.log.Timber;
+
+/**
+ * Shares one read only connection, and its cache, per cascade resource file between all the
+ * questions using it. Connections are reference counted: each {@link #acquire(String)} needs a
+ * matching {@link #release(CascadeDB)} and the file is closed once nothing uses it anymore.
+ */
+@Singleton
+public class CascadeResources {
+
+    private final Map<String, CascadeDB> databases = new HashMap<>();
+    private final Map<CascadeDB, Integer> references = new HashMap<>();
+    private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor();
+
+    @Inject
+    public CascadeResources() {
+    }
+
+    /**
+     * @return the open resource, or null if the file could not be opened
+     */
+    @Nullable
+    public synchronized CascadeDB acquire(@NonNull String dbPath) {
+        CascadeDB database = databases.get(dbPath);
+        if (database == null) {
+            database = new CascadeDB(dbPath);
+            try {
+                database.open();
+            } catch (SQLException e) {
+                Timber.e(e, "Could not open cascade resource %s", dbPath);
+                return null;
+            }
+            databases.put(dbPath, database);
+            references.put(database, 0);
+            if (!database.hasSearchIndex()) {
+                createSearchIndex(dbPath);
+            }
+        }
+        //noinspection ConstantConditions
+        references.put(database, references.get(database) + 1);
+        return database;
+    }
+
+    public synchronized void release(@NonNull CascadeDB database) {
+        Integer count = references.get(database);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            references.put(database, count - 1);
+            return;
+        }
+        references.remove(database);
+        databases.values().remove(database);
+        database.close();
+    }
+
+    /**
+     * Resources installed before they were indexed when extracted get their index the first
+     * time they are used. Searching works meanwhile, only slower.
+     */
+    private void createSearchIndex(@NonNull final String dbPath) {
+        prefetchExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    CascadeSearchIndex.create(new File(dbPath));
+                } catch (SQLException e) {
+                    Timber.e(e, "Could not index cascade resource %s", dbPath);
+                }
+            }
+        });
+    }
+
+    /**
+     * Caches, in the background, the level which will be shown once one of the children of the
+     * given node is selected
+     */
+    public void prefetchNextLevel(@NonNull final CascadeDB database, final long parent) {
+        prefetchExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                database.prefetchNextLevel(parent);
+            }
+        });
+    }
+}
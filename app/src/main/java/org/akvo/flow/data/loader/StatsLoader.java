@@ -25,13 +25,16 @@ import android.database.Cursor;
 import android.database.sqlite.SQLiteOpenHelper;
 
 import org.akvo.flow.data.loader.base.AsyncLoader;
+import org.akvo.flow.data.loader.models.FormStats;
 import org.akvo.flow.data.loader.models.Stats;
-import org.akvo.flow.database.RecordColumns;
 import org.akvo.flow.database.SurveyDbAdapter;
-import org.akvo.flow.database.SurveyDbAdapter.RecordQuery;
-import org.akvo.flow.database.tables.Tables;
+import org.akvo.flow.database.SurveyDbAdapter.DataPointCountQuery;
+import org.akvo.flow.database.SurveyDbAdapter.FormInstanceCountQuery;
+import org.akvo.flow.database.SurveyInstanceStatus;
 
 import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class StatsLoader extends AsyncLoader<Stats> {
 
@@ -52,18 +55,6 @@ public class StatsLoader extends AsyncLoader<Stats> {
         database.open();
         Stats stats = new Stats();
 
-        Cursor c = queryRecords(database, 0);
-        if (c != null) {
-            stats.mTotal = c.getCount();
-            c.close();
-        }
-
-        c = queryRecords(database, System.currentTimeMillis() - WEEK_IN_MS);
-        if (c != null) {
-            stats.mThisWeek = c.getCount();
-            c.close();
-        }
-
         // Setup a calendar with last midnight's date
         Calendar calendar = Calendar.getInstance();
         calendar.set(Calendar.HOUR_OF_DAY, 0);
@@ -71,22 +62,55 @@ public class StatsLoader extends AsyncLoader<Stats> {
         calendar.set(Calendar.SECOND, 0);
         calendar.set(Calendar.MILLISECOND, 0);
 
-        c = queryRecords(database, calendar.getTimeInMillis());
+        Cursor c = database.getDataPointCounts(mSurveyGroupId,
+                System.currentTimeMillis() - WEEK_IN_MS, calendar.getTimeInMillis());
+        if (c != null) {
+            if (c.moveToFirst()) {
+                stats.mTotal = c.getInt(DataPointCountQuery.TOTAL);
+                stats.mThisWeek = c.getInt(DataPointCountQuery.THIS_WEEK);
+                stats.mToday = c.getInt(DataPointCountQuery.TODAY);
+            }
+            c.close();
+        }
+
+        c = database.getFormInstanceCounts(mSurveyGroupId);
         if (c != null) {
-            stats.mToday = c.getCount();
+            Map<String, FormStats> forms = new LinkedHashMap<>();
+            while (c.moveToNext()) {
+                String formId = c.getString(FormInstanceCountQuery.SURVEY_ID);
+                FormStats form = forms.get(formId);
+                if (form == null) {
+                    form = new FormStats(c.getString(FormInstanceCountQuery.NAME));
+                    forms.put(formId, form);
+                }
+                addInstances(form, c.getInt(FormInstanceCountQuery.STATUS),
+                        c.getInt(FormInstanceCountQuery.INSTANCES));
+            }
             c.close();
+            stats.mForms.addAll(forms.values());
         }
         database.close();
         return stats;
     }
 
-    private Cursor queryRecords(SurveyDbAdapter db, long minDate) {
-        return db.query(Tables.RECORD, RecordQuery.PROJECTION,
-                RecordColumns.SURVEY_GROUP_ID + " = ? AND " + RecordColumns.LAST_MODIFIED + " > ?",
-                new String[] {
-                        String.valueOf(mSurveyGroupId),
-                        String.valueOf(minDate)
-                },
-                null, null, null);
+    /**
+     * Groups the statuses the same way the form instance list does
+     */
+    private void addInstances(FormStats form, int status, int instances) {
+        switch (status) {
+            case SurveyInstanceStatus.SAVED:
+            case SurveyInstanceStatus.SUBMIT_REQUESTED:
+                form.mSaved += instances;
+                break;
+            case SurveyInstanceStatus.SUBMITTED:
+                form.mSubmitted += instances;
+                break;
+            case SurveyInstanceStatus.UPLOADED:
+            case SurveyInstanceStatus.DOWNLOADED:
+                form.mUploaded += instances;
+                break;
+            default:
+                break;
+        }
     }
 }
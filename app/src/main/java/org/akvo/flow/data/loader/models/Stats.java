@@ -20,8 +20,12 @@
 
 package org.akvo.flow.data.loader.models;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class Stats {
     public int mTotal;
     public int mThisWeek;
     public int mToday;
+    public final List<FormStats> mForms = new ArrayList<>();
 }
@@ -29,6 +29,7 @@ import com.squareup.sqlbrite2.BriteDatabase;
 import org.akvo.flow.app.FlowApp;
 import org.akvo.flow.broadcast.BootReceiver;
 import org.akvo.flow.broadcast.DataTimeoutReceiver;
+import org.akvo.flow.data.database.cascade.CascadeResources;
 import org.akvo.flow.data.entity.time.TimeMapper;
 import org.akvo.flow.database.SurveyLanguagesDataSource;
 import org.akvo.flow.domain.executor.CoroutineDispatcher;
@@ -112,6 +113,8 @@ public interface ApplicationComponent {
 
     SurveyLanguagesDataSource provideSurveyLanguageDataSource();
 
+    CascadeResources cascadeResources();
+
     void inject(FileChangeTrackingWorker fileChangeTrackingWorker);
 
     void inject(SurveyDownloadWorker surveyDownloadWorker);
@@ -57,6 +57,7 @@ import org.akvo.flow.data.repository.TimeDataRepository;
 import org.akvo.flow.data.repository.UserDataRepository;
 import org.akvo.flow.database.tables.DataPointDownloadTable;
 import org.akvo.flow.database.DatabaseHelper;
+import org.akvo.flow.database.QueryPlanAdvisor;
 import org.akvo.flow.database.tables.FormUpdateNotifiedTable;
 import org.akvo.flow.database.tables.LanguageTable;
 import org.akvo.flow.database.SurveyLanguagesDataSource;
@@ -213,7 +214,9 @@ public class ApplicationModule {
     @Provides
     @Singleton
     public SQLiteOpenHelper provideOpenHelper() {
-        return new DatabaseHelper(application, new LanguageTable(), new DataPointDownloadTable(), new FormUpdateNotifiedTable(), new QuestionGroupTable());
+        return new DatabaseHelper(application, new LanguageTable(), new DataPointDownloadTable(),
+                new FormUpdateNotifiedTable(), new QuestionGroupTable(),
+                BuildConfig.DEBUG ? new QueryPlanAdvisor() : null);
     }
 
     @Provides
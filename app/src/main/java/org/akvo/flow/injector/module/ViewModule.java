@@ -43,6 +43,8 @@ import org.akvo.flow.domain.interactor.UnSyncedTransmissionsExist;
 import org.akvo.flow.domain.interactor.UploadSurveyDataPoints;
 import org.akvo.flow.domain.interactor.UseCase;
 import org.akvo.flow.domain.interactor.apk.GetApkData;
+import org.akvo.flow.domain.interactor.datapoints.GetDataPointClusters;
+import org.akvo.flow.domain.interactor.datapoints.GetDataPointsBefore;
 import org.akvo.flow.domain.interactor.datapoints.GetSavedDataPoints;
 import org.akvo.flow.domain.interactor.forms.DownloadForm;
 import org.akvo.flow.domain.interactor.forms.ReloadForms;
@@ -73,6 +75,18 @@ public class ViewModule {
         return getSavedDataPoints;
     }
 
+    @Provides
+    @Named("getDataPointClusters")
+    UseCase provideGetDataPointClustersUseCase(GetDataPointClusters getDataPointClusters) {
+        return getDataPointClusters;
+    }
+
+    @Provides
+    @Named("getDataPointsBefore")
+    UseCase provideGetDataPointsBeforeUseCase(GetDataPointsBefore getDataPointsBefore) {
+        return getDataPointsBefore;
+    }
+
     @Provides
     @Named("getUserSettings")
     UseCase provideGetUserSettings(GetUserSettings getUserSettings) {
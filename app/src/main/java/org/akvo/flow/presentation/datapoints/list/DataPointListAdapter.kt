@@ -37,6 +37,13 @@ internal class DataPointListAdapter(context: Context?) : BaseAdapter() {
     private val dataPoints: MutableList<ListDataPoint> = mutableListOf()
     private var displayIds: Boolean = false
 
+    /**
+     * Record ids are strings, each one gets its own item id the first time it is displayed.
+     * Only the ids of the displayed records are kept, and ids are never handed out twice.
+     */
+    private val itemIds: MutableMap<String, Long> = HashMap()
+    private var nextItemId: Long = 0
+
     override fun getCount(): Int {
         return dataPoints.size
     }
@@ -46,7 +53,11 @@ internal class DataPointListAdapter(context: Context?) : BaseAdapter() {
     }
 
     override fun getItemId(position: Int): Long {
-        return position.toLong()
+        return itemIds.getOrPut(dataPoints[position].id) { nextItemId++ }
+    }
+
+    override fun hasStableIds(): Boolean {
+        return true
     }
 
     override fun getView(
@@ -107,10 +118,22 @@ internal class DataPointListAdapter(context: Context?) : BaseAdapter() {
         }
     }
 
-    fun setDataPoints(dataPoints: List<ListDataPoint>?) {
+    /**
+     * Live queries emit again for any change in the tables, so the list is only redrawn if
+     * the items have actually changed
+     *
+     * @return true if the list has changed
+     */
+    fun setDataPoints(dataPoints: List<ListDataPoint>): Boolean {
+        if (this.dataPoints == dataPoints) {
+            return false
+        }
         this.dataPoints.clear()
-        this.dataPoints.addAll(dataPoints!!)
+        this.dataPoints.addAll(dataPoints)
+        val displayedIds = dataPoints.mapTo(HashSet()) { it.id }
+        itemIds.keys.retainAll(displayedIds)
         notifyDataSetChanged()
+        return true
     }
 
     fun displayIds(display: Boolean) {
@@ -37,6 +37,7 @@ import android.view.MenuInflater
 import android.view.MenuItem
 import android.view.View
 import android.view.ViewGroup
+import android.widget.AbsListView
 import android.widget.AdapterView
 import android.widget.ImageView
 import android.widget.ListView
@@ -153,6 +154,20 @@ class DataPointsListFragment : Fragment(), LocationListener, AdapterView.OnItemC
         mAdapter = DataPointListAdapter(activity)
         listView.adapter = mAdapter
         listView.onItemClickListener = this
+        listView.setOnScrollListener(object : AbsListView.OnScrollListener {
+            override fun onScrollStateChanged(view: AbsListView, scrollState: Int) {
+                // EMPTY
+            }
+
+            override fun onScroll(
+                view: AbsListView,
+                firstVisibleItem: Int,
+                visibleItemCount: Int,
+                totalItemCount: Int
+            ) {
+                presenter.onListScrolled(firstVisibleItem, visibleItemCount, totalItemCount)
+            }
+        })
         progressBar = view.findViewById(R.id.progress)
         updateProgressDrawable()
 
@@ -369,8 +384,13 @@ class DataPointsListFragment : Fragment(), LocationListener, AdapterView.OnItemC
         presenter.loadDataPoints(mLatitude, mLongitude)
     }
 
-    override fun displayData(listDataPoints: List<ListDataPoint>) {
-        mAdapter.setDataPoints(listDataPoints)
+    override fun displayData(listDataPoints: List<ListDataPoint>, positionShift: Int) {
+        val firstVisiblePosition = listView.firstVisiblePosition
+        val top = listView.getChildAt(0)?.top ?: 0
+        if (mAdapter.setDataPoints(listDataPoints) && positionShift != 0) {
+            val position = (firstVisiblePosition + positionShift).coerceAtLeast(0)
+            listView.setSelectionFromTop(position, top)
+        }
     }
 
     override fun showErrorMissingLocation() {
@@ -30,6 +30,7 @@ import org.akvo.flow.domain.entity.DownloadResult
 import org.akvo.flow.domain.interactor.DefaultObserver
 import org.akvo.flow.domain.interactor.DownloadDataPoints
 import org.akvo.flow.domain.interactor.UseCase
+import org.akvo.flow.domain.interactor.datapoints.GetDataPointsBefore
 import org.akvo.flow.domain.interactor.datapoints.GetSavedDataPoints
 import org.akvo.flow.domain.util.Constants
 import org.akvo.flow.presentation.Presenter
@@ -42,6 +43,7 @@ import javax.inject.Named
 
 class DataPointsListPresenter @Inject internal constructor(
     @param:Named("getSavedDataPoints") private val getSavedDataPoints: UseCase,
+    @param:Named("getDataPointsBefore") private val getDataPointsBefore: UseCase,
     private val mapper: ListDataPointMapper, private val downloadDataPoints: DownloadDataPoints,
     @param:Named("checkDeviceNotification") private val checkDeviceNotification: UseCase,
     @param:Named("uploadSync") private val upload: UseCase
@@ -55,6 +57,17 @@ class DataPointsListPresenter @Inject internal constructor(
     private var job = SupervisorJob()
     private val uiScope = CoroutineScope(Dispatchers.Main + job)
 
+    /**
+     * The list only keeps a window of at most MAX_WINDOW_SIZE datapoints in memory, starting at
+     * windowStart, which moves by PAGE_SIZE datapoints as the user scrolls
+     */
+    private var windowStart: DataPoint? = null
+    private var windowSize = PAGE_SIZE * 2
+    private var window: List<DataPoint> = emptyList()
+    private var loadingPage = false
+    private var pendingPositionShift = 0
+    private var searching = false
+
     fun setView(view: DataPointsListView) {
         this.view = view
     }
@@ -75,6 +88,7 @@ class DataPointsListPresenter @Inject internal constructor(
     fun loadDataPoints(latitude: Double?, longitude: Double?) {
         this.latitude = latitude
         this.longitude = longitude
+        searching = false
         getSavedDataPoints.dispose()
         if (surveyGroup != null) {
             val params: MutableMap<String, Any?> = HashMap(8)
@@ -82,18 +96,29 @@ class DataPointsListPresenter @Inject internal constructor(
             params[GetSavedDataPoints.KEY_ORDER_BY] = orderBy
             params[GetSavedDataPoints.KEY_LATITUDE] = latitude
             params[GetSavedDataPoints.KEY_LONGITUDE] = longitude
+            if (isPaged()) {
+                params[GetSavedDataPoints.KEY_PAGE_START] = windowStart
+                params[GetSavedDataPoints.KEY_PAGE_SIZE] = windowSize
+            } else if (isNearest()) {
+                params[GetSavedDataPoints.KEY_NEAREST_LIMIT] = windowSize
+            }
             getSavedDataPoints.execute<List<DataPoint>>(
                 object : DefaultObserver<List<DataPoint>>() {
                     override fun onError(e: Throwable) {
                         Timber.e(e, "Error loading saved datapoints")
+                        window = emptyList()
+                        loadingPage = false
                         view?.displayData(emptyList())
                         view?.showNoDataPoints(surveyGroup!!.isMonitored)
                     }
 
                     override fun onNext(dataPoints: List<DataPoint>) {
+                        window = dataPoints
+                        loadingPage = false
                         val mapDataPoints =
                             mapper.transform(dataPoints, latitude, longitude)
-                        view?.displayData(mapDataPoints)
+                        view?.displayData(mapDataPoints, pendingPositionShift)
+                        pendingPositionShift = 0
                         if (mapDataPoints.isEmpty()) {
                             view?.showNoDataPoints(surveyGroup!!.isMonitored)
                         }
@@ -106,8 +131,85 @@ class DataPointsListPresenter @Inject internal constructor(
         }
     }
 
+    /**
+     * Moves the window when the list is scrolled close to one of its ends
+     */
+    fun onListScrolled(firstVisibleItem: Int, visibleItemCount: Int, totalItemCount: Int) {
+        if (!(isPaged() || isNearest()) || searching || loadingPage || totalItemCount == 0) {
+            return
+        }
+        val lastVisibleItem = firstVisibleItem + visibleItemCount
+        if (lastVisibleItem >= totalItemCount - PREFETCH_DISTANCE && window.size >= windowSize) {
+            loadNextPage()
+        } else if (firstVisibleItem <= PREFETCH_DISTANCE && windowStart != null) {
+            loadPreviousPage()
+        }
+    }
+
+    /**
+     * Datapoints sorted by distance can not be paged by key, the number of closest datapoints
+     * loaded grows instead
+     */
+    private fun loadNextPage() {
+        if (isNearest() || windowSize + PAGE_SIZE <= MAX_WINDOW_SIZE) {
+            windowSize += PAGE_SIZE
+        } else {
+            windowStart = window[PAGE_SIZE]
+            pendingPositionShift = -PAGE_SIZE
+        }
+        loadingPage = true
+        loadDataPoints(latitude, longitude)
+    }
+
+    private fun loadPreviousPage() {
+        val start = windowStart ?: return
+        loadingPage = true
+        val params: MutableMap<String, Any?> = HashMap(8)
+        params[GetDataPointsBefore.KEY_SURVEY_GROUP_ID] = surveyGroup!!.id
+        params[GetDataPointsBefore.KEY_ORDER_BY] = orderBy
+        params[GetDataPointsBefore.KEY_END] = start
+        params[GetDataPointsBefore.KEY_PAGE_SIZE] = PAGE_SIZE
+        getDataPointsBefore.execute<List<DataPoint>>(
+            object : DefaultObserver<List<DataPoint>>() {
+                override fun onError(e: Throwable) {
+                    Timber.e(e, "Error loading previous datapoints")
+                    loadingPage = false
+                }
+
+                override fun onNext(previous: List<DataPoint>) {
+                    windowStart = if (previous.size < PAGE_SIZE) null else previous[0]
+                    pendingPositionShift = previous.size
+                    windowSize = (windowSize + previous.size).coerceAtMost(MAX_WINDOW_SIZE)
+                    loadDataPoints(latitude, longitude)
+                }
+            },
+            params
+        )
+    }
+
+    private fun isPaged(): Boolean {
+        return orderBy == ConstantUtil.ORDER_BY_DATE || orderBy == ConstantUtil.ORDER_BY_NAME
+                || orderBy == ConstantUtil.ORDER_BY_STATUS
+    }
+
+    private fun isNearest(): Boolean {
+        return orderBy == ConstantUtil.ORDER_BY_DISTANCE && latitude != null && longitude != null
+    }
+
+    private fun resetWindow() {
+        getDataPointsBefore.dispose()
+        windowStart = null
+        windowSize = PAGE_SIZE * 2
+        window = emptyList()
+        loadingPage = false
+        pendingPositionShift = 0
+    }
+
     fun getFilteredDataPoints(filter: String?) {
+        searching = true
+        loadingPage = false
         getSavedDataPoints.dispose()
+        getDataPointsBefore.dispose()
         if (surveyGroup != null) {
             val params: MutableMap<String, Any?> = HashMap(8)
             params[GetSavedDataPoints.KEY_SURVEY_GROUP_ID] = surveyGroup!!.id
@@ -141,6 +243,7 @@ class DataPointsListPresenter @Inject internal constructor(
 
     override fun destroy() {
         getSavedDataPoints.dispose()
+        getDataPointsBefore.dispose()
         checkDeviceNotification.dispose()
         upload.dispose()
         uiScope.coroutineContext.cancelChildren()
@@ -181,6 +284,7 @@ class DataPointsListPresenter @Inject internal constructor(
                 }
                 else -> {
                     orderBy = order
+                    resetWindow()
                     loadDataPoints(latitude, longitude)
                 }
             }
@@ -196,6 +300,7 @@ class DataPointsListPresenter @Inject internal constructor(
         uiScope.coroutineContext.cancelChildren()
         view?.hideLoading()
         onDataReady(surveyGroup)
+        resetWindow()
         loadDataPoints(latitude, longitude)
     }
 
@@ -236,4 +341,10 @@ class DataPointsListPresenter @Inject internal constructor(
         view?.displayData(emptyList())
         view?.showNoSurveySelected()
     }
+
+    companion object {
+        private const val PAGE_SIZE = 50
+        private const val MAX_WINDOW_SIZE = 200
+        private const val PREFETCH_DISTANCE = 10
+    }
 }
@@ -28,7 +28,11 @@ interface DataPointsListView {
     fun showDownloadedResults(numberOfNewDataPoints: Int)
     fun showErrorNoNetwork()
     fun showErrorSync()
-    fun displayData(listDataPoints: List<ListDataPoint>)
+    /**
+     * @param positionShift number of items added (positive) or removed (negative) at the top of
+     * the list since the previous call, to keep the visible items in place
+     */
+    fun displayData(listDataPoints: List<ListDataPoint>, positionShift: Int = 0)
     fun showErrorMissingLocation()
     fun showNoSurveySelected()
     fun showOrderByDialog(orderBy: Int)
@@ -37,13 +37,15 @@ import org.akvo.flow.injector.component.ApplicationComponent
 import org.akvo.flow.injector.component.DaggerViewComponent
 import org.akvo.flow.maps.presentation.MapBoxMapItemListViewImpl
 import org.akvo.flow.maps.presentation.MapReadyCallback
+import org.akvo.flow.maps.presentation.ViewportListener
 import org.akvo.flow.presentation.datapoints.DataPointSyncSnackBarManager
 import org.akvo.flow.tracking.TrackingListener
 import org.akvo.flow.ui.Navigator
 import org.akvo.flow.util.ConstantUtil
 import javax.inject.Inject
 
-class DataPointsMapFragment : Fragment(), DataPointsMapView, MapReadyCallback {
+class DataPointsMapFragment : Fragment(), DataPointsMapView, MapReadyCallback,
+    ViewportListener {
     @Inject
     lateinit var dataPointSyncSnackBarManager: DataPointSyncSnackBarManager
 
@@ -91,6 +93,7 @@ class DataPointsMapFragment : Fragment(), DataPointsMapView, MapReadyCallback {
         super.onViewCreated(view, savedInstanceState)
         mapView = view.findViewById(R.id.mapView)
         mapView.onCreate(savedInstanceState)
+        mapView.setViewportListener(this)
         mapView.getMapAsyncWithCallback(this)
     }
 
@@ -255,7 +258,17 @@ class DataPointsMapFragment : Fragment(), DataPointsMapView, MapReadyCallback {
     }
 
     override fun onMapReady() {
-        presenter.loadDataPoints()
+        // datapoints are loaded once the visible area is known, see onViewportChanged
+    }
+
+    override fun onViewportChanged(
+        south: Double,
+        west: Double,
+        north: Double,
+        east: Double,
+        zoom: Double
+    ) {
+        presenter.onViewportChanged(south, west, north, east, zoom)
     }
 
     companion object {
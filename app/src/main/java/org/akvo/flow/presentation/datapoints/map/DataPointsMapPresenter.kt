@@ -26,11 +26,14 @@ import kotlinx.coroutines.cancelChildren
 import kotlinx.coroutines.launch
 import org.akvo.flow.utils.entity.SurveyGroup
 import org.akvo.flow.domain.entity.DataPoint
+import org.akvo.flow.domain.entity.DataPointCluster
 import org.akvo.flow.domain.entity.DownloadResult
 import org.akvo.flow.domain.entity.DownloadResult.ResultCode
+import org.akvo.flow.domain.entity.GeoBounds
 import org.akvo.flow.domain.interactor.DefaultObserver
 import org.akvo.flow.domain.interactor.DownloadDataPoints
 import org.akvo.flow.domain.interactor.UseCase
+import org.akvo.flow.domain.interactor.datapoints.GetDataPointClusters
 import org.akvo.flow.domain.interactor.datapoints.GetSavedDataPoints
 import org.akvo.flow.domain.util.Constants
 import org.akvo.flow.presentation.Presenter
@@ -42,6 +45,7 @@ import javax.inject.Named
 
 class DataPointsMapPresenter @Inject internal constructor(
     @param:Named("getSavedDataPoints") private val getSavedDataPoints: UseCase,
+    @param:Named("getDataPointClusters") private val getDataPointClusters: UseCase,
     private val downloadDataPoints: DownloadDataPoints,
     @param:Named("checkDeviceNotification") private val checkDeviceNotification: UseCase,
     @param:Named("uploadSync") private val upload: UseCase,
@@ -52,6 +56,18 @@ class DataPointsMapPresenter @Inject internal constructor(
     private var job = SupervisorJob()
     private val uiScope = CoroutineScope(Dispatchers.Main + job)
 
+    /**
+     * Area for which datapoints are loaded, larger than the visible one so that small camera
+     * moves do not need a new query
+     */
+    private var loadedBounds: GeoBounds? = null
+    private var loadedZoom: Double? = null
+
+    /**
+     * Whether the datapoints of the loaded area are loaded one by one instead of clustered
+     */
+    private var loadingDataPoints = false
+
     fun setView(view: DataPointsMapView) {
         this.view = view
     }
@@ -70,20 +86,48 @@ class DataPointsMapPresenter @Inject internal constructor(
         }
     }
 
+    fun onViewportChanged(south: Double, west: Double, north: Double, east: Double, zoom: Double) {
+        val visibleBounds = GeoBounds(south, west, north, east)
+        if (loadedBounds?.contains(visibleBounds) != true
+            || loadedZoom?.toInt() != zoom.toInt()) {
+            loadedBounds = visibleBounds.expand(VIEWPORT_MARGIN)
+            loadedZoom = zoom
+            loadDataPoints()
+        }
+    }
+
+    /**
+     * Displays the clusters of the loaded area when it holds too many datapoints, the datapoints
+     * themselves otherwise
+     */
     fun loadDataPoints() {
+        getDataPointClusters.dispose()
         getSavedDataPoints.dispose()
+        loadingDataPoints = false
+        val bounds = loadedBounds ?: return
+        val zoom = loadedZoom ?: return
         if (surveyGroup != null) {
-            val params: MutableMap<String, Any> = HashMap(2)
-            params[GetSavedDataPoints.KEY_SURVEY_GROUP_ID] = surveyGroup!!.id
-            getSavedDataPoints.execute<List<DataPoint>>(
-                object : DefaultObserver<List<DataPoint>>() {
+            val params: MutableMap<String, Any> = HashMap(3)
+            params[GetDataPointClusters.KEY_SURVEY_GROUP_ID] = surveyGroup!!.id
+            params[GetDataPointClusters.KEY_BOUNDS] = bounds
+            params[GetDataPointClusters.KEY_ZOOM] = zoom
+            getDataPointClusters.execute<List<DataPointCluster>>(
+                object : DefaultObserver<List<DataPointCluster>>() {
                     override fun onError(e: Throwable) {
-                        Timber.e(e, "Error loading saved datapoints")
-                        view?.displayDataPoints(featureMapper.getFeatureCollection(ArrayList()))
+                        Timber.e(e, "Error loading datapoint clusters")
+                        loadSavedDataPoints(bounds)
                     }
 
-                    override fun onNext(dataPoints: List<DataPoint>) {
-                        view?.displayDataPoints(featureMapper.getFeatureCollection(dataPoints))
+                    override fun onNext(clusters: List<DataPointCluster>) {
+                        if (clusters.isEmpty()) {
+                            loadSavedDataPoints(bounds)
+                        } else {
+                            getSavedDataPoints.dispose()
+                            loadingDataPoints = false
+                            view?.displayDataPointClusters(
+                                featureMapper.getClusterFeatureCollection(clusters)
+                            )
+                        }
                     }
                 },
                 params
@@ -91,7 +135,31 @@ class DataPointsMapPresenter @Inject internal constructor(
         }
     }
 
+    private fun loadSavedDataPoints(bounds: GeoBounds) {
+        if (loadingDataPoints || surveyGroup == null) {
+            return
+        }
+        loadingDataPoints = true
+        val params: MutableMap<String, Any> = HashMap(2)
+        params[GetSavedDataPoints.KEY_SURVEY_GROUP_ID] = surveyGroup!!.id
+        params[GetSavedDataPoints.KEY_BOUNDS] = bounds
+        getSavedDataPoints.execute<List<DataPoint>>(
+            object : DefaultObserver<List<DataPoint>>() {
+                override fun onError(e: Throwable) {
+                    Timber.e(e, "Error loading saved datapoints")
+                    view?.displayDataPoints(featureMapper.getFeatureCollection(ArrayList()))
+                }
+
+                override fun onNext(dataPoints: List<DataPoint>) {
+                    view?.displayDataPoints(featureMapper.getFeatureCollection(dataPoints))
+                }
+            },
+            params
+        )
+    }
+
     override fun destroy() {
+        getDataPointClusters.dispose()
         getSavedDataPoints.dispose()
         checkDeviceNotification.dispose()
         upload.dispose()
@@ -99,6 +167,7 @@ class DataPointsMapPresenter @Inject internal constructor(
     }
 
     fun onNewSurveySelected(surveyGroup: SurveyGroup?) {
+        getDataPointClusters.dispose()
         getSavedDataPoints.dispose()
         uiScope.coroutineContext.cancelChildren()
         view?.hideProgress()
@@ -161,4 +230,8 @@ class DataPointsMapPresenter @Inject internal constructor(
             }
         }, params)
     }
+
+    companion object {
+        private const val VIEWPORT_MARGIN = 0.5
+    }
 }
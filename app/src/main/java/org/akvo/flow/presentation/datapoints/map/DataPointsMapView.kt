@@ -25,6 +25,7 @@ interface DataPointsMapView {
     fun showProgress()
     fun hideProgress()
     fun displayDataPoints(dataPoints: FeatureCollection?)
+    fun displayDataPointClusters(clusters: FeatureCollection)
     fun showDownloadedResults(numberOfNewItems: Int)
     fun showErrorAssignmentMissing()
     fun showErrorNoNetwork()
@@ -24,6 +24,7 @@ import com.mapbox.geojson.FeatureCollection;
 import com.mapbox.geojson.Point;
 
 import org.akvo.flow.domain.entity.DataPoint;
+import org.akvo.flow.domain.entity.DataPointCluster;
 import org.akvo.flow.maps.Constants;
 import org.akvo.flow.presentation.datapoints.DisplayNameMapper;
 
@@ -52,6 +53,17 @@ public class FeatureMapper {
         return FeatureCollection.fromFeatures(features);
     }
 
+    FeatureCollection getClusterFeatureCollection(List<DataPointCluster> clusters) {
+        List<Feature> features = new ArrayList<>(clusters.size());
+        for (DataPointCluster cluster : clusters) {
+            Feature feature = Feature.fromGeometry(
+                    Point.fromLngLat(cluster.getLongitude(), cluster.getLatitude()));
+            feature.addNumberProperty(Constants.POINT_COUNT_PROPERTY, cluster.getCount());
+            features.add(feature);
+        }
+        return FeatureCollection.fromFeatures(features);
+    }
+
     public Feature getFeature(DataPoint item) {
         Double longitude = item.getLongitude();
         Double latitude = item.getLatitude();
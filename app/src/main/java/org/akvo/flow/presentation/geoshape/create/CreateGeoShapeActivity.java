@@ -56,13 +56,13 @@ import org.akvo.flow.uicomponents.BackActivity;
 import org.akvo.flow.uicomponents.SnackBarManager;
 import org.akvo.flow.util.ConstantUtil;
 
+import java.util.List;
+
 import javax.inject.Inject;
 
 import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.ACCURACY_THRESHOLD;
 import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.CIRCLE_SOURCE_ID;
-import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.CIRCLE_SOURCE_ID_LABEL;
-import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.FILL_SOURCE_ID;
-import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.LINE_SOURCE_ID;
+import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.SHAPE_SOURCE_ID;
 import static org.akvo.flow.presentation.geoshape.create.DrawMode.AREA;
 import static org.akvo.flow.presentation.geoshape.create.DrawMode.LINE;
 import static org.akvo.flow.presentation.geoshape.create.DrawMode.POINT;
@@ -291,11 +291,13 @@ public class CreateGeoShapeActivity extends BackActivity implements
     }
 
     @Override
-    public void updateSources(ViewFeatures viewFeatures) {
-        mapView.setSource(viewFeatures.getPointFeatures(), CIRCLE_SOURCE_ID);
-        mapView.setSource(viewFeatures.getPointFeatures(), CIRCLE_SOURCE_ID_LABEL);
-        mapView.setSource(viewFeatures.getFeatures(), LINE_SOURCE_ID);
-        mapView.setSource(viewFeatures.getFeatures(), FILL_SOURCE_ID);
+    public void updateShapeSource(List<Feature> features) {
+        mapView.setSource(features, SHAPE_SOURCE_ID);
+    }
+
+    @Override
+    public void updatePointSource(List<Feature> pointFeatures) {
+        mapView.setSource(pointFeatures, CIRCLE_SOURCE_ID);
     }
 
     @Override
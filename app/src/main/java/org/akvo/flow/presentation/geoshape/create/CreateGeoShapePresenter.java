@@ -35,6 +35,7 @@ import org.akvo.flow.presentation.geoshape.entities.LineShape;
 import org.akvo.flow.presentation.geoshape.entities.PointShape;
 import org.akvo.flow.presentation.geoshape.entities.PointsLatLngMapper;
 import org.akvo.flow.presentation.geoshape.entities.Shape;
+import org.akvo.flow.presentation.geoshape.entities.ShapeFeaturesCache;
 import org.akvo.flow.presentation.geoshape.entities.ShapePoint;
 import org.akvo.flow.presentation.geoshape.entities.ViewFeatures;
 
@@ -48,6 +49,7 @@ public class CreateGeoShapePresenter implements Presenter {
 
     private final FeatureMapper featureMapper;
     private final PointsLatLngMapper pointsLatLngMapper;
+    private final ShapeFeaturesCache shapeFeaturesCache;
 
     private ViewFeatures viewFeatures = new ViewFeatures(new ArrayList<>(), new ArrayList<>(),
             new ArrayList<>());
@@ -55,9 +57,11 @@ public class CreateGeoShapePresenter implements Presenter {
     private CreateGeoShapeView view;
 
     @Inject
-    public CreateGeoShapePresenter(FeatureMapper featureMapper, PointsLatLngMapper pointsLatLngMapper) {
+    public CreateGeoShapePresenter(FeatureMapper featureMapper, PointsLatLngMapper pointsLatLngMapper,
+            ShapeFeaturesCache shapeFeaturesCache) {
         this.featureMapper = featureMapper;
         this.pointsLatLngMapper = pointsLatLngMapper;
+        this.shapeFeaturesCache = shapeFeaturesCache;
     }
 
     @Override
@@ -72,7 +76,8 @@ public class CreateGeoShapePresenter implements Presenter {
     public void setUpFeatures(String geoJSON) {
         shapes.clear();
         shapes.addAll(featureMapper.toEditableShapes(geoJSON));
-        viewFeatures = featureMapper.toViewFeatures(shapes);
+        shapeFeaturesCache.clear();
+        viewFeatures = shapeFeaturesCache.update(shapes);
     }
 
     public void onShapeInfoPressed() {
@@ -135,6 +140,7 @@ public class CreateGeoShapePresenter implements Presenter {
         Shape shape = getSelectedShape();
         if (shape != null) {
             shape.addPoint(latLng);
+            shapeFeaturesCache.invalidate(shape);
         } else {
             unSelectAllFeatures();
             Shape createdShape = createShape(drawMode);
@@ -247,6 +253,8 @@ public class CreateGeoShapePresenter implements Presenter {
             shape.removeSelectedPoint();
             if (shape.getPoints().size() == 0) {
                 shapes.remove(shape);
+            } else {
+                shapeFeaturesCache.invalidate(shape);
             }
             updateSources();
             view.updateMenu();
@@ -265,19 +273,27 @@ public class CreateGeoShapePresenter implements Presenter {
     public void onGeoshapeMoved(Point point) {
         Shape shape = getSelectedShape();
         if (shape != null) {
-            ShapePoint shapePoint = shape.getSelectedPoint();
-            if (shapePoint != null) {
-                shapePoint.setLatitude(point.latitude());
-                shapePoint.setLongitude(point.longitude());
+            int index = shape.moveSelectedPoint(point.latitude(), point.longitude());
+            if (index >= 0) {
+                shapeFeaturesCache.invalidatePoint(shape, index);
                 updateSources();
                 view.updateMenu();
             }
         }
     }
 
+    /**
+     * Only the features of the shapes which changed are created again, and only the sources
+     * they belong to are set on the map
+     */
     private void updateSources() {
-        viewFeatures = featureMapper.toViewFeatures(shapes);
-        view.updateSources(viewFeatures);
+        viewFeatures = shapeFeaturesCache.update(shapes);
+        if (shapeFeaturesCache.hasShapeChanges()) {
+            view.updateShapeSource(viewFeatures.getFeatures());
+        }
+        if (shapeFeaturesCache.hasPointChanges()) {
+            view.updatePointSource(viewFeatures.getPointFeatures());
+        }
 
         Shape selectedShape = getSelectedShape();
         if (selectedShape != null) {
@@ -19,11 +19,14 @@
 
 package org.akvo.flow.presentation.geoshape.create;
 
+import com.mapbox.geojson.Feature;
 import com.mapbox.mapboxsdk.geometry.LatLng;
 
 import org.akvo.flow.presentation.geoshape.entities.Shape;
 import org.akvo.flow.presentation.geoshape.entities.ViewFeatures;
 
+import java.util.List;
+
 public interface CreateGeoShapeView {
 
     void displayDeleteShapeDialog();
@@ -40,7 +43,9 @@ public interface CreateGeoShapeView {
 
     void enableAreaDrawMode();
 
-    void updateSources(ViewFeatures viewFeatures);
+    void updateShapeSource(List<Feature> features);
+
+    void updatePointSource(List<Feature> pointFeatures);
 
     void updateMenu();
 
@@ -59,7 +59,7 @@ public class AreaCounter {
         return Math.abs(area) / 2;
     }
 
-    private ProjectedPoint project(ShapePoint location) {
+    static ProjectedPoint project(ShapePoint location) {
         // Sinusoidal projection (equal-computeArea)
         double x = location.getLongitude() * LATITUDE_SIZE * Math
                 .cos(Math.toRadians(location.getLatitude()));
@@ -67,7 +67,7 @@ public class AreaCounter {
         return new ProjectedPoint(x, y);
     }
 
-    class ProjectedPoint {
+    static class ProjectedPoint {
         final double x;
         final double y;
 
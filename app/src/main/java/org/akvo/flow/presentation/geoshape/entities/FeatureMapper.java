@@ -43,16 +43,12 @@ public class FeatureMapper {
 
     private final CoordinatesMapper coordinatesMapper;
     private final PointsLatLngMapper pointsLatLngMapper;
-    private final LengthCounter lengthCounter;
-    private final AreaCounter areaCounter;
 
     @Inject
-    public FeatureMapper(CoordinatesMapper coordinatesMapper, PointsLatLngMapper pointsLatLngMapper,
-                         LengthCounter lengthCounter, AreaCounter areaCounter) {
+    public FeatureMapper(CoordinatesMapper coordinatesMapper,
+                         PointsLatLngMapper pointsLatLngMapper) {
         this.coordinatesMapper = coordinatesMapper;
         this.pointsLatLngMapper = pointsLatLngMapper;
-        this.lengthCounter = lengthCounter;
-        this.areaCounter = areaCounter;
     }
 
     public List<Shape> toShapes(@Nullable String gson) {
@@ -111,28 +107,9 @@ public class FeatureMapper {
         final List<LatLng> listOfCoordinates = new ArrayList<>();
         if (!shapes.isEmpty()) {
             for (Shape shape : shapes) {
-                Feature feature;
                 List<LatLng> shapeCoordinates = pointsLatLngMapper.transform(shape.getPoints());
-                List<Point> points = coordinatesMapper.toPointList(shapeCoordinates);
-                if (shape instanceof AreaShape) {
-                    // to close the shape we need to add the extra point
-                    if (points.size() > 2) {
-                        points.add(points.get(0));
-                    }
-                    List<List<Point>> es = new ArrayList<>();
-                    es.add(points);
-                    feature = Feature.fromGeometry(Polygon.fromLngLats(es));
-                    feature.addBooleanProperty(GeoShapeConstants.FEATURE_POLYGON, true);
-                    feature.addStringProperty(GeoShapeConstants.FEATURE_ID, shape.getFeatureId());
-                    features.add(feature);
-                } else if (shape instanceof LineShape) {
-                    feature = Feature.fromGeometry(LineString.fromLngLats(points));
-                    feature.addBooleanProperty(GeoShapeConstants.FEATURE_LINE, true);
-                    feature.addStringProperty(GeoShapeConstants.FEATURE_ID, shape.getFeatureId());
-                    features.add(feature);
-                } else if (shape instanceof PointShape) {
-                    feature = Feature.fromGeometry(MultiPoint.fromLngLats(points));
-                    feature.addBooleanProperty(GeoShapeConstants.FEATURE_POINT, true);
+                Feature feature = createShapeFeature(shape, shapeCoordinates);
+                if (feature != null) {
                     features.add(feature);
                 }
                 pointFeatures.addAll(createPointFeaturesForShape(shape));
@@ -142,6 +119,31 @@ public class FeatureMapper {
         return new ViewFeatures(features, pointFeatures, listOfCoordinates);
     }
 
+    @Nullable
+    public Feature createShapeFeature(Shape shape, List<LatLng> shapeCoordinates) {
+        Feature feature = null;
+        List<Point> points = coordinatesMapper.toPointList(shapeCoordinates);
+        if (shape instanceof AreaShape) {
+            // to close the shape we need to add the extra point
+            if (points.size() > 2) {
+                points.add(points.get(0));
+            }
+            List<List<Point>> es = new ArrayList<>();
+            es.add(points);
+            feature = Feature.fromGeometry(Polygon.fromLngLats(es));
+            feature.addBooleanProperty(GeoShapeConstants.FEATURE_POLYGON, true);
+            feature.addStringProperty(GeoShapeConstants.FEATURE_ID, shape.getFeatureId());
+        } else if (shape instanceof LineShape) {
+            feature = Feature.fromGeometry(LineString.fromLngLats(points));
+            feature.addBooleanProperty(GeoShapeConstants.FEATURE_LINE, true);
+            feature.addStringProperty(GeoShapeConstants.FEATURE_ID, shape.getFeatureId());
+        } else if (shape instanceof PointShape) {
+            feature = Feature.fromGeometry(MultiPoint.fromLngLats(points));
+            feature.addBooleanProperty(GeoShapeConstants.FEATURE_POINT, true);
+        }
+        return feature;
+    }
+
     @NonNull
     private Shape createArea(String featureId, Polygon geometry) {
         List<ShapePoint> shapePoints = new ArrayList<>();
@@ -249,16 +251,16 @@ public class FeatureMapper {
                 feature.addStringProperty(GeoShapeConstants.PROPERTY_POINT_COUNT,
                         count + "");
                 feature.addStringProperty(GeoShapeConstants.PROPERTY_LENGTH,
-                        lengthCounter.computeLength(shape.getPoints()) + "");
+                        shape.getLength() + "");
                 feature.addStringProperty(GeoShapeConstants.PROPERTY_AREA,
-                        areaCounter.computeArea(shape.getPoints()) + "");
+                        shape.getArea() + "");
                 features.add(feature);
             } else if (shape instanceof LineShape) {
                 Feature feature = Feature.fromGeometry(LineString.fromLngLats(points));
                 feature.addStringProperty(GeoShapeConstants.PROPERTY_POINT_COUNT,
                         points.size() + "");
                 feature.addStringProperty(GeoShapeConstants.PROPERTY_LENGTH,
-                        lengthCounter.computeLength(shape.getPoints()) + "");
+                        shape.getLength() + "");
                 features.add(feature);
             } else if (shape instanceof PointShape) {
                 Feature feature = Feature.fromGeometry(MultiPoint.fromLngLats(points));
@@ -36,13 +36,17 @@ public class LengthCounter {
         ShapePoint previous = null;
         for (ShapePoint point : points) {
             if (previous != null) {
-                float[] distance = new float[1];
-                Location.distanceBetween(previous.getLatitude(), previous.getLongitude(),
-                        point.getLatitude(), point.getLongitude(), distance);
-                length += distance[0];
+                length += distance(previous, point);
             }
             previous = point;
         }
         return length;
     }
+
+    static float distance(ShapePoint from, ShapePoint to) {
+        float[] distance = new float[1];
+        Location.distanceBetween(from.getLatitude(), from.getLongitude(),
+                to.getLatitude(), to.getLongitude(), distance);
+        return distance[0];
+    }
 }
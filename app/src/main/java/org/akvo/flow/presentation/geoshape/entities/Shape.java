@@ -36,16 +36,26 @@ public abstract class Shape implements Parcelable {
     private boolean isSelected;
     private final List<ShapePoint> points;
 
+    /**
+     * Index of the selected point, kept so dragging a point does not look for it on every move
+     */
+    private int selectedPointIndex;
+
+    @Nullable
+    private ShapeMeasurements measurements;
+
     public Shape(String featureId, List<ShapePoint> points) {
         this.featureId = featureId;
         this.isSelected = false;
         this.points = points;
+        this.selectedPointIndex = findSelectedPointIndex();
     }
 
     public Shape(Parcel in) {
         featureId = in.readString();
         isSelected = in.readByte() != 0;
         points = in.createTypedArrayList(ShapePoint.CREATOR);
+        selectedPointIndex = findSelectedPointIndex();
     }
 
     @Override
@@ -77,17 +87,42 @@ public abstract class Shape implements Parcelable {
     }
 
     public void removeSelectedPoint() {
-        List<ShapePoint> points = getPoints();
-        ShapePoint pointToDelete = null;
-        for (ShapePoint point : points) {
-            if (point.isSelected()) {
-                pointToDelete = point;
-                break;
+        int index = selectedPointIndex;
+        if (index >= 0) {
+            selectedPointIndex = -1;
+            ShapePoint pointToDelete = points.remove(index);
+            if (measurements != null) {
+                measurements.onPointRemoved(points, index, pointToDelete);
             }
         }
-        if (pointToDelete != null) {
-            points.remove(pointToDelete);
+    }
+
+    /**
+     * Moves the selected point, if any
+     *
+     * @return the index of the moved point, -1 if no point is selected
+     */
+    public int moveSelectedPoint(double latitude, double longitude) {
+        int index = selectedPointIndex;
+        if (index >= 0) {
+            getMeasurements().movePoint(points, index, latitude, longitude);
+        }
+        return index;
+    }
+
+    public float getLength() {
+        return getMeasurements().getLength();
+    }
+
+    public double getArea() {
+        return getMeasurements().getArea(points.size());
+    }
+
+    private ShapeMeasurements getMeasurements() {
+        if (measurements == null) {
+            measurements = new ShapeMeasurements(points);
         }
+        return measurements;
     }
 
     public void unSelect() {
@@ -97,10 +132,13 @@ public abstract class Shape implements Parcelable {
 
     public void select(String selectedPointId) {
         setSelected(true);
-        List<ShapePoint> points = getPoints();
-        for (ShapePoint point : points) {
+        selectedPointIndex = -1;
+        int size = points.size();
+        for (int i = 0; i < size; i++) {
+            ShapePoint point = points.get(i);
             if (point.getPointId().equals(selectedPointId)) {
                 point.setSelected(true);
+                selectedPointIndex = i;
             } else {
                 point.setSelected(false);
             }
@@ -111,6 +149,10 @@ public abstract class Shape implements Parcelable {
         unSelectAllPoints();
         ShapePoint shapePoint = createSelectedShapePoint(latLng, getFeatureId());
         points.add(shapePoint);
+        selectedPointIndex = points.size() - 1;
+        if (measurements != null) {
+            measurements.onPointAdded(points);
+        }
     }
 
     @NonNull
@@ -126,15 +168,21 @@ public abstract class Shape implements Parcelable {
         for (ShapePoint point : points) {
             point.setSelected(false);
         }
+        selectedPointIndex = -1;
     }
 
     public ShapePoint getSelectedPoint() {
-        for (ShapePoint point : points) {
-            if (point.isSelected()) {
-                return point;
+        return selectedPointIndex >= 0 ? points.get(selectedPointIndex) : null;
+    }
+
+    private int findSelectedPointIndex() {
+        int size = points.size();
+        for (int i = 0; i < size; i++) {
+            if (points.get(i).isSelected()) {
+                return i;
             }
         }
-        return null;
+        return -1;
     }
 
     @Nullable
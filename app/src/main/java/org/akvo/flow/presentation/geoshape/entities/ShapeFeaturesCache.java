@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.presentation.geoshape.entities;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mapbox.geojson.Feature;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+/**
+ * Keeps the map features of each shape being edited so that only the ones of the shapes which
+ * changed are created again. Shapes whose points were added or removed have to be
+ * {@link #invalidate(Shape) invalidated}, a moved point only replaces its own feature and the
+ * one of its shape. Selection changes are found by the cache itself and only update the point
+ * features of the shapes involved.
+ *
+ * After each {@link #update(List)}, {@link #hasShapeChanges()} and {@link #hasPointChanges()}
+ * tell which of the map sources need to be set again.
+ */
+public class ShapeFeaturesCache {
+
+    private static final int NO_POINT = -1;
+
+    private final FeatureMapper featureMapper;
+    private final PointsLatLngMapper pointsLatLngMapper;
+    private final Map<String, CachedShape> cachedShapes = new HashMap<>();
+
+    private List<Feature> features = new ArrayList<>();
+    private List<Feature> pointFeatures = new ArrayList<>();
+    private List<LatLng> listOfCoordinates = new ArrayList<>();
+    private boolean shapeChanges;
+    private boolean pointChanges;
+
+    @Inject
+    public ShapeFeaturesCache(FeatureMapper featureMapper,
+            PointsLatLngMapper pointsLatLngMapper) {
+        this.featureMapper = featureMapper;
+        this.pointsLatLngMapper = pointsLatLngMapper;
+    }
+
+    public void clear() {
+        cachedShapes.clear();
+    }
+
+    /**
+     * Points of the shape were added or removed
+     */
+    public void invalidate(@NonNull Shape shape) {
+        CachedShape cachedShape = cachedShapes.get(shape.getFeatureId());
+        if (cachedShape != null) {
+            cachedShape.invalidated = true;
+        }
+    }
+
+    /**
+     * The point at the given index of the shape was moved
+     */
+    public void invalidatePoint(@NonNull Shape shape, int index) {
+        CachedShape cachedShape = cachedShapes.get(shape.getFeatureId());
+        if (cachedShape == null) {
+            return;
+        }
+        if (cachedShape.movedPoint == NO_POINT || cachedShape.movedPoint == index) {
+            cachedShape.movedPoint = index;
+        } else {
+            cachedShape.invalidated = true;
+        }
+    }
+
+    @NonNull
+    public ViewFeatures update(@NonNull List<Shape> shapes) {
+        shapeChanges = false;
+        pointChanges = false;
+        Set<String> featureIds = new HashSet<>(shapes.size());
+        for (Shape shape : shapes) {
+            String featureId = shape.getFeatureId();
+            featureIds.add(featureId);
+            CachedShape cachedShape = cachedShapes.get(featureId);
+            if (cachedShape == null) {
+                cachedShape = new CachedShape();
+                cachedShapes.put(featureId, cachedShape);
+            }
+            updateShape(shape, cachedShape);
+        }
+        if (cachedShapes.keySet().retainAll(featureIds)) {
+            shapeChanges = true;
+            pointChanges = true;
+        }
+        if (shapeChanges) {
+            features = new ArrayList<>(shapes.size());
+            listOfCoordinates = new ArrayList<>();
+            for (Shape shape : shapes) {
+                CachedShape cachedShape = cachedShapes.get(shape.getFeatureId());
+                if (cachedShape.feature != null) {
+                    features.add(cachedShape.feature);
+                }
+                listOfCoordinates.addAll(cachedShape.coordinates);
+            }
+        }
+        if (pointChanges) {
+            pointFeatures = new ArrayList<>();
+            for (Shape shape : shapes) {
+                pointFeatures.addAll(cachedShapes.get(shape.getFeatureId()).pointFeatures);
+            }
+        }
+        return new ViewFeatures(features, pointFeatures, listOfCoordinates);
+    }
+
+    /**
+     * @return true if the shapes changed in the last update
+     */
+    public boolean hasShapeChanges() {
+        return shapeChanges;
+    }
+
+    /**
+     * @return true if the points, or their selection, changed in the last update
+     */
+    public boolean hasPointChanges() {
+        return pointChanges;
+    }
+
+    private void updateShape(Shape shape, CachedShape cachedShape) {
+        ShapePoint selectedPoint = shape.getSelectedPoint();
+        String selectedPointId = selectedPoint != null ? selectedPoint.getPointId() : null;
+        boolean selectionChanged = cachedShape.selected != shape.isSelected()
+                || !sameId(cachedShape.selectedPointId, selectedPointId);
+
+        if (cachedShape.invalidated || cachedShape.movedPoint != NO_POINT) {
+            cachedShape.coordinates = pointsLatLngMapper.transform(shape.getPoints());
+            cachedShape.feature = featureMapper
+                    .createShapeFeature(shape, cachedShape.coordinates);
+            shapeChanges = true;
+        }
+        if (cachedShape.invalidated || selectionChanged) {
+            cachedShape.pointFeatures = featureMapper.createPointFeaturesForShape(shape);
+            pointChanges = true;
+        } else if (cachedShape.movedPoint != NO_POINT) {
+            ShapePoint movedPoint = shape.getPoints().get(cachedShape.movedPoint);
+            cachedShape.pointFeatures.set(cachedShape.movedPoint,
+                    featureMapper.createPointFeature(movedPoint, shape.isSelected()));
+            pointChanges = true;
+        }
+        cachedShape.invalidated = false;
+        cachedShape.movedPoint = NO_POINT;
+        cachedShape.selected = shape.isSelected();
+        cachedShape.selectedPointId = selectedPointId;
+    }
+
+    private boolean sameId(@Nullable String id, @Nullable String otherId) {
+        return id == null ? otherId == null : id.equals(otherId);
+    }
+
+    private static class CachedShape {
+        @Nullable
+        Feature feature;
+        List<LatLng> coordinates = new ArrayList<>();
+        List<Feature> pointFeatures = new ArrayList<>();
+        boolean selected;
+        @Nullable
+        String selectedPointId;
+        boolean invalidated = true;
+        int movedPoint = NO_POINT;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.presentation.geoshape.entities;
+
+import java.util.List;
+
+/**
+ * Running length and area of a shape, the same ones {@link LengthCounter} and
+ * {@link AreaCounter} compute, kept up to date as points are added, removed or moved so that
+ * editing a point only costs the edges touching it, whatever the size of the shape.
+ *
+ * The area is the shoelace sum over the sinusoidal projection of the points. Only the edges
+ * around the edited point change, so their terms are subtracted and added back. Terms are
+ * relative to the first point projected, which keeps them in the order of the size of the
+ * shape instead of the earth and avoids losing precision over many edits.
+ */
+class ShapeMeasurements {
+
+    private double length;
+    private double doubleArea;
+    private boolean hasOrigin;
+    private double originX;
+    private double originY;
+
+    ShapeMeasurements(List<ShapePoint> points) {
+        int size = points.size();
+        for (int i = 0; i < size; i++) {
+            ShapePoint point = points.get(i);
+            if (i > 0) {
+                length += LengthCounter.distance(points.get(i - 1), point);
+            }
+            doubleArea += areaTerm(point, points.get((i + 1) % size));
+        }
+    }
+
+    float getLength() {
+        return (float) length;
+    }
+
+    double getArea(int pointCount) {
+        if (pointCount < 3) {
+            return 0;
+        }
+        return Math.abs(doubleArea) / 2;
+    }
+
+    /**
+     * @param points the points of the shape, the last one being the one just added
+     */
+    void onPointAdded(List<ShapePoint> points) {
+        int size = points.size();
+        if (size < 2) {
+            return;
+        }
+        ShapePoint first = points.get(0);
+        ShapePoint previous = points.get(size - 2);
+        ShapePoint added = points.get(size - 1);
+        length += LengthCounter.distance(previous, added);
+        doubleArea += areaTerm(previous, added) + areaTerm(added, first)
+                - areaTerm(previous, first);
+    }
+
+    /**
+     * @param points the points of the shape, once the removed one is no longer there
+     */
+    void onPointRemoved(List<ShapePoint> points, int index, ShapePoint removed) {
+        int size = points.size();
+        if (size == 0) {
+            length = 0;
+            doubleArea = 0;
+            hasOrigin = false;
+            return;
+        }
+        ShapePoint previous = points.get((index - 1 + size) % size);
+        ShapePoint next = points.get(index % size);
+        if (index > 0) {
+            length -= LengthCounter.distance(previous, removed);
+        }
+        if (index < size) {
+            length -= LengthCounter.distance(removed, next);
+        }
+        if (index > 0 && index < size) {
+            length += LengthCounter.distance(previous, next);
+        }
+        doubleArea -= areaTerm(previous, removed) + areaTerm(removed, next)
+                - areaTerm(previous, next);
+    }
+
+    /**
+     * Moves the point at the given index and updates the measurements with the new position
+     */
+    void movePoint(List<ShapePoint> points, int index, double latitude, double longitude) {
+        ShapePoint point = points.get(index);
+        addEdges(points, index, -1);
+        point.setLatitude(latitude);
+        point.setLongitude(longitude);
+        addEdges(points, index, 1);
+    }
+
+    private void addEdges(List<ShapePoint> points, int index, int sign) {
+        int size = points.size();
+        ShapePoint point = points.get(index);
+        ShapePoint previous = points.get((index - 1 + size) % size);
+        ShapePoint next = points.get((index + 1) % size);
+        if (index > 0) {
+            length += sign * LengthCounter.distance(previous, point);
+        }
+        if (index < size - 1) {
+            length += sign * LengthCounter.distance(point, next);
+        }
+        doubleArea += sign * (areaTerm(previous, point) + areaTerm(point, next));
+    }
+
+    private double areaTerm(ShapePoint from, ShapePoint to) {
+        AreaCounter.ProjectedPoint a = AreaCounter.project(from);
+        AreaCounter.ProjectedPoint b = AreaCounter.project(to);
+        if (!hasOrigin) {
+            hasOrigin = true;
+            originX = a.x;
+            originY = a.y;
+        }
+        return (a.x - originX) * (b.y - originY) - (b.x - originX) * (a.y - originY);
+    }
+}
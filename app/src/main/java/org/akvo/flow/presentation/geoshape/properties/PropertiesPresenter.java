@@ -19,9 +19,7 @@
 
 package org.akvo.flow.presentation.geoshape.properties;
 
-import org.akvo.flow.presentation.geoshape.entities.AreaCounter;
 import org.akvo.flow.presentation.geoshape.entities.AreaShape;
-import org.akvo.flow.presentation.geoshape.entities.LengthCounter;
 import org.akvo.flow.presentation.geoshape.entities.Shape;
 import org.akvo.flow.presentation.geoshape.entities.LineShape;
 import org.akvo.flow.presentation.Presenter;
@@ -30,14 +28,10 @@ import javax.inject.Inject;
 
 public class PropertiesPresenter implements Presenter {
 
-    private final LengthCounter lengthCounter;
-    private final AreaCounter areaCounter;
     private PropertiesView view;
 
     @Inject
-    public PropertiesPresenter(LengthCounter lengthCounter, AreaCounter areaCounter) {
-        this.lengthCounter = lengthCounter;
-        this.areaCounter = areaCounter;
+    public PropertiesPresenter() {
     }
 
     @Override
@@ -54,11 +48,11 @@ public class PropertiesPresenter implements Presenter {
         String length = "";
         String area = "";
         if (shape instanceof LineShape || shape instanceof AreaShape) {
-            length = lengthCounter.computeLength(shape.getPoints()) + "";
+            length = shape.getLength() + "";
         }
 
         if (shape instanceof AreaShape) {
-            area = areaCounter.computeArea(shape.getPoints()) + "";
+            area = shape.getArea() + "";
         }
 
         view.displayShapeCount(count, length, area);
@@ -24,6 +24,7 @@ import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.cancelChildren
 import kotlinx.coroutines.launch
+import org.akvo.flow.domain.entity.FormDownloadResult
 import org.akvo.flow.domain.entity.UserSettings
 import org.akvo.flow.domain.interactor.DefaultObserver
 import org.akvo.flow.domain.interactor.SaveEnableMobileData
@@ -182,16 +183,21 @@ class PreferencePresenter @Inject constructor(
 
     fun reloadForms() {
         view?.showLoading()
-        reloadForms.execute(object : DefaultObserver<Int?>() {
+        reloadForms.execute(object : DefaultObserver<List<FormDownloadResult>>() {
             override fun onError(e: Throwable) {
                 Timber.e(e)
                 view?.hideLoading()
-                view?.showDownloadFormsError(5) //random number for now
+                view?.showDownloadFormsError(1)
             }
 
-            override fun onNext(numberOfForms: Int) {
+            override fun onNext(results: List<FormDownloadResult>) {
                 view?.hideLoading()
-                view?.showDownloadFormsSuccess(numberOfForms)
+                val failed = FormDownloadResult.countFailed(results)
+                if (failed > 0) {
+                    view?.showDownloadFormsError(failed)
+                } else {
+                    view?.showDownloadFormsSuccess(results.size)
+                }
             }
         }, null)
     }
@@ -25,8 +25,10 @@ import android.content.Intent;
 
 import org.akvo.flow.R;
 import org.akvo.flow.app.FlowApp;
+import org.akvo.flow.domain.entity.UploadProgress;
 import org.akvo.flow.domain.interactor.AllDeviceNotifications;
 import org.akvo.flow.domain.interactor.DefaultObserver;
+import org.akvo.flow.domain.interactor.GetUploadProgress;
 import org.akvo.flow.domain.interactor.UploadAllDataPoints;
 import org.akvo.flow.util.ConstantUtil;
 import org.akvo.flow.util.NotificationHelper;
@@ -58,6 +60,9 @@ public class DataPointUploadWorker extends Worker {
     @Inject
     UploadAllDataPoints upload;
 
+    @Inject
+    GetUploadProgress uploadProgress;
+
     public DataPointUploadWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
         super(context, workerParams);
         FlowApp application = (FlowApp) getApplicationContext();
@@ -95,6 +100,7 @@ public class DataPointUploadWorker extends Worker {
         super.onStopped();
         checkDeviceNotification.dispose();
         upload.dispose();
+        uploadProgress.dispose();
     }
 
     private void checkDeviceNotification() {
@@ -116,6 +122,13 @@ public class DataPointUploadWorker extends Worker {
     }
 
     private void uploadFiles() {
+        uploadProgress.execute(new DefaultObserver<UploadProgress>() {
+            @Override
+            public void onNext(UploadProgress progress) {
+                NotificationHelper.showSyncingNotification(getApplicationContext(),
+                        progress.getPercentage());
+            }
+        });
         upload.execute(new DefaultObserver<Set<String>>() {
             @Override
             public void onError(Throwable e) {
@@ -131,6 +144,7 @@ public class DataPointUploadWorker extends Worker {
                 broadcastDataPointStatusChange();
             }
         });
+        uploadProgress.dispose();
     }
 
     private void displayFormDeletedNotification(String formId) {
@@ -28,6 +28,7 @@ import androidx.work.Worker
 import androidx.work.WorkerParameters
 import org.akvo.flow.R
 import org.akvo.flow.app.FlowApp
+import org.akvo.flow.domain.entity.FormDownloadResult
 import org.akvo.flow.domain.interactor.DefaultObserver
 import org.akvo.flow.domain.interactor.forms.DownloadForms
 import org.akvo.flow.util.ConstantUtil
@@ -53,24 +54,33 @@ class SurveyDownloadWorker(context: Context, workerParams: WorkerParameters) :
 
     override fun doWork(): Result {
         NotificationHelper.displayFormsSyncingNotification(applicationContext)
-        downloadForms.execute<Int>(object : DefaultObserver<Int?>() {
+        downloadForms.execute(object : DefaultObserver<List<FormDownloadResult>>() {
             override fun onError(e: Throwable) {
                 Timber.e(e)
-                NotificationHelper.displayErrorNotification(
-                    applicationContext.getString(R.string.error_form_sync_title),
-                    "",
-                    applicationContext,
-                    ConstantUtil.NOTIFICATION_FORM
-                )
+                displayErrorNotification()
             }
 
-            override fun onNext(downloaded: Int) {
-                NotificationHelper.displayFormsSyncedNotification(applicationContext, downloaded)
+            override fun onNext(results: List<FormDownloadResult>) {
+                if (FormDownloadResult.countFailed(results) > 0) {
+                    displayErrorNotification()
+                } else {
+                    NotificationHelper.displayFormsSyncedNotification(applicationContext,
+                        results.size)
+                }
             }
         })
         return Result.success()
     }
 
+    private fun displayErrorNotification() {
+        NotificationHelper.displayErrorNotification(
+            applicationContext.getString(R.string.error_form_sync_title),
+            "",
+            applicationContext,
+            ConstantUtil.NOTIFICATION_FORM
+        )
+    }
+
     override fun onStopped() {
         super.onStopped()
         downloadForms.dispose()
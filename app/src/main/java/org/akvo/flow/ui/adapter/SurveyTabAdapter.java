@@ -32,6 +32,7 @@ import org.akvo.flow.R;
 import org.akvo.flow.domain.QuestionGroup;
 import org.akvo.flow.event.QuestionInteractionListener;
 import org.akvo.flow.event.SurveyListener;
+import org.akvo.flow.ui.view.QuestionDependencies;
 import org.akvo.flow.ui.view.QuestionGroupTab;
 import org.akvo.flow.ui.view.QuestionView;
 import org.akvo.flow.ui.view.SubmitTab;
@@ -65,10 +66,12 @@ public class SurveyTabAdapter extends PagerAdapter implements ViewPager.OnPageCh
         mPager.addOnPageChangeListener(this);
         mQuestionGroups = questionGroups;
         mQuestionGroupTabs = new ArrayList<>();
+        QuestionDependencies dependencies = new QuestionDependencies(questionGroups,
+                surveyListener);
 
         for (QuestionGroup group : mQuestionGroups) {
             QuestionGroupTab questionGroupTab = new QuestionGroupTab(mPager.getContext(), group,
-                    surveyListener, questionListener);
+                    surveyListener, questionListener, dependencies);
             mQuestionGroupTabs.add(questionGroupTab);
         }
     }
@@ -166,14 +169,8 @@ public class SurveyTabAdapter extends PagerAdapter implements ViewPager.OnPageCh
     }
 
     /**
-     * Sets up question dependencies across question groups and registers
-     * questionInteractionListeners on the dependent views. This should be
-     * called each time a new tab is hydrated. It will iterate over all
-     * questions in the survey and install dependencies and the
-     * questionInteractionListeners. After installation, it will check to see if
-     * the parent question contains a response. If so, it will fire a
-     * questionInteractionEvent to ensure dependent questions are put into the
-     * correct state
+     * Updates the visibility of the questions of every loaded tab. This should be called each
+     * time a new tab is hydrated, as dependencies might occur across tabs.
      */
     private void setupDependencies() {
         for (QuestionGroupTab tab : mQuestionGroupTabs) {
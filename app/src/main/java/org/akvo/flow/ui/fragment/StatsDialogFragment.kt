@@ -31,6 +31,7 @@ import androidx.loader.content.Loader
 import org.akvo.flow.R
 import org.akvo.flow.app.FlowApp
 import org.akvo.flow.data.loader.StatsLoader
+import org.akvo.flow.data.loader.models.FormStats
 import org.akvo.flow.data.loader.models.Stats
 import org.akvo.flow.injector.component.ApplicationComponent
 import org.akvo.flow.injector.component.DaggerViewComponent
@@ -44,6 +45,8 @@ class StatsDialogFragment : DialogFragment(), LoaderManager.LoaderCallbacks<Stat
     private lateinit var mTotalView: TextView
     private lateinit var mWeekView: TextView
     private lateinit var mDayView: TextView
+    private lateinit var mFormsLayout: View
+    private lateinit var mFormsView: TextView
 
     @Inject
     lateinit var databaseHelper: SQLiteOpenHelper
@@ -84,6 +87,8 @@ class StatsDialogFragment : DialogFragment(), LoaderManager.LoaderCallbacks<Stat
         mTotalView = v.findViewById<View>(R.id.total) as TextView
         mWeekView = v.findViewById<View>(R.id.week) as TextView
         mDayView = v.findViewById<View>(R.id.day) as TextView
+        mFormsLayout = v.findViewById(R.id.forms_layout)
+        mFormsView = v.findViewById<View>(R.id.forms) as TextView
         val builder = AlertDialog.Builder(activity)
         builder.setTitle(R.string.stats)
         builder.setView(v)
@@ -106,6 +111,14 @@ class StatsDialogFragment : DialogFragment(), LoaderManager.LoaderCallbacks<Stat
         mTotalView.text = stats.mTotal.toString()
         mWeekView.text = stats.mThisWeek.toString()
         mDayView.text = stats.mToday.toString()
+        mFormsLayout.visibility = if (stats.mForms.isEmpty()) View.GONE else View.VISIBLE
+        mFormsView.text = stats.mForms.joinToString("\n\n") { formStatsText(it) }
+    }
+
+    private fun formStatsText(form: FormStats): String {
+        return form.mName + "\n" + getString(R.string.status_saved) + ": " + form.mSaved +
+                "   " + getString(R.string.status_submitted) + ": " + form.mSubmitted +
+                "   " + getString(R.string.status_uploaded) + ": " + form.mUploaded
     }
 
     override fun onLoaderReset(loader: Loader<Stats?>) {
@@ -34,6 +34,7 @@ import com.google.android.material.textfield.TextInputLayout;
 
 import org.akvo.flow.R;
 import org.akvo.flow.data.database.cascade.CascadeDB;
+import org.akvo.flow.data.database.cascade.CascadeResources;
 import org.akvo.flow.domain.Node;
 import org.akvo.flow.domain.QuestionResponse;
 import org.akvo.flow.domain.response.value.CascadeNode;
@@ -59,6 +60,9 @@ public class CascadeQuestionView extends QuestionView {
     @Inject
     FormResourcesFileBrowser resourcesFileUtil;
 
+    @Inject
+    CascadeResources cascadeResources;
+
     public  static final int POSITION_NONE = -1; // no textView position id
     private static final long ID_NONE = -1; // no node id
     private static final long ID_ROOT = 0; // root node id
@@ -93,13 +97,38 @@ public class CascadeQuestionView extends QuestionView {
         if (!TextUtils.isEmpty(src)) {
             File db = resourcesFileUtil.findFile(getContext().getApplicationContext(), src);
             if (db.exists()) {
-                mDatabase = new CascadeDB(getContext(), db.getAbsolutePath());
-                mDatabase.open();
+                mDatabase = cascadeResources.acquire(db.getAbsolutePath());
             }
         }
+        if (mDatabase != null) {
+            setUpSearch(mDatabase);
+        }
         updateTextViews(POSITION_NONE);
     }
 
+    /**
+     * Searching selects a node of any level by name, filling in all the levels above it
+     */
+    private void setUpSearch(CascadeDB database) {
+        View searchLayout = findViewById(R.id.cascade_search_layout);
+        final AutoCompleteTextView searchView = findViewById(R.id.cascade_search);
+        final CascadeSearchAdapter adapter = new CascadeSearchAdapter(getContext(), database);
+        searchView.setAdapter(adapter);
+        searchView.setOnItemClickListener((parent, view, position, id) -> {
+            List<CascadeNode> values = new ArrayList<>();
+            for (Node node : adapter.getItem(position).getPath()) {
+                CascadeNode value = new CascadeNode();
+                value.setName(node.getName());
+                value.setCode(node.getCode());
+                values.add(value);
+            }
+            searchView.setText(null);
+            displayValues(values);
+            captureResponse();
+        });
+        searchLayout.setVisibility(VISIBLE);
+    }
+
     private void initialiseInjector() {
         ViewComponent viewComponent =
                 DaggerViewComponent.builder().applicationComponent(getApplicationComponent())
@@ -107,24 +136,11 @@ public class CascadeQuestionView extends QuestionView {
         viewComponent.inject(this);
     }
 
-    @Override
-    public void onResume() {
-        if (mDatabase != null && !mDatabase.isOpen()) {
-            mDatabase.open();
-        }
-    }
-
-    @Override
-    public void onPause() {
-        if (mDatabase != null) {
-            mDatabase.close();
-        }
-    }
-
     @Override
     public void onDestroy() {
         if (mDatabase != null) {
-            mDatabase.close();
+            cascadeResources.release(mDatabase);
+            mDatabase = null;
         }
     }
 
@@ -155,6 +171,7 @@ public class CascadeQuestionView extends QuestionView {
         List<Node> values = mDatabase.getValues(parent);
         if (!values.isEmpty()) {
             addLevelView(nextLevel, values, POSITION_NONE);
+            cascadeResources.prefetchNextLevel(mDatabase, parent);
             mFinished = updatedSpinnerIndex == POSITION_NONE;
         } else {
             mFinished = true;// no more levels
@@ -243,8 +260,11 @@ public class CascadeQuestionView extends QuestionView {
             return;
         }
 
-        List<CascadeNode> values = CascadeValue.deserialize(answer);
+        displayValues(CascadeValue.deserialize(answer));
+    }
 
+    private void displayValues(List<CascadeNode> values) {
+        cascadeLevelsContainer.removeAllViews();
         // For each existing value, we load the corresponding level nodes, and create an
         // AutocompleteTextView automatically selecting the token. On each iteration, we keep track of selected
         // value's id, in order to fetch the descendant nodes from the DB.
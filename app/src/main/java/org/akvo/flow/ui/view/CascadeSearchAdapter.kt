@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.akvo.flow.ui.view
+
+import android.content.Context
+import android.widget.ArrayAdapter
+import android.widget.Filter
+import org.akvo.flow.R
+import org.akvo.flow.data.database.cascade.CascadeDB
+import org.akvo.flow.domain.Node
+import timber.log.Timber
+
+/**
+ * Suggests the nodes of any level of a cascade whose name starts with the typed text. Filtering
+ * runs on the worker thread of [Filter] so the resource is never queried on the main thread.
+ */
+internal class CascadeSearchAdapter(context: Context, private val database: CascadeDB) :
+    ArrayAdapter<CascadeSearchResult>(context, R.layout.cascade_spinner_item,
+        R.id.cascade_spinner_item_text) {
+
+    private var results: List<CascadeSearchResult> = emptyList()
+
+    private val filter = object : Filter() {
+        override fun performFiltering(constraint: CharSequence?): FilterResults {
+            val prefix = constraint?.toString()?.trim().orEmpty()
+            val found = if (prefix.length < MIN_SEARCH_LENGTH) {
+                emptyList()
+            } else {
+                try {
+                    database.search(prefix, MAX_RESULTS).map { CascadeSearchResult(it) }
+                } catch (e: IllegalStateException) {
+                    Timber.d("Cascade resource closed while searching")
+                    emptyList()
+                }
+            }
+            return FilterResults().apply {
+                values = found
+                count = found.size
+            }
+        }
+
+        override fun publishResults(constraint: CharSequence?, filterResults: FilterResults?) {
+            @Suppress("UNCHECKED_CAST")
+            results = filterResults?.values as? List<CascadeSearchResult> ?: emptyList()
+            if (results.isEmpty()) {
+                notifyDataSetInvalidated()
+            } else {
+                notifyDataSetChanged()
+            }
+        }
+    }
+
+    override fun getCount(): Int = results.size
+
+    override fun getItem(position: Int): CascadeSearchResult = results[position]
+
+    override fun getFilter(): Filter = filter
+
+    companion object {
+        private const val MIN_SEARCH_LENGTH = 2
+        private const val MAX_RESULTS = 50
+    }
+}
+
+/**
+ * A node found by name, along with its ancestors from the first level down
+ */
+internal class CascadeSearchResult(val path: List<Node>) {
+
+    override fun toString(): String = path.joinToString(" / ") { it.name }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.ui.view;
+
+import androidx.annotation.NonNull;
+
+import org.akvo.flow.domain.QuestionGroup;
+import org.akvo.flow.domain.QuestionResponse;
+import org.akvo.flow.event.SurveyListener;
+import org.akvo.flow.utils.DependencyGraph;
+import org.akvo.flow.utils.VisibilityEvaluator;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shows and hides the question views of a form according to their dependencies. The dependency
+ * graph is compiled once for the form, each answer change only updates the views depending on
+ * the answered question.
+ */
+public class QuestionDependencies {
+
+    private final VisibilityEvaluator evaluator;
+    private final Map<String, QuestionView> views = new HashMap<>();
+
+    public QuestionDependencies(List<QuestionGroup> questionGroups,
+            final SurveyListener surveyListener) {
+        DependencyGraph.Builder builder = new DependencyGraph.Builder();
+        for (QuestionGroup group : questionGroups) {
+            builder.addGroup(group.getQuestions(), group.isRepeatable());
+        }
+        evaluator = builder.build().newEvaluator(instanceId -> {
+            QuestionResponse response = surveyListener.getResponses().get(instanceId);
+            return response != null && response.getIncludeFlag() ? response.getValue() : null;
+        });
+    }
+
+    public void register(@NonNull QuestionView questionView) {
+        String instanceId = questionView.getQuestion().getQuestionId();
+        views.put(instanceId, questionView);
+        questionView.setDependencies(this);
+        evaluator.register(instanceId);
+        questionView.checkDependencies();
+    }
+
+    public void unregister(@NonNull QuestionView questionView) {
+        String instanceId = questionView.getQuestion().getQuestionId();
+        if (views.get(instanceId) == questionView) {
+            views.remove(instanceId);
+            evaluator.unregister(instanceId);
+        }
+    }
+
+    public boolean isVisible(@NonNull QuestionView questionView) {
+        return evaluator.isVisible(questionView.getQuestion().getQuestionId());
+    }
+
+    /**
+     * Updates the views whose visibility depends on the response of the given view
+     *
+     * @param suppressListeners whether the updated views should not notify their listeners
+     */
+    void onResponseChanged(@NonNull QuestionView questionView, boolean suppressListeners) {
+        QuestionResponse response = questionView.getResponse();
+        List<String> changed = evaluator.setAnswer(questionView.getQuestion().getQuestionId(),
+                response != null ? response.getValue() : null);
+        for (String instanceId : changed) {
+            QuestionView dependent = views.get(instanceId);
+            if (dependent != null) {
+                dependent.onVisibilityChanged(evaluator.isVisible(instanceId), suppressListeners);
+            }
+        }
+    }
+}
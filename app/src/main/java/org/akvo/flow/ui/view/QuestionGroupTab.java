@@ -42,7 +42,6 @@ import org.akvo.flow.ui.view.media.video.VideoQuestionView;
 import org.akvo.flow.ui.view.option.OptionQuestionFactory;
 import org.akvo.flow.ui.view.signature.SignatureQuestionView;
 import org.akvo.flow.util.ConstantUtil;
-import org.akvo.flow.utils.entity.Dependency;
 import org.akvo.flow.utils.entity.Question;
 
 import java.util.ArrayList;
@@ -59,6 +58,7 @@ public class QuestionGroupTab extends ConstraintLayout
     private final QuestionGroup mQuestionGroup;
     private final QuestionInteractionListener mQuestionListener;
     private final SurveyListener mSurveyListener;
+    private final QuestionDependencies mDependencies;
 
     private final Map<String, QuestionView> mQuestionViews;
     private final Set<String> mQuestions;// Map group's questions for a quick look-up
@@ -73,10 +73,11 @@ public class QuestionGroupTab extends ConstraintLayout
     private View repeatButton;
 
     public QuestionGroupTab(Context context, QuestionGroup group, SurveyListener surveyListener,
-            QuestionInteractionListener questionListener) {
+            QuestionInteractionListener questionListener, QuestionDependencies dependencies) {
         super(context);
         mQuestionGroup = group;
         mSurveyListener = surveyListener;
+        mDependencies = dependencies;
         mQuestionListener = questionListener;
         mQuestionViews = new HashMap<>();
         groupIterationHeaders = new HashMap<>();
@@ -173,6 +174,10 @@ public class QuestionGroupTab extends ConstraintLayout
         // If the group is repeatable, delete multiple iterations
         if (mQuestionGroup.isRepeatable()) {
             mContainer.removeAllViews();
+            for (QuestionView qv : mQuestionViews.values()) {
+                qv.onDestroy();
+                mDependencies.unregister(qv);
+            }
             mQuestionViews.clear();
 
             // Load existing iterations. If no iteration is available, show one by default.
@@ -339,6 +344,7 @@ public class QuestionGroupTab extends ConstraintLayout
             questionView.addQuestionInteractionListener(mQuestionListener);
 
             mQuestionViews.put(q.getQuestionId(), questionView);// Store the reference to the View
+            mDependencies.register(questionView);
 
             mContainer.addView(questionView, generateLayoutParamsForQuestionView());
         }
@@ -370,6 +376,7 @@ public class QuestionGroupTab extends ConstraintLayout
             if (qv != null) {
                 qv.resetQuestion(true);
                 qv.onDestroy();
+                mDependencies.unregister(qv);
                 mQuestionViews.remove(qid);
                 mContainer.removeView(qv);
             }
@@ -393,9 +400,13 @@ public class QuestionGroupTab extends ConstraintLayout
         updateGroupIterationHeaders();
     }
 
+    /**
+     * Shows the questions whose dependencies are satisfied. The questions are kept up to date by
+     * {@link QuestionDependencies} afterwards.
+     */
     public void setupDependencies() {
         for (QuestionView qv : mQuestionViews.values()) {
-            setupDependencies(qv);
+            qv.checkDependencies();
         }
 
         if (mQuestionGroup.isRepeatable()) {
@@ -415,37 +426,4 @@ public class QuestionGroupTab extends ConstraintLayout
             }
         }
     }
-
-    private void setupDependencies(QuestionView qv) {
-        final List<Dependency> dependencies = qv.getQuestion().getDependencies();
-        if (dependencies == null) {
-            return;// No dependencies for this question
-        }
-
-        for (Dependency dependency : dependencies) {
-            QuestionView parentQ;
-            String parentQId = dependency.getQuestion();
-            if (mQuestionGroup.isRepeatable() && mQuestions.contains(parentQId)) {
-                // Internal dependencies need to compound the inner question ID (questionId|iteration)
-                parentQId += "|" + parseRepetitionId(qv.getQuestion().getQuestionId());
-                dependency.setQuestion(parentQId);
-                parentQ = getQuestionView(parentQId);// Local search
-            } else {
-                parentQ = mSurveyListener.getQuestionView(parentQId);// Global search
-            }
-
-            if (parentQ != null && qv != parentQ) {
-                parentQ.addQuestionInteractionListener(qv);
-                qv.checkDependencies();
-            }
-        }
-    }
-
-    private int parseRepetitionId(String questionId) {
-        String[] qid = questionId.split("\\|", -1);
-        if (qid.length == 2) {
-            return Integer.parseInt(qid[1]);
-        }
-        return -1;
-    }
 }
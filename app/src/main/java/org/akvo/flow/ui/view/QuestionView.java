@@ -45,16 +45,13 @@ import org.akvo.flow.event.SurveyListener;
 import org.akvo.flow.injector.component.ApplicationComponent;
 import org.akvo.flow.util.ViewUtil;
 import org.akvo.flow.utils.entity.AltText;
-import org.akvo.flow.utils.entity.Dependency;
 import org.akvo.flow.utils.entity.Question;
 import org.akvo.flow.utils.entity.QuestionHelp;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.StringTokenizer;
 
-public abstract class QuestionView extends LinearLayout implements QuestionInteractionListener {
+public abstract class QuestionView extends LinearLayout {
     protected static String[] sColors = null;
     final ErrorMessageFormatter errorMessageFormatter = new ErrorMessageFormatter();
     protected final int repetition;
@@ -64,6 +61,7 @@ public abstract class QuestionView extends LinearLayout implements QuestionInter
 
     private List<QuestionInteractionListener> mListeners;
     protected SurveyListener mSurveyListener;
+    private QuestionDependencies mDependencies;
 
     private TextView mQuestionText;
     private ImageButton mTipImage;
@@ -273,7 +271,7 @@ public abstract class QuestionView extends LinearLayout implements QuestionInter
         if (mListeners == null) {
             mListeners = new ArrayList<>();
         }
-        if (listener != null && !mListeners.contains(listener) && listener != this) {
+        if (listener != null && !mListeners.contains(listener)) {
             mListeners.add(listener);
         }
     }
@@ -336,73 +334,21 @@ public abstract class QuestionView extends LinearLayout implements QuestionInter
         }
     }
 
-    @Override
-    public void onQuestionInteraction(QuestionInteractionEvent event) {
-        if (QuestionInteractionEvent.QUESTION_ANSWER_EVENT.equals(event.getEventType())) {
-            // if this question is dependent, see if it has been satisfied
-            List<Dependency> dependencies = mQuestion.getDependencies();
-            if (dependencies != null) {
-                for (int i = 0; i < dependencies.size(); i++) {
-                    Dependency d = dependencies.get(i);
-                    if (d.getQuestion().equalsIgnoreCase(
-                            event.getSource().getQuestion().getQuestionId())) {
-                        if (handleDependencyParentResponse(d, event.getSource().getResponse())) {
-                            break;
-                        }
-                    }
-                }
-            }
-        }
+    void setDependencies(QuestionDependencies dependencies) {
+        mDependencies = dependencies;
     }
 
     /**
-     * updates the state of this question view based on the value in the
-     * dependency parent response. This method returns true if there is a value
-     * match and false otherwise.
-     *
-     * @param dep
-     * @param resp
-     * @return
+     * Called when a question this question depends on has changed its visibility. Hidden
+     * questions keep their response, excluded from the submission.
      */
-    public boolean handleDependencyParentResponse(Dependency dep, QuestionResponse resp) {
-        boolean isMatch = false;
-        if (dep.getAnswer() != null && resp != null && dep.isMatch(resp.getValue()) && resp
-                .getIncludeFlag()) {
-            isMatch = true;
-        } else if (dep.getAnswer() != null && resp != null && resp.getIncludeFlag()) {
-            if (resp.getValue() != null) {
-                StringTokenizer strTok = new StringTokenizer(resp.getValue(), "|");
-                while (strTok.hasMoreTokens()) {
-                    if (dep.isMatch(strTok.nextToken().trim())) {
-                        isMatch = true;
-                    }
-                }
-            }
-        }
-
-        boolean setVisible = false;
-        // if we're here, then the question on which we depend
-        // has been answered. Check the value to see if it's the
-        // one we are looking for
-        boolean includeFlag = true;
-        if (isMatch) {
-            setVisibility(View.VISIBLE);
-            setVisible = true;
-        } else {
-            includeFlag = false;
-            setVisibility(View.GONE);
-        }
+    void onVisibilityChanged(boolean visible, boolean suppressListeners) {
+        setVisibility(visible ? View.VISIBLE : View.GONE);
         mResponse = new QuestionResponse.QuestionResponseBuilder()
-                .createFromQuestionResponse(mResponse, includeFlag);
-
-        // now notify our own listeners to make sure we correctly toggle
-        // nested dependencies (i.e. if A -> B -> C and C changes, A needs to
-        // know too).
-        if (mResponse != null) {
+                .createFromQuestionResponse(mResponse, visible);
+        if (mResponse != null && !suppressListeners) {
             notifyQuestionListeners(QuestionInteractionEvent.QUESTION_ANSWER_EVENT);
         }
-
-        return setVisible;
     }
 
     public final void captureResponse() {
@@ -471,6 +417,9 @@ public abstract class QuestionView extends LinearLayout implements QuestionInter
         if (!suppressListeners) {
             notifyQuestionListeners(QuestionInteractionEvent.QUESTION_ANSWER_EVENT);
         }
+        if (mDependencies != null) {
+            mDependencies.onResponseChanged(this, suppressListeners);
+        }
         setError(null);// Reset any error status
     }
 
@@ -539,19 +488,10 @@ public abstract class QuestionView extends LinearLayout implements QuestionInter
      * @return true if no dependency is broken, false otherwise
      */
     public boolean areDependenciesSatisfied() {
-        List<Dependency> dependencies = getQuestion().getDependencies();
-        if (dependencies != null) {
-            Map<String, QuestionResponse> responses = mSurveyListener.getResponses();
-            for (Dependency dependency : dependencies) {
-                QuestionResponse resp = responses.get(dependency.getQuestion());
-                if (resp == null || !resp.hasValue()
-                        || !dependency.isMatch(resp.getValue())
-                        || !resp.getIncludeFlag()) {
-                    return false;
-                }
-            }
+        if (mDependencies == null) {
+            return mQuestion.getDependencies().isEmpty();
         }
-        return true;
+        return mDependencies.isVisible(this);
     }
 
     private QuestionResponse createResponse(Question question, String value, String type) {
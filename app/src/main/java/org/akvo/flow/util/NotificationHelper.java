@@ -155,16 +155,32 @@ public class NotificationHelper {
         createPendingNotification(context, title, R.string.sync_service_notification_ticker);
     }
 
+    /**
+     * Replaces the indeterminate syncing progress with the uploaded percentage
+     */
+    public static void showSyncingNotification(Context context, int percentage) {
+        String title = context.getString(R.string.sync_service_notification_title);
+        NotificationCompat.Builder b = createPendingNotificationBuilder(context, title,
+                R.string.sync_service_notification_ticker)
+                .setProgress(100, percentage, false)
+                .setOnlyAlertOnce(true);
+        notifyWithDummyIntent(context, PENDING_WORK_NOTIFICATION_ID, b);
+    }
+
     private static void createPendingNotification(Context context, String title, int tickerRes) {
-        NotificationCompat.Builder b = new NotificationCompat.Builder(context,
-                ConstantUtil.NOTIFICATION_CHANNEL_ID)
+        NotificationCompat.Builder b = createPendingNotificationBuilder(context, title, tickerRes)
+                .setProgress(0, 0, true);
+        notifyWithDummyIntent(context, PENDING_WORK_NOTIFICATION_ID, b);
+    }
+
+    private static NotificationCompat.Builder createPendingNotificationBuilder(Context context,
+            String title, int tickerRes) {
+        return new NotificationCompat.Builder(context, ConstantUtil.NOTIFICATION_CHANNEL_ID)
                 .setSmallIcon(R.drawable.notification_icon)
                 .setContentTitle(title)
                 .setTicker(context.getString(tickerRes))
-                .setProgress(0, 0, true)
                 .setColor(ContextCompat.getColor(context, R.color.orange_main))
                 .setOngoing(true);
-        notifyWithDummyIntent(context, PENDING_WORK_NOTIFICATION_ID, b);
     }
 
     public static void showCheckingNotification(Context context) {
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.data.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.akvo.flow.domain.QuestionResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.mockito.stubbing.Stubber;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class ResponseWriteQueueTest {
+
+    /**
+     * Long enough for nothing to be written before the test flushes
+     */
+    private static final long DELAY_MS = 60 * 60 * 1000L;
+    private static final long SHORT_DELAY_MS = 10;
+    private static final long TIMEOUT_MS = 5000;
+
+    private SurveyDbDataSource database;
+    private ScheduledExecutorService executor;
+    private ResponseWriteQueue queue;
+
+    @Before
+    public void setUp() {
+        database = mock(SurveyDbDataSource.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                ((Runnable) invocation.getArgument(0)).run();
+                return null;
+            }
+        }).when(database).runInTransaction(any(Runnable.class));
+        executor = Executors.newSingleThreadScheduledExecutor();
+        queue = new ResponseWriteQueue(database, executor, DELAY_MS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void flushShouldOnlyWriteLatestValueOfEachQuestion() {
+        QuestionResponse first = response("1", "a");
+        QuestionResponse second = response("1", "ab");
+        QuestionResponse latest = response("1", "abc");
+        QuestionResponse other = response("2", "x");
+
+        queue.save("1", first);
+        queue.save("2", other);
+        queue.save("1", second);
+        queue.save("1", latest);
+        verify(database, never()).createOrUpdateSurveyResponse(any(QuestionResponse.class));
+
+        queue.flush();
+
+        verify(database, times(1)).runInTransaction(any(Runnable.class));
+        verify(database, never()).createOrUpdateSurveyResponse(first);
+        verify(database, never()).createOrUpdateSurveyResponse(second);
+        InOrder inOrder = inOrder(database);
+        inOrder.verify(database).createOrUpdateSurveyResponse(other);
+        inOrder.verify(database).createOrUpdateSurveyResponse(latest);
+        assertEquals(0, queue.pendingCount());
+    }
+
+    @Test
+    public void deleteShouldReplacePendingSave() {
+        queue.save("1|2", response("1", "a"));
+        queue.delete("1|2", 10L, "1", "2");
+
+        queue.flush();
+
+        verify(database, never()).createOrUpdateSurveyResponse(any(QuestionResponse.class));
+        verify(database).deleteResponse(10L, "1", "2");
+    }
+
+    @Test
+    public void flushShouldRetryFailedWrite() {
+        QuestionResponse response = response("1", "a");
+        doThrow(new IllegalStateException("Database is locked"))
+                .doReturn(response)
+                .when(database).createOrUpdateSurveyResponse(response);
+
+        queue.save("1", response);
+
+        assertTrue(queue.flush());
+        verify(database, times(2)).createOrUpdateSurveyResponse(response);
+        assertEquals(0, queue.pendingCount());
+    }
+
+    @Test
+    public void flushShouldReportWritesWhichKeepFailing() {
+        QuestionResponse response = response("1", "a");
+        doThrow(new IllegalStateException("Database is locked"))
+                .when(database).createOrUpdateSurveyResponse(response);
+
+        queue.save("1", response);
+
+        assertFalse(queue.flush());
+        verify(database, times(ResponseWriteQueue.FLUSH_ATTEMPTS))
+                .createOrUpdateSurveyResponse(response);
+        assertEquals(1, queue.pendingCount());
+    }
+
+    @Test
+    public void failedFlushShouldBeRetriedLater() {
+        queue = new ResponseWriteQueue(database, executor, SHORT_DELAY_MS);
+        QuestionResponse response = response("1", "a");
+        failFlush(response);
+
+        queue.save("1", response);
+
+        assertFalse(queue.flush());
+        verify(database, timeout(TIMEOUT_MS).times(ResponseWriteQueue.FLUSH_ATTEMPTS + 2))
+                .createOrUpdateSurveyResponse(response);
+        assertTrue(queue.flush());
+        assertEquals(0, queue.pendingCount());
+    }
+
+    @Test
+    public void shutdownShouldWaitForPendingWrites() throws InterruptedException {
+        queue = new ResponseWriteQueue(database, executor, SHORT_DELAY_MS);
+        QuestionResponse response = response("1", "a");
+        failFlush(response);
+        final CountDownLatch stopped = new CountDownLatch(1);
+
+        queue.save("1", response);
+        queue.shutdown(new Runnable() {
+            @Override
+            public void run() {
+                stopped.countDown();
+            }
+        });
+
+        assertEquals(1, stopped.getCount());
+        assertFalse(executor.isShutdown());
+        assertTrue(stopped.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        verify(database, times(ResponseWriteQueue.FLUSH_ATTEMPTS + 2))
+                .createOrUpdateSurveyResponse(response);
+        assertEquals(0, queue.pendingCount());
+        assertTrue(executor.isShutdown());
+    }
+
+    /**
+     * Fails once more than the attempts of a flush, as the write scheduled when saving may run
+     * first
+     */
+    private void failFlush(QuestionResponse response) {
+        Stubber stubber = doThrow(new IllegalStateException("Database is locked"));
+        for (int i = 0; i < ResponseWriteQueue.FLUSH_ATTEMPTS; i++) {
+            stubber = stubber.doThrow(new IllegalStateException("Database is locked"));
+        }
+        stubber.doReturn(response).when(database).createOrUpdateSurveyResponse(response);
+    }
+
+    private QuestionResponse response(String questionId, String value) {
+        return new QuestionResponse.QuestionResponseBuilder()
+                .setValue(value)
+                .setType("VALUE")
+                .setSurveyInstanceId(10L)
+                .setQuestionId(questionId)
+                .setIncludeFlag(true)
+                .createQuestionResponse();
+    }
+}
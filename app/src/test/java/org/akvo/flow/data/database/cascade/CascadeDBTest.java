@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.akvo.flow.data.database.cascade;
+
+import android.app.Application;
+
+import org.akvo.flow.database.CascadeSearchIndex;
+import org.akvo.flow.domain.Node;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static org.akvo.flow.data.database.cascade.CascadeFixture.AMERSFOORT;
+import static org.akvo.flow.data.database.cascade.CascadeFixture.AMSTERDAM;
+import static org.akvo.flow.data.database.cascade.CascadeFixture.ANTWERPEN;
+import static org.akvo.flow.data.database.cascade.CascadeFixture.BELGIUM;
+import static org.akvo.flow.data.database.cascade.CascadeFixture.HAARLEM;
+import static org.akvo.flow.data.database.cascade.CascadeFixture.NETHERLANDS;
+import static org.akvo.flow.data.database.cascade.CascadeFixture.NOORD_HOLLAND;
+import static org.akvo.flow.data.database.cascade.CascadeFixture.UTRECHT;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class CascadeDBTest {
+
+    private static final long ROOT = 0;
+
+    private CascadeFixture fixture;
+    private CascadeDB database;
+
+    @Before
+    public void setUp() {
+        fixture = new CascadeFixture();
+        database = open(CascadeDB.DEFAULT_CACHE_SIZE);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        fixture.delete();
+    }
+
+    @Test
+    public void getValuesShouldReturnChildrenSortedByName() {
+        assertEquals(ids(BELGIUM, NETHERLANDS), idsOf(database.getValues(ROOT)));
+        assertEquals(ids(AMSTERDAM, HAARLEM), idsOf(database.getValues(NOORD_HOLLAND)));
+        assertTrue(database.getValues(AMSTERDAM).isEmpty());
+    }
+
+    @Test
+    public void getValuesShouldReuseCachedChildren() {
+        List<Node> children = database.getValues(NOORD_HOLLAND);
+        fixture.deleteChildren(NOORD_HOLLAND);
+
+        assertSame(children, database.getValues(NOORD_HOLLAND));
+    }
+
+    @Test
+    public void getValuesShouldCacheLeaves() {
+        List<Node> leaf = database.getValues(AMSTERDAM);
+
+        assertSame(leaf, database.getValues(AMSTERDAM));
+    }
+
+    @Test
+    public void cacheShouldEvictLeastRecentlyUsedChildren() {
+        database.close();
+        // Room for the two countries and the two provinces of the Netherlands only
+        database = open(4);
+        List<Node> countries = database.getValues(ROOT);
+        List<Node> provinces = database.getValues(NETHERLANDS);
+        fixture.deleteChildren(ROOT);
+        fixture.deleteChildren(NETHERLANDS);
+
+        assertSame(countries, database.getValues(ROOT));
+        database.getValues(BELGIUM);
+
+        assertSame(countries, database.getValues(ROOT));
+        List<Node> reloaded = database.getValues(NETHERLANDS);
+        assertNotSame(provinces, reloaded);
+        assertTrue(reloaded.isEmpty());
+    }
+
+    @Test
+    public void closeShouldClearCache() {
+        database.getValues(NOORD_HOLLAND);
+        fixture.deleteChildren(NOORD_HOLLAND);
+        database.close();
+
+        database.open();
+
+        assertTrue(database.getValues(NOORD_HOLLAND).isEmpty());
+    }
+
+    @Test
+    public void prefetchNextLevelShouldCacheGrandChildren() {
+        database.prefetchNextLevel(NETHERLANDS);
+        fixture.deleteChildren(NOORD_HOLLAND);
+        fixture.deleteChildren(UTRECHT);
+        fixture.deleteChildren(NETHERLANDS);
+
+        assertEquals(ids(NOORD_HOLLAND, UTRECHT), idsOf(database.getValues(NETHERLANDS)));
+        assertEquals(ids(AMSTERDAM, HAARLEM), idsOf(database.getValues(NOORD_HOLLAND)));
+        assertEquals(ids(AMERSFOORT), idsOf(database.getValues(UTRECHT)));
+    }
+
+    @Test
+    public void prefetchNextLevelShouldCacheChildrenWithoutChildrenAsLeaves() {
+        database.prefetchNextLevel(BELGIUM);
+        List<Node> leaf = database.getValues(ANTWERPEN);
+
+        assertTrue(leaf.isEmpty());
+        assertSame(leaf, database.getValues(ANTWERPEN));
+    }
+
+    @Test
+    public void prefetchNextLevelShouldKeepAlreadyCachedChildren() {
+        List<Node> children = database.getValues(NOORD_HOLLAND);
+
+        database.prefetchNextLevel(NETHERLANDS);
+
+        assertSame(children, database.getValues(NOORD_HOLLAND));
+    }
+
+    @Test
+    public void prefetchNextLevelShouldDoNothingOnceClosed() {
+        database.close();
+
+        database.prefetchNextLevel(NETHERLANDS);
+
+        assertTrue(database.getValues(NOORD_HOLLAND).isEmpty());
+    }
+
+    @Test
+    public void searchShouldMatchNamePrefixOfAnyLevel() {
+        List<List<Node>> paths = database.search("N", 10);
+
+        assertEquals(2, paths.size());
+        assertEquals(ids(NETHERLANDS), idsOf(paths.get(0)));
+        assertEquals(ids(NETHERLANDS, NOORD_HOLLAND), idsOf(paths.get(1)));
+    }
+
+    @Test
+    public void searchShouldIgnoreCase() {
+        List<List<Node>> paths = database.search("aMS", 10);
+
+        assertEquals(1, paths.size());
+        assertEquals(ids(NETHERLANDS, NOORD_HOLLAND, AMSTERDAM), idsOf(paths.get(0)));
+    }
+
+    @Test
+    public void searchShouldNotMatchInsideNames() {
+        assertTrue(database.search("dam", 10).isEmpty());
+        assertTrue(database.search("Amsterdamm", 10).isEmpty());
+    }
+
+    @Test
+    public void searchShouldReturnPathsFromRootToLeafSortedByName() {
+        List<List<Node>> paths = database.search("am", 10);
+
+        assertEquals(2, paths.size());
+        assertEquals(ids(NETHERLANDS, UTRECHT, AMERSFOORT), idsOf(paths.get(0)));
+        assertEquals(ids(NETHERLANDS, NOORD_HOLLAND, AMSTERDAM), idsOf(paths.get(1)));
+    }
+
+    @Test
+    public void searchShouldShareAncestorsBetweenPaths() {
+        List<List<Node>> paths = database.search("a", 10);
+
+        assertEquals(3, paths.size());
+        assertSame(paths.get(0).get(0), paths.get(1).get(0));
+        assertEquals(ids(BELGIUM, ANTWERPEN), idsOf(paths.get(2)));
+    }
+
+    @Test
+    public void searchShouldStopAtLimit() {
+        List<List<Node>> paths = database.search("a", 2);
+
+        assertEquals(2, paths.size());
+        assertEquals(AMERSFOORT, paths.get(0).get(2).getId());
+        assertEquals(AMSTERDAM, paths.get(1).get(2).getId());
+    }
+
+    @Test
+    public void searchShouldStopPathAtMissingAncestor() {
+        fixture.deleteNode(NOORD_HOLLAND);
+
+        List<List<Node>> paths = database.search("Haarlem", 10);
+
+        assertEquals(1, paths.size());
+        assertEquals(ids(HAARLEM), idsOf(paths.get(0)));
+    }
+
+    @Test
+    public void searchShouldReturnNothingForEmptyPrefixOrClosedResource() {
+        assertTrue(database.search("", 10).isEmpty());
+
+        database.close();
+
+        assertTrue(database.search("am", 10).isEmpty());
+    }
+
+    @Test
+    public void hasSearchIndexShouldRequireNameAndIdIndexes() {
+        assertTrue(database.hasSearchIndex());
+
+        fixture.dropIndex(CascadeSearchIndex.ID_INDEX_NAME);
+
+        assertFalse(database.hasSearchIndex());
+    }
+
+    private CascadeDB open(int cacheSize) {
+        CascadeDB cascadeDB = new CascadeDB(fixture.getPath(), cacheSize);
+        cascadeDB.open();
+        return cascadeDB;
+    }
+
+    private static List<Long> ids(long... ids) {
+        List<Long> result = new ArrayList<>();
+        for (long id : ids) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    private static List<Long> idsOf(List<Node> nodes) {
+        List<Long> result = new ArrayList<>();
+        for (Node node : nodes) {
+            result.add(node.getId());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.akvo.flow.data.database.cascade;
+
+import android.content.ContentValues;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.akvo.flow.database.CascadeSearchIndex;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * Small cascade resource with three levels:
+ * <pre>
+ * Netherlands (1)
+ *     Noord-Holland (3)
+ *         Amsterdam (5)
+ *         Haarlem (6)
+ *     Utrecht (4)
+ *         Amersfoort (7)
+ * Belgium (2)
+ *     Antwerpen (8)
+ * </pre>
+ */
+class CascadeFixture {
+
+    static final long NETHERLANDS = 1;
+    static final long BELGIUM = 2;
+    static final long NOORD_HOLLAND = 3;
+    static final long UTRECHT = 4;
+    static final long AMSTERDAM = 5;
+    static final long HAARLEM = 6;
+    static final long AMERSFOORT = 7;
+    static final long ANTWERPEN = 8;
+
+    private final File file;
+
+    CascadeFixture() {
+        file = RuntimeEnvironment.getApplication().getDatabasePath("cascade.sqlite");
+        file.getParentFile().mkdirs();
+        SQLiteDatabase database = SQLiteDatabase.openOrCreateDatabase(file, null);
+        try {
+            database.execSQL("CREATE TABLE nodes (id INTEGER PRIMARY KEY, name TEXT, "
+                    + "code TEXT, parent INTEGER)");
+            insert(database, NETHERLANDS, "Netherlands", 0);
+            insert(database, BELGIUM, "Belgium", 0);
+            insert(database, NOORD_HOLLAND, "Noord-Holland", NETHERLANDS);
+            insert(database, UTRECHT, "Utrecht", NETHERLANDS);
+            insert(database, AMSTERDAM, "Amsterdam", NOORD_HOLLAND);
+            insert(database, HAARLEM, "Haarlem", NOORD_HOLLAND);
+            insert(database, AMERSFOORT, "Amersfoort", UTRECHT);
+            insert(database, ANTWERPEN, "Antwerpen", BELGIUM);
+            CascadeSearchIndex.create(database);
+        } finally {
+            database.close();
+        }
+    }
+
+    String getPath() {
+        return file.getAbsolutePath();
+    }
+
+    /**
+     * Changes the file behind the back of the open connections, so that the test can tell
+     * whether nodes come from the cache or from the file
+     */
+    void deleteChildren(long parent) {
+        deleteNodes("parent", parent);
+    }
+
+    void deleteNode(long id) {
+        deleteNodes("id", id);
+    }
+
+    void dropIndex(String index) {
+        SQLiteDatabase database = SQLiteDatabase
+                .openDatabase(getPath(), null, SQLiteDatabase.OPEN_READWRITE);
+        try {
+            database.execSQL("DROP INDEX " + index);
+        } finally {
+            database.close();
+        }
+    }
+
+    void delete() {
+        SQLiteDatabase.deleteDatabase(file);
+    }
+
+    private void deleteNodes(String column, long value) {
+        SQLiteDatabase database = SQLiteDatabase
+                .openDatabase(getPath(), null, SQLiteDatabase.OPEN_READWRITE);
+        try {
+            database.delete("nodes", column + " = ?", new String[] { String.valueOf(value) });
+        } finally {
+            database.close();
+        }
+    }
+
+    private void insert(SQLiteDatabase database, long id, String name, long parent) {
+        ContentValues values = new ContentValues();
+        values.put("id", id);
+        values.put("name", name);
+        values.put("code", name.substring(0, 3).toUpperCase(Locale.ROOT));
+        values.put("parent", parent);
+        database.insert("nodes", null, values);
+    }
+}
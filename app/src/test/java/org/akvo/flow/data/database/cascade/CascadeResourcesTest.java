@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.akvo.flow.data.database.cascade;
+
+import android.app.Application;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class CascadeResourcesTest {
+
+    private CascadeFixture fixture;
+    private CascadeResources resources;
+
+    @Before
+    public void setUp() {
+        fixture = new CascadeFixture();
+        resources = new CascadeResources();
+    }
+
+    @After
+    public void tearDown() {
+        fixture.delete();
+    }
+
+    @Test
+    public void acquireShouldShareOpenResource() {
+        CascadeDB first = resources.acquire(fixture.getPath());
+        CascadeDB second = resources.acquire(fixture.getPath());
+
+        assertNotNull(first);
+        assertSame(first, second);
+        assertTrue(first.isOpen());
+        resources.release(first);
+        resources.release(second);
+    }
+
+    @Test
+    public void releaseShouldCloseOnlyOnLastRelease() {
+        CascadeDB database = resources.acquire(fixture.getPath());
+        resources.acquire(fixture.getPath());
+
+        resources.release(database);
+        assertTrue(database.isOpen());
+
+        resources.release(database);
+        assertFalse(database.isOpen());
+    }
+
+    @Test
+    public void acquireShouldReopenOnceReleased() {
+        CascadeDB released = resources.acquire(fixture.getPath());
+        resources.release(released);
+
+        CascadeDB database = resources.acquire(fixture.getPath());
+
+        assertNotNull(database);
+        assertNotSame(released, database);
+        assertTrue(database.isOpen());
+        resources.release(database);
+    }
+
+    @Test
+    public void releaseShouldIgnoreResourcesNotAcquired() {
+        CascadeDB database = resources.acquire(fixture.getPath());
+        CascadeDB other = new CascadeDB(fixture.getPath());
+        other.open();
+
+        resources.release(other);
+
+        assertTrue(other.isOpen());
+        assertTrue(database.isOpen());
+        other.close();
+        resources.release(database);
+    }
+
+    @Test
+    public void acquireShouldReturnNullWhenFileIsMissing() {
+        String path = fixture.getPath() + ".missing";
+
+        assertNull(resources.acquire(path));
+        assertNull(resources.acquire(path));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.akvo.flow.presentation.datapoints.list
+
+import android.app.Application
+import org.akvo.flow.presentation.datapoints.list.entity.ListDataPoint
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotEquals
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+
+@RunWith(RobolectricTestRunner::class)
+@Config(application = Application::class)
+class DataPointListAdapterTest {
+
+    private lateinit var adapter: DataPointListAdapter
+
+    @Before
+    fun setUp() {
+        adapter = DataPointListAdapter(RuntimeEnvironment.getApplication())
+    }
+
+    @Test
+    fun itemIdsShouldStayTheSameWhenItemsMove() {
+        adapter.setDataPoints(listOf(dataPoint("a"), dataPoint("b")))
+        val idOfA = adapter.getItemId(0)
+        val idOfB = adapter.getItemId(1)
+
+        adapter.setDataPoints(listOf(dataPoint("b"), dataPoint("c"), dataPoint("a")))
+
+        assertEquals(idOfB, adapter.getItemId(0))
+        assertEquals(idOfA, adapter.getItemId(2))
+        assertNotEquals(idOfA, adapter.getItemId(1))
+        assertNotEquals(idOfB, adapter.getItemId(1))
+    }
+
+    @Test
+    fun itemIdsShouldNotBeReusedOnceItemsAreReplaced() {
+        adapter.setDataPoints(listOf(dataPoint("a"), dataPoint("b")))
+        val idOfA = adapter.getItemId(0)
+        val idOfB = adapter.getItemId(1)
+
+        adapter.setDataPoints(listOf(dataPoint("c")))
+        adapter.setDataPoints(listOf(dataPoint("d"), dataPoint("a")))
+
+        val idOfD = adapter.getItemId(0)
+        assertNotEquals(idOfA, idOfD)
+        assertNotEquals(idOfB, idOfD)
+        assertNotEquals(idOfA, adapter.getItemId(1))
+    }
+
+    private fun dataPoint(id: String): ListDataPoint {
+        return ListDataPoint("Name $id", 0, id, 52.0, 4.0, "", true, "")
+    }
+}
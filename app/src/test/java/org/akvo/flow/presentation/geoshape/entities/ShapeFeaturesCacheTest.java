@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.akvo.flow.presentation.geoshape.entities;
+
+import com.mapbox.geojson.Feature;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ShapeFeaturesCacheTest {
+
+    private static final int POINTS = 5;
+
+    private FeatureMapper featureMapper;
+    private ShapeFeaturesCache cache;
+    private AreaShape first;
+    private AreaShape second;
+
+    @Before
+    public void setUp() {
+        PointsLatLngMapper pointsLatLngMapper = new PointsLatLngMapper();
+        featureMapper = spy(new FeatureMapper(new CoordinatesMapper(), pointsLatLngMapper));
+        cache = new ShapeFeaturesCache(featureMapper, pointsLatLngMapper);
+        first = createShape("first", 52.37);
+        second = createShape("second", 52.38);
+    }
+
+    @Test
+    public void firstUpdateShouldCreateAllFeatures() {
+        ViewFeatures viewFeatures = cache.update(Arrays.asList(first, second));
+
+        assertTrue(cache.hasShapeChanges());
+        assertTrue(cache.hasPointChanges());
+        assertEquals(2, viewFeatures.getFeatures().size());
+        assertEquals(2 * POINTS, viewFeatures.getPointFeatures().size());
+        assertEquals(2 * POINTS, viewFeatures.getListOfCoordinates().size());
+    }
+
+    @Test
+    public void updateWithoutChangesShouldReuseFeatures() {
+        List<Shape> shapes = Arrays.asList(first, second);
+        ViewFeatures previous = cache.update(shapes);
+        clearInvocations(featureMapper);
+
+        ViewFeatures viewFeatures = cache.update(shapes);
+
+        assertFalse(cache.hasShapeChanges());
+        assertFalse(cache.hasPointChanges());
+        assertSame(previous.getFeatures(), viewFeatures.getFeatures());
+        assertSame(previous.getPointFeatures(), viewFeatures.getPointFeatures());
+        verify(featureMapper, never()).createShapeFeature(any(Shape.class), anyList());
+        verify(featureMapper, never()).createPointFeature(any(ShapePoint.class), anyBoolean());
+    }
+
+    @Test
+    public void movedPointShouldOnlyReplaceItsFeature() {
+        List<Shape> shapes = Arrays.asList(first, second);
+        int index = 2;
+        first.select(first.getPoints().get(index).getPointId());
+        ViewFeatures previous = cache.update(shapes);
+        List<Feature> previousPoints = new ArrayList<>(previous.getPointFeatures());
+        clearInvocations(featureMapper);
+
+        cache.invalidatePoint(first, first.moveSelectedPoint(52.371, 4.891));
+        ViewFeatures viewFeatures = cache.update(shapes);
+
+        assertTrue(cache.hasShapeChanges());
+        assertTrue(cache.hasPointChanges());
+        assertNotSame(previous.getFeatures().get(0), viewFeatures.getFeatures().get(0));
+        assertSame(previous.getFeatures().get(1), viewFeatures.getFeatures().get(1));
+        List<Feature> points = viewFeatures.getPointFeatures();
+        for (int i = 0; i < points.size(); i++) {
+            if (i == index) {
+                assertNotSame(previousPoints.get(i), points.get(i));
+            } else {
+                assertSame(previousPoints.get(i), points.get(i));
+            }
+        }
+        verify(featureMapper, times(1)).createPointFeature(any(ShapePoint.class), anyBoolean());
+        verify(featureMapper, never()).createPointFeaturesForShape(any(Shape.class));
+    }
+
+    @Test
+    public void invalidateShouldCreateShapeFeaturesAgain() {
+        List<Shape> shapes = Arrays.asList(first, second);
+        ViewFeatures previous = cache.update(shapes);
+        clearInvocations(featureMapper);
+
+        first.getPoints().add(new ShapePoint("added", "first", 52.36, 4.9));
+        cache.invalidate(first);
+        ViewFeatures viewFeatures = cache.update(shapes);
+
+        assertTrue(cache.hasShapeChanges());
+        assertTrue(cache.hasPointChanges());
+        assertNotSame(previous.getFeatures().get(0), viewFeatures.getFeatures().get(0));
+        assertSame(previous.getFeatures().get(1), viewFeatures.getFeatures().get(1));
+        assertEquals(2 * POINTS + 1, viewFeatures.getPointFeatures().size());
+        verify(featureMapper).createPointFeaturesForShape(first);
+        verify(featureMapper, never()).createPointFeaturesForShape(second);
+    }
+
+    @Test
+    public void selectionChangeShouldOnlyUpdatePointFeatures() {
+        List<Shape> shapes = Arrays.asList(first, second);
+        ViewFeatures previous = cache.update(shapes);
+        clearInvocations(featureMapper);
+
+        second.select(second.getPoints().get(0).getPointId());
+        ViewFeatures viewFeatures = cache.update(shapes);
+
+        assertFalse(cache.hasShapeChanges());
+        assertTrue(cache.hasPointChanges());
+        assertSame(previous.getFeatures(), viewFeatures.getFeatures());
+        verify(featureMapper).createPointFeaturesForShape(second);
+        verify(featureMapper, never()).createPointFeaturesForShape(first);
+    }
+
+    @Test
+    public void removedShapesShouldBePruned() {
+        cache.update(Arrays.asList(first, second));
+
+        ViewFeatures viewFeatures = cache.update(Arrays.asList(first));
+
+        assertTrue(cache.hasShapeChanges());
+        assertTrue(cache.hasPointChanges());
+        assertEquals(1, viewFeatures.getFeatures().size());
+        assertEquals(POINTS, viewFeatures.getPointFeatures().size());
+
+        clearInvocations(featureMapper);
+        cache.update(Arrays.asList(first, second));
+
+        verify(featureMapper).createShapeFeature(any(Shape.class), anyList());
+        verify(featureMapper).createPointFeaturesForShape(second);
+    }
+
+    private AreaShape createShape(String featureId, double latitude) {
+        List<ShapePoint> points = new ArrayList<>();
+        for (int i = 0; i < POINTS; i++) {
+            points.add(new ShapePoint(featureId + i, featureId, latitude + 0.001 * i,
+                    4.89 + 0.002 * (i % 2)));
+        }
+        return new AreaShape(featureId, points);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.presentation.geoshape.entities;
+
+import android.app.Application;
+
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Runs with robolectric as the lengths are computed by {@link android.location.Location}
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class ShapeTest {
+
+    private static final String FEATURE_ID = "feature";
+    private static final int POINTS = 2000;
+    // the full computation multiplies projected coordinates in the order of the earth size,
+    // it is only exact to a few square centimeters
+    private static final double MIN_AREA_DELTA = 0.01;
+    // distances are summed as floats by the full computation
+    private static final double LENGTH_RELATIVE_DELTA = 1e-3;
+
+    private final AreaCounter areaCounter = new AreaCounter();
+    private final LengthCounter lengthCounter = new LengthCounter();
+    private AreaShape shape;
+
+    @Before
+    public void setUp() {
+        List<ShapePoint> points = new ArrayList<>();
+        for (int i = 0; i < POINTS; i++) {
+            double angle = 2 * Math.PI * i / POINTS;
+            points.add(new ShapePoint("point" + i, FEATURE_ID, 52.37 + 0.01 * Math.sin(angle),
+                    4.89 + 0.01 * Math.cos(angle)));
+        }
+        shape = new AreaShape(FEATURE_ID, points);
+    }
+
+    @Test
+    public void getAreaShouldMatchFullComputation() {
+        assertArea();
+    }
+
+    @Test
+    public void getLengthShouldMatchFullComputation() {
+        // the circumference of a circle of about a kilometer of radius
+        assertTrue(shape.getLength() > 4000);
+        assertLength();
+    }
+
+    @Test
+    public void moveSelectedPointShouldUpdateArea() {
+        shape.getArea();
+        Random random = new Random(1);
+        for (int i = 0; i < 500; i++) {
+            int index = random.nextInt(POINTS);
+            ShapePoint point = shape.getPoints().get(index);
+            shape.select(point.getPointId());
+
+            int moved = shape.moveSelectedPoint(point.getLatitude() + random.nextDouble() * 0.001,
+                    point.getLongitude() - random.nextDouble() * 0.001);
+
+            assertEquals(index, moved);
+        }
+        assertArea();
+        assertLength();
+    }
+
+    @Test
+    public void moveFirstAndLastPointsShouldUpdateLength() {
+        shape.getLength();
+        List<ShapePoint> points = shape.getPoints();
+        shape.select(points.get(0).getPointId());
+        shape.moveSelectedPoint(52.39, 4.91);
+        shape.select(points.get(POINTS - 1).getPointId());
+        shape.moveSelectedPoint(52.35, 4.87);
+
+        assertLength();
+    }
+
+    @Test
+    public void moveSelectedPointShouldNotMoveWithoutSelection() {
+        assertEquals(-1, shape.moveSelectedPoint(0, 0));
+    }
+
+    @Test
+    public void selectedPointShouldFollowSelectionChanges() {
+        List<ShapePoint> points = shape.getPoints();
+        shape.select(points.get(10).getPointId());
+        assertEquals("point10", shape.getSelectedPoint().getPointId());
+
+        shape.removeSelectedPoint();
+        assertNull(shape.getSelectedPoint());
+        assertEquals(-1, shape.moveSelectedPoint(0, 0));
+
+        shape.addPoint(new LatLng(52.4, 4.9));
+        assertEquals(points.get(points.size() - 1), shape.getSelectedPoint());
+        assertEquals(points.size() - 1, shape.moveSelectedPoint(52.41, 4.91));
+
+        shape.select("unknown");
+        assertNull(shape.getSelectedPoint());
+
+        shape.select(points.get(0).getPointId());
+        shape.unSelect();
+        assertNull(shape.getSelectedPoint());
+    }
+
+    @Test
+    public void addAndRemovePointsShouldUpdateArea() {
+        shape.getArea();
+        Random random = new Random(2);
+        for (int i = 0; i < 200; i++) {
+            shape.addPoint(new LatLng(52.37 + random.nextDouble() * 0.02,
+                    4.89 + random.nextDouble() * 0.02));
+            List<ShapePoint> points = shape.getPoints();
+            shape.select(points.get(random.nextInt(points.size())).getPointId());
+            shape.removeSelectedPoint();
+            shape.select(points.get(random.nextInt(points.size())).getPointId());
+            shape.removeSelectedPoint();
+        }
+        assertArea();
+        assertLength();
+    }
+
+    @Test
+    public void removeFirstAndLastPointsShouldUpdateLength() {
+        shape.getLength();
+        List<ShapePoint> points = shape.getPoints();
+        shape.select(points.get(0).getPointId());
+        shape.removeSelectedPoint();
+        shape.select(points.get(points.size() - 1).getPointId());
+        shape.removeSelectedPoint();
+
+        assertLength();
+    }
+
+    @Test
+    public void getAreaShouldBeZeroBelowThreePoints() {
+        shape.getArea();
+        List<ShapePoint> points = shape.getPoints();
+        while (points.size() > 2) {
+            shape.select(points.get(0).getPointId());
+            shape.removeSelectedPoint();
+        }
+
+        assertEquals(0.0, shape.getArea());
+
+        shape.addPoint(new LatLng(52.4, 4.9));
+
+        assertArea();
+        assertLength();
+    }
+
+    private void assertArea() {
+        double expected = areaCounter.computeArea(shape.getPoints());
+        assertEquals(expected, shape.getArea(), MIN_AREA_DELTA + expected * 1e-6);
+    }
+
+    private void assertLength() {
+        double expected = lengthCounter.computeLength(shape.getPoints());
+        assertEquals(expected, shape.getLength(), expected * LENGTH_RELATIVE_DELTA);
+    }
+}
@@ -41,6 +41,11 @@ import org.akvo.flow.data.entity.ApiSurveyInstance;
 import org.akvo.flow.data.entity.CursorMapper;
 import org.akvo.flow.data.entity.FormInstanceMapper;
 import org.akvo.flow.data.entity.SurveyInstanceIdMapper;
+import org.akvo.flow.data.entity.FileChecksum;
+import org.akvo.flow.data.entity.ResourceHash;
+import org.akvo.flow.data.entity.ResourceHashMapper;
+import org.akvo.flow.data.entity.UploadPart;
+import org.akvo.flow.data.entity.UploadPartMapper;
 import org.akvo.flow.data.entity.form.DataForm;
 import org.akvo.flow.data.entity.form.DataFormMapper;
 import org.akvo.flow.data.entity.form.DataQuestionGroup;
@@ -49,22 +54,24 @@ import org.akvo.flow.data.entity.form.FormLanguagesMapper;
 import org.akvo.flow.data.entity.form.QuestionGroupMapper;
 import org.akvo.flow.data.util.FlowFileBrowser;
 import org.akvo.flow.database.Constants;
-import org.akvo.flow.database.RecordColumns;
-import org.akvo.flow.database.ResponseColumns;
 import org.akvo.flow.database.SurveyColumns;
 import org.akvo.flow.database.SurveyGroupColumns;
 import org.akvo.flow.database.SurveyInstanceColumns;
 import org.akvo.flow.database.SurveyInstanceStatus;
 import org.akvo.flow.database.TransmissionStatus;
 import org.akvo.flow.database.britedb.BriteSurveyDbAdapter;
+import org.akvo.flow.database.britedb.DataPointSyncWriter;
+import org.akvo.flow.database.tables.RecordSearchTable;
 import org.akvo.flow.domain.entity.DomainFormInstance;
 import org.akvo.flow.domain.entity.User;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -88,12 +95,16 @@ public class DatabaseDataSource {
     private final CursorMapper cursorMapper;
     private final FormLanguagesMapper formLanguagesMapper;
     private final QuestionGroupMapper questionGroupMapper;
+    private final UploadPartMapper uploadPartMapper;
+    private final ResourceHashMapper resourceHashMapper;
 
     @Inject
     public DatabaseDataSource(BriteDatabase db, SurveyInstanceIdMapper surveyInstanceIdMapper,
                               DataFormMapper formMapper, FormInstanceMapper formInstanceMapper,
                               CursorMapper cursorMapper, FormLanguagesMapper formLanguagesMapper,
-                              QuestionGroupMapper questionGroupMapper) {
+                              QuestionGroupMapper questionGroupMapper,
+                              UploadPartMapper uploadPartMapper,
+                              ResourceHashMapper resourceHashMapper) {
         this.briteSurveyDbAdapter = new BriteSurveyDbAdapter(db);
         this.surveyInstanceIdMapper = surveyInstanceIdMapper;
         this.formMapper = formMapper;
@@ -101,6 +112,8 @@ public class DatabaseDataSource {
         this.cursorMapper = cursorMapper;
         this.formLanguagesMapper = formLanguagesMapper;
         this.questionGroupMapper = questionGroupMapper;
+        this.uploadPartMapper = uploadPartMapper;
+        this.resourceHashMapper = resourceHashMapper;
     }
 
     public Observable<Cursor> getSurveys() {
@@ -121,6 +134,56 @@ public class DatabaseDataSource {
         }
     }
 
+    /**
+     * Prefix search on the name and id of the datapoints, falls back to the whole list when the
+     * filter does not contain any word to search for
+     */
+    public Observable<Cursor> searchDataPoints(@NonNull Long surveyGroupId, @NonNull String filter,
+            @Nullable Double latitude, @Nullable Double longitude, @Nullable Integer orderBy,
+            int limit) {
+        String matchQuery = RecordSearchTable.matchQuery(filter);
+        if (matchQuery == null) {
+            return getDataPoints(surveyGroupId, latitude, longitude, orderBy);
+        }
+        int order = orderBy == null ? Constants.ORDER_BY_NONE : orderBy;
+        return briteSurveyDbAdapter
+                .searchDataPoints(surveyGroupId, matchQuery, latitude, longitude, order, limit);
+    }
+
+    /**
+     * Window of datapoints starting at the given sort key, the row with the given record id
+     * is included
+     */
+    public Observable<Cursor> getDataPointsPage(@NonNull Long surveyGroupId, int orderBy,
+            @Nullable String startSortKey, @Nullable String startRecordId, int limit) {
+        return briteSurveyDbAdapter.getDataPointsPage(surveyGroupId, orderBy, startSortKey,
+                startRecordId, limit);
+    }
+
+    public Observable<Cursor> getDataPointsBefore(@NonNull Long surveyGroupId, int orderBy,
+            @NonNull String sortKey, @NonNull String recordId, int limit) {
+        return Observable.fromCallable(() -> briteSurveyDbAdapter
+                .getDataPointsBefore(surveyGroupId, orderBy, sortKey, recordId, limit));
+    }
+
+    public Observable<Cursor> getNearestDataPoints(@NonNull Long surveyGroupId, double latitude,
+            double longitude, int limit) {
+        return briteSurveyDbAdapter
+                .getNearestDataPoints(surveyGroupId, latitude, longitude, limit);
+    }
+
+    public Observable<Cursor> getDataPointsInBounds(@NonNull Long surveyGroupId, double south,
+            double west, double north, double east) {
+        return briteSurveyDbAdapter
+                .getDataPointsInBounds(surveyGroupId, south, west, north, east);
+    }
+
+    public Observable<Cursor> getDataPointClusters(@NonNull Long surveyGroupId, double south,
+            double west, double north, double east, int zoom) {
+        return briteSurveyDbAdapter
+                .getDataPointClusters(surveyGroupId, south, west, north, east, zoom);
+    }
+
     public Single<Cursor> getDataPoint(String dataPointId) {
         return Single.just(briteSurveyDbAdapter.getDataPoint(dataPointId));
     }
@@ -129,31 +192,13 @@ public class DatabaseDataSource {
         if (apiDataPoints == null) {
             return 0;
         }
-        BriteDatabase.Transaction transaction = briteSurveyDbAdapter.beginTransaction();
-        int newDataPoints = 0;
-        try {
-            for (ApiDataPoint dataPoint : apiDataPoints) {
-                final String dataPointId = dataPoint.getId();
-                ContentValues values = new ContentValues();
-                values.put(RecordColumns.RECORD_ID, dataPointId);
-                values.put(RecordColumns.SURVEY_GROUP_ID, dataPoint.getSurveyGroupId());
-                values.put(RecordColumns.NAME, dataPoint.getDisplayName());
-                values.put(RecordColumns.LATITUDE, dataPoint.getLatitude());
-                values.put(RecordColumns.LONGITUDE, dataPoint.getLongitude());
-                values.put(RecordColumns.LAST_MODIFIED, dataPoint.getLastModified());
-
-                syncSurveyInstances(dataPoint.getSurveyInstances(), dataPointId);
-
-                boolean insertedNewRecord = briteSurveyDbAdapter.insertOrUpdateRecord(dataPointId, values);
-                if (insertedNewRecord) {
-                    newDataPoints++;
-                }
-            }
-            transaction.markSuccessful();
-        } finally {
-            transaction.end();
-        }
-        return newDataPoints;
+        return briteSurveyDbAdapter.syncDataPoints(apiDataPoints, (writer, dataPoint) -> {
+            final String dataPointId = dataPoint.getId();
+            syncSurveyInstances(writer, dataPoint.getSurveyInstances(), dataPointId);
+            return writer.upsertRecord(dataPointId, dataPoint.getSurveyGroupId(),
+                    dataPoint.getDisplayName(), dataPoint.getLatitude(),
+                    dataPoint.getLongitude(), dataPoint.getLastModified());
+        });
     }
 
     private boolean isRequestFiltered(@Nullable Integer orderBy) {
@@ -163,49 +208,44 @@ public class DatabaseDataSource {
                 orderBy == Constants.ORDER_BY_NAME);
     }
 
-    private void syncSurveyInstances(List<ApiSurveyInstance> surveyInstances, String dataPointId) {
+    private void syncSurveyInstances(DataPointSyncWriter writer,
+            List<ApiSurveyInstance> surveyInstances, String dataPointId) {
         for (ApiSurveyInstance surveyInstance : surveyInstances) {
-
-            ContentValues values = new ContentValues();
-            values.put(SurveyInstanceColumns.SURVEY_ID, surveyInstance.getSurveyId());
-            values.put(SurveyInstanceColumns.SUBMITTED_DATE, surveyInstance.getCollectionDate());
-            values.put(SurveyInstanceColumns.RECORD_ID, dataPointId);
-            values.put(SurveyInstanceColumns.STATUS, SurveyInstanceStatus.DOWNLOADED);
-            values.put(SurveyInstanceColumns.SYNC_DATE, System.currentTimeMillis());
-            values.put(SurveyInstanceColumns.SUBMITTER, surveyInstance.getSubmitter());
-
-            long id = briteSurveyDbAdapter.syncSurveyInstance(values, surveyInstance.getUuid());
-
-            syncResponses(surveyInstance.getQasList(), id);
+            long id = writer.upsertSurveyInstance(surveyInstance.getUuid(),
+                    surveyInstance.getSurveyId(), surveyInstance.getCollectionDate(), dataPointId,
+                    surveyInstance.getSubmitter());
+            writer.deleteResponses(id);
+            insertResponses(writer, surveyInstance.getQasList(), id);
         }
     }
 
-    private void syncResponses(List<ApiQuestionAnswer> responses, long surveyInstanceId) {
-        deleteResponses(responses, surveyInstanceId);
-        insertResponses(responses, surveyInstanceId);
-    }
-
-    private void deleteResponses(List<ApiQuestionAnswer> responses, long surveyInstanceId) {
+    /**
+     * Answers of repeated question groups share the question id, those get their iteration from
+     * the order in which they are received. Answers which only appear once keep no iteration.
+     */
+    private void insertResponses(DataPointSyncWriter writer, List<ApiQuestionAnswer> responses,
+            long surveyInstanceId) {
+        Map<String, Integer> answersPerQuestion = new HashMap<>();
         for (ApiQuestionAnswer response : responses) {
-            briteSurveyDbAdapter.deleteResponses(surveyInstanceId, response.getQuestionId());
+            String questionId = response.getQuestionId();
+            Integer count = answersPerQuestion.get(questionId);
+            answersPerQuestion.put(questionId, count == null ? 1 : count + 1);
         }
-    }
-
-    private void insertResponses(List<ApiQuestionAnswer> responses, long surveyInstanceId) {
+        Map<String, Integer> nextIteration = new HashMap<>();
         for (ApiQuestionAnswer response : responses) {
-
-            ContentValues values = new ContentValues();
-            values.put(ResponseColumns.ANSWER, response.getAnswer());
-            values.put(ResponseColumns.TYPE, response.getType());
-            values.put(ResponseColumns.QUESTION_ID, response.getQuestionId());
-            /*
-             * true by default when parsing api response
-             * Not sure what this fields is used for ??
-             */
-            values.put(ResponseColumns.INCLUDE, true);
-            values.put(ResponseColumns.SURVEY_INSTANCE_ID, surveyInstanceId);
-
-            briteSurveyDbAdapter.syncResponse(surveyInstanceId, values, response.getQuestionId());
+            String questionId = response.getQuestionId();
+            if (questionId == null || response.getAnswer() == null || response.getType() == null) {
+                continue;
+            }
+            long iteration = DataPointSyncWriter.NO_ITERATION;
+            //noinspection ConstantConditions
+            if (answersPerQuestion.get(questionId) > 1) {
+                Integer next = nextIteration.get(questionId);
+                iteration = next == null ? 0 : next;
+                nextIteration.put(questionId, (int) iteration + 1);
+            }
+            writer.insertResponse(surveyInstanceId, questionId, response.getAnswer(),
+                    response.getType(), iteration);
         }
     }
 
@@ -316,10 +356,47 @@ public class DatabaseDataSource {
         briteSurveyDbAdapter.updateTransmissionStatus(id, TransmissionStatus.FAILED);
     }
 
+    public void saveTransmissionChecksum(long id, FileChecksum checksum) {
+        briteSurveyDbAdapter.saveTransmissionChecksum(id, checksum.getPath(), checksum.getSize(),
+                checksum.getLastModified(), checksum.getMd5Base64(), checksum.getMd5Hex());
+    }
+
     public void setFileTransmissionFormDeleted(long id) {
         briteSurveyDbAdapter.updateTransmissionStatus(id, TransmissionStatus.FORM_DELETED);
     }
 
+    @Nullable
+    public String getUploadId(String filename) {
+        return uploadPartMapper.getUploadId(briteSurveyDbAdapter.getTransmissionUploadId(filename));
+    }
+
+    public void saveUploadId(String filename, String uploadId) {
+        briteSurveyDbAdapter.saveTransmissionUploadId(filename, uploadId);
+    }
+
+    public List<UploadPart> getUploadedParts(String filename, String uploadId) {
+        return uploadPartMapper.transform(briteSurveyDbAdapter.getUploadedParts(filename, uploadId));
+    }
+
+    public void saveUploadedPart(String filename, String uploadId, UploadPart part) {
+        briteSurveyDbAdapter.saveUploadedPart(filename, uploadId, part.getPartNumber(),
+                part.getEtag(), part.getSize());
+    }
+
+    public void clearUploadedParts(String filename) {
+        briteSurveyDbAdapter.clearUploadedParts(filename);
+    }
+
+    @Nullable
+    public ResourceHash getResourceHash(String filename) {
+        return resourceHashMapper.transform(briteSurveyDbAdapter.getResourceHash(filename));
+    }
+
+    public void saveResourceHash(String filename, ResourceHash resourceHash) {
+        briteSurveyDbAdapter.saveResourceHash(filename, resourceHash.getEtag(),
+                resourceHash.getSize());
+    }
+
     public Observable<Boolean> updateFailedSubmissions(Set<Long> failedSubmissions) {
         BriteDatabase.Transaction transaction = briteSurveyDbAdapter.beginTransaction();
         try {
@@ -1,5 +1,5 @@
 /*
- * Copyright (C) 2017-2019 Stichting Akvo (Akvo Foundation)
+ * Copyright (C) 2017-2019,2021 Stichting Akvo (Akvo Foundation)
  *
  * This file is part of Akvo Flow.
  *
@@ -22,20 +22,24 @@ package org.akvo.flow.data.datasource.files;
 
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
 import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
 import android.graphics.RectF;
 import android.os.Build;
 import android.os.ParcelFileDescriptor;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
 import org.akvo.flow.domain.util.ImageSize;
 import org.akvo.flow.utils.FileHelper;
 
-import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileDescriptor;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -44,28 +48,75 @@ import javax.inject.Inject;
 
 import timber.log.Timber;
 
+/**
+ * Decodes photos straight to the size chosen in the settings and compresses them to jpeg.
+ * Large photos are decoded in horizontal strips, each of them subsampled and drawn scaled into
+ * the output bitmap, so the memory used is bounded by the output size plus one strip whatever
+ * the camera resolution. Bitmaps are reused through the {@link BitmapPool}.
+ * Jpeg quality starts at a fixed value and is lowered, down to a minimum, until the
+ * output fits in a size budget proportional to its number of pixels.
+ */
 public class BitmapHelper {
     private static final int RESIZED_IMAGE_WIDTH = 320;
     private static final int RESIZED_IMAGE_HEIGHT = 240;
-    private static final int QUALITY_FULL = 100;
+
+    /**
+     * Jpeg quality images are compressed with first
+     */
+    private static final int QUALITY = 85;
+
+    /**
+     * Lowest jpeg quality used to fit in the size budget
+     */
+    private static final int MIN_QUALITY = 60;
+    private static final int QUALITY_STEP = 10;
+
+    /**
+     * Size budget of the compressed images
+     */
+    private static final float MAX_BYTES_PER_PIXEL = 0.4f;
+
+    /**
+     * Maximum number of pixels of a decoded strip
+     */
+    private static final int MAX_STRIP_PIXELS = 1024 * 1024;
 
     private final FileHelper fileHelper;
+    private final BitmapPool bitmapPool;
 
     @Inject
-    public BitmapHelper(FileHelper fileHelper) {
+    public BitmapHelper(FileHelper fileHelper, BitmapPool bitmapPool) {
         this.fileHelper = fileHelper;
+        this.bitmapPool = bitmapPool;
     }
 
     boolean compressBitmap(@Nullable Bitmap bitmap, String filename) {
         if (bitmap == null) {
             return false;
         }
+        long maxBytes = (long) (bitmap.getWidth() * (long) bitmap.getHeight()
+                * MAX_BYTES_PER_PIXEL);
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        int jpegQuality = QUALITY;
+        boolean compressed = bitmap.compress(Bitmap.CompressFormat.JPEG, jpegQuality, jpeg);
+        while (compressed && jpeg.size() > maxBytes && jpegQuality > MIN_QUALITY) {
+            jpegQuality = Math.max(MIN_QUALITY, jpegQuality - QUALITY_STEP);
+            jpeg.reset();
+            compressed = bitmap.compress(Bitmap.CompressFormat.JPEG, jpegQuality, jpeg);
+        }
+        if (!compressed) {
+            return false;
+        }
+        Timber.d("Compressed %d x %d image to %d bytes at quality %d", bitmap.getWidth(),
+                bitmap.getHeight(), jpeg.size(), jpegQuality);
+
         OutputStream out = null;
         boolean saved = false;
         try {
-            out = new BufferedOutputStream(new FileOutputStream(filename));
-            saved = bitmap.compress(Bitmap.CompressFormat.JPEG, QUALITY_FULL, out);
-        } catch (FileNotFoundException e) {
+            out = new FileOutputStream(filename);
+            jpeg.writeTo(out);
+            saved = true;
+        } catch (IOException e) {
             Timber.e(e);
         } finally {
             fileHelper.close(out);
@@ -82,11 +133,157 @@ public class BitmapHelper {
                 .createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), m, true);
     }
 
+    /**
+     * Decodes the image to the given size preference and saves it as jpeg
+     *
+     * @return true if the image was saved
+     */
+    public boolean saveResizedImage(int sizePreference,
+            @NonNull ParcelFileDescriptor parcelFileDescriptor, @NonNull String filename) {
+        Bitmap bitmap = getBitmap(sizePreference, parcelFileDescriptor);
+        try {
+            return compressBitmap(bitmap, filename);
+        } finally {
+            bitmapPool.put(bitmap);
+        }
+    }
+
+    /**
+     * @return the image scaled down to fit in the size preference, which should be handed over
+     * to the {@link BitmapPool} once it is no longer used
+     */
+    @Nullable
     Bitmap getBitmap(int sizePreference, ParcelFileDescriptor parcelFileDescriptor) {
         FileDescriptor fileDescriptor = parcelFileDescriptor.getFileDescriptor();
-        BitmapFactory.Options options = prepareBitmapOptions(fileDescriptor,
-                sizePreference);
+        try {
+            BitmapFactory.Options bounds = new BitmapFactory.Options();
+            bounds.inJustDecodeBounds = true;
+            BitmapFactory.decodeFileDescriptor(fileDescriptor, null, bounds);
+            int width = bounds.outWidth;
+            int height = bounds.outHeight;
+            Timber.d("Orig Image size: %d x %d", width, height);
+            if (width <= 0 || height <= 0) {
+                return null;
+            }
+
+            ImageSize imageSize = getTargetImageSize(sizePreference, bounds);
+            float scale = Math.min(1f, Math.min(imageSize.getWidth() / (float) width,
+                    imageSize.getHeight() / (float) height));
+            int outWidth = Math.max(1, Math.round(width * scale));
+            int outHeight = Math.max(1, Math.round(height * scale));
+            int inSampleSize = calculateInSampleSize(width, height, outWidth, outHeight);
+            Timber.d("Will sample size by: %d, output size: %d x %d", inSampleSize, outWidth,
+                    outHeight);
+
+            Bitmap bitmap = decodeInStrips(fileDescriptor, width, height, inSampleSize,
+                    outWidth, outHeight);
+            if (bitmap == null) {
+                bitmap = decodeWhole(fileDescriptor, inSampleSize, outWidth, outHeight);
+            }
+            return bitmap;
+        } finally {
+            closeDescriptor(parcelFileDescriptor);
+        }
+    }
+
+    /**
+     * @return null if the format cannot be decoded by regions
+     */
+    @Nullable
+    private Bitmap decodeInStrips(FileDescriptor fileDescriptor, int width, int height,
+            int inSampleSize, int outWidth, int outHeight) {
+        BitmapRegionDecoder decoder;
+        try {
+            decoder = BitmapRegionDecoder.newInstance(fileDescriptor, false);
+        } catch (IOException e) {
+            Timber.d("Image cannot be decoded by regions: %s", e.getMessage());
+            return null;
+        }
+        if (decoder == null) {
+            return null;
+        }
+
+        // All the strips have the same size so a single bitmap can be reused to decode them,
+        // the last one overlaps the previous one instead of being shorter
+        int sampledWidth = (width + inSampleSize - 1) / inSampleSize;
+        int stripHeight = Math.min(height,
+                Math.max(1, MAX_STRIP_PIXELS / sampledWidth) * inSampleSize);
+        int sampledStripHeight = (stripHeight + inSampleSize - 1) / inSampleSize;
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = inSampleSize;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        options.inMutable = true;
+
+        Bitmap output = obtainBitmap(outWidth, outHeight);
+        Canvas canvas = new Canvas(output);
+        Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        Rect region = new Rect();
+        RectF destination = new RectF();
+        float scaleX = outWidth / (float) width;
+        float scaleY = outHeight / (float) height;
+        Bitmap strip = bitmapPool.get(sampledWidth, sampledStripHeight, Bitmap.Config.ARGB_8888);
+        try {
+            for (int top = 0; top < height; top += stripHeight) {
+                int stripTop = Math.min(top, height - stripHeight);
+                region.set(0, stripTop, width, stripTop + stripHeight);
+                strip = decodeRegion(decoder, region, options, strip);
+                if (strip == null) {
+                    bitmapPool.put(output);
+                    return null;
+                }
+                destination.set(0, stripTop * scaleY, width * scaleX,
+                        (stripTop + stripHeight) * scaleY);
+                canvas.drawBitmap(strip, null, destination, paint);
+            }
+        } finally {
+            bitmapPool.put(strip);
+            decoder.recycle();
+        }
+        return output;
+    }
+
+    @Nullable
+    private Bitmap decodeRegion(BitmapRegionDecoder decoder, Rect region,
+            BitmapFactory.Options options, @Nullable Bitmap reusable) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            options.inBitmap = reusable;
+        }
+        try {
+            return decoder.decodeRegion(region, options);
+        } catch (IllegalArgumentException e) {
+            // The bitmap could not be reused, decode into a new one
+            options.inBitmap = null;
+            bitmapPool.put(reusable);
+            return decoder.decodeRegion(region, options);
+        }
+    }
+
+    @Nullable
+    private Bitmap decodeWhole(FileDescriptor fileDescriptor, int inSampleSize, int outWidth,
+            int outHeight) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = inSampleSize;
+        options.inMutable = true;
         Bitmap bitmap = BitmapFactory.decodeFileDescriptor(fileDescriptor, null, options);
+        if (bitmap == null
+                || bitmap.getWidth() == outWidth && bitmap.getHeight() == outHeight) {
+            return bitmap;
+        }
+        Bitmap output = obtainBitmap(outWidth, outHeight);
+        new Canvas(output).drawBitmap(bitmap, null, new Rect(0, 0, outWidth, outHeight),
+                new Paint(Paint.FILTER_BITMAP_FLAG));
+        bitmapPool.put(bitmap);
+        return output;
+    }
+
+    private Bitmap obtainBitmap(int width, int height) {
+        Bitmap bitmap = bitmapPool.get(width, height, Bitmap.Config.ARGB_8888);
+        return bitmap != null ? bitmap :
+                Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    private void closeDescriptor(ParcelFileDescriptor parcelFileDescriptor) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
             fileHelper.close(parcelFileDescriptor);
         } else {
@@ -96,24 +293,6 @@ public class BitmapHelper {
                 //ignore
             }
         }
-        return bitmap;
-    }
-
-    @NonNull
-    private BitmapFactory.Options prepareBitmapOptions(FileDescriptor origFilename,
-            int sizePreference) {
-        BitmapFactory.Options options = new BitmapFactory.Options();
-        options.inJustDecodeBounds = true;
-        BitmapFactory.decodeFileDescriptor(origFilename, null, options);
-        Timber.d("Orig Image size: %d x %d", options.outWidth, options.outHeight);
-
-        ImageSize imageSize = getTargetImageSize(sizePreference, options);
-
-        options.inSampleSize = calculateInSampleSize(options, imageSize);
-
-        Timber.d("Will sample size by: %s", options.inSampleSize);
-        options.inJustDecodeBounds = false;
-        return options;
     }
 
     @NonNull
@@ -139,47 +318,16 @@ public class BitmapHelper {
     }
 
     /**
-     * Calculate an inSampleSize for use in a {@link BitmapFactory.Options} object when decoding
-     * bitmaps using the decode* methods from {@link BitmapFactory}. This implementation calculates
-     * the closest inSampleSize that will result in the final decoded bitmap having a width and
-     * height equal to or larger than the requested width and height. This implementation does not
-     * ensure a power of 2 is returned for inSampleSize.
-     *
-     * @param options   An options object with out* params already populated
-     * @param imageSize The requested width and height of the resulting bitmap
-     * @return The value to be used for inSampleSize
+     * The decoders only subsample by powers of 2: this returns the largest one which still
+     * decodes the image at least as large as the output, the rest of the scaling is done when
+     * drawing it into the output bitmap.
      */
-    private int calculateInSampleSize(BitmapFactory.Options options, ImageSize imageSize) {
-        final int height = options.outHeight;
-        final int width = options.outWidth;
+    @VisibleForTesting
+    static int calculateInSampleSize(int width, int height, int outWidth, int outHeight) {
         int inSampleSize = 1;
-        int requestedWidth = imageSize.getWidth();
-        int requestedHeight = imageSize.getHeight();
-
-        if (height > requestedHeight || width > requestedWidth) {
-
-            // Calculate ratios of height and width to requested height and width
-            final int heightRatio = Math.round((float) height / (float) requestedHeight);
-            final int widthRatio = Math.round((float) width / (float) requestedWidth);
-
-            // Choose the smallest ratio as inSampleSize value, this will guarantee a final image
-            // with both dimensions larger than or equal to the requested height and width.
-            inSampleSize = heightRatio < widthRatio ? heightRatio : widthRatio;
-
-            // This offers some additional logic in case the image has a strange
-            // aspect ratio. For example, a panorama may have a much larger
-            // width than height. In these cases the total pixels might still
-            // end up being too large to fit comfortably in memory, so we should
-            // be more aggressive with sample down the image (=larger inSampleSize).
-
-            final float totalPixels = width * height;
-
-            // Anything more than 2x the requested pixels we'll sample down further
-            final float totalReqPixelsCap = requestedWidth * requestedHeight * 2;
-
-            while (totalPixels / (inSampleSize * inSampleSize) > totalReqPixelsCap) {
-                inSampleSize++;
-            }
+        while (width / (inSampleSize * 2) >= outWidth
+                && height / (inSampleSize * 2) >= outHeight) {
+            inSampleSize *= 2;
         }
         return inSampleSize;
     }
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.data.datasource.files;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Keeps mutable bitmaps which are no longer used so that decoding the next image can reuse
+ * their memory instead of allocating new ones. Photos taken in a row have the same size, so
+ * bitmaps are only handed out for an exact size and config match, which every api level
+ * accepts as a decoding target. The pool is bounded by the total size of the bitmaps it holds,
+ * the ones which have been in it the longest are recycled first. The bound is a fraction of the
+ * heap of the device, and the pool is emptied as soon as the system asks to trim memory, which
+ * includes the app going to the background.
+ */
+@Singleton
+public class BitmapPool implements ComponentCallbacks2 {
+
+    /**
+     * Fraction of the memory class of the device the pool may hold
+     */
+    private static final int HEAP_FRACTION = 8;
+
+    private final long maxBytes;
+    private final LinkedList<Bitmap> bitmaps = new LinkedList<>();
+    private long bytes;
+
+    @Inject
+    public BitmapPool(Context context) {
+        this(maxBytes(context));
+        context.getApplicationContext().registerComponentCallbacks(this);
+    }
+
+    public BitmapPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return a cleared bitmap of the given size and config, or null if there is none
+     */
+    @Nullable
+    public synchronized Bitmap get(int width, int height, @NonNull Bitmap.Config config) {
+        Iterator<Bitmap> iterator = bitmaps.iterator();
+        while (iterator.hasNext()) {
+            Bitmap bitmap = iterator.next();
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height
+                    && bitmap.getConfig() == config) {
+                iterator.remove();
+                bytes -= sizeOf(bitmap);
+                bitmap.eraseColor(Color.TRANSPARENT);
+                return bitmap;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hands a bitmap which is no longer used over to the pool, it must not be used afterwards
+     */
+    public synchronized void put(@Nullable Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        long size = sizeOf(bitmap);
+        if (!bitmap.isMutable() || size > maxBytes) {
+            bitmap.recycle();
+            return;
+        }
+        bitmaps.addLast(bitmap);
+        bytes += size;
+        while (bytes > maxBytes) {
+            Bitmap evicted = bitmaps.removeFirst();
+            bytes -= sizeOf(evicted);
+            evicted.recycle();
+        }
+    }
+
+    public synchronized void clear() {
+        for (Bitmap bitmap : bitmaps) {
+            bitmap.recycle();
+        }
+        bitmaps.clear();
+        bytes = 0;
+    }
+
+    public synchronized long size() {
+        return bytes;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        clear();
+    }
+
+    @Override
+    public void onLowMemory() {
+        clear();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        // Bitmaps do not depend on the configuration
+    }
+
+    private static long maxBytes(Context context) {
+        ActivityManager activityManager = (ActivityManager) context
+                .getSystemService(Context.ACTIVITY_SERVICE);
+        return (long) activityManager.getMemoryClass() * 1024 * 1024 / HEAP_FRACTION;
+    }
+
+    private static long sizeOf(Bitmap bitmap) {
+        return (long) bitmap.getRowBytes() * bitmap.getHeight();
+    }
+}
@@ -48,6 +48,9 @@ public class ExifHelper {
                 ExifInterface newImageExif = new ExifInterface(resizedImagePath);
                 copyOrientationInformation(originalImageExif, newImageExif);
                 copyGpsInformation(originalImageExif, newImageExif);
+                copyCaptureInformation(originalImageExif, newImageExif);
+                // The file is rewritten when saving, only do it once
+                newImageExif.saveAttributes();
                 return extractGpsData(newImageExif);
             } catch (IOException e) {
                 Timber.e(e);
@@ -64,19 +67,32 @@ public class ExifHelper {
         return new DataImageLocation(latitude, longitude, newImageExif.getAltitude(0.0));
     }
 
-    private void copyGpsInformation(ExifInterface originalImageExif, ExifInterface newImageExif)
-            throws IOException {
+    private void copyGpsInformation(ExifInterface originalImageExif,
+            ExifInterface newImageExif) {
         copyAttribute(originalImageExif, newImageExif, ExifInterface.TAG_GPS_LATITUDE);
         copyAttribute(originalImageExif, newImageExif, ExifInterface.TAG_GPS_LATITUDE_REF);
         copyAttribute(originalImageExif, newImageExif, ExifInterface.TAG_GPS_LONGITUDE);
         copyAttribute(originalImageExif, newImageExif, ExifInterface.TAG_GPS_LONGITUDE_REF);
         copyAttribute(originalImageExif, newImageExif, ExifInterface.TAG_GPS_ALTITUDE);
         copyAttribute(originalImageExif, newImageExif, ExifInterface.TAG_GPS_ALTITUDE_REF);
-        newImageExif.saveAttributes();
+        copyAttribute(originalImageExif, newImageExif, ExifInterface.TAG_GPS_TIMESTAMP);
+        copyAttribute(originalImageExif, newImageExif, ExifInterface.TAG_GPS_DATESTAMP);
+    }
+
+    /**
+     * The resized image is a new file: when and with what it was taken is only known from the
+     * original one
+     */
+    private void copyCaptureInformation(ExifInterface originalImageExif,
+            ExifInterface newImageExif) {
+        copyAttribute(originalImageExif, newImageExif, ExifInterface.TAG_DATETIME);
+        copyAttribute(originalImageExif, newImageExif, ExifInterface.TAG_DATETIME_ORIGINAL);
+        copyAttribute(originalImageExif, newImageExif, ExifInterface.TAG_MAKE);
+        copyAttribute(originalImageExif, newImageExif, ExifInterface.TAG_MODEL);
     }
 
     private void copyOrientationInformation(ExifInterface originalImageExif,
-            ExifInterface newImageExif) throws IOException {
+            ExifInterface newImageExif) {
         final String originalImageOrientation = getOrientation(originalImageExif);
         final String newImageOrientation = getOrientation(newImageExif);
 
@@ -87,7 +103,6 @@ public class ExifHelper {
             newImageExif
                     .setAttribute(ExifInterface.TAG_ORIENTATION, originalImageOrientation);
         }
-        newImageExif.saveAttributes();
     }
 
     private String getOrientation(ExifInterface exifInterface) {
@@ -118,6 +133,9 @@ public class ExifHelper {
 
     private void copyAttribute(ExifInterface originalImageExif, ExifInterface newImageExif,
             String attribute) {
-        newImageExif.setAttribute(attribute, originalImageExif.getAttribute(attribute));
+        String value = originalImageExif.getAttribute(attribute);
+        if (value != null) {
+            newImageExif.setAttribute(attribute, value);
+        }
     }
 }
@@ -20,6 +20,7 @@
 
 package org.akvo.flow.data.datasource.files;
 
+import android.database.SQLException;
 import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
@@ -29,7 +30,9 @@ import androidx.annotation.VisibleForTesting;
 import org.akvo.flow.data.util.Constants;
 import org.akvo.flow.data.util.ExternalStorageHelper;
 import org.akvo.flow.data.util.FlowFileBrowser;
+import org.akvo.flow.database.CascadeSearchIndex;
 import org.akvo.flow.utils.FileHelper;
+import org.akvo.flow.utils.FormQuestionsCodec;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
@@ -265,8 +268,20 @@ public class FileDataSource {
     }
 
     public InputStream getFormFile(String id) throws FileNotFoundException {
+        return new FileInputStream(getFormXmlFile(id));
+    }
+
+    public File getFormXmlFile(String id) {
+        File formFolder = flowFileBrowser.getExistingInternalFolder(FlowFileBrowser.DIR_FORMS);
+        return new File(formFolder, id + FlowFileBrowser.XML_SUFFIX);
+    }
+
+    /**
+     * @return the file holding the pre-compiled questions of the form, which may not exist yet
+     */
+    public File getCompiledFormFile(String id) {
         File formFolder = flowFileBrowser.getExistingInternalFolder(FlowFileBrowser.DIR_FORMS);
-        return new FileInputStream(new File(formFolder, id + FlowFileBrowser.XML_SUFFIX));
+        return new File(formFolder, id + FormQuestionsCodec.COMPILED_FORM_SUFFIX);
     }
 
     private Single<File> getZipFile(String uuid) {
@@ -280,6 +295,28 @@ public class FileDataSource {
         return folder.exists() && new File(folder, imageName).exists();
     }
 
+    public boolean fileExists(String folderName, @NotNull String fileName) {
+        File folder = flowFileBrowser.getInternalFolder(folderName);
+        return folder.exists() && new File(folder, fileName).exists();
+    }
+
+    /**
+     * Adds the name search index to an extracted cascade resource. A resource which cannot be
+     * indexed can still be used, only searching it will be slower.
+     */
+    public void indexCascadeResource(@NotNull String fileName) {
+        File resFolder = flowFileBrowser.getInternalFolder(FlowFileBrowser.DIR_RES);
+        File resource = new File(resFolder, fileName);
+        if (!resource.exists()) {
+            return;
+        }
+        try {
+            CascadeSearchIndex.create(resource);
+        } catch (SQLException e) {
+            Timber.e(e, "Could not index cascade resource %s", fileName);
+        }
+    }
+
     public void extractZipEntry(@NotNull ZipFile zipFile, @NotNull ZipEntry entry, String folderName) throws IOException {
         File resFolder = flowFileBrowser.getExistingInternalFolder(folderName);
         fileHelper.extractInputStream(new ZipInputStream(zipFile.getInputStream(entry)), resFolder);
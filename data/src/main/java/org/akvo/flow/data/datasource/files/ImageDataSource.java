@@ -98,16 +98,24 @@ public class ImageDataSource {
 
     private Observable<Boolean> saveResizedBitmap(Bitmap bitmap, String absolutePath) {
         Bitmap resizedBitmap = bitmapHelper.createResizedBitmap(bitmap);
-        return saveBitmap(resizedBitmap, absolutePath);
+        try {
+            return saveBitmap(resizedBitmap, absolutePath);
+        } finally {
+            if (resizedBitmap != bitmap) {
+                resizedBitmap.recycle();
+            }
+        }
     }
 
     private Observable<Boolean> resizeImage(Uri uri, String outFilename, int sizePreference) {
         ParcelFileDescriptor parcelFileDescriptor = mediaResolverHelper.openFileDescriptor(uri);
-        if (parcelFileDescriptor != null) {
-            Bitmap bitmap = bitmapHelper.getBitmap(sizePreference, parcelFileDescriptor);
-            return saveBitmap(bitmap, outFilename);
+        if (parcelFileDescriptor == null) {
+            return Observable.error(new Exception("Error getting bitmap from uri: " + uri));
+        }
+        if (bitmapHelper.saveResizedImage(sizePreference, parcelFileDescriptor, outFilename)) {
+            return Observable.just(true);
         }
-        return Observable.error(new Exception("Error getting bitmap from uri: " + uri));
+        return Observable.error(new Exception("Error saving bitmap"));
     }
 
     private Observable<Boolean> saveBitmap(@Nullable Bitmap bitmap, String filename) {
@@ -25,6 +25,7 @@ import android.database.Cursor;
 import org.akvo.flow.database.SurveyDbAdapter;
 import org.akvo.flow.database.SurveyInstanceColumns;
 import org.akvo.flow.domain.entity.DataPoint;
+import org.akvo.flow.domain.entity.DataPointCluster;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -86,4 +87,19 @@ public class DataPointMapper {
         }
         return items;
     }
+
+    @NonNull
+    public List<DataPointCluster> getDataPointClusters(Cursor cursor) {
+        List<DataPointCluster> clusters = new ArrayList<>();
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                clusters.add(new DataPointCluster(
+                        cursor.getDouble(SurveyDbAdapter.DataPointClusterQuery.LATITUDE),
+                        cursor.getDouble(SurveyDbAdapter.DataPointClusterQuery.LONGITUDE),
+                        cursor.getInt(SurveyDbAdapter.DataPointClusterQuery.POINT_COUNT)));
+            }
+            cursor.close();
+        }
+        return clusters;
+    }
 }
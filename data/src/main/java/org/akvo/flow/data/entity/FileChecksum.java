@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.data.entity;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+
+/**
+ * Checksum of a file together with the file attributes it was computed for
+ */
+public class FileChecksum {
+
+    private final String path;
+    private final long size;
+    private final long lastModified;
+    private final String md5Base64;
+    private final String md5Hex;
+
+    public FileChecksum(String path, long size, long lastModified, String md5Base64,
+            String md5Hex) {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.md5Base64 = md5Base64;
+        this.md5Hex = md5Hex;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public String getMd5Base64() {
+        return md5Base64;
+    }
+
+    public String getMd5Hex() {
+        return md5Hex;
+    }
+
+    /**
+     * @return true if the file has not changed since the checksum was computed
+     */
+    public boolean matches(@NonNull File file) {
+        return path != null && path.equals(file.getPath()) && size == file.length()
+                && lastModified == file.lastModified();
+    }
+}
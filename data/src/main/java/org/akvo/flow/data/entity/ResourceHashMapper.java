@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.data.entity;
+
+import android.database.Cursor;
+
+import androidx.annotation.Nullable;
+
+import org.akvo.flow.database.tables.ResourceHashTable;
+
+import javax.inject.Inject;
+
+public class ResourceHashMapper {
+
+    @Inject
+    public ResourceHashMapper() {
+    }
+
+    @Nullable
+    public ResourceHash transform(@Nullable Cursor cursor) {
+        ResourceHash resourceHash = null;
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                resourceHash = new ResourceHash(
+                        cursor.getString(cursor.getColumnIndexOrThrow(ResourceHashTable.COLUMN_ETAG)),
+                        cursor.getLong(cursor.getColumnIndexOrThrow(ResourceHashTable.COLUMN_SIZE)));
+            }
+            cursor.close();
+        }
+        return resourceHash;
+    }
+}
@@ -37,19 +37,29 @@ public class S3File {
     private final boolean isPublic;
     private final String dir;
     private final String action;
-    private final String md5Base64;
-    private final String md5Hex;
+    private final FileChecksum checksum;
+    private final boolean checksumCached;
     private final String filename;
 
     public S3File(File file, boolean isPublic, String dir, String action, String md5Base64,
             String md5Hex) {
+        this(file, isPublic, dir, action, new FileChecksum(file.getPath(), file.length(),
+                file.lastModified(), md5Base64, md5Hex), false);
+    }
+
+    /**
+     * @param checksumCached true if the checksum comes from the transmission and does not need
+     *                       to be stored again
+     */
+    public S3File(File file, boolean isPublic, String dir, String action,
+            @NonNull FileChecksum checksum, boolean checksumCached) {
         this.file = file;
         this.isPublic = isPublic;
         this.dir = dir;
         this.action = action;
-        this.md5Base64 = md5Base64;
+        this.checksum = checksum;
+        this.checksumCached = checksumCached;
         this.filename = file.getName();
-        this.md5Hex = md5Hex;
     }
 
     public File getFile() {
@@ -69,7 +79,7 @@ public class S3File {
     }
 
     public String getMd5Base64() {
-        return md5Base64;
+        return checksum.getMd5Base64();
     }
 
     public String getFilename() {
@@ -98,6 +108,15 @@ public class S3File {
     }
 
     public String getMd5Hex() {
-        return md5Hex;
+        return checksum.getMd5Hex();
+    }
+
+    @NonNull
+    public FileChecksum getChecksum() {
+        return checksum;
+    }
+
+    public boolean isChecksumCached() {
+        return checksumCached;
     }
 }
@@ -28,6 +28,7 @@ import androidx.annotation.Nullable;
 import org.akvo.flow.data.util.Constants;
 import org.akvo.flow.data.util.FlowFileBrowser;
 import org.akvo.flow.utils.FileHelper;
+import org.akvo.flow.utils.entity.Md5Checksum;
 
 import java.io.File;
 
@@ -46,17 +47,40 @@ public class S3FileMapper {
 
     @Nullable
     public S3File transform(String filename) {
+        return transform(filename, null);
+    }
+
+    /**
+     * @param cachedChecksum checksum stored with the transmission, only used if the file did not
+     *                       change since it was computed
+     */
+    @Nullable
+    public S3File transform(String filename, @Nullable FileChecksum cachedChecksum) {
         S3File trans = null;
         File transmissionFile = getFile(filename);
         if (transmissionFile != null && transmissionFile.exists()) {
-            String md5Checksum = fileHelper.getMd5Base64(transmissionFile);
-            String md5Hex = fileHelper.hexMd5(transmissionFile);
+            boolean cached = cachedChecksum != null && cachedChecksum.matches(transmissionFile);
+            FileChecksum checksum = cached ? cachedChecksum : computeChecksum(transmissionFile);
             trans = new S3File(transmissionFile, isFilePublic(filename), getDir(filename),
-                    getAction(filename), md5Checksum, md5Hex);
+                    getAction(filename), checksum, cached);
         }
         return trans;
     }
 
+    /**
+     * File attributes are read before the file so that a file modified while being read does
+     * not match the stored checksum next time
+     */
+    @NonNull
+    private FileChecksum computeChecksum(File file) {
+        String path = file.getPath();
+        long size = file.length();
+        long lastModified = file.lastModified();
+        Md5Checksum md5 = fileHelper.getMd5(file);
+        return md5 == null ? new FileChecksum(path, size, lastModified, "", "")
+                : new FileChecksum(path, size, lastModified, md5.getBase64(), md5.getHex());
+    }
+
     private String getAction(String filename) {
         String ext = getFileExtension(filename);
         if (isMedia(ext)) {
@@ -51,9 +51,26 @@ public class TransmissionMapper {
                 final int surveyInstanceCol = cursor
                         .getColumnIndexOrThrow(TransmissionColumns.SURVEY_INSTANCE_ID);
                 final int fileCol = cursor.getColumnIndexOrThrow(TransmissionColumns.FILENAME);
+                final int checksumPathCol = cursor
+                        .getColumnIndex(TransmissionColumns.CHECKSUM_PATH);
+                final int checksumSizeCol = cursor
+                        .getColumnIndex(TransmissionColumns.CHECKSUM_SIZE);
+                final int checksumModifiedCol = cursor
+                        .getColumnIndex(TransmissionColumns.CHECKSUM_MODIFIED);
+                final int md5Base64Col = cursor.getColumnIndex(TransmissionColumns.MD5_BASE64);
+                final int md5HexCol = cursor.getColumnIndex(TransmissionColumns.MD5_HEX);
                 do {
                     String filename = cursor.getString(fileCol);
-                    S3File s3File = fileMapper.transform(filename);
+                    FileChecksum cachedChecksum = null;
+                    String checksumPath = checksumPathCol == -1 ? null
+                            : cursor.getString(checksumPathCol);
+                    if (checksumPath != null) {
+                        cachedChecksum = new FileChecksum(checksumPath,
+                                cursor.getLong(checksumSizeCol),
+                                cursor.getLong(checksumModifiedCol),
+                                cursor.getString(md5Base64Col), cursor.getString(md5HexCol));
+                    }
+                    S3File s3File = fileMapper.transform(filename, cachedChecksum);
                     if (s3File != null) {
                         Transmission trans = new Transmission(cursor.getLong(idCol),
                                 cursor.getLong(surveyInstanceCol), cursor.getString(formIdCol),
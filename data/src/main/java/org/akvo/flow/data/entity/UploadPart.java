@@ -1,5 +1,5 @@
 /*
- * Copyright (C) 2017-2018 Stichting Akvo (Akvo Foundation)
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
  *
  * This file is part of Akvo Flow.
  *
@@ -18,27 +18,29 @@
  *
  */
 
-package org.akvo.flow.data.database.cascade;
+package org.akvo.flow.data.entity;
 
-import android.content.Context;
-import android.database.sqlite.SQLiteDatabase;
-import android.database.sqlite.SQLiteOpenHelper;
+public class UploadPart {
 
-public class CascadeDatabaseHelper extends SQLiteOpenHelper {
+    private final int partNumber;
+    private final String etag;
+    private final long size;
 
-    private static final int VERSION = 1;
+    public UploadPart(int partNumber, String etag, long size) {
+        this.partNumber = partNumber;
+        this.etag = etag;
+        this.size = size;
+    }
 
-    public CascadeDatabaseHelper(Context context, String dbPath) {
-        super(context, dbPath, null, VERSION);
+    public int getPartNumber() {
+        return partNumber;
     }
 
-    @Override
-    public void onCreate(SQLiteDatabase db) {
-        //EMPTY
+    public String getEtag() {
+        return etag;
     }
 
-    @Override
-    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        //EMPTY
+    public long getSize() {
+        return size;
     }
 }
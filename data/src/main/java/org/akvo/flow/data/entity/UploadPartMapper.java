@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.data.entity;
+
+import android.database.Cursor;
+
+import androidx.annotation.Nullable;
+
+import org.akvo.flow.database.TransmissionColumns;
+import org.akvo.flow.database.tables.UploadPartTable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+
+public class UploadPartMapper {
+
+    @Inject
+    public UploadPartMapper() {
+    }
+
+    @Nullable
+    public String getUploadId(@Nullable Cursor cursor) {
+        String uploadId = null;
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                uploadId = cursor
+                        .getString(cursor.getColumnIndexOrThrow(TransmissionColumns.UPLOAD_ID));
+            }
+            cursor.close();
+        }
+        return uploadId;
+    }
+
+    public List<UploadPart> transform(@Nullable Cursor cursor) {
+        List<UploadPart> parts = new ArrayList<>();
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                final int partNumberColumn = cursor
+                        .getColumnIndexOrThrow(UploadPartTable.COLUMN_PART_NUMBER);
+                final int etagColumn = cursor.getColumnIndexOrThrow(UploadPartTable.COLUMN_ETAG);
+                final int sizeColumn = cursor.getColumnIndexOrThrow(UploadPartTable.COLUMN_SIZE);
+                do {
+                    parts.add(new UploadPart(cursor.getInt(partNumberColumn),
+                            cursor.getString(etagColumn), cursor.getLong(sizeColumn)));
+                } while (cursor.moveToNext());
+            }
+            cursor.close();
+        }
+        return parts;
+    }
+}
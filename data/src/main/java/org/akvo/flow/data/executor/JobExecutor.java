@@ -20,61 +20,56 @@
 
 package org.akvo.flow.data.executor;
 
-import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import org.akvo.flow.domain.executor.TaskLaneStats;
+import org.akvo.flow.domain.executor.TaskPriority;
 import org.akvo.flow.domain.executor.ThreadExecutor;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+/**
+ * Runs use cases in one {@link TaskLane} per {@link TaskPriority}. Lanes do not share threads,
+ * so a long upload in the background lane cannot hold back loading a list, and background
+ * threads run with a lower priority so they yield the cpu to the others.
+ */
 @Singleton
 public class JobExecutor implements ThreadExecutor {
 
-    private static final int INITIAL_POOL_SIZE = 3;
-
-    private static final int MAX_POOL_SIZE = 5;
-
-    // Sets the amount of time an idle thread waits before terminating
-    private static final int KEEP_ALIVE_TIME = 10;
+    private static final int INTERACTIVE_THREADS = 2;
+    private static final int USER_INITIATED_THREADS = 3;
+    private static final int BACKGROUND_THREADS = 2;
 
-    // Sets the Time Unit to seconds
-    private static final TimeUnit KEEP_ALIVE_TIME_UNIT = TimeUnit.SECONDS;
-
-    private final ThreadPoolExecutor threadPoolExecutor;
+    private final Map<TaskPriority, TaskLane> lanes = new EnumMap<>(TaskPriority.class);
 
     @Inject
     public JobExecutor() {
-        BlockingQueue<Runnable> objects = new LinkedBlockingQueue<>();
-        ThreadFactory jobThreadFactory = new JobThreadFactory();
-        this.threadPoolExecutor = new ThreadPoolExecutor(INITIAL_POOL_SIZE, MAX_POOL_SIZE,
-                KEEP_ALIVE_TIME, KEEP_ALIVE_TIME_UNIT,
-                objects, jobThreadFactory);
+        lanes.put(TaskPriority.INTERACTIVE,
+                new TaskLane(TaskPriority.INTERACTIVE, INTERACTIVE_THREADS, Thread.NORM_PRIORITY));
+        lanes.put(TaskPriority.USER_INITIATED, new TaskLane(TaskPriority.USER_INITIATED,
+                USER_INITIATED_THREADS, Thread.NORM_PRIORITY));
+        lanes.put(TaskPriority.BACKGROUND,
+                new TaskLane(TaskPriority.BACKGROUND, BACKGROUND_THREADS, Thread.MIN_PRIORITY));
     }
 
     @Override
     public void execute(@Nullable Runnable runnable) {
-        if (runnable == null) {
-            throw new IllegalArgumentException("Runnable to execute cannot be null");
-        }
-        this.threadPoolExecutor.execute(runnable);
+        forPriority(TaskPriority.USER_INITIATED).execute(runnable);
     }
 
-    private static class JobThreadFactory implements ThreadFactory {
-
-        private static final String THREAD_NAME = "android_";
-
-        private int counter = 0;
+    @Override
+    public Executor forPriority(TaskPriority priority) {
+        return lanes.get(priority);
+    }
 
-        @Override
-        public Thread newThread(@NonNull Runnable runnable) {
-            return new Thread(runnable, THREAD_NAME + counter);
-        }
+    @Override
+    public TaskLaneStats getStats(TaskPriority priority) {
+        //noinspection ConstantConditions
+        return lanes.get(priority).getStats();
     }
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.data.executor;
+
+import androidx.annotation.NonNull;
+
+import org.akvo.flow.domain.executor.TaskLaneStats;
+import org.akvo.flow.domain.executor.TaskPriority;
+
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed number of threads running the tasks of one priority in the order they were queued,
+ * timing how long each of them waited and ran. Idle threads are stopped after a while.
+ */
+class TaskLane extends ThreadPoolExecutor {
+
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    private final TaskPriority priority;
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong totalExecutionNanos = new AtomicLong();
+    private final AtomicLong maxExecutionNanos = new AtomicLong();
+
+    TaskLane(TaskPriority priority, int threads, int threadPriority) {
+        super(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new LaneThreadFactory(priority, threadPriority));
+        this.priority = priority;
+        allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable runnable) {
+        if (runnable == null) {
+            throw new IllegalArgumentException("Runnable to execute cannot be null");
+        }
+        super.execute(new TimedTask(runnable, System.nanoTime()));
+    }
+
+    TaskLaneStats getStats() {
+        return new TaskLaneStats(priority, getQueue().size(), running.get(), completed.get(),
+                toMillis(totalWaitNanos.get()), toMillis(maxWaitNanos.get()),
+                toMillis(totalExecutionNanos.get()), toMillis(maxExecutionNanos.get()));
+    }
+
+    private void record(long waitNanos, long executionNanos) {
+        totalWaitNanos.addAndGet(waitNanos);
+        updateMax(maxWaitNanos, waitNanos);
+        totalExecutionNanos.addAndGet(executionNanos);
+        updateMax(maxExecutionNanos, executionNanos);
+        completed.incrementAndGet();
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        do {
+            current = max.get();
+        } while (value > current && !max.compareAndSet(current, value));
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private class TimedTask implements Runnable {
+
+        private final Runnable runnable;
+        private final long queuedAt;
+
+        TimedTask(Runnable runnable, long queuedAt) {
+            this.runnable = runnable;
+            this.queuedAt = queuedAt;
+        }
+
+        @Override
+        public void run() {
+            long startedAt = System.nanoTime();
+            running.incrementAndGet();
+            try {
+                runnable.run();
+            } finally {
+                running.decrementAndGet();
+                record(startedAt - queuedAt, System.nanoTime() - startedAt);
+            }
+        }
+    }
+
+    private static class LaneThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+        private final int threadPriority;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        LaneThreadFactory(TaskPriority priority, int threadPriority) {
+            this.namePrefix = "flow_" + priority.name().toLowerCase(Locale.US) + "_";
+            this.threadPriority = threadPriority;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + counter.getAndIncrement());
+            thread.setPriority(threadPriority);
+            return thread;
+        }
+    }
+}
@@ -56,6 +56,19 @@ public class AmazonAuthHelper {
         return createAuthorization(payload);
     }
 
+    /**
+     * Signs a request on a sub resource of an object, such as a multipart upload part
+     *
+     * @param resource object key followed by the sub resource query, ie: images/a.mp4?uploads
+     */
+    @NonNull
+    public String getAmazonAuthForResource(String date, String payloadStr, String md5Base64,
+            String contentType, String resource) {
+        final String payload = String.format(payloadStr, md5Base64, contentType, date,
+                s3User.getBucket(), resource);
+        return createAuthorization(payload);
+    }
+
     @VisibleForTesting
     String formatPayloadForPut(String date, String payloadStr, S3File s3File) {
         return String.format(payloadStr, s3File.getMd5Base64(), s3File.getContentType(), date,
@@ -29,8 +29,10 @@ import retrofit2.http.Body
 import retrofit2.http.GET
 import retrofit2.http.Header
 import retrofit2.http.Headers
+import retrofit2.http.POST
 import retrofit2.http.PUT
 import retrofit2.http.Path
+import retrofit2.http.Query
 
 interface AwsS3 {
     @PUT(ApiUrls.S3_FILE_PATH)
@@ -56,6 +58,49 @@ interface AwsS3 {
         @Body body: RequestBody?
     ): Observable<Response<ResponseBody>>
 
+    @POST(ApiUrls.S3_FILE_PATH + "?uploads")
+    fun initiateMultipartUpload(
+        @Path("key") key: String?,
+        @Path("file") file: String?,
+        @Header("Content-type") contentType: String?,
+        @Header("Date") date: String?,
+        @Header("Authorization") authorization: String?
+    ): Observable<Response<ResponseBody>>
+
+    @Headers("x-amz-acl: public-read")
+    @POST(ApiUrls.S3_FILE_PATH + "?uploads")
+    fun initiateMultipartUploadPublic(
+        @Path("key") key: String?,
+        @Path("file") file: String?,
+        @Header("Content-type") contentType: String?,
+        @Header("Date") date: String?,
+        @Header("Authorization") authorization: String?
+    ): Observable<Response<ResponseBody>>
+
+    @PUT(ApiUrls.S3_FILE_PATH)
+    fun uploadPart(
+        @Path("key") key: String?,
+        @Path("file") file: String?,
+        @Query("partNumber") partNumber: Int,
+        @Query("uploadId") uploadId: String,
+        @Header("Content-MD5") md5Base64: String?,
+        @Header("Content-type") contentType: String?,
+        @Header("Date") date: String?,
+        @Header("Authorization") authorization: String?,
+        @Body body: RequestBody?
+    ): Observable<Response<ResponseBody>>
+
+    @POST(ApiUrls.S3_FILE_PATH)
+    fun completeMultipartUpload(
+        @Path("key") key: String?,
+        @Path("file") file: String?,
+        @Query("uploadId") uploadId: String,
+        @Header("Content-type") contentType: String?,
+        @Header("Date") date: String?,
+        @Header("Authorization") authorization: String?,
+        @Body body: RequestBody?
+    ): Observable<Response<ResponseBody>>
+
     @GET(ApiUrls.S3_FILE_PATH)
     fun getSurvey(
         @Path("key") key: String?,
@@ -64,6 +109,15 @@ interface AwsS3 {
         @Header("Authorization") authorization: String?
     ): Observable<ResponseBody>
 
+    @GET(ApiUrls.S3_FILE_PATH)
+    fun getSurveyIfChanged(
+        @Path("key") key: String?,
+        @Path("file") file: String?,
+        @Header("If-None-Match") etag: String?,
+        @Header("Date") date: String?,
+        @Header("Authorization") authorization: String?
+    ): Observable<Response<ResponseBody>>
+
     @GET(ApiUrls.S3_FILE_PATH)
     fun downloadImage(
         @Path("key") key: String?,
@@ -20,6 +20,7 @@
 package org.akvo.flow.data.net.s3;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import org.akvo.flow.data.entity.S3File;
 
@@ -35,7 +36,14 @@ public class BodyCreator {
     }
 
     @NonNull
-    public RequestBody createBody(S3File s3File) {
-        return RequestBody.create(MediaType.parse(s3File.getContentType()), s3File.getFile());
+    public RequestBody createBody(S3File s3File, @Nullable UploadProgressListener listener) {
+        return createPartBody(s3File, 0, s3File.getFile().length(), listener);
+    }
+
+    @NonNull
+    public RequestBody createPartBody(S3File s3File, long offset, long length,
+            @Nullable UploadProgressListener listener) {
+        return new FileRegionRequestBody(MediaType.parse(s3File.getContentType()),
+                s3File.getFile(), offset, length, listener);
     }
 }
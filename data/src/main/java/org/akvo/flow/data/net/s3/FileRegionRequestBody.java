@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.data.net.s3;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * Streams a region of a file, reporting the bytes written after each chunk.
+ * The body can be written more than once, as OkHttp does when retrying, progress restarts
+ * from zero on every write.
+ */
+public class FileRegionRequestBody extends RequestBody {
+
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private final MediaType contentType;
+    private final File file;
+    private final long offset;
+    private final long length;
+
+    @Nullable
+    private final UploadProgressListener listener;
+
+    public FileRegionRequestBody(@Nullable MediaType contentType, @NonNull File file, long offset,
+            long length, @Nullable UploadProgressListener listener) {
+        this.contentType = contentType;
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+        this.listener = listener;
+    }
+
+    @Nullable
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public void writeTo(@NonNull BufferedSink sink) throws IOException {
+        byte[] buffer = new byte[CHUNK_SIZE];
+        long written = 0;
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            input.seek(offset);
+            while (written < length) {
+                int read = input.read(buffer, 0, (int) Math.min(CHUNK_SIZE, length - written));
+                if (read == -1) {
+                    throw new IOException("Unexpected end of file " + file.getName());
+                }
+                sink.write(buffer, 0, read);
+                written += read;
+                if (listener != null) {
+                    listener.onProgress(written);
+                }
+            }
+        } finally {
+            input.close();
+        }
+    }
+}
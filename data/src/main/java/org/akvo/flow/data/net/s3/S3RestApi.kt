@@ -21,13 +21,20 @@ package org.akvo.flow.data.net.s3
 import android.text.TextUtils
 import io.reactivex.Observable
 import io.reactivex.Single
+import okhttp3.MediaType
+import okhttp3.RequestBody
 import okhttp3.ResponseBody
+import org.akvo.flow.data.entity.ArchiveDownload
 import org.akvo.flow.data.entity.S3File
 import org.akvo.flow.data.entity.Transmission
+import org.akvo.flow.data.entity.UploadPart
 import org.akvo.flow.data.net.RestServiceFactory
+import okio.ByteString
 import retrofit2.HttpException
 import retrofit2.Response
 import timber.log.Timber
+import java.net.HttpURLConnection
+import java.security.MessageDigest
 import java.text.DateFormat
 import java.util.Date
 import javax.inject.Singleton
@@ -40,19 +47,164 @@ open class S3RestApi(
     private val baseUrl: String
 ) {
 
-    fun uploadFile(transmission: Transmission): Observable<Response<ResponseBody>> {
+    @JvmOverloads
+    fun uploadFile(
+        transmission: Transmission,
+        listener: UploadProgressListener? = null
+    ): Observable<Response<ResponseBody>> {
         val s3File = transmission.s3File
         val date = formattedDate()
         return when {
             s3File.isPublic -> {
-                uploadPublicFile(date, s3File)
+                uploadPublicFile(date, s3File, listener)
             }
             else -> {
-                uploadPrivateFile(date, s3File)
+                uploadPrivateFile(date, s3File, listener)
             }
         }
     }
 
+    /**
+     * Starts a multipart upload of the given file
+     *
+     * @return the upload id to be used for the parts
+     */
+    fun initiateMultipartUpload(s3File: S3File): Observable<String> {
+        val date = formattedDate()
+        val resource = "${s3File.objectKey}?uploads"
+        val service = createRetrofitService()
+        val call = when {
+            s3File.isPublic -> {
+                val authorization = amazonAuthHelper.getAmazonAuthForResource(
+                    date, PAYLOAD_POST_PUBLIC, "", s3File.contentType, resource
+                )
+                service.initiateMultipartUploadPublic(
+                    s3File.dir, s3File.filename, s3File.contentType, date, authorization
+                )
+            }
+            else -> {
+                val authorization = amazonAuthHelper.getAmazonAuthForResource(
+                    date, PAYLOAD_POST_PRIVATE, "", s3File.contentType, resource
+                )
+                service.initiateMultipartUpload(
+                    s3File.dir, s3File.filename, s3File.contentType, date, authorization
+                )
+            }
+        }
+        return call.concatMap { response ->
+            when {
+                response.isSuccessful -> {
+                    val uploadId = findXmlValue(response.body()?.string(), "UploadId")
+                    if (uploadId.isNullOrEmpty()) {
+                        Observable.error(Exception("No upload id for ${s3File.filename}"))
+                    } else {
+                        Observable.just(uploadId)
+                    }
+                }
+                else -> Observable.error(HttpException(response))
+            }
+        }
+    }
+
+    /**
+     * Uploads the given region of the file as a part of a multipart upload
+     *
+     * @return the ETag of the part, which is verified to be the hex md5 of the part
+     */
+    fun uploadPart(
+        s3File: S3File,
+        uploadId: String,
+        partNumber: Int,
+        offset: Long,
+        length: Long,
+        md5Base64: String,
+        md5Hex: String,
+        listener: UploadProgressListener?
+    ): Observable<String> {
+        val date = formattedDate()
+        val resource = "${s3File.objectKey}?partNumber=$partNumber&uploadId=$uploadId"
+        val authorization = amazonAuthHelper.getAmazonAuthForResource(
+            date, PAYLOAD_PUT_PRIVATE, md5Base64, s3File.contentType, resource
+        )
+        return createRetrofitService()
+            .uploadPart(
+                s3File.dir,
+                s3File.filename,
+                partNumber,
+                uploadId,
+                md5Base64,
+                s3File.contentType,
+                date,
+                authorization,
+                bodyCreator.createPartBody(s3File, offset, length, listener)
+            )
+            .concatMap { response ->
+                when {
+                    response.isSuccessful -> {
+                        val etag = getEtag(response)
+                        if (etag != md5Hex) {
+                            Observable.error(
+                                Exception("Part $partNumber of ${s3File.filename} upload to S3 Failed")
+                            )
+                        } else {
+                            Observable.just(etag)
+                        }
+                    }
+                    else -> Observable.error(HttpException(response))
+                }
+            }
+    }
+
+    /**
+     * Assembles the uploaded parts into the final object. S3 may answer with an error document
+     * even when the status code is 200 so the body is checked as well as the resulting ETag,
+     * which is the md5 of the concatenated part md5s followed by the number of parts.
+     */
+    fun completeMultipartUpload(
+        s3File: S3File,
+        uploadId: String,
+        parts: List<UploadPart>
+    ): Observable<Response<ResponseBody>> {
+        val date = formattedDate()
+        val resource = "${s3File.objectKey}?uploadId=$uploadId"
+        val authorization = amazonAuthHelper.getAmazonAuthForResource(
+            date, PAYLOAD_POST_PRIVATE, "", XML_CONTENT_TYPE, resource
+        )
+        val body = RequestBody.create(MediaType.parse(XML_CONTENT_TYPE), completeUploadXml(parts))
+        return createRetrofitService()
+            .completeMultipartUpload(
+                s3File.dir,
+                s3File.filename,
+                uploadId,
+                XML_CONTENT_TYPE,
+                date,
+                authorization,
+                body
+            )
+            .concatMap { response ->
+                when {
+                    response.isSuccessful -> {
+                        val content = response.body()?.string()
+                        val etag = findXmlValue(content, "ETag")
+                            ?.replace("&quot;", "")
+                            ?.replace("\"", "")
+                        when {
+                            content == null || content.contains("<Error>") -> {
+                                Observable.error(
+                                    Exception("File ${s3File.filename} upload to S3 Failed: $content")
+                                )
+                            }
+                            etag != multipartEtag(parts) -> {
+                                Observable.error(Exception("File ${s3File.filename} upload to S3 Failed"))
+                            }
+                            else -> Observable.just(response)
+                        }
+                    }
+                    else -> Observable.error(HttpException(response))
+                }
+            }
+    }
+
     fun downloadArchive(fileName: String): Observable<ResponseBody> {
         val date = formattedDate()
         val authorization = amazonAuthHelper
@@ -64,6 +216,34 @@ open class S3RestApi(
             })
     }
 
+    /**
+     * Downloads the archive only if its content changed: S3 answers 304 without a body when the
+     * given ETag still matches the stored object
+     */
+    fun downloadArchiveIfChanged(fileName: String, etag: String?): Observable<ArchiveDownload> {
+        val date = formattedDate()
+        val authorization = amazonAuthHelper
+            .getAmazonAuthForGet(date, PAYLOAD_GET, "$SURVEYS_FOLDER/$fileName")
+        val ifNoneMatch = etag?.let { "\"$it\"" }
+        return createRetrofitService()
+            .getSurveyIfChanged(SURVEYS_FOLDER, fileName, ifNoneMatch, date, authorization)
+            .concatMap { response ->
+                when {
+                    response.code() == HttpURLConnection.HTTP_NOT_MODIFIED -> {
+                        Observable.just(ArchiveDownload(null, etag))
+                    }
+                    response.isSuccessful && response.body() != null -> {
+                        Observable.just(ArchiveDownload(response.body(), getEtag(response)))
+                    }
+                    else -> Observable.error(HttpException(response))
+                }
+            }
+            .onErrorResumeNext(fun(throwable: Throwable): Observable<ArchiveDownload> {
+                Timber.e(Exception(throwable), "Error downloading $fileName from s3")
+                return Observable.error(throwable)
+            })
+    }
+
     fun downloadMedia(fileName: String): Single<ResponseBody> {
         val date = formattedDate()
         val authorization = amazonAuthHelper
@@ -82,7 +262,11 @@ open class S3RestApi(
         return createRetrofitService().downloadImageNew(IMAGES_FOLDER, fileName, date, authorization)
     }
 
-    private fun uploadPublicFile(date: String, s3File: S3File): Observable<Response<ResponseBody>> {
+    private fun uploadPublicFile(
+        date: String,
+        s3File: S3File,
+        listener: UploadProgressListener?
+    ): Observable<Response<ResponseBody>> {
         val authorization = amazonAuthHelper.getAmazonAuthForPut(date, PAYLOAD_PUT_PUBLIC, s3File)
         return createRetrofitService()
             .uploadPublic(
@@ -92,7 +276,7 @@ open class S3RestApi(
                 s3File.contentType,
                 date,
                 authorization,
-                bodyCreator.createBody(s3File)
+                bodyCreator.createBody(s3File, listener)
             )
             .concatMap { response -> verifyResponse(response, s3File) }
     }
@@ -103,11 +287,12 @@ open class S3RestApi(
 
     private fun uploadPrivateFile(
         date: String,
-        s3File: S3File
+        s3File: S3File,
+        listener: UploadProgressListener?
     ): Observable<Response<ResponseBody>> {
         val authorization = amazonAuthHelper
             .getAmazonAuthForPut(date, PAYLOAD_PUT_PRIVATE, s3File)
-        val body = bodyCreator.createBody(s3File)
+        val body = bodyCreator.createBody(s3File, listener)
         return createRetrofitService()
             .upload(
                 s3File.dir,
@@ -147,6 +332,30 @@ open class S3RestApi(
         return eTag
     }
 
+    private fun findXmlValue(xml: String?, tag: String): String? {
+        if (xml == null) {
+            return null
+        }
+        return Regex("<$tag>(.*?)</$tag>", RegexOption.DOT_MATCHES_ALL).find(xml)?.groupValues?.get(1)
+    }
+
+    private fun completeUploadXml(parts: List<UploadPart>): String {
+        val xml = StringBuilder("<CompleteMultipartUpload>")
+        for (part in parts) {
+            xml.append("<Part><PartNumber>").append(part.partNumber).append("</PartNumber>")
+                .append("<ETag>\"").append(part.etag).append("\"</ETag></Part>")
+        }
+        return xml.append("</CompleteMultipartUpload>").toString()
+    }
+
+    private fun multipartEtag(parts: List<UploadPart>): String {
+        val digest = MessageDigest.getInstance("MD5")
+        for (part in parts) {
+            digest.update(ByteString.decodeHex(part.etag).toByteArray())
+        }
+        return "${ByteString.of(*digest.digest()).hex()}-${parts.size}"
+    }
+
     open fun formattedDate(): String {
         return "${dateFormat.format(Date())}GMT"
     }
@@ -156,6 +365,11 @@ open class S3RestApi(
             "PUT\n%s\n%s\n%s\nx-amz-acl:public-read\n/%s/%s" // md5, type, date, bucket, obj
         private const val PAYLOAD_PUT_PRIVATE =
             "PUT\n%s\n%s\n%s\n/%s/%s" // md5, type, date, bucket, obj
+        private const val PAYLOAD_POST_PUBLIC =
+            "POST\n%s\n%s\n%s\nx-amz-acl:public-read\n/%s/%s" // md5, type, date, bucket, obj
+        private const val PAYLOAD_POST_PRIVATE =
+            "POST\n%s\n%s\n%s\n/%s/%s" // md5, type, date, bucket, obj
+        private const val XML_CONTENT_TYPE = "application/xml"
         private const val PAYLOAD_GET = "GET\n\n\n%s\n/%s/%s" // date, bucket, obj
         private const val SURVEYS_FOLDER = "surveys"
         private const val IMAGES_FOLDER = "images"
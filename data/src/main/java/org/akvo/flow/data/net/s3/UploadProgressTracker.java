@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.data.net.s3;
+
+import androidx.annotation.NonNull;
+
+import org.akvo.flow.domain.entity.UploadProgress;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import io.reactivex.Observable;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+
+/**
+ * Adds up the bytes sent by all the uploads of a sync run. Progress is only emitted when the
+ * uploaded percentage changes so that listeners, such as notifications, are not flooded.
+ */
+@Singleton
+public class UploadProgressTracker {
+
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong uploadedBytes = new AtomicLong();
+    private final Subject<UploadProgress> progress = PublishSubject.<UploadProgress>create()
+            .toSerialized();
+
+    private volatile int lastPercentage = -1;
+
+    @Inject
+    public UploadProgressTracker() {
+    }
+
+    public void start(long totalBytes) {
+        this.totalBytes.set(totalBytes);
+        this.uploadedBytes.set(0);
+        lastPercentage = -1;
+        publish();
+    }
+
+    /**
+     * @return a listener for a single file, receiving the bytes of that file sent so far.
+     * Progress going back, as when a request is retried, is subtracted.
+     */
+    @NonNull
+    public UploadProgressListener listenerFor() {
+        final AtomicLong fileBytes = new AtomicLong();
+        return new UploadProgressListener() {
+            @Override
+            public void onProgress(long bytesWritten) {
+                uploadedBytes.addAndGet(bytesWritten - fileBytes.getAndSet(bytesWritten));
+                publish();
+            }
+        };
+    }
+
+    @NonNull
+    public Observable<UploadProgress> getProgress() {
+        return progress;
+    }
+
+    private void publish() {
+        UploadProgress current = new UploadProgress(uploadedBytes.get(), totalBytes.get());
+        int percentage = current.getPercentage();
+        if (percentage != lastPercentage) {
+            lastPercentage = percentage;
+            progress.onNext(current);
+        }
+    }
+}
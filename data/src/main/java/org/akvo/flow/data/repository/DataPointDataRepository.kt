@@ -19,12 +19,18 @@
 package org.akvo.flow.data.repository
 
 import io.reactivex.Completable
+import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.async
-import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.channels.ReceiveChannel
+import kotlinx.coroutines.channels.SendChannel
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.joinAll
+import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import org.akvo.flow.data.datasource.DataSourceFactory
 import org.akvo.flow.data.entity.ApiDataPoint
+import org.akvo.flow.data.entity.ApiLocaleResult
 import org.akvo.flow.data.entity.images.DataPointImageMapper
 import org.akvo.flow.data.net.RestApi
 import org.akvo.flow.data.net.s3.S3RestApi
@@ -44,31 +50,83 @@ class DataPointDataRepository @Inject constructor(
     private val mediaHelper: MediaHelper
     ) : DataPointRepository {
 
+    /**
+     * Downloads datapoint pages in a pipeline: the next cursor page is fetched while the current
+     * one is being written to the database and images are handed over to a bounded queue consumed
+     * by a few workers. The cursor is only saved once its page has been synced so an interrupted
+     * download resumes from the last written page.
+     */
     override suspend fun downloadDataPoints(surveyId: Long, assignedFormIds: MutableList<String>): Int {
-        var syncedDataPoints = 0
         val dataBaseDataSource = dataSourceFactory.dataBaseDataSource
-        var gaeCursor = dataBaseDataSource.getDataPointCursor(surveyId)
-        var moreToLoad = true
+        val stats = DataPointDownloadStats()
         try {
-            while (moreToLoad) {
-                val apiLocaleResult = restApi.downloadDataPoints(surveyId, gaeCursor)
-                val dataPoints = apiLocaleResult.dataPoints
-                syncedDataPoints += dataBaseDataSource.syncDataPoints(dataPoints)
-                downLoadImages(dataPoints, assignedFormIds)
-                if (dataPoints.isNotEmpty()) {
-                    gaeCursor = apiLocaleResult.cursor
+            return coroutineScope {
+                var syncedDataPoints = 0
+                var gaeCursor = dataBaseDataSource.getDataPointCursor(surveyId)
+                val pages = prefetchPages(surveyId, gaeCursor)
+                val images = Channel<String>(IMAGE_QUEUE_SIZE)
+                val imageWorkers = List(IMAGE_WORKERS) {
+                    launch(Dispatchers.IO) {
+                        for (image in images) {
+                            downloadImage(image, stats)
+                        }
+                    }
                 }
-                moreToLoad = dataPoints.isNotEmpty() && gaeCursor != null // cursor is null with old datapoint api
-                dataBaseDataSource.saveDataPointCursor(surveyId, gaeCursor)
+                val queuedImages = mutableSetOf<String>()
+                for (apiLocaleResult in pages) {
+                    val dataPoints = apiLocaleResult.dataPoints
+                    syncedDataPoints += dataBaseDataSource.syncDataPoints(dataPoints)
+                    stats.onPageSynced(dataPoints.size)
+                    queueImages(dataPoints, assignedFormIds, queuedImages, images)
+                    if (dataPoints.isNotEmpty()) {
+                        gaeCursor = apiLocaleResult.cursor
+                    }
+                    dataBaseDataSource.saveDataPointCursor(surveyId, gaeCursor)
+                }
+                images.close()
+                imageWorkers.joinAll()
+                syncedDataPoints
             }
-            return syncedDataPoints
         } catch (e: HttpException) {
             if ((e.code() == HttpURLConnection.HTTP_NOT_FOUND)) {
                 throw AssignmentRequiredException("Dashboard Assignment missing")
             } else {
                 throw e
             }
+        } finally {
+            stats.finish()
+            Timber.d("Datapoint download for survey %d: %s", surveyId, stats)
+        }
+    }
+
+    /**
+     * Fetches pages ahead of the consumer, at most [PAGE_PREFETCH_SIZE] pages are kept in memory.
+     * Any error is forwarded to the consumer when it reaches it.
+     */
+    private fun CoroutineScope.prefetchPages(
+        surveyId: Long,
+        startCursor: String?
+    ): ReceiveChannel<ApiLocaleResult> {
+        val pages = Channel<ApiLocaleResult>(PAGE_PREFETCH_SIZE)
+        launch {
+            try {
+                var gaeCursor = startCursor
+                var moreToLoad = true
+                while (moreToLoad) {
+                    val apiLocaleResult = restApi.downloadDataPoints(surveyId, gaeCursor)
+                    pages.send(apiLocaleResult)
+                    val dataPoints = apiLocaleResult.dataPoints
+                    if (dataPoints.isNotEmpty()) {
+                        gaeCursor = apiLocaleResult.cursor
+                    }
+                    moreToLoad = dataPoints.isNotEmpty() && gaeCursor != null // cursor is null with old datapoint api
+                }
+                pages.close()
+            } catch (e: Throwable) {
+                pages.close(e)
+            }
         }
+        return pages
     }
 
     override fun cleanPathAndDownLoadMedia(filename: String): Completable {
@@ -79,23 +137,29 @@ class DataPointDataRepository @Inject constructor(
         dataSourceFactory.dataBaseDataSource.markDataPointAsViewed(dataPointId)
     }
 
-    private suspend fun downLoadImages(
+    private suspend fun queueImages(
         dataPoints: List<ApiDataPoint>,
-        assignedFormIds: MutableList<String>
+        assignedFormIds: MutableList<String>,
+        queuedImages: MutableSet<String>,
+        images: SendChannel<String>
     ) {
-        withContext(Dispatchers.IO) {
+        val pending = withContext(Dispatchers.IO) {
             mapper.getImagesList(dataPoints, assignedFormIds)
                 .filter { image -> !dataSourceFactory.fileDataSource.fileExists(image) }
-                .map {
-                    async { downloadImage(it) }
-                }.awaitAll()
+        }
+        for (image in pending) {
+            if (queuedImages.add(image)) {
+                images.send(image)
+            }
         }
     }
 
-    private suspend fun downloadImage(image: String) {
+    private suspend fun downloadImage(image: String, stats: DataPointDownloadStats) {
         try {
             val responseBody = s3RestApi.downloadImage(image)
+            val size = responseBody.contentLength()
             dataSourceFactory.fileDataSource.saveRemoteMediaFile(image, responseBody)
+            stats.onImageSaved(size)
         } catch (e: Exception) {
             Timber.e(e)
         }
@@ -106,4 +170,10 @@ class DataPointDataRepository @Inject constructor(
             dataSourceFactory.fileDataSource.saveRemoteMediaFile(filename, responseBody)
         }
     }
+
+    companion object {
+        private const val PAGE_PREFETCH_SIZE = 1
+        private const val IMAGE_QUEUE_SIZE = 50
+        private const val IMAGE_WORKERS = 3
+    }
 }
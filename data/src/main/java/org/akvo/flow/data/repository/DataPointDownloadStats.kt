@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.data.repository
+
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Throughput counters for a single datapoint download run. Pages and rows are counted once they
+ * have been written to the database, media bytes once the file has been saved.
+ */
+class DataPointDownloadStats(private val clock: () -> Long = { System.currentTimeMillis() }) {
+
+    private val startTime = clock()
+    private val pages = AtomicLong()
+    private val rows = AtomicLong()
+    private val images = AtomicLong()
+    private val imageBytes = AtomicLong()
+
+    @Volatile
+    private var endTime = 0L
+
+    val pageCount: Long
+        get() = pages.get()
+
+    val rowCount: Long
+        get() = rows.get()
+
+    val imageCount: Long
+        get() = images.get()
+
+    val bytes: Long
+        get() = imageBytes.get()
+
+    fun onPageSynced(dataPoints: Int) {
+        pages.incrementAndGet()
+        rows.addAndGet(dataPoints.toLong())
+    }
+
+    fun onImageSaved(size: Long) {
+        images.incrementAndGet()
+        if (size > 0) {
+            imageBytes.addAndGet(size)
+        }
+    }
+
+    fun finish() {
+        endTime = clock()
+    }
+
+    fun elapsedMillis(): Long {
+        val end = if (endTime > 0) endTime else clock()
+        return end - startTime
+    }
+
+    fun pagesPerSecond(): Double = perSecond(pageCount)
+
+    fun rowsPerSecond(): Double = perSecond(rowCount)
+
+    private fun perSecond(count: Long): Double {
+        val elapsed = elapsedMillis()
+        return if (elapsed <= 0) 0.0 else count * 1000.0 / elapsed
+    }
+
+    override fun toString(): String {
+        return "pages=$pageCount rows=$rowCount images=$imageCount bytes=$bytes " +
+                "elapsed=${elapsedMillis()}ms pages/s=%.2f rows/s=%.2f"
+                    .format(pagesPerSecond(), rowsPerSecond())
+    }
+}
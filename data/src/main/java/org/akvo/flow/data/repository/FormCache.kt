@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.data.repository
+
+import org.akvo.flow.domain.entity.DomainForm
+import java.util.concurrent.atomic.AtomicLong
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Process wide cache of the forms opened by the user, so filling, viewing and the language
+ * dialog share a single parse of the form. Entries are keyed by form id and version so a newly
+ * installed version is never served from an older entry, and the least recently used forms are
+ * evicted once the cached forms hold more than [maxQuestions] questions.
+ */
+@Singleton
+class FormCache(private val maxQuestions: Int) {
+
+    private val forms = LinkedHashMap<String, DomainForm>(16, 0.75f, true)
+    private val languages = HashMap<String, Set<String>>()
+    private var questions = 0
+    private val hits = AtomicLong()
+    private val misses = AtomicLong()
+
+    @Inject
+    constructor() : this(DEFAULT_MAX_QUESTIONS)
+
+    val hitCount: Long
+        get() = hits.get()
+
+    val missCount: Long
+        get() = misses.get()
+
+    @Synchronized
+    fun getForm(formId: String, version: String): DomainForm? {
+        return count(forms[key(formId, version)])
+    }
+
+    @Synchronized
+    fun putForm(form: DomainForm) {
+        val weight = weight(form)
+        if (weight > maxQuestions) {
+            return
+        }
+        forms.put(key(form.formId, form.version), form)?.let { questions -= weight(it) }
+        questions += weight
+        trim()
+    }
+
+    @Synchronized
+    fun getLanguages(formId: String, version: String): Set<String>? {
+        return count(languages[key(formId, version)])
+    }
+
+    @Synchronized
+    fun putLanguages(formId: String, version: String, formLanguages: Set<String>) {
+        languages[key(formId, version)] = formLanguages
+    }
+
+    /**
+     * Removes every cached version of the form
+     */
+    @Synchronized
+    fun invalidate(formId: String) {
+        val prefix = key(formId, "")
+        val iterator = forms.entries.iterator()
+        while (iterator.hasNext()) {
+            val entry = iterator.next()
+            if (entry.key.startsWith(prefix)) {
+                questions -= weight(entry.value)
+                iterator.remove()
+            }
+        }
+        languages.keys.removeAll { it.startsWith(prefix) }
+    }
+
+    @Synchronized
+    fun invalidateAll() {
+        forms.clear()
+        languages.clear()
+        questions = 0
+    }
+
+    override fun toString(): String {
+        return "hits=$hitCount misses=$missCount"
+    }
+
+    private fun <T> count(value: T?): T? {
+        if (value == null) {
+            misses.incrementAndGet()
+        } else {
+            hits.incrementAndGet()
+        }
+        return value
+    }
+
+    private fun trim() {
+        val iterator = forms.values.iterator()
+        while (questions > maxQuestions && iterator.hasNext()) {
+            questions -= weight(iterator.next())
+            iterator.remove()
+        }
+    }
+
+    private fun weight(form: DomainForm): Int {
+        return form.groups.sumBy { it.questions.size } + 1
+    }
+
+    private fun key(formId: String, version: String): String {
+        return "$formId$KEY_SEPARATOR$version"
+    }
+
+    companion object {
+        /**
+         * Holds a handful of the largest forms in use, which have a few hundred questions
+         */
+        const val DEFAULT_MAX_QUESTIONS = 2000
+        private const val KEY_SEPARATOR = '@'
+    }
+}
@@ -22,6 +22,7 @@ package org.akvo.flow.data.repository
 import io.reactivex.Observable
 import org.akvo.flow.data.datasource.DataSourceFactory
 import org.akvo.flow.data.entity.ApiFormHeader
+import org.akvo.flow.data.entity.ResourceHash
 import org.akvo.flow.data.entity.form.DataForm
 import org.akvo.flow.data.entity.form.DataFormMapper
 import org.akvo.flow.data.entity.form.DataSurveyMapper
@@ -30,18 +31,24 @@ import org.akvo.flow.data.entity.form.FormHeaderParser
 import org.akvo.flow.data.entity.form.FormIdMapper
 import org.akvo.flow.data.net.RestApi
 import org.akvo.flow.data.net.s3.S3RestApi
+import org.akvo.flow.data.repository.FormDownloadScheduler.ResourceDownloads
 import org.akvo.flow.data.util.FlowFileBrowser.DIR_FORMS
 import org.akvo.flow.data.util.FlowFileBrowser.DIR_RES
+import org.akvo.flow.data.util.FlowFileBrowser.XML_SUFFIX
 import org.akvo.flow.data.util.FlowFileBrowser.ZIP_SUFFIX
 import org.akvo.flow.domain.entity.DomainForm
+import org.akvo.flow.domain.entity.FormDownloadResult
 import org.akvo.flow.domain.exception.CascadeProcessingError
 import org.akvo.flow.domain.exception.WrongDashboardError
 import org.akvo.flow.domain.interactor.bootstrap.BootstrapProcessor
 import org.akvo.flow.domain.repository.FormRepository
+import org.akvo.flow.utils.FormQuestionsCodec
 import org.akvo.flow.utils.XmlFormParser
 import org.akvo.flow.utils.entity.Question
 import timber.log.Timber
 import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
 import java.util.Enumeration
 import java.util.zip.ZipEntry
 import java.util.zip.ZipFile
@@ -51,13 +58,16 @@ import javax.inject.Inject
 class FormDataRepository @Inject constructor(
     private val formHeaderParser: FormHeaderParser,
     private val xmlParser: XmlFormParser,
+    private val formQuestionsCodec: FormQuestionsCodec,
     private val restApi: RestApi,
     private val dataSourceFactory: DataSourceFactory,
     private val formIdMapper: FormIdMapper,
     private val s3RestApi: S3RestApi,
     private val domainFormMapper: DomainFormMapper,
     private val dataFormMapper: DataFormMapper,
-    private val dataSurveyMapper: DataSurveyMapper
+    private val dataSurveyMapper: DataSurveyMapper,
+    private val formCache: FormCache,
+    private val downloadScheduler: FormDownloadScheduler,
 ) : FormRepository {
 
     override fun loadForm(formId: String?, deviceId: String?): Observable<Boolean?>? {
@@ -65,28 +75,36 @@ class FormDataRepository @Inject constructor(
         return if (TEST_FORM_ID == formId) {
             dataBaseDataSource.installTestForm()
         } else {
-            downloadFormHeader(formId, deviceId)
+            val resources = ResourceDownloads()
+            downloadFormHeader(formId, deviceId, resources)
+                .doFinally { logStats(resources) }
         }
     }
 
-    override fun reloadForms(deviceId: String?): Observable<Int?>? {
+    override fun reloadForms(deviceId: String?): Observable<List<FormDownloadResult>> {
         val dataBaseDataSource = dataSourceFactory.dataBaseDataSource
         return dataBaseDataSource.formIds
             .map { cursor -> formIdMapper.mapToFormId(cursor) }
             .concatMap { formIds ->
+                formCache.invalidateAll()
                 dataBaseDataSource.deleteAllForms()
                     .concatMap { downloadFormHeaders(formIds, deviceId) }
             }
     }
 
-    override fun downloadForms(deviceId: String?): Observable<Int?>? {
+    override fun downloadForms(deviceId: String?): Observable<List<FormDownloadResult>> {
         return restApi.downloadFormsHeader(deviceId)
             .map { response -> formHeaderParser.parseMultiple(response) }
             .concatMap { apiFormHeaders -> downloadForms(apiFormHeaders) }
     }
 
     override suspend fun loadFormLanguages(formId: String): Set<String> {
-        return xmlParser.parseLanguages(dataSourceFactory.fileDataSource.getFormFile(formId))
+        val version = dataSourceFactory.dataBaseDataSource.getForm(formId).version.toString()
+        formCache.getLanguages(formId, version)?.let { return it }
+        val languages =
+            xmlParser.parseLanguages(dataSourceFactory.fileDataSource.getFormFile(formId))
+        formCache.putLanguages(formId, version, languages)
+        return languages
     }
 
     override fun getForm(formId: String): DomainForm {
@@ -98,11 +116,15 @@ class FormDataRepository @Inject constructor(
     }
 
     override suspend fun getFormWithGroups(formId: String): DomainForm {
-        //TODO: once questions are in database we need to parse from db everything without opening xml form
-        return domainFormMapper.mapForm(
-            dataSourceFactory.dataBaseDataSource.getFormWithGroups(formId),
+        val dataBaseDataSource = dataSourceFactory.dataBaseDataSource
+        val version = dataBaseDataSource.getForm(formId).version.toString()
+        formCache.getForm(formId, version)?.let { return it }
+        val form = domainFormMapper.mapForm(
+            dataBaseDataSource.getFormWithGroups(formId),
             parseFormQuestions(formId)
         )
+        formCache.putForm(form)
+        return form
     }
 
     override suspend fun processZipFile(file: File, instanceUrl: String, awsBucket: String) {
@@ -131,7 +153,9 @@ class FormDataRepository @Inject constructor(
         awsBucket: String,
     ) {
         val inputStream = zipFile.getInputStream(entry)
-        val formAndMeta = dataFormMapper.mapFormAndMetadata(xmlParser.parseXmlFormWithMeta(inputStream))
+        val parsedForm = xmlParser.parse(inputStream)
+        val formAndMeta =
+            dataFormMapper.mapFormAndMetadata(Pair(parsedForm.form, parsedForm.metadata))
 
         //verify form
         val surveyMetadata = formAndMeta.second
@@ -149,13 +173,17 @@ class FormDataRepository @Inject constructor(
 
         //extract form to app folder
         dataSourceFactory.fileDataSource.copyFormFile(zipFile, entry, formAndMeta.first.formId)
+        writeCompiledForm(formAndMeta.first.formId, parsedForm.questionsByGroup())
         dataSourceFactory.dataBaseDataSource.insertSurveyGroup(surveyMetadata.survey)
         saveFormAndGroups(formAndMeta.first, true)
     }
 
     private fun processCascadeResource(zipFile: ZipFile, entry: ZipEntry) {
         return try {
-            dataSourceFactory.fileDataSource.extractZipEntry(zipFile, entry, DIR_RES)
+            val fileDataSource = dataSourceFactory.fileDataSource
+            fileDataSource.extractZipEntry(zipFile, entry, DIR_RES)
+            val resourceName = File(entry.name).name.removeSuffix(ZIP_SUFFIX)
+            fileDataSource.indexCascadeResource(resourceName)
         } catch (e: Exception) {
             Timber.e(e)
             throw CascadeProcessingError(e)
@@ -163,73 +191,212 @@ class FormDataRepository @Inject constructor(
     }
 
     private fun parseFormQuestions(formId: String): HashMap<Int, MutableList<Question>> {
-        return xmlParser.parseXmlQuestions(dataSourceFactory.fileDataSource.getFormFile(formId))
+        return readCompiledForm(formId) ?: compileForm(formId)
+    }
+
+    /**
+     * Parses the questions of the form xml and stores them in the compiled format so that
+     * opening the form does not need to parse the xml again
+     */
+    private fun compileForm(formId: String): HashMap<Int, MutableList<Question>> {
+        val questions =
+            xmlParser.parseXmlQuestions(dataSourceFactory.fileDataSource.getFormFile(formId))
+        writeCompiledForm(formId, questions)
+        return questions
+    }
+
+    /**
+     * The compiled form is only an optimization, failing to write it is logged but does not
+     * fail the form download
+     */
+    private fun writeCompiledForm(formId: String, questions: Map<Int, List<Question>>) {
+        try {
+            val fileDataSource = dataSourceFactory.fileDataSource
+            val source = fileDataSource.getFormXmlFile(formId)
+            val target = fileDataSource.getCompiledFormFile(formId)
+            val temp = File(target.path + TEMP_SUFFIX)
+            FileOutputStream(temp).use { output ->
+                formQuestionsCodec.write(questions, output, source.length(), source.lastModified())
+            }
+            if (!temp.renameTo(target)) {
+                temp.delete()
+            }
+        } catch (e: Exception) {
+            Timber.e(e, "Form %s could not be compiled", formId)
+        }
+    }
+
+    /**
+     * @return null if the form has not been compiled yet or it was compiled from an older xml
+     * file or format
+     */
+    private fun readCompiledForm(formId: String): HashMap<Int, MutableList<Question>>? {
+        val fileDataSource = dataSourceFactory.fileDataSource
+        val compiled = fileDataSource.getCompiledFormFile(formId)
+        if (!compiled.exists()) {
+            return null
+        }
+        val source = fileDataSource.getFormXmlFile(formId)
+        return try {
+            FileInputStream(compiled).use { input ->
+                formQuestionsCodec.read(input, source.length(), source.lastModified())
+            }
+        } catch (e: Exception) {
+            Timber.e(e, "Compiled form %s could not be read", formId)
+            null
+        }
     }
 
-    private fun downloadFormHeader(formId: String?, deviceId: String?): Observable<Boolean?> {
+    private fun downloadFormHeader(
+        formId: String?,
+        deviceId: String?,
+        resources: ResourceDownloads,
+    ): Observable<Boolean?> {
         return restApi.downloadFormHeader(formId!!, deviceId)
             .map { response -> formHeaderParser.parseOne(response) }
-            .concatMap { apiFormHeader -> insertAndDownload(apiFormHeader) }
+            .concatMap { apiFormHeader -> insertAndDownload(apiFormHeader, resources) }
     }
 
-    private fun downloadForms(apiFormHeaders: List<ApiFormHeader>): Observable<Int> {
-        return Observable.fromIterable(apiFormHeaders)
-            .concatMap { apiFormHeader -> insertAndDownload(apiFormHeader) }
+    /**
+     * Forms are downloaded in parallel, a form which fails to download does not stop the others.
+     * The result of every form is emitted once all of them have been processed.
+     */
+    private fun downloadForms(
+        apiFormHeaders: List<ApiFormHeader>,
+    ): Observable<List<FormDownloadResult>> {
+        val resources = ResourceDownloads()
+        return downloadScheduler.schedule(apiFormHeaders) { apiFormHeader ->
+            toResult(apiFormHeader.id, insertAndDownload(apiFormHeader, resources))
+        }
             .toList()
             .toObservable()
-            .map { booleans -> booleans.size }
+            .doFinally { logStats(resources) }
     }
 
-    private fun insertAndDownload(apiFormHeader: ApiFormHeader): Observable<Boolean> {
+    private fun insertAndDownload(
+        apiFormHeader: ApiFormHeader,
+        resources: ResourceDownloads,
+    ): Observable<Boolean> {
         val map = dataSurveyMapper.map(apiFormHeader)
         return dataSourceFactory.dataBaseDataSource.insertSurveyGroup(map)
-            .concatMap { downloadForm(apiFormHeader) }
+            .concatMap { downloadForm(apiFormHeader, resources) }
     }
 
-    private fun downloadFormHeaders(formIds: List<String>, deviceId: String?): Observable<Int> {
-        return Observable.fromIterable(formIds)
-            .concatMap<Boolean> { formId -> downloadFormHeader(formId, deviceId) }
+    private fun downloadFormHeaders(
+        formIds: List<String>,
+        deviceId: String?,
+    ): Observable<List<FormDownloadResult>> {
+        val resources = ResourceDownloads()
+        return downloadScheduler.schedule(formIds) { formId ->
+            toResult(formId, downloadFormHeader(formId, deviceId, resources))
+        }
             .toList()
             .toObservable()
-            .map { booleans -> booleans.size }
+            .doFinally { logStats(resources) }
+    }
+
+    private fun toResult(formId: String, download: Observable<*>): Observable<FormDownloadResult> {
+        return download.ignoreElements()
+            .andThen(Observable.just(FormDownloadResult(formId)))
+            .onErrorReturn { error ->
+                Timber.e(error, "Form %s could not be downloaded", formId)
+                FormDownloadResult(formId, error)
+            }
+    }
+
+    private fun logStats(resources: ResourceDownloads) {
+        Timber.d("Form download: %s", resources.stats)
     }
 
-    private fun downloadForm(apiFormHeader: ApiFormHeader): Observable<Boolean> {
+    private fun downloadForm(
+        apiFormHeader: ApiFormHeader,
+        resources: ResourceDownloads,
+    ): Observable<Boolean> {
         return dataSourceFactory.dataBaseDataSource.formNeedsUpdate(apiFormHeader)
             .concatMap { updateNeeded ->
                 if (updateNeeded) {
-                    downloadAndSaveForm(apiFormHeader)
+                    downloadAndSaveForm(apiFormHeader, resources)
                 } else {
                     Observable.just(true)
                 }
             }
     }
 
-    private fun downloadAndSaveForm(apiFormHeader: ApiFormHeader): Observable<Boolean> {
-        return downloadAndExtractFile(apiFormHeader.id + ZIP_SUFFIX, DIR_FORMS)
-            .concatMap { saveForm(apiFormHeader) }
+    private fun downloadAndSaveForm(
+        apiFormHeader: ApiFormHeader,
+        resources: ResourceDownloads,
+    ): Observable<Boolean> {
+        val formId = apiFormHeader.id
+        return downloadAndExtractFile(formId + ZIP_SUFFIX, DIR_FORMS, formId + XML_SUFFIX,
+            resources.stats)
+            .concatMap { saveForm(apiFormHeader, resources) }
     }
 
+    /**
+     * Archives are only downloaded and extracted if their content changed: the ETag of the last
+     * extracted archive is sent along, as long as the file it contained is still there, and S3
+     * answers without a body if the ETag still matches
+     *
+     * @param extractedName name of the file the archive extracts to
+     */
     private fun downloadAndExtractFile(
         fileName: String,
         folder: String,
+        extractedName: String,
+        stats: FormDownloadStats,
     ): Observable<Boolean> {
-        return s3RestApi.downloadArchive(fileName)
-            .concatMap { responseBody ->
-                dataSourceFactory.fileDataSource.extractRemoteArchive(responseBody, folder)
+        return Observable.defer {
+            val dataBaseDataSource = dataSourceFactory.dataBaseDataSource
+            val fileDataSource = dataSourceFactory.fileDataSource
+            val storedHash = if (fileDataSource.fileExists(folder, extractedName)) {
+                dataBaseDataSource.getResourceHash(fileName)
+            } else {
+                null
             }
+            s3RestApi.downloadArchiveIfChanged(fileName, storedHash?.etag)
+                .concatMap { download ->
+                    val body = download.body
+                    if (body == null) {
+                        stats.onArchiveUnchanged(storedHash?.size ?: 0L)
+                        Observable.just(true)
+                    } else {
+                        val size = body.contentLength()
+                        fileDataSource.extractRemoteArchive(body, folder)
+                            .doOnNext {
+                                if (folder == DIR_RES) {
+                                    fileDataSource.indexCascadeResource(extractedName)
+                                }
+                                stats.onArchiveDownloaded(size)
+                                val etag = download.etag
+                                if (!etag.isNullOrEmpty()) {
+                                    dataBaseDataSource.saveResourceHash(fileName,
+                                        ResourceHash(etag, maxOf(size, 0L)))
+                                }
+                            }
+                    }
+                }
+        }
     }
 
-    private fun saveForm(apiFormHeader: ApiFormHeader): Observable<Boolean> {
+    /**
+     * @return true if the resources of the form were downloaded. A form whose resources could
+     * not be downloaded is still saved, flagged so they are downloaded again when it is opened
+     */
+    private fun saveForm(
+        apiFormHeader: ApiFormHeader,
+        resources: ResourceDownloads,
+    ): Observable<Boolean> {
         val inputStream = dataSourceFactory.fileDataSource.getFormFile(apiFormHeader.id)
         val backUpVersion = apiFormHeader.version.toDouble()
-        val form = dataFormMapper.mapForm(xmlParser.parseXmlForm(inputStream, backUpVersion))
-        return downloadResources(form)
+        val parsedForm = xmlParser.parse(inputStream, backUpVersion)
+        val form = dataFormMapper.mapForm(parsedForm.form)
+        writeCompiledForm(apiFormHeader.id, parsedForm.questionsByGroup())
+        return downloadResources(form, resources)
             .concatMap {
                 saveFormAndGroups(form, true)
             }
-            .doOnError { throwable ->
-                Timber.e(throwable)
+            .onErrorResumeNext { throwable: Throwable ->
+                Timber.e(throwable, "Resources of form %s could not be downloaded", form.formId)
                 saveFormAndGroups(form, false)
             }
     }
@@ -238,14 +405,19 @@ class FormDataRepository @Inject constructor(
         val dataBaseDataSource = dataSourceFactory.dataBaseDataSource
         dataBaseDataSource.saveForm(resourcesDownloaded, form)
         dataBaseDataSource.saveQuestionGroups(form)
-        return Observable.just(true)
+        formCache.invalidate(form.formId)
+        return Observable.just(resourcesDownloaded)
     }
 
-    private fun downloadResources(form: DataForm): Observable<Boolean> {
-        return Observable.fromIterable(form.getResources())
-            .concatMap { resource ->
-                downloadAndExtractFile(resource + ZIP_SUFFIX, DIR_RES)
+    private fun downloadResources(
+        form: DataForm,
+        resources: ResourceDownloads,
+    ): Observable<Boolean> {
+        return downloadScheduler.schedule(form.getResources().distinct()) { resource ->
+            resources.get(resource) {
+                downloadAndExtractFile(resource + ZIP_SUFFIX, DIR_RES, resource, resources.stats)
             }
+        }
             .toList()
             .toObservable()
             .map { true }
@@ -253,6 +425,7 @@ class FormDataRepository @Inject constructor(
 
     companion object {
         private const val TEST_FORM_ID = "0"
+        private const val TEMP_SUFFIX = ".tmp"
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.data.repository
+
+import io.reactivex.Observable
+import io.reactivex.Scheduler
+import io.reactivex.schedulers.Schedulers
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Runs form and cascade resource downloads in parallel. All of them share a small pool of
+ * threads so the number of simultaneous downloads stays bounded no matter how many forms and
+ * resources are being downloaded.
+ */
+@Singleton
+class FormDownloadScheduler(private val scheduler: Scheduler) {
+
+    @Inject
+    constructor() : this(Schedulers.from(newExecutor(DEFAULT_MAX_CONCURRENT_DOWNLOADS)))
+
+    /**
+     * Runs the task of every item. A failing task does not stop the others: its error is only
+     * delivered once all of them have finished.
+     *
+     * @return the results of all the tasks, in completion order
+     */
+    fun <T, R> schedule(items: Iterable<T>, task: (T) -> Observable<R>): Observable<R> {
+        return Observable.fromIterable(items)
+            .flatMap<R>({ item -> task(item).subscribeOn(scheduler) }, true, Int.MAX_VALUE)
+    }
+
+    /**
+     * Keeps track of the resources requested during a single download of forms, so a resource
+     * used by several forms is downloaded once and every form waits for that same download.
+     * The [stats] of the archives are collected for the whole download.
+     */
+    class ResourceDownloads(val stats: FormDownloadStats = FormDownloadStats()) {
+
+        private val downloads = HashMap<String, Observable<Boolean>>()
+
+        @Synchronized
+        fun get(resource: String, download: () -> Observable<Boolean>): Observable<Boolean> {
+            return downloads.getOrPut(resource) { download().cache() }
+        }
+    }
+
+    companion object {
+        const val DEFAULT_MAX_CONCURRENT_DOWNLOADS = 3
+        private const val KEEP_ALIVE_SECONDS = 30L
+
+        private fun newExecutor(threads: Int): ThreadPoolExecutor {
+            val executor = ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, LinkedBlockingQueue())
+            executor.allowCoreThreadTimeOut(true)
+            return executor
+        }
+    }
+}
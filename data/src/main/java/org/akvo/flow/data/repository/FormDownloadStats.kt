@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.data.repository
+
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Counters for a single download of forms. Archives whose ETag did not change are neither
+ * downloaded nor extracted again, their size is counted as saved bytes.
+ */
+class FormDownloadStats {
+
+    private val downloaded = AtomicLong()
+    private val downloadedBytes = AtomicLong()
+    private val skipped = AtomicLong()
+    private val savedBytes = AtomicLong()
+
+    val downloadedCount: Long
+        get() = downloaded.get()
+
+    val bytes: Long
+        get() = downloadedBytes.get()
+
+    val skippedCount: Long
+        get() = skipped.get()
+
+    val bytesSaved: Long
+        get() = savedBytes.get()
+
+    fun onArchiveDownloaded(size: Long) {
+        downloaded.incrementAndGet()
+        if (size > 0) {
+            downloadedBytes.addAndGet(size)
+        }
+    }
+
+    fun onArchiveUnchanged(size: Long) {
+        skipped.incrementAndGet()
+        if (size > 0) {
+            savedBytes.addAndGet(size)
+        }
+    }
+
+    override fun toString(): String {
+        return "downloaded=$downloadedCount bytes=$bytes unchanged=$skippedCount " +
+                "bytesSaved=$bytesSaved"
+    }
+}
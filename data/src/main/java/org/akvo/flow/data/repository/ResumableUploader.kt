@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.data.repository
+
+import io.reactivex.Observable
+import okio.ByteString
+import org.akvo.flow.data.datasource.DataSourceFactory
+import org.akvo.flow.data.datasource.DatabaseDataSource
+import org.akvo.flow.data.entity.S3File
+import org.akvo.flow.data.entity.UploadPart
+import org.akvo.flow.data.net.s3.S3RestApi
+import org.akvo.flow.data.net.s3.UploadProgressListener
+import retrofit2.HttpException
+import timber.log.Timber
+import java.io.File
+import java.io.RandomAccessFile
+import java.security.MessageDigest
+import javax.inject.Inject
+
+/**
+ * Uploads big files in parts so that an interrupted upload continues from the last stored part
+ * instead of from the first byte. The upload id and the parts already accepted by S3 are kept in
+ * the database until the upload is completed.
+ */
+class ResumableUploader @Inject constructor(
+    private val dataSourceFactory: DataSourceFactory,
+    private val s3RestApi: S3RestApi
+) {
+
+    fun isResumable(s3File: S3File): Boolean {
+        return s3File.file.length() > MULTIPART_THRESHOLD
+    }
+
+    /**
+     * @return the upload id once the file has been assembled on S3
+     */
+    fun upload(s3File: S3File, listener: UploadProgressListener?): Observable<String> {
+        return Observable.defer {
+            val dataSource = dataSourceFactory.dataBaseDataSource
+            val filename = s3File.filename
+            getOrCreateUploadId(dataSource, s3File).concatMap { uploadId ->
+                uploadMissingParts(dataSource, s3File, uploadId, listener)
+                    .toList()
+                    .toObservable()
+                    .concatMap { parts ->
+                        s3RestApi.completeMultipartUpload(s3File, uploadId, parts)
+                    }
+                    .map {
+                        dataSource.clearUploadedParts(filename)
+                        uploadId
+                    }
+                    .onErrorResumeNext { throwable: Throwable ->
+                        if (throwable !is HttpException || throwable.code() != 404) {
+                            Observable.error<String>(throwable)
+                        } else {
+                            // NoSuchUpload: the upload was aborted or expired, next attempt
+                            // starts a new one
+                            dataSource.clearUploadedParts(filename)
+                            val message = "Upload $uploadId of $filename no longer exists"
+                            Observable.error<String>(Exception(message, throwable))
+                        }
+                    }
+            }
+        }
+    }
+
+    private fun getOrCreateUploadId(
+        dataSource: DatabaseDataSource,
+        s3File: S3File
+    ): Observable<String> {
+        val filename = s3File.filename
+        val uploadId: String? = dataSource.getUploadId(filename)
+        return when (uploadId) {
+            null -> s3RestApi.initiateMultipartUpload(s3File)
+                .doOnNext { dataSource.saveUploadId(filename, it) }
+            else -> Observable.just(uploadId)
+        }
+    }
+
+    private fun uploadMissingParts(
+        dataSource: DatabaseDataSource,
+        s3File: S3File,
+        uploadId: String,
+        listener: UploadProgressListener?
+    ): Observable<UploadPart> {
+        return Observable.defer {
+            val fileSize = s3File.file.length()
+            val uploadedParts = dataSource.getUploadedParts(s3File.filename, uploadId)
+                .associateBy { it.partNumber }
+            val partCount = ((fileSize + PART_SIZE - 1) / PART_SIZE).toInt()
+            Observable.range(1, partCount).concatMap { partNumber ->
+                uploadPart(dataSource, s3File, uploadId, partNumber, uploadedParts[partNumber],
+                    listener)
+            }
+        }
+    }
+
+    /**
+     * Parts which were already accepted by S3 with the same content are not sent again
+     */
+    private fun uploadPart(
+        dataSource: DatabaseDataSource,
+        s3File: S3File,
+        uploadId: String,
+        partNumber: Int,
+        uploaded: UploadPart?,
+        listener: UploadProgressListener?
+    ): Observable<UploadPart> {
+        return Observable.defer {
+            val file = s3File.file
+            val offset = (partNumber - 1) * PART_SIZE
+            val length = minOf(PART_SIZE, file.length() - offset)
+            val md5 = partMd5(file, offset, length)
+            val md5Hex = md5.hex()
+            if (uploaded != null && uploaded.etag == md5Hex && uploaded.size == length) {
+                Timber.d("Skipping uploaded part $partNumber of ${s3File.filename}")
+                listener?.onProgress(offset + length)
+                Observable.just(uploaded)
+            } else {
+                val partListener = listener?.let {
+                    UploadProgressListener { bytesWritten -> it.onProgress(offset + bytesWritten) }
+                }
+                s3RestApi.uploadPart(
+                    s3File, uploadId, partNumber, offset, length, md5.base64(), md5Hex,
+                    partListener
+                ).map { etag ->
+                    UploadPart(partNumber, etag, length).also {
+                        dataSource.saveUploadedPart(s3File.filename, uploadId, it)
+                    }
+                }
+            }
+        }
+    }
+
+    private fun partMd5(file: File, offset: Long, length: Long): ByteString {
+        val digest = MessageDigest.getInstance("MD5")
+        val buffer = ByteArray(BUFFER_SIZE)
+        RandomAccessFile(file, "r").use { input ->
+            input.seek(offset)
+            var remaining = length
+            while (remaining > 0) {
+                val read = input.read(buffer, 0, minOf(BUFFER_SIZE.toLong(), remaining).toInt())
+                if (read == -1) {
+                    break
+                }
+                digest.update(buffer, 0, read)
+                remaining -= read
+            }
+        }
+        return ByteString.of(*digest.digest())
+    }
+
+    companion object {
+        /**
+         * S3 requires every part but the last one to be at least 5 MB
+         */
+        const val PART_SIZE = 5L * 1024 * 1024
+        const val MULTIPART_THRESHOLD = 8L * 1024 * 1024
+        private const val BUFFER_SIZE = 64 * 1024
+    }
+}
@@ -21,6 +21,7 @@
 package org.akvo.flow.data.repository;
 
 import android.database.Cursor;
+import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
@@ -43,14 +44,23 @@ import org.akvo.flow.data.entity.UserMapper;
 import org.akvo.flow.data.entity.form.FormIdMapper;
 import org.akvo.flow.data.net.RestApi;
 import org.akvo.flow.data.net.s3.S3RestApi;
+import org.akvo.flow.data.net.s3.UploadProgressListener;
+import org.akvo.flow.data.net.s3.UploadProgressTracker;
+import org.akvo.flow.database.Constants;
+import org.akvo.flow.database.tables.RecordClusterTable;
 import org.akvo.flow.domain.entity.DataPoint;
+import org.akvo.flow.domain.entity.DataPointCluster;
 import org.akvo.flow.domain.entity.DomainSurvey;
 import org.akvo.flow.domain.entity.FormInstanceMetadata;
+import org.akvo.flow.domain.entity.GeoBounds;
 import org.akvo.flow.domain.entity.InstanceIdUuid;
+import org.akvo.flow.domain.entity.UploadProgress;
 import org.akvo.flow.domain.entity.User;
 import org.akvo.flow.domain.repository.SurveyRepository;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.File;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -63,9 +73,7 @@ import io.reactivex.Single;
 import io.reactivex.functions.BiFunction;
 import io.reactivex.functions.Consumer;
 import io.reactivex.functions.Function;
-import okhttp3.ResponseBody;
 import retrofit2.HttpException;
-import retrofit2.Response;
 import timber.log.Timber;
 
 public class SurveyDataRepository implements SurveyRepository {
@@ -81,6 +89,9 @@ public class SurveyDataRepository implements SurveyRepository {
     private final FormInstanceMapper formInstanceMapper;
     private final FormInstanceMetadataMapper formInstanceMetadataMapper;
     private final S3RestApi s3RestApi;
+    private final UploadScheduler uploadScheduler;
+    private final ResumableUploader resumableUploader;
+    private final UploadProgressTracker uploadProgressTracker;
 
     //TODO: this needs to be split, too many methods and params
     @Inject
@@ -89,7 +100,9 @@ public class SurveyDataRepository implements SurveyRepository {
                                 UserMapper userMapper, TransmissionFilenameMapper transmissionFilenameMapper,
                                 TransmissionMapper transmissionMapper, FormInstanceMapper formInstanceMapper,
                                 FormIdMapper formIdMapper, FormInstanceMetadataMapper formInstanceMetadataMapper,
-                                S3RestApi s3RestApi) {
+                                S3RestApi s3RestApi, UploadScheduler uploadScheduler,
+                                ResumableUploader resumableUploader,
+                                UploadProgressTracker uploadProgressTracker) {
         this.dataSourceFactory = dataSourceFactory;
         this.dataPointMapper = dataPointMapper;
         this.restApi = restApi;
@@ -101,6 +114,9 @@ public class SurveyDataRepository implements SurveyRepository {
         this.formInstanceMapper = formInstanceMapper;
         this.formInstanceMetadataMapper = formInstanceMetadataMapper;
         this.s3RestApi = s3RestApi;
+        this.uploadScheduler = uploadScheduler;
+        this.resumableUploader = resumableUploader;
+        this.uploadProgressTracker = uploadProgressTracker;
     }
 
     @Override
@@ -122,6 +138,111 @@ public class SurveyDataRepository implements SurveyRepository {
                         });
     }
 
+    @Override
+    public Observable<List<DataPoint>> searchDataPoints(Long surveyGroupId, String filter,
+            Double latitude, Double longitude, Integer orderBy, int limit) {
+        return dataSourceFactory.getDataBaseDataSource()
+                .searchDataPoints(surveyGroupId, filter, latitude, longitude, orderBy, limit)
+                .map(new Function<Cursor, List<DataPoint>>() {
+                    @Override
+                    public List<DataPoint> apply(Cursor cursor) {
+                        return dataPointMapper.getDataPoints(cursor);
+                    }
+                });
+    }
+
+    @Override
+    public Observable<List<DataPoint>> getDataPointsPage(Long surveyGroupId, Integer orderBy,
+            @Nullable DataPoint start, int limit) {
+        String startSortKey = start == null ? null : pageSortKey(start, orderBy);
+        String startRecordId = start == null ? null : start.getId();
+        return dataSourceFactory.getDataBaseDataSource()
+                .getDataPointsPage(surveyGroupId, orderBy, startSortKey, startRecordId, limit)
+                .map(new Function<Cursor, List<DataPoint>>() {
+                    @Override
+                    public List<DataPoint> apply(Cursor cursor) {
+                        return dataPointMapper.getDataPoints(cursor);
+                    }
+                });
+    }
+
+    @Override
+    public Observable<List<DataPoint>> getDataPointsBefore(Long surveyGroupId, Integer orderBy,
+            DataPoint end, int limit) {
+        return dataSourceFactory.getDataBaseDataSource()
+                .getDataPointsBefore(surveyGroupId, orderBy, pageSortKey(end, orderBy),
+                        end.getId(), limit)
+                .map(new Function<Cursor, List<DataPoint>>() {
+                    @Override
+                    public List<DataPoint> apply(Cursor cursor) {
+                        List<DataPoint> dataPoints = dataPointMapper.getDataPoints(cursor);
+                        Collections.reverse(dataPoints);
+                        return dataPoints;
+                    }
+                });
+    }
+
+    @Override
+    public Observable<List<DataPoint>> getNearestDataPoints(Long surveyGroupId, double latitude,
+            double longitude, int limit) {
+        return dataSourceFactory.getDataBaseDataSource()
+                .getNearestDataPoints(surveyGroupId, latitude, longitude, limit)
+                .map(new Function<Cursor, List<DataPoint>>() {
+                    @Override
+                    public List<DataPoint> apply(Cursor cursor) {
+                        return dataPointMapper.getDataPoints(cursor);
+                    }
+                });
+    }
+
+    @Override
+    public Observable<List<DataPoint>> getDataPointsInBounds(Long surveyGroupId,
+            GeoBounds bounds) {
+        return dataSourceFactory.getDataBaseDataSource()
+                .getDataPointsInBounds(surveyGroupId, bounds.getSouth(), bounds.getWest(),
+                        bounds.getNorth(), bounds.getEast())
+                .map(new Function<Cursor, List<DataPoint>>() {
+                    @Override
+                    public List<DataPoint> apply(Cursor cursor) {
+                        return dataPointMapper.getDataPoints(cursor);
+                    }
+                });
+    }
+
+    @Override
+    public Observable<List<DataPointCluster>> getDataPointClusters(Long surveyGroupId,
+            GeoBounds bounds, double zoom) {
+        int clusterZoom = RecordClusterTable.zoomLevel(zoom);
+        if (clusterZoom < 0) {
+            return Observable.just(Collections.<DataPointCluster>emptyList());
+        }
+        return dataSourceFactory.getDataBaseDataSource()
+                .getDataPointClusters(surveyGroupId, bounds.getSouth(), bounds.getWest(),
+                        bounds.getNorth(), bounds.getEast(), clusterZoom)
+                .map(new Function<Cursor, List<DataPointCluster>>() {
+                    @Override
+                    public List<DataPointCluster> apply(Cursor cursor) {
+                        return dataPointMapper.getDataPointClusters(cursor);
+                    }
+                });
+    }
+
+    /**
+     * Value of the datapoint for the column the page is sorted by, as stored in the database
+     */
+    private String pageSortKey(DataPoint dataPoint, int orderBy) {
+        switch (orderBy) {
+            case Constants.ORDER_BY_DATE:
+                return String.valueOf(dataPoint.getLastModified());
+            case Constants.ORDER_BY_STATUS:
+                return String.valueOf(dataPoint.getStatus());
+            case Constants.ORDER_BY_NAME:
+                return dataPoint.getName() == null ? "" : dataPoint.getName();
+            default:
+                throw new IllegalArgumentException("Sort order can not be paged: " + orderBy);
+        }
+    }
+
     @Override
     public Single<DataPoint> getDataPoint(final String datapointId) {
         return dataSourceFactory.getDataBaseDataSource()
@@ -286,17 +407,35 @@ public class SurveyDataRepository implements SurveyRepository {
                 .map(new Function<Cursor, List<Transmission>>() {
                     @Override
                     public List<Transmission> apply(Cursor cursor) {
-                        return transmissionMapper.transform(cursor);
+                        return mapTransmissions(cursor);
                     }
                 });
     }
 
+    /**
+     * Checksums computed while mapping are stored so that unchanged files are not read again on
+     * the next upload attempt
+     */
+    private List<Transmission> mapTransmissions(Cursor cursor) {
+        List<Transmission> transmissions = transmissionMapper.transform(cursor);
+        DatabaseDataSource dataBaseDataSource = dataSourceFactory.getDataBaseDataSource();
+        for (Transmission transmission : transmissions) {
+            S3File s3File = transmission.getS3File();
+            if (s3File != null && !s3File.isChecksumCached()
+                    && !TextUtils.isEmpty(s3File.getMd5Hex())) {
+                dataBaseDataSource.saveTransmissionChecksum(transmission.getId(),
+                        s3File.getChecksum());
+            }
+        }
+        return transmissions;
+    }
+
     private Observable<List<Transmission>> getAllTransmissions() {
         return dataSourceFactory.getDataBaseDataSource().getUnSyncedTransmissions()
                 .map(new Function<Cursor, List<Transmission>>() {
                     @Override
                     public List<Transmission> apply(Cursor cursor) {
-                        return transmissionMapper.transform(cursor);
+                        return mapTransmissions(cursor);
                     }
                 });
     }
@@ -375,10 +514,16 @@ public class SurveyDataRepository implements SurveyRepository {
                 });
     }
 
+    @Override
+    public Observable<UploadProgress> getUploadProgress() {
+        return uploadProgressTracker.getProgress();
+    }
+
     private Observable<Set<String>> syncTransmissions(List<Transmission> transmissions,
             final String deviceId) {
-        return Observable.fromIterable(transmissions)
-                .concatMap(new Function<Transmission, Observable<UploadResult>>() {
+        uploadProgressTracker.start(totalBytes(transmissions));
+        return uploadScheduler
+                .schedule(transmissions, new Function<Transmission, Observable<UploadResult>>() {
                     @Override
                     public Observable<UploadResult> apply(final Transmission transmission) {
                         return syncTransmission(transmission, deviceId);
@@ -400,10 +545,10 @@ public class SurveyDataRepository implements SurveyRepository {
         final long transmissionId = transmission.getId();
         final long surveyInstanceId = transmission.getRespondentId();
         final String formId = transmission.getFormId();
-        return s3RestApi.uploadFile(transmission)
-                .concatMap(new Function<Response<ResponseBody>, Observable<?>>() {
+        return uploadFile(transmission)
+                .concatMap(new Function<Object, Observable<?>>() {
                     @Override
-                    public Observable<?> apply(Response ignored) {
+                    public Observable<?> apply(Object ignored) {
                         S3File s3File = transmission.getS3File();
                         return restApi.notifyFileAvailable(s3File.getAction(),
                                 transmission.getFormId(), s3File.getFile().getName(), deviceId);
@@ -437,4 +582,26 @@ public class SurveyDataRepository implements SurveyRepository {
                     }
                 });
     }
+
+    /**
+     * Files above the multipart threshold are uploaded in parts which survive interruptions
+     */
+    private Observable<?> uploadFile(Transmission transmission) {
+        S3File s3File = transmission.getS3File();
+        UploadProgressListener listener = uploadProgressTracker.listenerFor();
+        if (resumableUploader.isResumable(s3File)) {
+            return resumableUploader.upload(s3File, listener);
+        }
+        return s3RestApi.uploadFile(transmission, listener);
+    }
+
+    private long totalBytes(List<Transmission> transmissions) {
+        long total = 0;
+        for (Transmission transmission : transmissions) {
+            S3File s3File = transmission.getS3File();
+            File file = s3File == null ? null : s3File.getFile();
+            total += file == null ? 0L : file.length();
+        }
+        return total;
+    }
 }
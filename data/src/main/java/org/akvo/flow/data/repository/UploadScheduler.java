@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.data.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import org.akvo.flow.data.entity.S3File;
+import org.akvo.flow.data.entity.Transmission;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Runs transmission uploads with a bounded number of concurrent uploads.
+ * Uploads are started by priority: form data zips go before media files and, within each of
+ * them, smaller files go before larger ones so that a single big video does not hold back the
+ * submissions.
+ */
+public class UploadScheduler {
+
+    static final int DEFAULT_MAX_CONCURRENT_UPLOADS = 3;
+
+    private final int maxConcurrentUploads;
+    private final Scheduler scheduler;
+
+    @Inject
+    public UploadScheduler() {
+        this(DEFAULT_MAX_CONCURRENT_UPLOADS, Schedulers.io());
+    }
+
+    public UploadScheduler(int maxConcurrentUploads, Scheduler scheduler) {
+        if (maxConcurrentUploads < 1) {
+            throw new IllegalArgumentException("At least one upload needs to be allowed");
+        }
+        this.maxConcurrentUploads = maxConcurrentUploads;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @return the results of all the uploads, in completion order
+     */
+    public <T> Observable<T> schedule(@NonNull List<Transmission> transmissions,
+            @NonNull final Function<Transmission, Observable<T>> upload) {
+        return Observable.fromIterable(prioritize(transmissions))
+                .flatMap(new Function<Transmission, ObservableSource<T>>() {
+                    @Override
+                    public ObservableSource<T> apply(Transmission transmission) throws Exception {
+                        return upload.apply(transmission).subscribeOn(scheduler);
+                    }
+                }, maxConcurrentUploads);
+    }
+
+    @VisibleForTesting
+    List<Transmission> prioritize(@NonNull List<Transmission> transmissions) {
+        List<Transmission> sorted = new ArrayList<>(transmissions);
+        final Map<Transmission, Long> sizes = new IdentityHashMap<>(transmissions.size());
+        for (Transmission transmission : transmissions) {
+            sizes.put(transmission, fileSize(transmission));
+        }
+        Collections.sort(sorted, new Comparator<Transmission>() {
+            @Override
+            public int compare(Transmission t1, Transmission t2) {
+                int byType = Integer.compare(typePriority(t1), typePriority(t2));
+                if (byType != 0) {
+                    return byType;
+                }
+                //noinspection ConstantConditions
+                return Long.compare(sizes.get(t1), sizes.get(t2));
+            }
+        });
+        return sorted;
+    }
+
+    private int typePriority(Transmission transmission) {
+        S3File s3File = transmission.getS3File();
+        boolean isData = s3File != null && S3File.S3_DATA_DIR.equals(s3File.getDir());
+        return isData ? 0 : 1;
+    }
+
+    private long fileSize(Transmission transmission) {
+        S3File s3File = transmission.getS3File();
+        File file = s3File == null ? null : s3File.getFile();
+        return file == null ? 0L : file.length();
+    }
+}
@@ -19,11 +19,15 @@
 
 package org.akvo.flow.data.datasource.files;
 
+import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import android.graphics.Bitmap;
@@ -32,10 +36,15 @@ import org.akvo.flow.utils.FileHelper;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
 import java.io.OutputStream;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -53,7 +62,7 @@ public class BitmapHelperTest {
     public void setUp() {
         doNothing().when(mockFileHelper).close(any(Closeable.class));
         when(mockBitmap.compress(any(Bitmap.CompressFormat.class), anyInt(), any(OutputStream.class))).thenReturn(true);
-        bitmapHelper = new BitmapHelper(mockFileHelper);
+        bitmapHelper = new BitmapHelper(mockFileHelper, new BitmapPool(4 * 1024 * 1024));
     }
 
     @Test
@@ -76,4 +85,42 @@ public class BitmapHelperTest {
 
         assertTrue(compressed);
     }
+
+    @Test
+    public void compressBitmapShouldLowerQualityUntilImageFitsSizeBudget() throws IOException {
+        Bitmap bitmap = mock(Bitmap.class);
+        when(bitmap.getWidth()).thenReturn(100);
+        when(bitmap.getHeight()).thenReturn(100);
+        // Writes 100 bytes per quality point, the budget of 0.4 bytes per pixel is 4000 bytes
+        when(bitmap.compress(any(Bitmap.CompressFormat.class), anyInt(), any(OutputStream.class)))
+                .thenAnswer(new Answer<Boolean>() {
+                    @Override
+                    public Boolean answer(InvocationOnMock invocation) throws IOException {
+                        int quality = invocation.getArgument(1);
+                        OutputStream out = invocation.getArgument(2);
+                        out.write(new byte[quality * 100]);
+                        return true;
+                    }
+                });
+        File file = File.createTempFile("image", ".jpg");
+        file.deleteOnExit();
+
+        boolean compressed = bitmapHelper.compressBitmap(bitmap, file.getAbsolutePath());
+
+        assertTrue(compressed);
+        InOrder inOrder = inOrder(bitmap);
+        inOrder.verify(bitmap).compress(eq(Bitmap.CompressFormat.JPEG), eq(85), any(OutputStream.class));
+        inOrder.verify(bitmap).compress(eq(Bitmap.CompressFormat.JPEG), eq(75), any(OutputStream.class));
+        inOrder.verify(bitmap).compress(eq(Bitmap.CompressFormat.JPEG), eq(65), any(OutputStream.class));
+        inOrder.verify(bitmap).compress(eq(Bitmap.CompressFormat.JPEG), eq(60), any(OutputStream.class));
+        assertEquals(6000, file.length());
+    }
+
+    @Test
+    public void calculateInSampleSizeShouldNotDecodeSmallerThanOutput() {
+        assertEquals(1, BitmapHelper.calculateInSampleSize(1280, 960, 1280, 960));
+        assertEquals(4, BitmapHelper.calculateInSampleSize(8000, 6000, 1280, 960));
+        assertEquals(2, BitmapHelper.calculateInSampleSize(4000, 3000, 1280, 960));
+        assertEquals(16, BitmapHelper.calculateInSampleSize(8000, 6000, 320, 240));
+    }
 }
@@ -28,9 +28,12 @@ import static org.junit.Assert.assertNull;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 import org.akvo.flow.data.util.FlowFileBrowser;
 import org.akvo.flow.utils.FileHelper;
+import org.akvo.flow.utils.entity.Md5Checksum;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
@@ -84,8 +87,7 @@ public class S3FileMapperTest {
         S3FileMapper s3FileMapper = new S3FileMapper(mockFileBrowser, mockFileHelper);
         given(mockFileBrowser.getInternalFile(anyString(), anyString())).willReturn(mockFile);
         given(mockFile.exists()).willReturn(true);
-        given(mockFileHelper.getMd5Base64(any(File.class))).willReturn("123");
-        given(mockFileHelper.hexMd5(any(File.class))).willReturn("1234");
+        given(mockFileHelper.getMd5(any(File.class))).willReturn(new Md5Checksum("123", "1234"));
 
         S3File file = s3FileMapper.transform("data.zip");
 
@@ -100,8 +102,7 @@ public class S3FileMapperTest {
         S3FileMapper s3FileMapper = new S3FileMapper(mockFileBrowser, mockFileHelper);
         given(mockFileBrowser.getInternalFile(anyString(), anyString())).willReturn(mockFile);
         given(mockFile.exists()).willReturn(true);
-        given(mockFileHelper.getMd5Base64(any(File.class))).willReturn("123");
-        given(mockFileHelper.hexMd5(any(File.class))).willReturn("1234");
+        given(mockFileHelper.getMd5(any(File.class))).willReturn(new Md5Checksum("123", "1234"));
 
         S3File file = s3FileMapper.transform("data.jpg");
 
@@ -116,8 +117,7 @@ public class S3FileMapperTest {
         S3FileMapper s3FileMapper = new S3FileMapper(mockFileBrowser, mockFileHelper);
         given(mockFileBrowser.getInternalFile(anyString(), anyString())).willReturn(mockFile);
         given(mockFile.exists()).willReturn(true);
-        given(mockFileHelper.getMd5Base64(any(File.class))).willReturn("123");
-        given(mockFileHelper.hexMd5(any(File.class))).willReturn("1234");
+        given(mockFileHelper.getMd5(any(File.class))).willReturn(new Md5Checksum("123", "1234"));
 
         S3File file = s3FileMapper.transform("data.mp4");
 
@@ -132,8 +132,7 @@ public class S3FileMapperTest {
         S3FileMapper s3FileMapper = new S3FileMapper(mockFileBrowser, mockFileHelper);
         given(mockFileBrowser.getInternalFile(anyString(), anyString())).willReturn(mockFile);
         given(mockFile.exists()).willReturn(true);
-        given(mockFileHelper.getMd5Base64(any(File.class))).willReturn("123");
-        given(mockFileHelper.hexMd5(any(File.class))).willReturn("1234");
+        given(mockFileHelper.getMd5(any(File.class))).willReturn(new Md5Checksum("123", "1234"));
 
         S3File file = s3FileMapper.transform("data.txt");
 
@@ -142,4 +141,41 @@ public class S3FileMapperTest {
         assertNull(file.getDir());
         assertNull(file.getAction());
     }
+
+    @Test
+    public void shouldReuseCachedChecksumForUnchangedFile() {
+        S3FileMapper s3FileMapper = new S3FileMapper(mockFileBrowser, mockFileHelper);
+        given(mockFileBrowser.getInternalFile(anyString(), anyString())).willReturn(mockFile);
+        given(mockFile.exists()).willReturn(true);
+        given(mockFile.getPath()).willReturn("/media/data.jpg");
+        given(mockFile.length()).willReturn(100L);
+        given(mockFile.lastModified()).willReturn(1000L);
+        FileChecksum cached = new FileChecksum("/media/data.jpg", 100L, 1000L, "123", "1234");
+
+        S3File file = s3FileMapper.transform("data.jpg", cached);
+
+        assertNotNull(file);
+        assertTrue(file.isChecksumCached());
+        assertEquals("1234", file.getMd5Hex());
+        verify(mockFileHelper, never()).getMd5(any(File.class));
+    }
+
+    @Test
+    public void shouldComputeChecksumForModifiedFile() {
+        S3FileMapper s3FileMapper = new S3FileMapper(mockFileBrowser, mockFileHelper);
+        given(mockFileBrowser.getInternalFile(anyString(), anyString())).willReturn(mockFile);
+        given(mockFile.exists()).willReturn(true);
+        given(mockFile.getPath()).willReturn("/media/data.jpg");
+        given(mockFile.length()).willReturn(200L);
+        given(mockFile.lastModified()).willReturn(2000L);
+        given(mockFileHelper.getMd5(any(File.class))).willReturn(new Md5Checksum("456", "4567"));
+        FileChecksum cached = new FileChecksum("/media/data.jpg", 100L, 1000L, "123", "1234");
+
+        S3File file = s3FileMapper.transform("data.jpg", cached);
+
+        assertNotNull(file);
+        assertFalse(file.isChecksumCached());
+        assertEquals("4567", file.getMd5Hex());
+        assertEquals(2000L, file.getChecksum().getLastModified());
+    }
 }
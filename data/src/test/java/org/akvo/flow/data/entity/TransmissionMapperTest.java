@@ -25,6 +25,7 @@ import android.database.Cursor;
 import org.akvo.flow.database.TransmissionColumns;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
@@ -33,7 +34,10 @@ import java.util.List;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.TestCase.assertTrue;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.doNothing;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -81,7 +85,7 @@ public class TransmissionMapperTest {
         given(mockCursor.getColumnIndexOrThrow(TransmissionColumns.SURVEY_INSTANCE_ID)).willReturn(2);
         given(mockCursor.getColumnIndexOrThrow(TransmissionColumns.FILENAME)).willReturn(3);
         given(mockCursor.getString(3)).willReturn("");
-        given(mockS3Mapper.transform(anyString())).willReturn(null);
+        given(mockS3Mapper.transform(anyString(), any())).willReturn(null);
 
         List<Transmission> transmissions = mapper.transform(mockCursor);
 
@@ -101,10 +105,41 @@ public class TransmissionMapperTest {
                 .willReturn(2);
         given(mockCursor.getColumnIndexOrThrow(TransmissionColumns.FILENAME)).willReturn(3);
         given(mockCursor.getString(3)).willReturn("");
-        given(mockS3Mapper.transform(anyString())).willReturn(mockS3File);
+        given(mockS3Mapper.transform(anyString(), any())).willReturn(mockS3File);
 
         List<Transmission> transmissions = mapper.transform(mockCursor);
 
         assertEquals(2, transmissions.size());
     }
+
+    @Test
+    public void shouldPassStoredChecksumToFileMapper() {
+        TransmissionMapper mapper = new TransmissionMapper(mockS3Mapper);
+        given(mockCursor.getCount()).willReturn(1);
+        given(mockCursor.moveToFirst()).willReturn(true);
+        given(mockCursor.moveToNext()).willReturn(false);
+        given(mockCursor.getColumnIndexOrThrow(TransmissionColumns._ID)).willReturn(0);
+        given(mockCursor.getColumnIndexOrThrow(TransmissionColumns.SURVEY_ID)).willReturn(1);
+        given(mockCursor.getColumnIndexOrThrow(TransmissionColumns.SURVEY_INSTANCE_ID))
+                .willReturn(2);
+        given(mockCursor.getColumnIndexOrThrow(TransmissionColumns.FILENAME)).willReturn(3);
+        given(mockCursor.getColumnIndex(TransmissionColumns.CHECKSUM_PATH)).willReturn(4);
+        given(mockCursor.getColumnIndex(TransmissionColumns.CHECKSUM_SIZE)).willReturn(5);
+        given(mockCursor.getColumnIndex(TransmissionColumns.CHECKSUM_MODIFIED)).willReturn(6);
+        given(mockCursor.getColumnIndex(TransmissionColumns.MD5_BASE64)).willReturn(7);
+        given(mockCursor.getColumnIndex(TransmissionColumns.MD5_HEX)).willReturn(8);
+        given(mockCursor.getString(3)).willReturn("a.jpg");
+        given(mockCursor.getString(4)).willReturn("/media/a.jpg");
+        given(mockCursor.getLong(5)).willReturn(100L);
+        given(mockCursor.getString(8)).willReturn("1234");
+        ArgumentCaptor<FileChecksum> checksum = ArgumentCaptor.forClass(FileChecksum.class);
+        given(mockS3Mapper.transform(anyString(), any())).willReturn(mockS3File);
+
+        mapper.transform(mockCursor);
+
+        verify(mockS3Mapper).transform(eq("a.jpg"), checksum.capture());
+        assertEquals("/media/a.jpg", checksum.getValue().getPath());
+        assertEquals(100L, checksum.getValue().getSize());
+        assertEquals("1234", checksum.getValue().getMd5Hex());
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.data.executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.akvo.flow.domain.executor.TaskLaneStats;
+import org.akvo.flow.domain.executor.TaskPriority;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class JobExecutorTest {
+
+    private static final int BACKGROUND_TASKS = 3;
+
+    private final JobExecutor executor = new JobExecutor();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @After
+    public void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    public void interactiveTasksShouldNotWaitForBackgroundTasks() throws InterruptedException {
+        CountDownLatch started = blockBackgroundLane();
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        CountDownLatch done = new CountDownLatch(1);
+        executor.forPriority(TaskPriority.INTERACTIVE).execute(done::countDown);
+
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void statsShouldCountQueuedRunningAndCompletedTasks() throws InterruptedException {
+        CountDownLatch started = blockBackgroundLane();
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        TaskLaneStats stats = executor.getStats(TaskPriority.BACKGROUND);
+        assertEquals(1, stats.getQueued());
+        assertEquals(2, stats.getRunning());
+        assertEquals(0, stats.getCompleted());
+
+        release.countDown();
+        CountDownLatch done = new CountDownLatch(1);
+        executor.forPriority(TaskPriority.BACKGROUND).execute(done::countDown);
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        waitForCompletion(TaskPriority.BACKGROUND, BACKGROUND_TASKS + 1);
+
+        stats = executor.getStats(TaskPriority.BACKGROUND);
+        assertEquals(0, stats.getQueued());
+        assertEquals(BACKGROUND_TASKS + 1, stats.getCompleted());
+        assertEquals(0, executor.getStats(TaskPriority.INTERACTIVE).getCompleted());
+    }
+
+    @Test
+    public void executeShouldRunInUserInitiatedLane() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(done::countDown);
+
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        waitForCompletion(TaskPriority.USER_INITIATED, 1);
+        assertEquals(1, executor.getStats(TaskPriority.USER_INITIATED).getCompleted());
+    }
+
+    /**
+     * Queues more blocking tasks than the background lane has threads
+     *
+     * @return a latch released once all the lane threads are busy
+     */
+    private CountDownLatch blockBackgroundLane() {
+        final CountDownLatch started = new CountDownLatch(2);
+        for (int i = 0; i < BACKGROUND_TASKS; i++) {
+            executor.forPriority(TaskPriority.BACKGROUND).execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        return started;
+    }
+
+    /**
+     * Tasks are counted once they return, which is right after the latch they release
+     */
+    private void waitForCompletion(TaskPriority priority, int tasks)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (executor.getStats(priority).getCompleted() < tasks
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -24,9 +24,12 @@ import io.mockk.coEvery
 import io.mockk.every
 import io.mockk.impl.annotations.MockK
 import io.mockk.impl.annotations.RelaxedMockK
+import io.mockk.mockk
+import io.mockk.verifyOrder
 import kotlinx.coroutines.runBlocking
 import org.akvo.flow.data.datasource.DataSourceFactory
 import org.akvo.flow.data.datasource.DatabaseDataSource
+import org.akvo.flow.data.entity.ApiDataPoint
 import org.akvo.flow.data.entity.ApiLocaleResult
 import org.akvo.flow.data.entity.images.DataPointImageMapper
 import org.akvo.flow.data.net.RestApi
@@ -128,4 +131,32 @@ class DataPointDataRepositoryTest {
 
         assertEquals(1, result)
     }
+
+    @Test
+    fun downloadDataPointsShouldSaveCursorAfterEachSyncedPage() = runBlocking {
+        val firstPage = listOf(mockk<ApiDataPoint>(relaxed = true))
+        val secondPage = listOf(mockk<ApiDataPoint>(relaxed = true))
+        coEvery { mockRestApi.downloadDataPoints(123L, null) } returns ApiLocaleResult(
+            firstPage, "", 0, 0, 1, "cursor1"
+        )
+        coEvery { mockRestApi.downloadDataPoints(123L, "cursor1") } returns ApiLocaleResult(
+            secondPage, "", 0, 0, 1, "cursor2"
+        )
+        coEvery { mockRestApi.downloadDataPoints(123L, "cursor2") } returns ApiLocaleResult(
+            emptyList(), "", 0, 0, 0, "cursor3"
+        )
+        every { mockDatabaseDataSource.syncDataPoints(any()) } returns 1
+
+        val result: Int = repository.downloadDataPoints(123L, mutableListOf("123"))
+
+        assertEquals(3, result)
+        verifyOrder {
+            mockDatabaseDataSource.syncDataPoints(firstPage)
+            mockDatabaseDataSource.saveDataPointCursor(123L, "cursor1")
+            mockDatabaseDataSource.syncDataPoints(secondPage)
+            mockDatabaseDataSource.saveDataPointCursor(123L, "cursor2")
+            mockDatabaseDataSource.syncDataPoints(emptyList())
+            mockDatabaseDataSource.saveDataPointCursor(123L, "cursor2")
+        }
+    }
 }
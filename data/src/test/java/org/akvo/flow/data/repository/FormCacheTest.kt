@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.data.repository
+
+import org.akvo.flow.domain.entity.DomainForm
+import org.akvo.flow.domain.entity.DomainQuestionGroup
+import org.akvo.flow.domain.entity.question.DomainQuestion
+import org.junit.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNull
+import kotlin.test.assertSame
+
+class FormCacheTest {
+
+    @Test
+    fun getFormShouldCountHitsAndMisses() {
+        val cache = FormCache()
+        val form = form("1", "1.0", 3)
+
+        assertNull(cache.getForm("1", "1.0"))
+        cache.putForm(form)
+
+        assertSame(form, cache.getForm("1", "1.0"))
+        assertNull(cache.getForm("1", "2.0"))
+        assertEquals(1, cache.hitCount)
+        assertEquals(2, cache.missCount)
+    }
+
+    @Test
+    fun putFormShouldEvictLeastRecentlyUsedForms() {
+        val cache = FormCache(10)
+        cache.putForm(form("1", "1.0", 4))
+        cache.putForm(form("2", "1.0", 4))
+        cache.getForm("1", "1.0")
+
+        cache.putForm(form("3", "1.0", 4))
+
+        assertNull(cache.getForm("2", "1.0"))
+        assertEquals("1", cache.getForm("1", "1.0")?.formId)
+        assertEquals("3", cache.getForm("3", "1.0")?.formId)
+    }
+
+    @Test
+    fun invalidateShouldRemoveAllVersionsOfTheForm() {
+        val cache = FormCache()
+        cache.putForm(form("1", "1.0", 1))
+        cache.putForm(form("1", "2.0", 1))
+        cache.putForm(form("12", "1.0", 1))
+        cache.putLanguages("1", "1.0", setOf("en"))
+
+        cache.invalidate("1")
+
+        assertNull(cache.getForm("1", "1.0"))
+        assertNull(cache.getForm("1", "2.0"))
+        assertNull(cache.getLanguages("1", "1.0"))
+        assertEquals("12", cache.getForm("12", "1.0")?.formId)
+    }
+
+    private fun form(formId: String, version: String, questions: Int): DomainForm {
+        val group = DomainQuestionGroup("Group", false,
+            MutableList(questions) { DomainQuestion(questionId = "$formId-$it") })
+        return DomainForm(formId = formId, name = "Form", version = version,
+            groups = listOf(group))
+    }
+}
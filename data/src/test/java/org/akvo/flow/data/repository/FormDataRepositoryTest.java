@@ -19,6 +19,9 @@
 
 package org.akvo.flow.data.repository;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyString;
@@ -35,6 +38,7 @@ import org.akvo.flow.data.datasource.DataSourceFactory;
 import org.akvo.flow.data.datasource.DatabaseDataSource;
 import org.akvo.flow.data.datasource.files.FileDataSource;
 import org.akvo.flow.data.entity.ApiFormHeader;
+import org.akvo.flow.data.entity.ResourceHash;
 import org.akvo.flow.data.entity.form.DataForm;
 import org.akvo.flow.data.entity.form.DataFormMapper;
 import org.akvo.flow.data.entity.form.DataSurvey;
@@ -46,9 +50,14 @@ import org.akvo.flow.data.net.RestApi;
 import org.akvo.flow.data.net.s3.AmazonAuthHelper;
 import org.akvo.flow.data.net.s3.BodyCreator;
 import org.akvo.flow.data.net.s3.S3RestApi;
+import org.akvo.flow.data.util.FlowFileBrowser;
+import org.akvo.flow.domain.entity.FormDownloadResult;
 import org.akvo.flow.domain.util.DeviceHelper;
+import org.akvo.flow.utils.FormQuestionsCodec;
 import org.akvo.flow.utils.XmlFormParser;
 import org.akvo.flow.utils.entity.Form;
+import org.akvo.flow.utils.entity.ParsedForm;
+import org.akvo.flow.utils.entity.SurveyMetadata;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -66,9 +75,11 @@ import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Observable;
 import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
 import okhttp3.ResponseBody;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 
 @RunWith(MockitoJUnitRunner.class)
 public class FormDataRepositoryTest {
@@ -135,8 +146,9 @@ public class FormDataRepositoryTest {
         DataSourceFactory dataSourceFactory = new DataSourceFactory(null, null,
                 mockDatabaseDataSource, null, mockFileDataSource, null);
         formDataRepository = new FormDataRepository(mockFormHeaderParser, mockXmlParser,
-                restApi, dataSourceFactory, mockFormIdMapper, s3RestApi, mockDomainFormMapper,
-                mockDataFormMapper, mockDataSurveyMapper);
+                new FormQuestionsCodec(), restApi, dataSourceFactory, mockFormIdMapper, s3RestApi,
+                mockDomainFormMapper, mockDataFormMapper, mockDataSurveyMapper, new FormCache(),
+                new FormDownloadScheduler(Schedulers.trampoline()));
         ApiFormHeader apiFormHeader = new ApiFormHeader("123456", "", "", "1.0", 1.0, "", true, "");
         when(mockFormHeaderParser.parseOne(anyString())).thenReturn(apiFormHeader);
         when(mockAmazonAuth.getAmazonAuthForGet(anyString(), anyString(), anyString()))
@@ -179,7 +191,7 @@ public class FormDataRepositoryTest {
 
         observer.assertNoErrors();
         observer.assertValueCount(1);
-        verify(s3RestApi, times(0)).downloadArchive("123456.zip");
+        verify(s3RestApi, times(0)).downloadArchiveIfChanged("123456.zip", null);
         verify(mockFileDataSource, times(0))
                 .extractRemoteArchive(any(ResponseBody.class), anyString());
     }
@@ -190,7 +202,9 @@ public class FormDataRepositoryTest {
 
         when(mockDatabaseDataSource.formNeedsUpdate(any(ApiFormHeader.class)))
                 .thenReturn(Observable.just(true));
-        when(mockXmlParser.parseXmlForm(any(InputStream.class), any(Double.class))).thenReturn(mockForm);
+        when(mockXmlParser.parse(any(InputStream.class), any(Double.class)))
+                .thenReturn(new ParsedForm(mockForm, new SurveyMetadata(), Collections.emptySet()));
+        when(mockDataForm.getFormId()).thenReturn("123456");
 
         mockWebServer.enqueue(new MockResponse().setResponseCode(200)
                 .setBody(",1,cde,abc,cde,6.0,cde,true,33"));
@@ -202,11 +216,43 @@ public class FormDataRepositoryTest {
 
         observer.assertNoErrors();
         observer.assertValueCount(1);
-        verify(s3RestApi, times(1)).downloadArchive("123456.zip");
+        verify(s3RestApi, times(1)).downloadArchiveIfChanged("123456.zip", null);
         verify(mockFileDataSource, times(1))
                 .extractRemoteArchive(any(ResponseBody.class), anyString());
     }
 
+    @Test
+    public void loadFormShouldNotExtractUnchangedFormArchive() throws InterruptedException {
+        TestObserver observer = new TestObserver<Boolean>();
+
+        when(mockDatabaseDataSource.formNeedsUpdate(any(ApiFormHeader.class)))
+                .thenReturn(Observable.just(true));
+        when(mockXmlParser.parse(any(InputStream.class), any(Double.class)))
+                .thenReturn(new ParsedForm(mockForm, new SurveyMetadata(), Collections.emptySet()));
+        when(mockDataForm.getFormId()).thenReturn("123456");
+        when(mockFileDataSource.fileExists(FlowFileBrowser.DIR_FORMS, "123456.xml"))
+                .thenReturn(true);
+        when(mockDatabaseDataSource.getResourceHash("123456.zip"))
+                .thenReturn(new ResourceHash("abc", 100L));
+
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200)
+                .setBody(",1,cde,abc,cde,6.0,cde,true,33"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(304));
+
+        formDataRepository.loadForm("1", "deviceId").subscribe(observer);
+        observer.awaitTerminalEvent(2, TimeUnit.SECONDS);
+
+        observer.assertNoErrors();
+        observer.assertValueCount(1);
+        mockWebServer.takeRequest();
+        RecordedRequest archiveRequest = mockWebServer.takeRequest();
+        assertEquals("\"abc\"", archiveRequest.getHeader("If-None-Match"));
+        verify(mockFileDataSource, times(0))
+                .extractRemoteArchive(any(ResponseBody.class), anyString());
+        assertEquals(1L, formDataRepository.getLastDownloadStats().getSkippedCount());
+        assertEquals(100L, formDataRepository.getLastDownloadStats().getBytesSaved());
+    }
+
     @Test
     public void reloadFormsShouldUpdateOutdatedForms() {
         TestObserver observer = new TestObserver<Boolean>();
@@ -219,7 +265,9 @@ public class FormDataRepositoryTest {
         when(mockDatabaseDataSource.formNeedsUpdate(any(ApiFormHeader.class)))
                 .thenReturn(Observable.just(true));
         when(mockDatabaseDataSource.deleteAllForms()).thenReturn(Observable.just(true));
-        when(mockXmlParser.parseXmlForm(any(InputStream.class), any(Double.class))).thenReturn(mockForm);
+        when(mockXmlParser.parse(any(InputStream.class), any(Double.class)))
+                .thenReturn(new ParsedForm(mockForm, new SurveyMetadata(), Collections.emptySet()));
+        when(mockDataForm.getFormId()).thenReturn("123456");
 
         mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(
                 ",1,cde,abc,cde,6.0,cde,true,33\n"));
@@ -258,6 +306,36 @@ public class FormDataRepositoryTest {
         verify(restApi, times(0)).downloadFormHeader(anyString(), anyString());
     }
 
+    @Test
+    public void reloadFormsShouldReportEachFormWhenOneFails() {
+        TestObserver<List<FormDownloadResult>> observer = new TestObserver<>();
+        when(mockDatabaseDataSource.getFormIds()).thenReturn(Observable.just(mockCursor));
+        List<String> formIds = new ArrayList<>(2);
+        formIds.add("1");
+        formIds.add("2");
+        when(mockFormIdMapper.mapToFormId(mockCursor)).thenReturn(formIds);
+        when(mockDatabaseDataSource.formNeedsUpdate(any(ApiFormHeader.class)))
+                .thenReturn(Observable.just(false));
+        when(mockDatabaseDataSource.deleteAllForms()).thenReturn(Observable.just(true));
+
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(
+                ",1,cde,abc,cde,6.0,cde,true,33\n"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+
+        formDataRepository.reloadForms("deviceId").subscribe(observer);
+        observer.awaitTerminalEvent(2, TimeUnit.SECONDS);
+
+        observer.assertNoErrors();
+        observer.assertValueCount(1);
+        List<FormDownloadResult> results = observer.values().get(0);
+        assertEquals(2, results.size());
+        assertEquals("1", results.get(0).getFormId());
+        assertTrue(results.get(0).isSuccessful());
+        assertEquals("2", results.get(1).getFormId());
+        assertFalse(results.get(1).isSuccessful());
+        assertEquals(1, FormDownloadResult.countFailed(results));
+    }
+
     @After
     public void tearDown() throws IOException {
         mockWebServer.shutdown();
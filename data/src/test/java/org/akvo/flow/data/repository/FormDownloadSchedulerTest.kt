@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.data.repository
+
+import io.reactivex.Observable
+import io.reactivex.observers.TestObserver
+import io.reactivex.schedulers.Schedulers
+import org.akvo.flow.data.repository.FormDownloadScheduler.ResourceDownloads
+import org.junit.Test
+import java.io.IOException
+import kotlin.test.assertEquals
+
+class FormDownloadSchedulerTest {
+
+    private val scheduler = FormDownloadScheduler(Schedulers.trampoline())
+
+    @Test
+    fun scheduleShouldRunRemainingTasksWhenOneFails() {
+        val observer = TestObserver<String>()
+
+        scheduler.schedule(listOf("1", "2", "3")) { formId ->
+            if (formId == "2") {
+                Observable.error(IOException())
+            } else {
+                Observable.just(formId)
+            }
+        }.subscribe(observer)
+
+        observer.assertValues("1", "3")
+        observer.assertError(IOException::class.java)
+    }
+
+    @Test
+    fun sharedResourceShouldOnlyBeDownloadedOnce() {
+        val resources = ResourceDownloads()
+        var downloads = 0
+        val download = {
+            Observable.fromCallable {
+                downloads++
+                true
+            }
+        }
+        val observer = TestObserver<Boolean>()
+
+        scheduler.schedule(listOf("cascade-1", "cascade-2", "cascade-1")) { resource ->
+            resources.get(resource, download)
+        }.subscribe(observer)
+
+        observer.assertValueCount(3)
+        assertEquals(2, downloads)
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.data.repository;
+
+import org.akvo.flow.data.datasource.DataSourceFactory;
+import org.akvo.flow.data.datasource.DatabaseDataSource;
+import org.akvo.flow.data.entity.S3File;
+import org.akvo.flow.data.entity.UploadPart;
+import org.akvo.flow.data.net.s3.AmazonAuthHelper;
+import org.akvo.flow.data.net.s3.BodyCreator;
+import org.akvo.flow.data.net.s3.S3RestApi;
+import org.akvo.flow.data.net.s3.UploadProgressListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.observers.TestObserver;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.ByteString;
+import retrofit2.HttpException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ResumableUploaderTest {
+
+    private static final String FILENAME = "video.mp4";
+    private static final String UPLOAD_ID = "upload-1";
+    private static final int FILE_SIZE = 11 * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    DataSourceFactory mockDataSourceFactory;
+
+    @Mock
+    DatabaseDataSource mockDataBaseDataSource;
+
+    @Mock
+    AmazonAuthHelper mockAmazonAuth;
+
+    private MockWebServer mockWebServer;
+    private ResumableUploader uploader;
+    private S3File s3File;
+    private byte[] content;
+
+    @Before
+    public void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start(8080);
+
+        when(mockDataSourceFactory.getDataBaseDataSource()).thenReturn(mockDataBaseDataSource);
+        when(mockAmazonAuth.getAmazonAuthForResource(anyString(), anyString(), anyString(),
+                anyString(), anyString())).thenReturn("123");
+
+        S3RestApi s3RestApi = new S3RestApi(new TestRestServiceFactory(), mockAmazonAuth,
+                new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss ", Locale.US), new BodyCreator(),
+                "");
+        uploader = new ResumableUploader(mockDataSourceFactory, s3RestApi);
+
+        content = new byte[FILE_SIZE];
+        new Random(1).nextBytes(content);
+        File file = new File(folder.getRoot(), FILENAME);
+        FileOutputStream output = new FileOutputStream(file);
+        output.write(content);
+        output.close();
+        s3File = new S3File(file, false, S3File.S3_IMAGE_DIR, S3File.ACTION_IMAGE, "", "");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    public void uploadShouldSendAllPartsAndComplete() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody(
+                "<InitiateMultipartUploadResult><UploadId>" + UPLOAD_ID
+                        + "</UploadId></InitiateMultipartUploadResult>"));
+        for (int part = 1; part <= 3; part++) {
+            mockWebServer.enqueue(partResponse(part));
+        }
+        mockWebServer.enqueue(completeResponse());
+        AtomicLong progress = new AtomicLong();
+        TestObserver<String> observer = new TestObserver<>();
+
+        uploader.upload(s3File, progress::set).subscribe(observer);
+
+        observer.assertNoErrors();
+        observer.assertValue(UPLOAD_ID);
+        assertEquals(5, mockWebServer.getRequestCount());
+        assertTrue(mockWebServer.takeRequest().getPath().endsWith(FILENAME + "?uploads"));
+        for (int part = 1; part <= 3; part++) {
+            RecordedRequest request = mockWebServer.takeRequest();
+            assertTrue(request.getPath()
+                    .endsWith("?partNumber=" + part + "&uploadId=" + UPLOAD_ID));
+            assertEquals(partLength(part), request.getBodySize());
+        }
+        verify(mockDataBaseDataSource).saveUploadId(FILENAME, UPLOAD_ID);
+        verify(mockDataBaseDataSource, times(3))
+                .saveUploadedPart(eq(FILENAME), eq(UPLOAD_ID), any(UploadPart.class));
+        verify(mockDataBaseDataSource).clearUploadedParts(FILENAME);
+        assertEquals(FILE_SIZE, progress.get());
+    }
+
+    @Test
+    public void uploadShouldResumeFromStoredParts() throws Exception {
+        when(mockDataBaseDataSource.getUploadId(FILENAME)).thenReturn(UPLOAD_ID);
+        when(mockDataBaseDataSource.getUploadedParts(FILENAME, UPLOAD_ID)).thenReturn(
+                Arrays.asList(storedPart(1), storedPart(2)));
+        mockWebServer.enqueue(partResponse(3));
+        mockWebServer.enqueue(completeResponse());
+        TestObserver<String> observer = new TestObserver<>();
+
+        uploader.upload(s3File, null).subscribe(observer);
+
+        observer.assertNoErrors();
+        assertEquals(2, mockWebServer.getRequestCount());
+        assertTrue(mockWebServer.takeRequest().getPath().contains("partNumber=3"));
+        verify(mockDataBaseDataSource, never()).saveUploadId(anyString(), anyString());
+        verify(mockDataBaseDataSource, times(1))
+                .saveUploadedPart(eq(FILENAME), eq(UPLOAD_ID), any(UploadPart.class));
+    }
+
+    @Test
+    public void uploadShouldStopSendingPartsOnceDisposed() throws Exception {
+        when(mockDataBaseDataSource.getUploadId(FILENAME)).thenReturn(UPLOAD_ID);
+        when(mockDataBaseDataSource.getUploadedParts(FILENAME, UPLOAD_ID)).thenReturn(
+                Arrays.asList(storedPart(1), storedPart(2)));
+        mockWebServer.enqueue(partResponse(3));
+        mockWebServer.enqueue(completeResponse());
+        TestObserver<String> observer = new TestObserver<>();
+
+        uploader.upload(s3File, bytes -> observer.dispose()).subscribe(observer);
+
+        observer.assertNoValues();
+        assertEquals(0, mockWebServer.getRequestCount());
+        verify(mockDataBaseDataSource, never())
+                .saveUploadedPart(anyString(), anyString(), any(UploadPart.class));
+        verify(mockDataBaseDataSource, never()).clearUploadedParts(anyString());
+    }
+
+    @Test
+    public void uploadShouldClearStateWhenUploadNoLongerExists() {
+        when(mockDataBaseDataSource.getUploadId(FILENAME)).thenReturn(UPLOAD_ID);
+        mockWebServer.enqueue(new MockResponse().setResponseCode(404)
+                .setBody("<Error><Code>NoSuchUpload</Code></Error>"));
+        TestObserver<String> observer = new TestObserver<>();
+
+        uploader.upload(s3File, null).subscribe(observer);
+
+        observer.assertError(Exception.class);
+        assertFalse(observer.errors().get(0) instanceof HttpException);
+        verify(mockDataBaseDataSource).clearUploadedParts(FILENAME);
+    }
+
+    @Test
+    public void uploadShouldFailWhenPartIsCorrupted() {
+        mockWebServer.enqueue(new MockResponse().setBody(
+                "<InitiateMultipartUploadResult><UploadId>" + UPLOAD_ID
+                        + "</UploadId></InitiateMultipartUploadResult>"));
+        mockWebServer.enqueue(new MockResponse().addHeader("ETag", "\"123\""));
+        TestObserver<String> observer = new TestObserver<>();
+
+        uploader.upload(s3File, null).subscribe(observer);
+
+        observer.assertError(Exception.class);
+        verify(mockDataBaseDataSource, never())
+                .saveUploadedPart(anyString(), anyString(), any(UploadPart.class));
+        verify(mockDataBaseDataSource, never()).clearUploadedParts(anyString());
+    }
+
+    private MockResponse partResponse(int part) throws NoSuchAlgorithmException {
+        return new MockResponse().addHeader("ETag", "\"" + partMd5(part).hex() + "\"");
+    }
+
+    private MockResponse completeResponse() throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("MD5");
+        for (int part = 1; part <= 3; part++) {
+            digest.update(partMd5(part).toByteArray());
+        }
+        String etag = ByteString.of(digest.digest()).hex() + "-3";
+        return new MockResponse().setBody("<CompleteMultipartUploadResult><ETag>&quot;" + etag
+                + "&quot;</ETag></CompleteMultipartUploadResult>");
+    }
+
+    private UploadPart storedPart(int part) throws NoSuchAlgorithmException {
+        return new UploadPart(part, partMd5(part).hex(), partLength(part));
+    }
+
+    private ByteString partMd5(int part) throws NoSuchAlgorithmException {
+        int offset = (int) ((part - 1) * ResumableUploader.PART_SIZE);
+        MessageDigest digest = MessageDigest.getInstance("MD5");
+        digest.update(content, offset, (int) partLength(part));
+        return ByteString.of(digest.digest());
+    }
+
+    private long partLength(int part) {
+        long offset = (part - 1) * ResumableUploader.PART_SIZE;
+        return Math.min(ResumableUploader.PART_SIZE, FILE_SIZE - offset);
+    }
+}
@@ -35,6 +35,8 @@ import org.akvo.flow.data.net.RestApi;
 import org.akvo.flow.data.net.s3.AmazonAuthHelper;
 import org.akvo.flow.data.net.s3.BodyCreator;
 import org.akvo.flow.data.net.s3.S3RestApi;
+import org.akvo.flow.data.net.s3.UploadProgressListener;
+import org.akvo.flow.data.net.s3.UploadProgressTracker;
 import org.akvo.flow.domain.util.DeviceHelper;
 import org.junit.After;
 import org.junit.Before;
@@ -54,6 +56,7 @@ import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Observable;
 import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
 import okhttp3.RequestBody;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
@@ -129,9 +132,13 @@ public class SurveyDataRepositoryTest {
                 .thenReturn("123");
 
         surveyDataRepository = new SurveyDataRepository(mockDataSourceFactory, null, restApi,
-                null, null, null, mockTransmissionMapper, null, mockFormIdMapper, null, s3RestApi);
+                null, null, null, mockTransmissionMapper, null, mockFormIdMapper, null, s3RestApi,
+                new UploadScheduler(1, Schedulers.trampoline()),
+                new ResumableUploader(mockDataSourceFactory, s3RestApi),
+                new UploadProgressTracker());
 
-        when(mockBodyCreator.createBody(any(S3File.class))).thenReturn(mockBody);
+        when(mockBodyCreator.createBody(any(S3File.class), any(UploadProgressListener.class)))
+                .thenReturn(mockBody);
 
         when(mockS3File.getAction()).thenReturn("submit");
         when(mockS3File.getContentType()).thenReturn("application/zip");
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.akvo.flow.data.entity.S3File;
+import org.akvo.flow.data.entity.Transmission;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import io.reactivex.Observable;
+import io.reactivex.functions.Function;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UploadSchedulerTest {
+
+    private final UploadScheduler scheduler = new UploadScheduler(1, Schedulers.trampoline());
+
+    @Test
+    public void prioritizeShouldPutDataBeforeMediaAndSmallBeforeLarge() {
+        Transmission bigImage = transmission(1L, S3File.S3_IMAGE_DIR, 5000L);
+        Transmission smallImage = transmission(2L, S3File.S3_IMAGE_DIR, 100L);
+        Transmission bigZip = transmission(3L, S3File.S3_DATA_DIR, 2000L);
+        Transmission smallZip = transmission(4L, S3File.S3_DATA_DIR, 10L);
+
+        List<Transmission> sorted = scheduler
+                .prioritize(Arrays.asList(bigImage, smallImage, bigZip, smallZip));
+
+        assertEquals(Arrays.asList(smallZip, bigZip, smallImage, bigImage), sorted);
+    }
+
+    @Test
+    public void scheduleShouldUploadAllTransmissions() {
+        Transmission image = transmission(1L, S3File.S3_IMAGE_DIR, 5000L);
+        Transmission zip = transmission(2L, S3File.S3_DATA_DIR, 10L);
+        TestObserver<Long> observer = new TestObserver<>();
+
+        scheduler.schedule(Arrays.asList(image, zip),
+                new Function<Transmission, Observable<Long>>() {
+                    @Override
+                    public Observable<Long> apply(Transmission transmission) {
+                        return Observable.just(transmission.getId());
+                    }
+                }).subscribe(observer);
+
+        observer.assertNoErrors();
+        observer.assertValues(2L, 1L);
+    }
+
+    private Transmission transmission(long id, String dir, long size) {
+        File file = mock(File.class);
+        when(file.length()).thenReturn(size);
+        S3File s3File = mock(S3File.class);
+        when(s3File.getDir()).thenReturn(dir);
+        when(s3File.getFile()).thenReturn(file);
+        return new Transmission(id, id, "1", s3File);
+    }
+}
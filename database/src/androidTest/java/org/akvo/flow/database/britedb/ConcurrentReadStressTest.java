@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.akvo.flow.database.britedb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Bundle;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.squareup.sqlbrite2.BriteDatabase;
+import com.squareup.sqlbrite2.SqlBrite;
+
+import org.akvo.flow.database.Constants;
+import org.akvo.flow.database.DatabaseHelper;
+import org.akvo.flow.database.tables.DataPointDownloadTable;
+import org.akvo.flow.database.tables.FormUpdateNotifiedTable;
+import org.akvo.flow.database.tables.LanguageTable;
+import org.akvo.flow.database.tables.QuestionGroupTable;
+import org.akvo.flow.database.tables.Tables;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Runs a large datapoint sync while another thread keeps loading the datapoint list, as the
+ * UI does. The list must load while a sync transaction is open instead of waiting for it, the
+ * latency of the list queries is reported in the instrumentation status.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ConcurrentReadStressTest {
+
+    private static final int RECORDS = 10000;
+    private static final int RECORDS_PER_TRANSACTION = 500;
+    private static final int ANSWERS_PER_RECORD = 5;
+    private static final long SURVEY_GROUP_ID = 1L;
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private DatabaseHelper databaseHelper;
+    private BriteSurveyDbAdapter adapter;
+
+    @Before
+    public void setUp() {
+        databaseHelper = new DatabaseHelper(
+                InstrumentationRegistry.getInstrumentation().getTargetContext(),
+                new LanguageTable(), new DataPointDownloadTable(), new FormUpdateNotifiedTable(),
+                new QuestionGroupTable());
+        BriteDatabase db = new SqlBrite.Builder().build()
+                .wrapDatabaseHelper(databaseHelper, Schedulers.trampoline());
+        adapter = new BriteSurveyDbAdapter(db);
+        deleteDataPoints();
+    }
+
+    @After
+    public void tearDown() {
+        deleteDataPoints();
+        databaseHelper.close();
+    }
+
+    @Test
+    public void listShouldLoadWhileSyncTransactionIsOpen() throws Exception {
+        writeRecords(0, RECORDS_PER_TRANSACTION);
+        final AtomicInteger listed = new AtomicInteger();
+        final CountDownLatch loaded = new CountDownLatch(1);
+
+        BriteDatabase.Transaction transaction = adapter.beginTransaction();
+        try {
+            writeRecords(RECORDS_PER_TRANSACTION, 2 * RECORDS_PER_TRANSACTION, adapter);
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    listed.set(listDataPoints());
+                    loaded.countDown();
+                }
+            }).start();
+
+            assertTrue(loaded.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            transaction.markSuccessful();
+        } finally {
+            transaction.end();
+        }
+
+        // the list sees the datapoints committed before the transaction
+        assertEquals(RECORDS_PER_TRANSACTION, listed.get());
+        assertEquals(2 * RECORDS_PER_TRANSACTION, listDataPoints());
+    }
+
+    @Test
+    public void listShouldLoadWhileSyncing() throws Exception {
+        final AtomicBoolean syncing = new AtomicBoolean(true);
+        final AtomicBoolean inTransaction = new AtomicBoolean();
+        final AtomicInteger listedDuringTransaction = new AtomicInteger();
+        final CountDownLatch readerStarted = new CountDownLatch(1);
+        final List<Long> latencies = Collections.synchronizedList(new ArrayList<Long>());
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                readerStarted.countDown();
+                do {
+                    long start = System.nanoTime();
+                    boolean startedInTransaction = inTransaction.get();
+                    listDataPoints();
+                    if (startedInTransaction && inTransaction.get()) {
+                        listedDuringTransaction.incrementAndGet();
+                    }
+                    latencies.add(System.nanoTime() - start);
+                } while (syncing.get());
+            }
+        });
+        reader.start();
+        readerStarted.await();
+
+        long syncStart = System.currentTimeMillis();
+        try {
+            for (int first = 0; first < RECORDS; first += RECORDS_PER_TRANSACTION) {
+                BriteDatabase.Transaction transaction = adapter.beginTransaction();
+                inTransaction.set(true);
+                try {
+                    writeRecords(first, Math.min(first + RECORDS_PER_TRANSACTION, RECORDS),
+                            adapter);
+                    transaction.markSuccessful();
+                } finally {
+                    inTransaction.set(false);
+                    transaction.end();
+                }
+            }
+        } finally {
+            syncing.set(false);
+        }
+        long syncTime = System.currentTimeMillis() - syncStart;
+        reader.join();
+
+        assertEquals(RECORDS, listDataPoints());
+        assertTrue(listedDuringTransaction.get() > 0);
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        Bundle results = new Bundle();
+        results.putLong("sync_ms", syncTime);
+        results.putInt("list_queries", sorted.size());
+        results.putInt("list_queries_during_transaction", listedDuringTransaction.get());
+        results.putDouble("list_p50_ms", percentile(sorted, 50));
+        results.putDouble("list_p90_ms", percentile(sorted, 90));
+        results.putDouble("list_p99_ms", percentile(sorted, 99));
+        results.putDouble("list_max_ms", percentile(sorted, 100));
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, results);
+    }
+
+    private int listDataPoints() {
+        Cursor cursor = adapter.getFilteredDataPoints(SURVEY_GROUP_ID, null, null,
+                Constants.ORDER_BY_DATE).blockingFirst();
+        try {
+            return cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private void writeRecords(int first, int end) {
+        BriteDatabase.Transaction transaction = adapter.beginTransaction();
+        try {
+            writeRecords(first, end, adapter);
+            transaction.markSuccessful();
+        } finally {
+            transaction.end();
+        }
+    }
+
+    private static void writeRecords(int first, int end, BriteSurveyDbAdapter adapter) {
+        DataPointSyncWriter writer = adapter.newDataPointSyncWriter();
+        try {
+            for (int r = first; r < end; r++) {
+                String recordId = "record-" + r;
+                long instanceId = writer.upsertSurveyInstance(recordId + "-instance", 1L,
+                        1000L + r, recordId, "Submitter");
+                for (int a = 0; a < ANSWERS_PER_RECORD; a++) {
+                    writer.insertResponse(instanceId, String.valueOf(a), "Answer " + a, "VALUE",
+                            DataPointSyncWriter.NO_ITERATION);
+                }
+                writer.upsertRecord(recordId, SURVEY_GROUP_ID, "Name " + r, 52.0d, 4.0d,
+                        1000L + r);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private double percentile(List<Long> sortedNanos, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(index, 0)) / 1000000.0;
+    }
+
+    private void deleteDataPoints() {
+        SQLiteDatabase database = databaseHelper.getWritableDatabase();
+        database.delete(Tables.RESPONSE, null, null);
+        database.delete(Tables.SURVEY_INSTANCE, null, null);
+        database.delete(Tables.RECORD, null, null);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.database;
+
+import android.database.DatabaseUtils;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+
+/**
+ * Case insensitive index on the names of the nodes of a cascade resource, which lets them be
+ * searched by name prefix across all the levels. Cascade resources are sqlite files downloaded
+ * along with the forms: the index is added to the file itself once it has been extracted.
+ * Queries need to compare names with COLLATE NOCASE for the index to be used.
+ * The ids of the nodes are indexed as well, as they do not necessarily alias the rowid, so that
+ * looking up the ancestors of the nodes found does not scan the table.
+ */
+public class CascadeSearchIndex {
+
+    public static final String INDEX_NAME = "nodes_name_nocase";
+    public static final String ID_INDEX_NAME = "nodes_id";
+    private static final String TABLE_NODE = "nodes";
+    private static final String COLUMN_NAME = "name";
+    private static final String COLUMN_ID = "id";
+
+    private CascadeSearchIndex() {
+    }
+
+    public static boolean exists(@NonNull SQLiteDatabase database) {
+        return DatabaseUtils.longForQuery(database,
+                "SELECT COUNT(*) FROM sqlite_master WHERE type = 'index' AND name IN (?, ?)",
+                new String[] { INDEX_NAME, ID_INDEX_NAME }) == 2;
+    }
+
+    public static void create(@NonNull SQLiteDatabase database) {
+        database.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_NAME + " ON " + TABLE_NODE
+                + " (" + COLUMN_NAME + " COLLATE NOCASE)");
+        database.execSQL("CREATE INDEX IF NOT EXISTS " + ID_INDEX_NAME + " ON " + TABLE_NODE
+                + " (" + COLUMN_ID + ")");
+    }
+
+    /**
+     * Adds the indexes to the given cascade resource file if it does not have them yet
+     */
+    public static void create(@NonNull File resource) throws SQLException {
+        SQLiteDatabase database = SQLiteDatabase
+                .openDatabase(resource.getAbsolutePath(), null, SQLiteDatabase.OPEN_READWRITE);
+        try {
+            if (!exists(database)) {
+                create(database);
+            }
+        } finally {
+            database.close();
+        }
+    }
+}
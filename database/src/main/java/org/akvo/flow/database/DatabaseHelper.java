@@ -24,13 +24,21 @@ import android.content.Context;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
+import androidx.annotation.Nullable;
+
 import org.akvo.flow.database.migration.GroupsMigrationHelper;
 import org.akvo.flow.database.migration.TransmissionMigrationHelper;
 import org.akvo.flow.database.tables.DataPointDownloadTable;
+import org.akvo.flow.database.tables.FormInstanceCountTable;
 import org.akvo.flow.database.tables.FormUpdateNotifiedTable;
 import org.akvo.flow.database.tables.LanguageTable;
 import org.akvo.flow.database.tables.QuestionGroupTable;
+import org.akvo.flow.database.tables.RecordClusterTable;
+import org.akvo.flow.database.tables.RecordLocationTable;
+import org.akvo.flow.database.tables.RecordSearchTable;
+import org.akvo.flow.database.tables.ResourceHashTable;
 import org.akvo.flow.database.tables.Tables;
+import org.akvo.flow.database.tables.UploadPartTable;
 import org.akvo.flow.database.upgrade.UpgraderFactory;
 import org.jetbrains.annotations.NotNull;
 
@@ -54,7 +62,15 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     public static final int VER_DATAPOINT_STATUS = 91;
     public static final int VER_FORM_VERSION_UPDATE = 92;
     public static final int VER_GROUPS = 93;
-    static final int DATABASE_VERSION = VER_GROUPS;
+    public static final int VER_UPLOAD_PARTS = 94;
+    public static final int VER_TRANSMISSION_CHECKSUM = 95;
+    public static final int VER_RECORD_SEARCH = 96;
+    public static final int VER_RECORD_LOCATION = 97;
+    public static final int VER_QUERY_INDEXES = 98;
+    public static final int VER_RESOURCE_HASHES = 99;
+    public static final int VER_FORM_INSTANCE_COUNTS = 100;
+    public static final int VER_RECORD_CLUSTERS = 101;
+    static final int DATABASE_VERSION = VER_RECORD_CLUSTERS;
 
     private static SQLiteDatabase database;
     private static final Object LOCK_OBJ = new Object();
@@ -69,7 +85,20 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                           DataPointDownloadTable dataPointDownloadTable,
                           FormUpdateNotifiedTable formUpdateNotifiedTable,
                           QuestionGroupTable questionGroupTable) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this(context, languageTable, dataPointDownloadTable, formUpdateNotifiedTable,
+                questionGroupTable, null);
+    }
+
+    /**
+     * @param cursorFactory used for every query, ie: {@link QueryPlanAdvisor} in debug builds
+     */
+    public DatabaseHelper(Context context, LanguageTable languageTable,
+                          DataPointDownloadTable dataPointDownloadTable,
+                          FormUpdateNotifiedTable formUpdateNotifiedTable,
+                          QuestionGroupTable questionGroupTable,
+                          @Nullable SQLiteDatabase.CursorFactory cursorFactory) {
+        super(context, DATABASE_NAME, cursorFactory, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
         this.languageTable = languageTable;
         this.dataPointDownloadTable = dataPointDownloadTable;
         this.formUpdateNotifiedTable = formUpdateNotifiedTable;
@@ -155,11 +184,23 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 + TransmissionColumns.STATUS + " INTEGER,"
                 + TransmissionColumns.START_DATE + " INTEGER,"
                 + TransmissionColumns.END_DATE + " INTEGER,"
+                + TransmissionColumns.UPLOAD_ID + " TEXT,"
+                + TransmissionColumns.CHECKSUM_PATH + " TEXT,"
+                + TransmissionColumns.CHECKSUM_SIZE + " INTEGER,"
+                + TransmissionColumns.CHECKSUM_MODIFIED + " INTEGER,"
+                + TransmissionColumns.MD5_BASE64 + " TEXT,"
+                + TransmissionColumns.MD5_HEX + " TEXT,"
                 + "UNIQUE (" + TransmissionColumns.FILENAME + ") ON CONFLICT REPLACE)");
         languageTable.onCreate(db);
         dataPointDownloadTable.onCreate(db);
         formUpdateNotifiedTable.onCreate(db);
         questionGroupTable.onCreate(db);
+        new UploadPartTable().onCreate(db);
+        new RecordSearchTable().onCreate(db);
+        new RecordLocationTable().onCreate(db);
+        new ResourceHashTable().onCreate(db);
+        new FormInstanceCountTable().onCreate(db);
+        new RecordClusterTable().onCreate(db);
         createIndexes(db);
     }
 
@@ -199,11 +240,62 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         groupsMigrationHelper.migrateGroups(db, context);
     }
 
+    public void upgradeFromGroups(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + Tables.TRANSMISSION + " ADD COLUMN "
+                + TransmissionColumns.UPLOAD_ID + " TEXT");
+        new UploadPartTable().onCreate(db);
+    }
+
+    public void upgradeFromUploadParts(SQLiteDatabase db) {
+        String[] columns = new String[]{
+                TransmissionColumns.CHECKSUM_PATH + " TEXT",
+                TransmissionColumns.CHECKSUM_SIZE + " INTEGER",
+                TransmissionColumns.CHECKSUM_MODIFIED + " INTEGER",
+                TransmissionColumns.MD5_BASE64 + " TEXT",
+                TransmissionColumns.MD5_HEX + " TEXT"
+        };
+        for (String column : columns) {
+            db.execSQL("ALTER TABLE " + Tables.TRANSMISSION + " ADD COLUMN " + column);
+        }
+    }
+
+    public void upgradeFromTransmissionChecksum(SQLiteDatabase db) {
+        RecordSearchTable recordSearchTable = new RecordSearchTable();
+        recordSearchTable.onCreate(db);
+        recordSearchTable.populate(db);
+    }
+
+    public void upgradeFromRecordSearch(SQLiteDatabase db) {
+        RecordLocationTable recordLocationTable = new RecordLocationTable();
+        recordLocationTable.onCreate(db);
+        recordLocationTable.populate(db);
+    }
+
+    public void upgradeFromRecordLocation(SQLiteDatabase db) {
+        createQueryIndexes(db);
+    }
+
+    public void upgradeFromQueryIndexes(SQLiteDatabase db) {
+        new ResourceHashTable().onCreate(db);
+    }
+
+    public void upgradeFromResourceHashes(SQLiteDatabase db) {
+        FormInstanceCountTable formInstanceCountTable = new FormInstanceCountTable();
+        formInstanceCountTable.onCreate(db);
+        formInstanceCountTable.populate(db);
+    }
+
+    public void upgradeFromFormInstanceCounts(SQLiteDatabase db) {
+        RecordClusterTable recordClusterTable = new RecordClusterTable();
+        recordClusterTable.onCreate(db);
+        recordClusterTable.populate(db);
+    }
+
     /**
-     * This is not ideal but due to our setup, using something other than getWritableDatabase
-     * produces errors.
-     *
-     * @return
+     * The database is opened in write-ahead logging mode, so the single SQLiteDatabase instance
+     * holds a pool of connections: writes and transactions use its primary connection while
+     * queries from other threads run on read-only connections, without waiting for a running
+     * transaction to finish. The readable and the writable database are the same object.
      */
     @Override
     public SQLiteDatabase getReadableDatabase() {
@@ -252,5 +344,18 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 + "(" + SurveyInstanceColumns.STATUS + ")");
         db.execSQL("CREATE INDEX response_modified_idx ON " + Tables.SURVEY_INSTANCE
                 + "(" + SurveyInstanceColumns.SUBMITTED_DATE + ")");
+        createQueryIndexes(db);
+    }
+
+    private void createQueryIndexes(SQLiteDatabase db) {
+        // Datapoint list join
+        db.execSQL("CREATE INDEX IF NOT EXISTS survey_instance_record_idx ON "
+                + Tables.SURVEY_INSTANCE + "(" + SurveyInstanceColumns.RECORD_ID + ")");
+        // Datapoints of a survey, sorted by date
+        db.execSQL("CREATE INDEX IF NOT EXISTS record_survey_group_idx ON " + Tables.RECORD
+                + "(" + RecordColumns.SURVEY_GROUP_ID + ", " + RecordColumns.LAST_MODIFIED + ")");
+        // Pending uploads, optionally of a single form
+        db.execSQL("CREATE INDEX IF NOT EXISTS transmission_status_idx ON " + Tables.TRANSMISSION
+                + "(" + TransmissionColumns.STATUS + ", " + TransmissionColumns.SURVEY_ID + ")");
     }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteCursorDriver;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQuery;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import timber.log.Timber;
+
+/**
+ * Cursor factory meant for debug builds only: the first time a query is run its plan is
+ * checked with EXPLAIN QUERY PLAN and a warning is logged for every table it reads entirely.
+ * Every query of the app goes through it, whichever adapter runs it, as long as the database
+ * was opened with it.
+ */
+public class QueryPlanAdvisor implements SQLiteDatabase.CursorFactory {
+
+    private static final String QUERY_PREFIX = "SQLiteQuery: ";
+    private static final String EXPLAIN = "EXPLAIN QUERY PLAN ";
+
+    /**
+     * Matches "SCAN TABLE name" (older SQLite versions) and "SCAN name", a scan using an index
+     * or of a virtual table, a subquery or a constant row is not a full table scan
+     */
+    private static final Pattern FULL_SCAN = Pattern
+            .compile("^SCAN (?:TABLE )?(\\w+)(?: AS \\w+)?$");
+
+    private static final SQLiteDatabase.CursorFactory PLAIN_FACTORY =
+            new SQLiteDatabase.CursorFactory() {
+                @Override
+                public Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver masterQuery,
+                        String editTable, SQLiteQuery query) {
+                    return new SQLiteCursor(masterQuery, editTable, query);
+                }
+            };
+
+    private final Set<String> checkedQueries =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    @Override
+    public Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver masterQuery, String editTable,
+            SQLiteQuery query) {
+        String sql = sqlOf(query);
+        if (sql != null && checkedQueries.add(sql)) {
+            try {
+                for (String table : fullScans(db, sql)) {
+                    Timber.w("Full table scan of %s in query: %s", table, sql);
+                }
+            } catch (Exception e) {
+                Timber.w(e, "Query plan could not be checked: %s", sql);
+            }
+        }
+        return new SQLiteCursor(masterQuery, editTable, query);
+    }
+
+    /**
+     * @return the tables the query reads without using any index
+     */
+    @NonNull
+    public static List<String> fullScans(@NonNull SQLiteDatabase db, @NonNull String sql) {
+        List<String> tables = new ArrayList<>();
+        Cursor cursor = db.rawQueryWithFactory(PLAIN_FACTORY, EXPLAIN + sql, null, null);
+        try {
+            int detailColumn = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                String table = fullScanTable(cursor.getString(detailColumn));
+                if (table != null) {
+                    tables.add(table);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        return tables;
+    }
+
+    @VisibleForTesting
+    @Nullable
+    static String fullScanTable(@Nullable String detail) {
+        if (detail == null) {
+            return null;
+        }
+        Matcher matcher = FULL_SCAN.matcher(detail.trim());
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    @Nullable
+    private String sqlOf(SQLiteQuery query) {
+        String description = query.toString();
+        if (!description.startsWith(QUERY_PREFIX)) {
+            return null;
+        }
+        String sql = description.substring(QUERY_PREFIX.length()).trim();
+        return sql.regionMatches(true, 0, "SELECT", 0, 6)
+                || sql.regionMatches(true, 0, "WITH", 0, 4) ? sql : null;
+    }
+}
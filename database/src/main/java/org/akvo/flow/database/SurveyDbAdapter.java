@@ -26,6 +26,7 @@ import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
+import org.akvo.flow.database.tables.FormInstanceCountTable;
 import org.akvo.flow.database.tables.Tables;
 
 /**
@@ -402,6 +403,62 @@ public class SurveyDbAdapter {
                 SurveyColumns.NAME);
     }
 
+    /**
+     * Counts the datapoints of a survey, in total and modified after each of the given times,
+     * in a single pass over the survey_group_id and last_modified index
+     */
+    public Cursor getDataPointCounts(long surveyGroupId, long weekStart, long dayStart) {
+        String modifiedAfter = "SUM(CASE WHEN " + RecordColumns.LAST_MODIFIED
+                + " > ? THEN 1 ELSE 0 END)";
+        return database.rawQuery("SELECT COUNT(*), " + modifiedAfter + ", " + modifiedAfter
+                        + " FROM " + Tables.RECORD
+                        + " WHERE " + RecordColumns.SURVEY_GROUP_ID + " = ?"
+                        + " AND " + RecordColumns.LAST_MODIFIED + " > 0",
+                new String[] {
+                        String.valueOf(weekStart),
+                        String.valueOf(dayStart),
+                        String.valueOf(surveyGroupId)
+                });
+    }
+
+    /**
+     * Number of form instances of each form of a survey in each status, read from the
+     * {@link FormInstanceCountTable} so the cost does not depend on the number of instances
+     */
+    public Cursor getFormInstanceCounts(long surveyGroupId) {
+        return database.rawQuery("SELECT "
+                        + Tables.SURVEY + "." + SurveyColumns.SURVEY_ID + ", "
+                        + Tables.SURVEY + "." + SurveyColumns.NAME + ", "
+                        + "c." + FormInstanceCountTable.COLUMN_STATUS + ", "
+                        + "c." + FormInstanceCountTable.COLUMN_INSTANCES
+                        + " FROM " + Tables.SURVEY + " JOIN " + FormInstanceCountTable.TABLE_NAME
+                        + " c ON c." + FormInstanceCountTable.COLUMN_SURVEY_ID + " = "
+                        + Tables.SURVEY + "." + SurveyColumns.SURVEY_ID
+                        + " WHERE " + Tables.SURVEY + "." + SurveyColumns.SURVEY_GROUP_ID + " = ?"
+                        + " AND c." + FormInstanceCountTable.COLUMN_INSTANCES + " > 0"
+                        + " ORDER BY " + Tables.SURVEY + "." + SurveyColumns.NAME,
+                new String[] { String.valueOf(surveyGroupId) });
+    }
+
+    public interface DataPointCountQuery {
+        int TOTAL = 0;
+        int THIS_WEEK = 1;
+        int TODAY = 2;
+    }
+
+    public interface DataPointClusterQuery {
+        int POINT_COUNT = 0;
+        int LATITUDE = 1;
+        int LONGITUDE = 2;
+    }
+
+    public interface FormInstanceCountQuery {
+        int SURVEY_ID = 0;
+        int NAME = 1;
+        int STATUS = 2;
+        int INSTANCES = 3;
+    }
+
     public interface SurveyQuery {
         String[] PROJECTION = {
                 Tables.SURVEY + "." + SurveyColumns.SURVEY_ID,
@@ -28,4 +28,11 @@ public class TransmissionColumns {
     public static final String STATUS = "status";// separate table/constants?
     public static final String START_DATE = "start_date";// do we really need this column?
     public static final String END_DATE = "end_date";
+    public static final String UPLOAD_ID = "upload_id";
+    // cached file checksum, only valid while path, size and modification date match the file
+    public static final String CHECKSUM_PATH = "checksum_path";
+    public static final String CHECKSUM_SIZE = "checksum_size";
+    public static final String CHECKSUM_MODIFIED = "checksum_modified";
+    public static final String MD5_BASE64 = "md5_base64";
+    public static final String MD5_HEX = "md5_hex";
 }
@@ -48,7 +48,12 @@ import org.akvo.flow.database.tables.DataPointDownloadTable;
 import org.akvo.flow.database.tables.FormUpdateNotifiedTable;
 import org.akvo.flow.database.tables.LanguageTable;
 import org.akvo.flow.database.tables.QuestionGroupTable;
+import org.akvo.flow.database.tables.RecordClusterTable;
+import org.akvo.flow.database.tables.RecordLocationTable;
+import org.akvo.flow.database.tables.RecordSearchTable;
+import org.akvo.flow.database.tables.ResourceHashTable;
 import org.akvo.flow.database.tables.Tables;
+import org.akvo.flow.database.tables.UploadPartTable;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -68,6 +73,13 @@ public class BriteSurveyDbAdapter {
             + "LEFT OUTER JOIN response ON survey_instance._id=response.survey_instance_id "
             + "LEFT OUTER JOIN user ON survey_instance.user_id=user._id";
 
+    private static final String TRANSMISSION_CHECKSUM_COLUMNS =
+            TransmissionColumns.CHECKSUM_PATH + ", "
+                    + TransmissionColumns.CHECKSUM_SIZE + ", "
+                    + TransmissionColumns.CHECKSUM_MODIFIED + ", "
+                    + TransmissionColumns.MD5_BASE64 + ", "
+                    + TransmissionColumns.MD5_HEX;
+
     private final BriteDatabase briteDatabase;
 
     public BriteSurveyDbAdapter(BriteDatabase briteDatabase) {
@@ -79,12 +91,37 @@ public class BriteSurveyDbAdapter {
      */
     public Observable<Cursor> getFilteredDataPoints(long surveyGroupId, Double latitude,
                                                     Double longitude, int orderBy) {
+        return queryDataPoints(surveyGroupId, latitude, longitude, orderBy, null, 0);
+    }
+
+    /**
+     * Searches the datapoints of a survey using the record full text index
+     *
+     * @param matchQuery FTS query, see {@link RecordSearchTable#matchQuery(String)}
+     * @param limit      maximum number of results, 0 for no limit
+     */
+    public Observable<Cursor> searchDataPoints(long surveyGroupId, @NonNull String matchQuery,
+            Double latitude, Double longitude, int orderBy, int limit) {
+        return queryDataPoints(surveyGroupId, latitude, longitude, orderBy, matchQuery, limit);
+    }
+
+    private Observable<Cursor> queryDataPoints(long surveyGroupId, Double latitude,
+            Double longitude, int orderBy, @Nullable String matchQuery, int limit) {
         String queryString = "SELECT sl.*,"
                 + " MIN(r." + SurveyInstanceColumns.STATUS + ") as " + SurveyInstanceColumns.STATUS
                 + " FROM "
                 + Tables.RECORD + " AS sl LEFT JOIN " + Tables.SURVEY_INSTANCE + " AS r ON "
                 + "sl." + RecordColumns.RECORD_ID + "=" + "r." + SurveyInstanceColumns.RECORD_ID;
         String whereClause = " WHERE sl." + RecordColumns.SURVEY_GROUP_ID + " =?";
+        String[] args;
+        if (matchQuery != null) {
+            whereClause += " AND sl." + RecordColumns._ID + " IN (SELECT docid FROM "
+                    + RecordSearchTable.TABLE_NAME + " WHERE " + RecordSearchTable.TABLE_NAME
+                    + " MATCH ?)";
+            args = new String[]{String.valueOf(surveyGroupId), matchQuery};
+        } else {
+            args = new String[]{String.valueOf(surveyGroupId)};
+        }
         String groupBy = " GROUP BY sl." + RecordColumns.RECORD_ID;
 
         String orderByStr = "";
@@ -107,12 +144,243 @@ public class BriteSurveyDbAdapter {
                 break;
         }
 
+        String limitStr = limit > 0 ? " LIMIT " + limit : "";
+
         List<String> tables = new ArrayList<>(2);
         tables.add(Tables.RECORD);
         tables.add(Tables.SURVEY_INSTANCE);
         return briteDatabase
-                .createQuery(tables, queryString + whereClause + groupBy + orderByStr,
-                        String.valueOf(surveyGroupId))
+                .createQuery(tables, queryString + whereClause + groupBy + orderByStr + limitStr,
+                        args)
+                .concatMap(new Function<SqlBrite.Query, Observable<Cursor>>() {
+                    @Override
+                    public Observable<Cursor> apply(SqlBrite.Query query) {
+                        return Observable.just(query.run());
+                    }
+                });
+    }
+
+    /**
+     * Loads a window of the datapoints of a survey using keyset pagination: rows are selected by
+     * comparing against the sort key and record id of the first row of the window instead of
+     * skipping with an offset, so any page costs the same to load.
+     * Only {@link org.akvo.flow.database.Constants#ORDER_BY_DATE},
+     * {@link org.akvo.flow.database.Constants#ORDER_BY_NAME} and
+     * {@link org.akvo.flow.database.Constants#ORDER_BY_STATUS} are supported.
+     *
+     * @param startSortKey  sort key of the first row of the window, null to start at the top
+     * @param startRecordId record id of the first row of the window, it is included in the result
+     * @param limit         maximum number of rows of the window
+     */
+    public Observable<Cursor> getDataPointsPage(long surveyGroupId, int orderBy,
+            @Nullable String startSortKey, @Nullable String startRecordId, int limit) {
+        List<String> tables = new ArrayList<>(2);
+        tables.add(Tables.RECORD);
+        tables.add(Tables.SURVEY_INSTANCE);
+        String query = dataPointsPageQuery(orderBy, startSortKey != null, false, limit);
+        return briteDatabase
+                .createQuery(tables, query,
+                        dataPointsPageArgs(surveyGroupId, startSortKey, startRecordId))
+                .concatMap(new Function<SqlBrite.Query, Observable<Cursor>>() {
+                    @Override
+                    public Observable<Cursor> apply(SqlBrite.Query query) {
+                        return Observable.just(query.run());
+                    }
+                });
+    }
+
+    /**
+     * Loads the rows placed right before the given one, closest row first
+     *
+     * @see #getDataPointsPage(long, int, String, String, int)
+     */
+    public Cursor getDataPointsBefore(long surveyGroupId, int orderBy, @NonNull String sortKey,
+            @NonNull String recordId, int limit) {
+        return briteDatabase.query(dataPointsPageQuery(orderBy, true, true, limit),
+                dataPointsPageArgs(surveyGroupId, sortKey, recordId));
+    }
+
+    private String dataPointsPageQuery(int orderBy, boolean hasStart, boolean backwards,
+            int limit) {
+        String sortExpression;
+        boolean descending = false;
+        boolean aggregated = false;
+        switch (orderBy) {
+            case ORDER_BY_DATE:
+                sortExpression = "sl." + RecordColumns.LAST_MODIFIED;
+                descending = true;
+                break;
+            case ORDER_BY_STATUS:
+                sortExpression = "IFNULL(MIN(r." + SurveyInstanceColumns.STATUS + "), 0)";
+                aggregated = true;
+                break;
+            case ORDER_BY_NAME:
+                sortExpression = "IFNULL(sl." + RecordColumns.NAME + ", '') COLLATE NOCASE";
+                break;
+            default:
+                throw new IllegalArgumentException("Sort order can not be paged: " + orderBy);
+        }
+        String key = orderBy == ORDER_BY_NAME ? "?" : "CAST(? AS INTEGER)";
+        String recordId = "sl." + RecordColumns.RECORD_ID;
+        // Rows before the start are read in the opposite order, closest row first
+        boolean reversed = descending != backwards;
+        String direction = reversed ? " DESC" : " ASC";
+        String op = reversed ? "<" : ">";
+        String startCondition = "";
+        if (hasStart) {
+            startCondition = "(" + sortExpression + " " + op + " " + key
+                    + " OR (" + sortExpression + " = " + key + " AND " + recordId + " " + op
+                    + (backwards ? "" : "=") + " ?))";
+        }
+
+        String query = "SELECT sl.*,"
+                + " MIN(r." + SurveyInstanceColumns.STATUS + ") as " + SurveyInstanceColumns.STATUS
+                + " FROM "
+                + Tables.RECORD + " AS sl LEFT JOIN " + Tables.SURVEY_INSTANCE + " AS r ON "
+                + "sl." + RecordColumns.RECORD_ID + "=" + "r." + SurveyInstanceColumns.RECORD_ID
+                + " WHERE sl." + RecordColumns.SURVEY_GROUP_ID + " =?";
+        if (hasStart && !aggregated) {
+            query += " AND " + startCondition;
+        }
+        query += " GROUP BY sl." + RecordColumns.RECORD_ID;
+        if (hasStart && aggregated) {
+            query += " HAVING " + startCondition;
+        }
+        return query + " ORDER BY " + sortExpression + direction + ", " + recordId + direction
+                + " LIMIT " + limit;
+    }
+
+    private String[] dataPointsPageArgs(long surveyGroupId, @Nullable String sortKey,
+            @Nullable String recordId) {
+        if (sortKey == null) {
+            return new String[]{String.valueOf(surveyGroupId)};
+        }
+        return new String[]{String.valueOf(surveyGroupId), sortKey, sortKey, recordId};
+    }
+
+    /**
+     * Loads the datapoints closest to the given location. The location grid is searched in
+     * growing squares until one holding enough located datapoints is found, only the datapoints
+     * in a square large enough to include the circle around it are sorted by distance.
+     * The square depends on the datapoints, it is searched again every time they change.
+     */
+    public Observable<Cursor> getNearestDataPoints(final long surveyGroupId,
+            final double latitude, final double longitude, final int limit) {
+        List<String> tables = new ArrayList<>(2);
+        tables.add(Tables.RECORD);
+        tables.add(Tables.SURVEY_INSTANCE);
+        // the query only signals the changes, the datapoints are queried on each of them
+        return briteDatabase
+                .createQuery(tables, "SELECT 1")
+                .concatMap(new Function<SqlBrite.Query, Observable<Cursor>>() {
+                    @Override
+                    public Observable<Cursor> apply(SqlBrite.Query trigger) {
+                        return Observable.just(
+                                queryNearestDataPoints(surveyGroupId, latitude, longitude, limit));
+                    }
+                });
+    }
+
+    private Cursor queryNearestDataPoints(long surveyGroupId, double latitude, double longitude,
+            int limit) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(surveyGroupId));
+        String query = "SELECT sl.*,"
+                + " MIN(r." + SurveyInstanceColumns.STATUS + ") as " + SurveyInstanceColumns.STATUS
+                + " FROM "
+                + Tables.RECORD + " AS sl LEFT JOIN " + Tables.SURVEY_INSTANCE + " AS r ON "
+                + "sl." + RecordColumns.RECORD_ID + "=" + "r." + SurveyInstanceColumns.RECORD_ID
+                + " WHERE sl." + RecordColumns.SURVEY_GROUP_ID + " =?";
+        double radius = nearestSearchRadius(surveyGroupId, latitude, longitude, limit);
+        if (radius > 0) {
+            // The limit-th closest datapoint of the square is at most at its corners
+            double searchRadius = radius * Math.sqrt(2);
+            query += " AND sl." + RecordColumns._ID + " IN (SELECT "
+                    + RecordLocationTable.COLUMN_ID + " FROM " + RecordLocationTable.TABLE_NAME
+                    + locationCellsWhereClause(args, surveyGroupId, latitude - searchRadius,
+                    longitude - longitudeSpan(latitude, searchRadius), latitude + searchRadius,
+                    longitude + longitudeSpan(latitude, searchRadius)) + ")";
+        }
+        query += " GROUP BY sl." + RecordColumns.RECORD_ID
+                + getOrderByDistanceString(latitude, longitude)
+                + " LIMIT " + limit;
+        return briteDatabase.query(query, args.toArray(new String[0]));
+    }
+
+    /**
+     * @return half the side, in degrees of latitude, of the smallest searched square holding
+     * at least limit datapoints, or -1 if the whole survey needs to be sorted
+     */
+    private double nearestSearchRadius(long surveyGroupId, double latitude, double longitude,
+            int limit) {
+        String countAll = "SELECT COUNT(*) FROM " + RecordLocationTable.TABLE_NAME + " WHERE "
+                + RecordLocationTable.COLUMN_SURVEY_GROUP_ID + " = ?";
+        if (count(countAll, String.valueOf(surveyGroupId)) <= limit) {
+            return -1;
+        }
+        double radius = 1.0d / RecordLocationTable.CELLS_PER_DEGREE;
+        while (radius < 180) {
+            List<String> args = new ArrayList<>();
+            String countInSquare = "SELECT COUNT(*) FROM " + RecordLocationTable.TABLE_NAME
+                    + locationCellsWhereClause(args, surveyGroupId, latitude - radius,
+                    longitude - longitudeSpan(latitude, radius), latitude + radius,
+                    longitude + longitudeSpan(latitude, radius));
+            if (count(countInSquare, args.toArray(new String[0])) >= limit) {
+                return radius;
+            }
+            radius *= 2;
+        }
+        return -1;
+    }
+
+    /**
+     * Distances are computed with the planar approximation used to sort by distance, where
+     * degrees of longitude are shortened at higher latitudes
+     */
+    private double longitudeSpan(double latitude, double radius) {
+        return radius / Math.max(Math.cos(Math.toRadians(latitude)), 0.01d);
+    }
+
+    /**
+     * Loads the datapoints located inside the given bounds. West may be greater than east for
+     * bounds crossing the antimeridian.
+     */
+    public Observable<Cursor> getDataPointsInBounds(long surveyGroupId, double south,
+            double west, double north, double east) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(surveyGroupId));
+        String query = "SELECT * FROM " + Tables.RECORD + " WHERE "
+                + RecordColumns.SURVEY_GROUP_ID + " = ? AND " + RecordColumns._ID
+                + " IN (SELECT " + RecordLocationTable.COLUMN_ID + " FROM "
+                + RecordLocationTable.TABLE_NAME
+                + locationCellsWhereClause(args, surveyGroupId, south, west, north, east) + ")";
+        return briteDatabase.createQuery(Tables.RECORD, query, args.toArray(new String[0]))
+                .concatMap(new Function<SqlBrite.Query, Observable<Cursor>>() {
+                    @Override
+                    public Observable<Cursor> apply(SqlBrite.Query query) {
+                        return Observable.just(query.run());
+                    }
+                });
+    }
+
+    /**
+     * Loads the clusters of the tiles overlapping the given bounds, as the point count and
+     * average location of their datapoints in the order of
+     * {@link org.akvo.flow.database.SurveyDbAdapter.DataPointClusterQuery}. Only the tiles of
+     * the viewport are read whatever the number of datapoints of the survey.
+     *
+     * @param zoom one of {@link RecordClusterTable#ZOOM_LEVELS}
+     */
+    public Observable<Cursor> getDataPointClusters(long surveyGroupId, double south,
+            double west, double north, double east, int zoom) {
+        List<String> args = new ArrayList<>();
+        String pointCount = RecordClusterTable.COLUMN_POINT_COUNT;
+        String query = "SELECT " + pointCount + ", "
+                + RecordClusterTable.COLUMN_LATITUDE_SUM + " / " + pointCount + ", "
+                + RecordClusterTable.COLUMN_LONGITUDE_SUM + " / " + pointCount + " FROM "
+                + RecordClusterTable.TABLE_NAME
+                + clusterTilesWhereClause(args, surveyGroupId, zoom, south, west, north, east);
+        return briteDatabase.createQuery(Tables.RECORD, query, args.toArray(new String[0]))
                 .concatMap(new Function<SqlBrite.Query, Observable<Cursor>>() {
                     @Override
                     public Observable<Cursor> apply(SqlBrite.Query query) {
@@ -121,6 +389,76 @@ public class BriteSurveyDbAdapter {
                 });
     }
 
+    /**
+     * Selects the non empty cluster tiles overlapping the given bounds, longitudes outside of
+     * [-180, 180] are wrapped around the antimeridian
+     */
+    private String clusterTilesWhereClause(List<String> args, long surveyGroupId, int zoom,
+            double south, double west, double north, double east) {
+        args.add(String.valueOf(surveyGroupId));
+        args.add(String.valueOf(zoom));
+        args.add(String.valueOf(RecordClusterTable.tileY(Math.max(south, -90), zoom)));
+        args.add(String.valueOf(RecordClusterTable.tileY(Math.min(north, 90), zoom)));
+        String clause = " WHERE " + RecordClusterTable.COLUMN_SURVEY_GROUP_ID + " = ? AND "
+                + RecordClusterTable.COLUMN_ZOOM + " = ? AND "
+                + RecordClusterTable.COLUMN_TILE_Y + " BETWEEN ? AND ? AND "
+                + RecordClusterTable.COLUMN_POINT_COUNT + " > 0";
+        if (east - west >= 360) {
+            return clause;
+        }
+        if (west < -180) {
+            west += 360;
+        }
+        if (east > 180) {
+            east -= 360;
+        }
+        args.add(String.valueOf(RecordClusterTable.tileX(west, zoom)));
+        args.add(String.valueOf(RecordClusterTable.tileX(east, zoom)));
+        String tileX = RecordClusterTable.COLUMN_TILE_X;
+        if (west <= east) {
+            return clause + " AND " + tileX + " BETWEEN ? AND ?";
+        }
+        return clause + " AND (" + tileX + " >= ? OR " + tileX + " <= ?)";
+    }
+
+    /**
+     * Selects the location cells overlapping the given bounds, longitudes outside of
+     * [-180, 180] are wrapped around the antimeridian
+     */
+    private String locationCellsWhereClause(List<String> args, long surveyGroupId, double south,
+            double west, double north, double east) {
+        args.add(String.valueOf(surveyGroupId));
+        args.add(String.valueOf(RecordLocationTable.cell(Math.max(south, -90))));
+        args.add(String.valueOf(RecordLocationTable.cell(Math.min(north, 90))));
+        String clause = " WHERE " + RecordLocationTable.COLUMN_SURVEY_GROUP_ID + " = ? AND "
+                + RecordLocationTable.COLUMN_LATITUDE_CELL + " BETWEEN ? AND ?";
+        if (east - west >= 360) {
+            return clause;
+        }
+        if (west < -180) {
+            west += 360;
+        }
+        if (east > 180) {
+            east -= 360;
+        }
+        args.add(String.valueOf(RecordLocationTable.cell(west)));
+        args.add(String.valueOf(RecordLocationTable.cell(east)));
+        String longitudeCell = RecordLocationTable.COLUMN_LONGITUDE_CELL;
+        if (west <= east) {
+            return clause + " AND " + longitudeCell + " BETWEEN ? AND ?";
+        }
+        return clause + " AND (" + longitudeCell + " >= ? OR " + longitudeCell + " <= ?)";
+    }
+
+    private long count(String query, String... args) {
+        Cursor cursor = briteDatabase.query(query, args);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
     /**
      * Uses a simple planar approximation of distance
      */
@@ -311,6 +649,38 @@ public class BriteSurveyDbAdapter {
         return briteDatabase.newTransaction();
     }
 
+    /**
+     * Creates a writer for downloaded datapoints, the caller is responsible for closing it
+     */
+    public DataPointSyncWriter newDataPointSyncWriter() {
+        return new DataPointSyncWriter(briteDatabase);
+    }
+
+    /**
+     * Writes a page of downloaded datapoints in a single transaction, with the same compiled
+     * statements reused for all of them
+     *
+     * @return the number of datapoints which did not exist yet
+     */
+    public <T> int syncDataPoints(@NonNull List<T> dataPoints,
+            @NonNull DataPointSyncWriter.DataPointWriter<T> dataPointWriter) {
+        BriteDatabase.Transaction transaction = beginTransaction();
+        DataPointSyncWriter writer = newDataPointSyncWriter();
+        int newDataPoints = 0;
+        try {
+            for (T dataPoint : dataPoints) {
+                if (dataPointWriter.write(writer, dataPoint)) {
+                    newDataPoints++;
+                }
+            }
+            transaction.markSuccessful();
+        } finally {
+            writer.close();
+            transaction.end();
+        }
+        return newDataPoints;
+    }
+
     public void syncResponse(long surveyInstanceId, ContentValues values, String questionId) {
         Cursor cursor = getLastExistingResponse(surveyInstanceId, questionId);
         boolean anotherIterationExists = cursor != null && cursor.moveToFirst();
@@ -666,6 +1036,7 @@ public class BriteSurveyDbAdapter {
         briteDatabase.delete(Tables.SURVEY_INSTANCE, null);
         briteDatabase.delete(Tables.RECORD, null);
         briteDatabase.delete(Tables.TRANSMISSION, null);
+        briteDatabase.delete(UploadPartTable.TABLE_NAME, null);
         briteDatabase.delete(DataPointDownloadTable.TABLE_NAME, null);
     }
 
@@ -723,12 +1094,88 @@ public class BriteSurveyDbAdapter {
         return briteDatabase.update(Tables.TRANSMISSION, contentValues, where, filename);
     }
 
+    public Cursor getTransmissionUploadId(String filename) {
+        return queryTransmissions(TransmissionColumns.UPLOAD_ID,
+                TransmissionColumns.FILENAME + " = ? ", new String[]{filename});
+    }
+
+    public void saveTransmissionUploadId(String filename, @Nullable String uploadId) {
+        ContentValues contentValues = new ContentValues(1);
+        contentValues.put(TransmissionColumns.UPLOAD_ID, uploadId);
+        briteDatabase.update(Tables.TRANSMISSION, contentValues,
+                TransmissionColumns.FILENAME + " = ? ", filename);
+    }
+
+    public Cursor getUploadedParts(String filename, String uploadId) {
+        String sql = "SELECT " + UploadPartTable.COLUMN_PART_NUMBER + ", "
+                + UploadPartTable.COLUMN_ETAG + ", "
+                + UploadPartTable.COLUMN_SIZE
+                + " FROM " + UploadPartTable.TABLE_NAME
+                + " WHERE " + UploadPartTable.COLUMN_FILENAME + " = ? AND "
+                + UploadPartTable.COLUMN_UPLOAD_ID + " = ?"
+                + " ORDER BY " + UploadPartTable.COLUMN_PART_NUMBER;
+        return briteDatabase.query(sql, filename, uploadId);
+    }
+
+    public void saveUploadedPart(String filename, String uploadId, int partNumber, String etag,
+            long size) {
+        ContentValues contentValues = new ContentValues(5);
+        contentValues.put(UploadPartTable.COLUMN_FILENAME, filename);
+        contentValues.put(UploadPartTable.COLUMN_UPLOAD_ID, uploadId);
+        contentValues.put(UploadPartTable.COLUMN_PART_NUMBER, partNumber);
+        contentValues.put(UploadPartTable.COLUMN_ETAG, etag);
+        contentValues.put(UploadPartTable.COLUMN_SIZE, size);
+        briteDatabase.insert(UploadPartTable.TABLE_NAME, contentValues);
+    }
+
+    /**
+     * Removes any multipart upload state of the given file
+     */
+    public void clearUploadedParts(String filename) {
+        briteDatabase.delete(UploadPartTable.TABLE_NAME,
+                UploadPartTable.COLUMN_FILENAME + " = ?", filename);
+        saveTransmissionUploadId(filename, null);
+    }
+
+    public Cursor getResourceHash(String filename) {
+        String sql = "SELECT " + ResourceHashTable.COLUMN_ETAG + ", "
+                + ResourceHashTable.COLUMN_SIZE
+                + " FROM " + ResourceHashTable.TABLE_NAME
+                + " WHERE " + ResourceHashTable.COLUMN_FILENAME + " = ?";
+        return briteDatabase.query(sql, filename);
+    }
+
+    public void saveResourceHash(String filename, String etag, long size) {
+        ContentValues contentValues = new ContentValues(3);
+        contentValues.put(ResourceHashTable.COLUMN_FILENAME, filename);
+        contentValues.put(ResourceHashTable.COLUMN_ETAG, etag);
+        contentValues.put(ResourceHashTable.COLUMN_SIZE, size);
+        briteDatabase.insert(ResourceHashTable.TABLE_NAME, contentValues);
+    }
+
+    /**
+     * Stores the checksum of the transmission file along with the file attributes it was
+     * computed for
+     */
+    public void saveTransmissionChecksum(long transmissionId, String path, long size,
+            long lastModified, String md5Base64, String md5Hex) {
+        ContentValues contentValues = new ContentValues(5);
+        contentValues.put(TransmissionColumns.CHECKSUM_PATH, path);
+        contentValues.put(TransmissionColumns.CHECKSUM_SIZE, size);
+        contentValues.put(TransmissionColumns.CHECKSUM_MODIFIED, lastModified);
+        contentValues.put(TransmissionColumns.MD5_BASE64, md5Base64);
+        contentValues.put(TransmissionColumns.MD5_HEX, md5Hex);
+        briteDatabase.update(Tables.TRANSMISSION, contentValues,
+                TransmissionColumns._ID + " = ?", String.valueOf(transmissionId));
+    }
+
     public Cursor getUnSyncedTransmissions() {
         String column =
                 TransmissionColumns._ID + ", "
                         + TransmissionColumns.SURVEY_INSTANCE_ID + ", "
                         + TransmissionColumns.SURVEY_ID + ", "
-                        + TransmissionColumns.FILENAME;
+                        + TransmissionColumns.FILENAME + ", "
+                        + TRANSMISSION_CHECKSUM_COLUMNS;
         String whereClause =
                 TransmissionColumns.STATUS + " IN (?, ?, ?) AND " + TransmissionColumns.FILENAME
                         + " LIKE '%.%'";
@@ -745,7 +1192,8 @@ public class BriteSurveyDbAdapter {
                 TransmissionColumns._ID + ", "
                         + TransmissionColumns.SURVEY_INSTANCE_ID + ", "
                         + TransmissionColumns.SURVEY_ID + ", "
-                        + TransmissionColumns.FILENAME;
+                        + TransmissionColumns.FILENAME + ", "
+                        + TRANSMISSION_CHECKSUM_COLUMNS;
         String whereClause =
                 TransmissionColumns.STATUS + " IN (?, ?, ?) AND " + TransmissionColumns.FILENAME
                         + " LIKE '%.%' AND " + TransmissionColumns.SURVEY_ID + " = ?";
@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.database.britedb;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.squareup.sqlbrite2.BriteDatabase;
+
+import org.akvo.flow.database.RecordColumns;
+import org.akvo.flow.database.ResponseColumns;
+import org.akvo.flow.database.SurveyInstanceColumns;
+import org.akvo.flow.database.SurveyInstanceStatus;
+import org.akvo.flow.database.tables.Tables;
+
+import java.io.Closeable;
+
+/**
+ * Writes downloaded datapoints using statements compiled once and reused for every row.
+ * Records and survey instances are updated in place and only inserted when the update did not
+ * match any row, responses of a survey instance are replaced with a single delete.
+ * Must be used inside a transaction and closed once the page has been written, as
+ * {@link BriteSurveyDbAdapter#syncDataPoints(java.util.List, DataPointWriter)} does.
+ */
+public class DataPointSyncWriter implements Closeable {
+
+    private static final long DOES_NOT_EXIST = -1;
+    public static final long NO_ITERATION = -1;
+    private static final int RECORD_STATUS_SYNCED = 0;
+
+    /**
+     * Writes one datapoint of a downloaded page
+     */
+    public interface DataPointWriter<T> {
+
+        /**
+         * @return true if the datapoint did not exist yet
+         */
+        boolean write(@NonNull DataPointSyncWriter writer, @NonNull T dataPoint);
+    }
+
+    private final BriteDatabase briteDatabase;
+    private final SQLiteStatement updateRecord;
+    private final SQLiteStatement insertRecord;
+    private final SQLiteStatement selectSurveyInstance;
+    private final SQLiteStatement updateSurveyInstance;
+    private final SQLiteStatement insertSurveyInstance;
+    private final SQLiteStatement deleteResponses;
+    private final SQLiteStatement insertResponse;
+
+    DataPointSyncWriter(BriteDatabase briteDatabase) {
+        this.briteDatabase = briteDatabase;
+        SQLiteDatabase db = briteDatabase.getWritableDatabase();
+        updateRecord = db.compileStatement("UPDATE " + Tables.RECORD + " SET "
+                + RecordColumns.SURVEY_GROUP_ID + " = ?, "
+                + RecordColumns.NAME + " = ?, "
+                + RecordColumns.LATITUDE + " = ?, "
+                + RecordColumns.LONGITUDE + " = ?, "
+                + RecordColumns.LAST_MODIFIED + " = ?, "
+                + RecordColumns.STATUS + " = " + RECORD_STATUS_SYNCED
+                + " WHERE " + RecordColumns.RECORD_ID + " = ?");
+        insertRecord = db.compileStatement("INSERT INTO " + Tables.RECORD + " ("
+                + RecordColumns.SURVEY_GROUP_ID + ", "
+                + RecordColumns.NAME + ", "
+                + RecordColumns.LATITUDE + ", "
+                + RecordColumns.LONGITUDE + ", "
+                + RecordColumns.LAST_MODIFIED + ", "
+                + RecordColumns.RECORD_ID + ", "
+                + RecordColumns.VIEWED
+                + ") VALUES (?, ?, ?, ?, ?, ?, 0)");
+        selectSurveyInstance = db.compileStatement("SELECT COALESCE((SELECT "
+                + SurveyInstanceColumns._ID + " FROM " + Tables.SURVEY_INSTANCE
+                + " WHERE " + SurveyInstanceColumns.UUID + " = ?), " + DOES_NOT_EXIST + ")");
+        updateSurveyInstance = db.compileStatement("UPDATE " + Tables.SURVEY_INSTANCE + " SET "
+                + SurveyInstanceColumns.SURVEY_ID + " = ?, "
+                + SurveyInstanceColumns.SUBMITTED_DATE + " = ?, "
+                + SurveyInstanceColumns.RECORD_ID + " = ?, "
+                + SurveyInstanceColumns.STATUS + " = ?, "
+                + SurveyInstanceColumns.SYNC_DATE + " = ?, "
+                + SurveyInstanceColumns.SUBMITTER + " = ?"
+                + " WHERE " + SurveyInstanceColumns._ID + " = ?");
+        insertSurveyInstance = db.compileStatement("INSERT INTO " + Tables.SURVEY_INSTANCE + " ("
+                + SurveyInstanceColumns.SURVEY_ID + ", "
+                + SurveyInstanceColumns.SUBMITTED_DATE + ", "
+                + SurveyInstanceColumns.RECORD_ID + ", "
+                + SurveyInstanceColumns.STATUS + ", "
+                + SurveyInstanceColumns.SYNC_DATE + ", "
+                + SurveyInstanceColumns.SUBMITTER + ", "
+                + SurveyInstanceColumns.UUID
+                + ") VALUES (?, ?, ?, ?, ?, ?, ?)");
+        deleteResponses = db.compileStatement("DELETE FROM " + Tables.RESPONSE
+                + " WHERE " + ResponseColumns.SURVEY_INSTANCE_ID + " = ?");
+        insertResponse = db.compileStatement("INSERT INTO " + Tables.RESPONSE + " ("
+                + ResponseColumns.SURVEY_INSTANCE_ID + ", "
+                + ResponseColumns.QUESTION_ID + ", "
+                + ResponseColumns.ANSWER + ", "
+                + ResponseColumns.TYPE + ", "
+                + ResponseColumns.INCLUDE + ", "
+                + ResponseColumns.ITERATION
+                + ") VALUES (?, ?, ?, ?, 1, ?)");
+    }
+
+    /**
+     * @return true if the record did not exist yet
+     */
+    public boolean upsertRecord(@NonNull String recordId, long surveyGroupId,
+            @Nullable String name, @Nullable Double latitude, @Nullable Double longitude,
+            long lastModified) {
+        bindRecord(updateRecord, recordId, surveyGroupId, name, latitude, longitude,
+                lastModified);
+        if (briteDatabase.executeUpdateDelete(Tables.RECORD, updateRecord) > 0) {
+            return false;
+        }
+        bindRecord(insertRecord, recordId, surveyGroupId, name, latitude, longitude,
+                lastModified);
+        briteDatabase.executeInsert(Tables.RECORD, insertRecord);
+        return true;
+    }
+
+    /**
+     * Inserts or updates a downloaded survey instance
+     *
+     * @return the local id of the survey instance
+     */
+    public long upsertSurveyInstance(@NonNull String uuid, long formId, long submittedDate,
+            @NonNull String recordId, @Nullable String submitter) {
+        selectSurveyInstance.bindString(1, uuid);
+        long id = selectSurveyInstance.simpleQueryForLong();
+        long syncDate = System.currentTimeMillis();
+        if (id != DOES_NOT_EXIST) {
+            bindSurveyInstance(updateSurveyInstance, formId, submittedDate, recordId, syncDate,
+                    submitter);
+            updateSurveyInstance.bindLong(7, id);
+            briteDatabase.executeUpdateDelete(Tables.SURVEY_INSTANCE, updateSurveyInstance);
+        } else {
+            bindSurveyInstance(insertSurveyInstance, formId, submittedDate, recordId, syncDate,
+                    submitter);
+            insertSurveyInstance.bindString(7, uuid);
+            id = briteDatabase.executeInsert(Tables.SURVEY_INSTANCE, insertSurveyInstance);
+        }
+        return id;
+    }
+
+    public void deleteResponses(long surveyInstanceId) {
+        deleteResponses.bindLong(1, surveyInstanceId);
+        briteDatabase.executeUpdateDelete(Tables.RESPONSE, deleteResponses);
+    }
+
+    /**
+     * @param iteration the repeated group iteration, or {@link #NO_ITERATION} for answers which
+     *                  only appear once
+     */
+    public void insertResponse(long surveyInstanceId, @NonNull String questionId,
+            @NonNull String answer, @NonNull String type, long iteration) {
+        insertResponse.bindLong(1, surveyInstanceId);
+        insertResponse.bindString(2, questionId);
+        insertResponse.bindString(3, answer);
+        insertResponse.bindString(4, type);
+        insertResponse.bindLong(5, iteration);
+        briteDatabase.executeInsert(Tables.RESPONSE, insertResponse);
+    }
+
+    @Override
+    public void close() {
+        updateRecord.close();
+        insertRecord.close();
+        selectSurveyInstance.close();
+        updateSurveyInstance.close();
+        insertSurveyInstance.close();
+        deleteResponses.close();
+        insertResponse.close();
+    }
+
+    private void bindRecord(SQLiteStatement statement, String recordId, long surveyGroupId,
+            @Nullable String name, @Nullable Double latitude, @Nullable Double longitude,
+            long lastModified) {
+        statement.bindLong(1, surveyGroupId);
+        bindNullableString(statement, 2, name);
+        bindNullableDouble(statement, 3, latitude);
+        bindNullableDouble(statement, 4, longitude);
+        statement.bindLong(5, lastModified);
+        statement.bindString(6, recordId);
+    }
+
+    private void bindSurveyInstance(SQLiteStatement statement, long formId, long submittedDate,
+            String recordId, long syncDate, @Nullable String submitter) {
+        statement.bindString(1, String.valueOf(formId));
+        statement.bindLong(2, submittedDate);
+        statement.bindString(3, recordId);
+        statement.bindLong(4, SurveyInstanceStatus.DOWNLOADED);
+        statement.bindLong(5, syncDate);
+        bindNullableString(statement, 6, submitter);
+    }
+
+    private void bindNullableString(SQLiteStatement statement, int index, @Nullable String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    private void bindNullableDouble(SQLiteStatement statement, int index, @Nullable Double value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindDouble(index, value);
+        }
+    }
+}
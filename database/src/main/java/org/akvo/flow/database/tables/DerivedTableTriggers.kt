@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.akvo.flow.database.tables
+
+/**
+ * Builds the triggers which keep a table derived from [table] up to date on every write path,
+ * including the compiled statements used by the datapoint sync. Each derived table only
+ * supplies the statements run on insert, update and delete, each of them ending with ";".
+ * Rows of [table] are written with INSERT OR REPLACE: a row replaced because of its unique
+ * [uniqueColumn] does not fire the delete trigger, as recursive triggers are off, so the
+ * derived rows of the replaced row are undone before the insert, see [replacedRow].
+ */
+internal class DerivedTableTriggers(
+    private val name: String,
+    private val table: String,
+    private val uniqueColumn: String
+) {
+
+    /**
+     * @return the given column of the row about to be replaced by the inserted one, as a
+     * subquery to be used in the statements run before the insert
+     */
+    fun replacedRow(column: String): String {
+        return ("(SELECT " + column + " FROM " + table + " WHERE " + uniqueColumn + " = new."
+                + uniqueColumn + ")")
+    }
+
+    /**
+     * @param updatedColumns columns of [table] the derived table depends on
+     * @param changed condition for the update statements to run, by default any of the updated
+     * columns is different
+     */
+    fun create(
+        beforeInsert: String,
+        afterInsert: String,
+        updatedColumns: List<String>,
+        afterUpdate: String,
+        afterDelete: String,
+        changed: String = updatedColumns.joinToString(" OR ") { "old.$it IS NOT new.$it" }
+    ): Array<String> {
+        return arrayOf(
+            "CREATE TRIGGER IF NOT EXISTS " + name + "_before_insert BEFORE INSERT ON " + table
+                    + " BEGIN " + beforeInsert + " END",
+            "CREATE TRIGGER IF NOT EXISTS " + name + "_insert AFTER INSERT ON " + table
+                    + " BEGIN " + afterInsert + " END",
+            "CREATE TRIGGER IF NOT EXISTS " + name + "_update AFTER UPDATE OF "
+                    + updatedColumns.joinToString(", ") + " ON " + table + " WHEN " + changed
+                    + " BEGIN " + afterUpdate + " END",
+            "CREATE TRIGGER IF NOT EXISTS " + name + "_delete AFTER DELETE ON " + table
+                    + " BEGIN " + afterDelete + " END"
+        )
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.akvo.flow.database.tables
+
+import android.database.sqlite.SQLiteDatabase
+import org.akvo.flow.database.SurveyInstanceColumns
+
+/**
+ * Number of form instances of each form in each status, so the stats of a survey are read
+ * without going through its form instances. Like [RecordSearchTable], the counts are kept up to
+ * date by triggers on the survey_instance table, which covers the datapoint sync writes as well
+ * as the ones of the form submission. A null status is counted as saved.
+ */
+open class FormInstanceCountTable {
+
+    fun onCreate(db: SQLiteDatabase) {
+        db.execSQL(CREATE_TABLE)
+        for (trigger in TRIGGERS) {
+            db.execSQL(trigger)
+        }
+    }
+
+    /**
+     * Counts the form instances which existed before the table was created
+     */
+    fun populate(db: SQLiteDatabase) {
+        db.execSQL(
+            "INSERT OR REPLACE INTO " + TABLE_NAME + " (" + COLUMN_SURVEY_ID + ", "
+                    + COLUMN_STATUS + ", " + COLUMN_INSTANCES + ") SELECT "
+                    + SurveyInstanceColumns.SURVEY_ID + ", " + status("") + ", COUNT(*) FROM "
+                    + Tables.SURVEY_INSTANCE + " GROUP BY " + SurveyInstanceColumns.SURVEY_ID
+                    + ", " + status("")
+        )
+    }
+
+    companion object {
+        const val TABLE_NAME = "form_instance_count"
+        const val COLUMN_SURVEY_ID = "survey_id"
+        const val COLUMN_STATUS = "status"
+        const val COLUMN_INSTANCES = "instances"
+
+        private const val CREATE_TABLE = ("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " ("
+                + COLUMN_SURVEY_ID + " TEXT NOT NULL, "
+                + COLUMN_STATUS + " INTEGER NOT NULL, "
+                + COLUMN_INSTANCES + " INTEGER NOT NULL DEFAULT 0, "
+                + "PRIMARY KEY (" + COLUMN_SURVEY_ID + ", " + COLUMN_STATUS + "))")
+
+        private val INSTANCE_TRIGGERS = DerivedTableTriggers(
+            "form_instance_count", Tables.SURVEY_INSTANCE, SurveyInstanceColumns.UUID
+        )
+
+        private val TRIGGERS = INSTANCE_TRIGGERS.create(
+            beforeInsert = ("UPDATE " + TABLE_NAME + " SET " + COLUMN_INSTANCES + " = "
+                    + COLUMN_INSTANCES + " - 1 WHERE " + COLUMN_SURVEY_ID + " = "
+                    + INSTANCE_TRIGGERS.replacedRow(SurveyInstanceColumns.SURVEY_ID) + " AND "
+                    + COLUMN_STATUS + " = " + INSTANCE_TRIGGERS.replacedRow(status("")) + ";"),
+            afterInsert = increment("new."),
+            updatedColumns = listOf(SurveyInstanceColumns.SURVEY_ID, SurveyInstanceColumns.STATUS),
+            afterUpdate = decrement("old.") + " " + increment("new."),
+            afterDelete = decrement("old."),
+            changed = ("old." + SurveyInstanceColumns.SURVEY_ID + " IS NOT new."
+                    + SurveyInstanceColumns.SURVEY_ID + " OR " + status("old.") + " IS NOT "
+                    + status("new."))
+        )
+
+        private fun status(row: String) = "IFNULL(" + row + SurveyInstanceColumns.STATUS + ", 0)"
+
+        private fun increment(row: String) = ("INSERT OR IGNORE INTO " + TABLE_NAME + " ("
+                + COLUMN_SURVEY_ID + ", " + COLUMN_STATUS + ") VALUES (" + row
+                + SurveyInstanceColumns.SURVEY_ID + ", " + status(row) + "); "
+                + update(row, "+"))
+
+        private fun decrement(row: String) = update(row, "-")
+
+        private fun update(row: String, operator: String) = ("UPDATE " + TABLE_NAME + " SET "
+                + COLUMN_INSTANCES + " = " + COLUMN_INSTANCES + " " + operator + " 1 WHERE "
+                + COLUMN_SURVEY_ID + " = " + row + SurveyInstanceColumns.SURVEY_ID + " AND "
+                + COLUMN_STATUS + " = " + status(row) + ";")
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.database.tables
+
+import android.database.sqlite.SQLiteDatabase
+import org.akvo.flow.database.RecordColumns
+
+/**
+ * Records clustered in tiles for the map: for every cluster zoom level the world is divided in
+ * tiles of TILE_DEGREES / 2^zoom degrees, and each tile holds the number of located records it
+ * contains along with the sum of their coordinates, so a cluster is displayed at the average
+ * location of its records. A tile is about 64 pixels wide at its zoom level.
+ * Like [RecordLocationTable], the tiles are kept up to date by triggers on the record table, a
+ * record only changes the one tile it belongs to on each level. Tiles left empty are kept and
+ * skipped by the queries.
+ */
+open class RecordClusterTable {
+
+    fun onCreate(db: SQLiteDatabase) {
+        db.execSQL(CREATE_TABLE)
+        for (trigger in TRIGGERS) {
+            db.execSQL(trigger)
+        }
+    }
+
+    /**
+     * Clusters the records which existed before the table was created
+     */
+    fun populate(db: SQLiteDatabase) {
+        for (zoom in ZOOM_LEVELS) {
+            db.execSQL(
+                "INSERT OR REPLACE INTO " + TABLE_NAME + " (" + COLUMN_SURVEY_GROUP_ID + ", "
+                        + COLUMN_ZOOM + ", " + COLUMN_TILE_X + ", " + COLUMN_TILE_Y + ", "
+                        + COLUMN_POINT_COUNT + ", " + COLUMN_LATITUDE_SUM + ", "
+                        + COLUMN_LONGITUDE_SUM + ") SELECT " + RecordColumns.SURVEY_GROUP_ID
+                        + ", " + zoom + ", " + tileX(RecordColumns.LONGITUDE, zoom) + " AS x, "
+                        + tileY(RecordColumns.LATITUDE, zoom) + " AS y, COUNT(*), SUM("
+                        + RecordColumns.LATITUDE + "), SUM(" + RecordColumns.LONGITUDE
+                        + ") FROM " + Tables.RECORD + " WHERE " + located("")
+                        + " GROUP BY " + RecordColumns.SURVEY_GROUP_ID + ", x, y"
+            )
+        }
+    }
+
+    companion object {
+        const val TABLE_NAME = "record_cluster"
+        const val COLUMN_SURVEY_GROUP_ID = "survey_group_id"
+        const val COLUMN_ZOOM = "zoom"
+        const val COLUMN_TILE_X = "tile_x"
+        const val COLUMN_TILE_Y = "tile_y"
+        const val COLUMN_POINT_COUNT = "point_count"
+        const val COLUMN_LATITUDE_SUM = "latitude_sum"
+        const val COLUMN_LONGITUDE_SUM = "longitude_sum"
+
+        /**
+         * Size of the tiles at zoom 0, a 512 pixels map tile spans 360 degrees
+         */
+        private const val TILE_DEGREES = 45.0
+
+        /**
+         * Levels are kept every other zoom to halve the work of the triggers, a level is used
+         * until the next one so its tiles are from 64 to 256 pixels wide
+         */
+        @JvmField
+        val ZOOM_LEVELS = intArrayOf(0, 2, 4, 6, 8, 10, 12)
+
+        private const val CREATE_TABLE = ("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " ("
+                + COLUMN_SURVEY_GROUP_ID + " INTEGER NOT NULL, "
+                + COLUMN_ZOOM + " INTEGER NOT NULL, "
+                + COLUMN_TILE_X + " INTEGER NOT NULL, "
+                + COLUMN_TILE_Y + " INTEGER NOT NULL, "
+                + COLUMN_POINT_COUNT + " INTEGER NOT NULL DEFAULT 0, "
+                + COLUMN_LATITUDE_SUM + " REAL NOT NULL DEFAULT 0, "
+                + COLUMN_LONGITUDE_SUM + " REAL NOT NULL DEFAULT 0, "
+                + "PRIMARY KEY (" + COLUMN_SURVEY_GROUP_ID + ", " + COLUMN_ZOOM + ", "
+                + COLUMN_TILE_Y + ", " + COLUMN_TILE_X + "))")
+
+        private val RECORD_TRIGGERS =
+            DerivedTableTriggers("record_cluster", Tables.RECORD, RecordColumns.RECORD_ID)
+
+        private val TRIGGERS = RECORD_TRIGGERS.create(
+            beforeInsert = decrement { column -> RECORD_TRIGGERS.replacedRow(column) },
+            afterInsert = increment(),
+            updatedColumns = listOf(
+                RecordColumns.LATITUDE, RecordColumns.LONGITUDE, RecordColumns.SURVEY_GROUP_ID
+            ),
+            afterUpdate = decrement { column -> "old.$column" } + " " + increment(),
+            afterDelete = decrement { column -> "old.$column" }
+        )
+
+        private fun located(row: String) = (row + RecordColumns.LATITUDE + " IS NOT NULL AND "
+                + row + RecordColumns.LONGITUDE + " IS NOT NULL AND " + row
+                + RecordColumns.SURVEY_GROUP_ID + " IS NOT NULL")
+
+        /**
+         * Creates the missing tiles of the new record in a single statement before adding it
+         */
+        private fun increment(): String {
+            val tiles = ZOOM_LEVELS.joinToString(" UNION ALL ") { zoom ->
+                ("SELECT new." + RecordColumns.SURVEY_GROUP_ID + ", " + zoom + ", "
+                        + tileX("new." + RecordColumns.LONGITUDE, zoom) + ", "
+                        + tileY("new." + RecordColumns.LATITUDE, zoom) + " WHERE "
+                        + located("new."))
+            }
+            return ("INSERT OR IGNORE INTO " + TABLE_NAME + " (" + COLUMN_SURVEY_GROUP_ID + ", "
+                    + COLUMN_ZOOM + ", " + COLUMN_TILE_X + ", " + COLUMN_TILE_Y + ") " + tiles
+                    + "; " + update({ column -> "new.$column" }, "+"))
+        }
+
+        private fun decrement(column: (String) -> String) = update(column, "-")
+
+        private fun update(column: (String) -> String, operator: String): String {
+            val latitude = column(RecordColumns.LATITUDE)
+            val longitude = column(RecordColumns.LONGITUDE)
+            return ZOOM_LEVELS.joinToString(" ") { zoom ->
+                ("UPDATE " + TABLE_NAME + " SET " + COLUMN_POINT_COUNT + " = "
+                        + COLUMN_POINT_COUNT + " " + operator + " 1, " + COLUMN_LATITUDE_SUM
+                        + " = " + COLUMN_LATITUDE_SUM + " " + operator + " " + latitude + ", "
+                        + COLUMN_LONGITUDE_SUM + " = " + COLUMN_LONGITUDE_SUM + " " + operator
+                        + " " + longitude + " WHERE " + COLUMN_SURVEY_GROUP_ID + " = "
+                        + column(RecordColumns.SURVEY_GROUP_ID) + " AND " + COLUMN_ZOOM + " = "
+                        + zoom + " AND " + COLUMN_TILE_X + " = " + tileX(longitude, zoom)
+                        + " AND " + COLUMN_TILE_Y + " = " + tileY(latitude, zoom) + ";")
+            }
+        }
+
+        /**
+         * Coordinates are shifted to be positive so that the cast rounds them down
+         */
+        private fun tileX(longitude: String, zoom: Int) =
+            "CAST(($longitude + 180) * ${tilesPerDegree(zoom)} AS INTEGER)"
+
+        private fun tileY(latitude: String, zoom: Int) =
+            "CAST(($latitude + 90) * ${tilesPerDegree(zoom)} AS INTEGER)"
+
+        private fun tilesPerDegree(zoom: Int) = (1 shl zoom) / TILE_DEGREES
+
+        /**
+         * @return the cluster zoom level to use for the given map zoom, or -1 if the records
+         * should be displayed one by one
+         */
+        @JvmStatic
+        fun zoomLevel(mapZoom: Double): Int {
+            var level = -1
+            for (zoom in ZOOM_LEVELS) {
+                if (zoom <= mapZoom) {
+                    level = zoom
+                }
+            }
+            return if (mapZoom >= ZOOM_LEVELS.last() + 2) -1 else level
+        }
+
+        /**
+         * Tile containing the given longitude, computed as the triggers do
+         */
+        @JvmStatic
+        fun tileX(longitude: Double, zoom: Int): Long {
+            return ((longitude + 180) * tilesPerDegree(zoom)).toLong()
+        }
+
+        /**
+         * Tile containing the given latitude, computed as the triggers do
+         */
+        @JvmStatic
+        fun tileY(latitude: Double, zoom: Int): Long {
+            return ((latitude + 90) * tilesPerDegree(zoom)).toLong()
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.akvo.flow.database.tables
+
+import android.database.sqlite.SQLiteDatabase
+import org.akvo.flow.database.RecordColumns
+
+/**
+ * Grid index over the location of the records: every located record is assigned to a cell of
+ * 1/CELLS_PER_DEGREE degrees and the cells are indexed per survey, so nearby records are found
+ * with range scans instead of computing the distance to every record.
+ * Rows share the record _id and are kept up to date by triggers on the record table.
+ * A plain table is used instead of an R*Tree as the rtree module is not available on every
+ * supported API level.
+ */
+open class RecordLocationTable {
+
+    fun onCreate(db: SQLiteDatabase) {
+        db.execSQL(CREATE_TABLE)
+        db.execSQL(CREATE_INDEX)
+        for (trigger in TRIGGERS) {
+            db.execSQL(trigger)
+        }
+    }
+
+    /**
+     * Indexes the records which existed before the table was created
+     */
+    fun populate(db: SQLiteDatabase) {
+        db.execSQL(
+            "INSERT INTO " + TABLE_NAME + " (" + COLUMN_ID + ", " + COLUMN_SURVEY_GROUP_ID + ", "
+                    + COLUMN_LATITUDE_CELL + ", " + COLUMN_LONGITUDE_CELL + ") SELECT "
+                    + RecordColumns._ID + ", " + RecordColumns.SURVEY_GROUP_ID + ", "
+                    + cellOf(RecordColumns.LATITUDE) + ", " + cellOf(RecordColumns.LONGITUDE)
+                    + " FROM " + Tables.RECORD + " WHERE " + RecordColumns.LATITUDE
+                    + " IS NOT NULL AND " + RecordColumns.LONGITUDE + " IS NOT NULL"
+        )
+    }
+
+    companion object {
+        const val TABLE_NAME = "record_location"
+        const val COLUMN_ID = "_id"
+        const val COLUMN_SURVEY_GROUP_ID = "survey_group_id"
+        const val COLUMN_LATITUDE_CELL = "latitude_cell"
+        const val COLUMN_LONGITUDE_CELL = "longitude_cell"
+
+        /**
+         * About 1km at the equator
+         */
+        const val CELLS_PER_DEGREE = 100
+
+        private const val CREATE_TABLE = ("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " ("
+                + COLUMN_ID + " INTEGER PRIMARY KEY, "
+                + COLUMN_SURVEY_GROUP_ID + " INTEGER, "
+                + COLUMN_LATITUDE_CELL + " INTEGER NOT NULL, "
+                + COLUMN_LONGITUDE_CELL + " INTEGER NOT NULL)")
+
+        private const val CREATE_INDEX = ("CREATE INDEX IF NOT EXISTS record_location_cell_idx ON "
+                + TABLE_NAME + " (" + COLUMN_SURVEY_GROUP_ID + ", " + COLUMN_LATITUDE_CELL + ", "
+                + COLUMN_LONGITUDE_CELL + ")")
+
+        private val INSERT_NEW = ("INSERT OR REPLACE INTO " + TABLE_NAME + " (" + COLUMN_ID + ", "
+                + COLUMN_SURVEY_GROUP_ID + ", " + COLUMN_LATITUDE_CELL + ", "
+                + COLUMN_LONGITUDE_CELL + ") SELECT new." + RecordColumns._ID + ", new."
+                + RecordColumns.SURVEY_GROUP_ID + ", " + cellOf("new." + RecordColumns.LATITUDE)
+                + ", " + cellOf("new." + RecordColumns.LONGITUDE) + " WHERE new."
+                + RecordColumns.LATITUDE + " IS NOT NULL AND new." + RecordColumns.LONGITUDE
+                + " IS NOT NULL; ")
+
+        private val RECORD_TRIGGERS =
+            DerivedTableTriggers("record_location", Tables.RECORD, RecordColumns.RECORD_ID)
+
+        private val DELETE_OLD = ("DELETE FROM " + TABLE_NAME + " WHERE " + COLUMN_ID + " = old."
+                + RecordColumns._ID + "; ")
+
+        private val TRIGGERS = RECORD_TRIGGERS.create(
+            beforeInsert = ("DELETE FROM " + TABLE_NAME + " WHERE " + COLUMN_ID + " IN "
+                    + RECORD_TRIGGERS.replacedRow(RecordColumns._ID) + ";"),
+            afterInsert = INSERT_NEW,
+            updatedColumns = listOf(
+                RecordColumns.LATITUDE, RecordColumns.LONGITUDE, RecordColumns.SURVEY_GROUP_ID
+            ),
+            afterUpdate = DELETE_OLD + INSERT_NEW,
+            afterDelete = DELETE_OLD
+        )
+
+        private fun cellOf(column: String): String {
+            return "CAST($column * $CELLS_PER_DEGREE AS INTEGER)"
+        }
+
+        /**
+         * Cell containing the given coordinate, computed as the triggers do
+         */
+        @JvmStatic
+        fun cell(coordinate: Double): Long {
+            return (coordinate * CELLS_PER_DEGREE).toLong()
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.akvo.flow.database.tables
+
+import android.database.sqlite.SQLiteDatabase
+import org.akvo.flow.database.RecordColumns
+
+/**
+ * Full text index over the name and id of the records. Rows share the record _id as docid and
+ * are kept up to date by triggers on the record table, so every write path, including the
+ * compiled statements used by the datapoint sync, updates the index.
+ * FTS4 with the default tokenizer is used as it is available on every supported API level,
+ * it only folds the case of ASCII letters.
+ */
+open class RecordSearchTable {
+
+    fun onCreate(db: SQLiteDatabase) {
+        db.execSQL(CREATE_TABLE)
+        for (trigger in TRIGGERS) {
+            db.execSQL(trigger)
+        }
+    }
+
+    /**
+     * Indexes the records which existed before the table was created
+     */
+    fun populate(db: SQLiteDatabase) {
+        db.execSQL(
+            "INSERT INTO " + TABLE_NAME + " (docid, " + COLUMN_NAME + ", " + COLUMN_RECORD_ID
+                    + ") SELECT " + RecordColumns._ID + ", " + RecordColumns.NAME + ", "
+                    + RecordColumns.RECORD_ID + " FROM " + Tables.RECORD
+        )
+    }
+
+    companion object {
+        const val TABLE_NAME = "record_search"
+        const val COLUMN_NAME = "name"
+        const val COLUMN_RECORD_ID = "record_id"
+
+        private const val CREATE_TABLE = ("CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE_NAME
+                + " USING fts4(" + COLUMN_NAME + ", " + COLUMN_RECORD_ID + ")")
+
+        private val RECORD_TRIGGERS =
+            DerivedTableTriggers("record_search", Tables.RECORD, RecordColumns.RECORD_ID)
+
+        private val TRIGGERS = RECORD_TRIGGERS.create(
+            beforeInsert = ("DELETE FROM " + TABLE_NAME + " WHERE docid IN "
+                    + RECORD_TRIGGERS.replacedRow(RecordColumns._ID) + ";"),
+            afterInsert = ("INSERT INTO " + TABLE_NAME + " (docid, " + COLUMN_NAME + ", "
+                    + COLUMN_RECORD_ID + ") VALUES (new." + RecordColumns._ID + ", new."
+                    + RecordColumns.NAME + ", new." + RecordColumns.RECORD_ID + ");"),
+            updatedColumns = listOf(RecordColumns.NAME, RecordColumns.RECORD_ID),
+            afterUpdate = ("UPDATE " + TABLE_NAME + " SET " + COLUMN_NAME + " = new."
+                    + RecordColumns.NAME + ", " + COLUMN_RECORD_ID + " = new."
+                    + RecordColumns.RECORD_ID + " WHERE docid = old." + RecordColumns._ID + ";"),
+            afterDelete = ("DELETE FROM " + TABLE_NAME + " WHERE docid = old."
+                    + RecordColumns._ID + ";")
+        )
+
+        private val TOKEN_SEPARATOR = Regex("[^\\p{L}\\p{N}]+")
+
+        /**
+         * Turns the text typed by the user into a prefix query on every word, ie: "wat poi" is
+         * converted to "wat* poi*". Operators and quotes are dropped.
+         *
+         * @return null if the text does not contain any word to search for
+         */
+        @JvmStatic
+        fun matchQuery(text: String?): String? {
+            if (text == null) {
+                return null
+            }
+            val tokens = toAsciiLowerCase(text)
+                .split(TOKEN_SEPARATOR)
+                .filter { it.isNotEmpty() }
+            return if (tokens.isEmpty()) null else tokens.joinToString(" ") { "$it*" }
+        }
+
+        /**
+         * Only ASCII letters are lowercased, the way the tokenizer indexes them, so that words
+         * like OR are not read as operators while other letters still match the indexed text
+         */
+        private fun toAsciiLowerCase(text: String): String {
+            return buildString(text.length) {
+                for (c in text) {
+                    append(if (c in 'A'..'Z') c + ('a' - 'A') else c)
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.akvo.flow.database.tables
+
+import android.database.sqlite.SQLiteDatabase
+
+/**
+ * S3 ETag of every downloaded form and cascade archive. The ETag is the hash of the archive
+ * content, so an archive whose ETag did not change does not need to be downloaded and extracted
+ * again
+ */
+open class ResourceHashTable {
+
+    fun onCreate(db: SQLiteDatabase) {
+        db.execSQL(CREATE_TABLE)
+    }
+
+    companion object {
+        const val TABLE_NAME = "resource_hash"
+        const val COLUMN_FILENAME = "filename"
+        const val COLUMN_ETAG = "etag"
+        const val COLUMN_SIZE = "size"
+
+        private const val _ID = "_id"
+        private const val CREATE_TABLE =
+            ("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " ("
+                    + _ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + COLUMN_FILENAME + " TEXT NOT NULL,"
+                    + COLUMN_ETAG + " TEXT NOT NULL,"
+                    + COLUMN_SIZE + " INTEGER NOT NULL, "
+                    + "UNIQUE(" + COLUMN_FILENAME + ") ON CONFLICT REPLACE)")
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.akvo.flow.database.tables
+
+import android.database.sqlite.SQLiteDatabase
+
+/**
+ * Parts of multipart uploads already accepted by S3, so that an interrupted upload of a large
+ * file can continue from the last uploaded part
+ */
+open class UploadPartTable {
+
+    fun onCreate(db: SQLiteDatabase) {
+        db.execSQL(CREATE_TABLE)
+    }
+
+    companion object {
+        const val TABLE_NAME = "upload_part"
+        const val COLUMN_FILENAME = "filename"
+        const val COLUMN_UPLOAD_ID = "upload_id"
+        const val COLUMN_PART_NUMBER = "part_number"
+        const val COLUMN_ETAG = "etag"
+        const val COLUMN_SIZE = "size"
+
+        private const val _ID = "_id"
+        private const val CREATE_TABLE =
+            ("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " ("
+                    + _ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + COLUMN_FILENAME + " TEXT NOT NULL,"
+                    + COLUMN_UPLOAD_ID + " TEXT NOT NULL,"
+                    + COLUMN_PART_NUMBER + " INTEGER NOT NULL,"
+                    + COLUMN_ETAG + " TEXT NOT NULL,"
+                    + COLUMN_SIZE + " INTEGER NOT NULL, "
+                    + "UNIQUE(" + COLUMN_FILENAME + ", " + COLUMN_PART_NUMBER + ") ON CONFLICT REPLACE)")
+    }
+}
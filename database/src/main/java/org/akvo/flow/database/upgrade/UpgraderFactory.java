@@ -51,6 +51,22 @@ public class UpgraderFactory {
                 databaseUpgrader.addUpgrader(new StatusUpgrader(db, new FormUpdateNotifiedTable()));
                 case DatabaseHelper.VER_FORM_VERSION_UPDATE:
                     databaseUpgrader.addUpgrader(new FormVersionUpgrader(db, helper));
+            case DatabaseHelper.VER_GROUPS:
+                databaseUpgrader.addUpgrader(new UploadPartsUpgrader(db, helper));
+            case DatabaseHelper.VER_UPLOAD_PARTS:
+                databaseUpgrader.addUpgrader(new TransmissionChecksumUpgrader(db, helper));
+            case DatabaseHelper.VER_TRANSMISSION_CHECKSUM:
+                databaseUpgrader.addUpgrader(new RecordSearchUpgrader(db, helper));
+            case DatabaseHelper.VER_RECORD_SEARCH:
+                databaseUpgrader.addUpgrader(new RecordLocationUpgrader(db, helper));
+            case DatabaseHelper.VER_RECORD_LOCATION:
+                databaseUpgrader.addUpgrader(new QueryIndexesUpgrader(db, helper));
+            case DatabaseHelper.VER_QUERY_INDEXES:
+                databaseUpgrader.addUpgrader(new ResourceHashesUpgrader(db, helper));
+            case DatabaseHelper.VER_RESOURCE_HASHES:
+                databaseUpgrader.addUpgrader(new FormInstanceCountsUpgrader(db, helper));
+            case DatabaseHelper.VER_FORM_INSTANCE_COUNTS:
+                databaseUpgrader.addUpgrader(new RecordClustersUpgrader(db, helper));
             default:
                 break;
         }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.akvo.flow.database.tables.DataPointDownloadTable;
+import org.akvo.flow.database.tables.FormUpdateNotifiedTable;
+import org.akvo.flow.database.tables.LanguageTable;
+import org.akvo.flow.database.tables.QuestionGroupTable;
+import org.akvo.flow.database.tables.Tables;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Collections;
+
+@RunWith(RobolectricTestRunner.class)
+public class QueryPlanAdvisorTest {
+
+    private DatabaseHelper databaseHelper;
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        databaseHelper = new DatabaseHelper(context, new LanguageTable(),
+                new DataPointDownloadTable(), new FormUpdateNotifiedTable(),
+                new QuestionGroupTable(), new QueryPlanAdvisor());
+        db = databaseHelper.getWritableDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        databaseHelper.close();
+    }
+
+    @Test
+    public void fullScanTableShouldOnlyMatchScansWithoutIndex() {
+        assertEquals("record", QueryPlanAdvisor.fullScanTable("SCAN TABLE record"));
+        assertEquals("record", QueryPlanAdvisor.fullScanTable("SCAN TABLE record AS sl"));
+        assertEquals("record", QueryPlanAdvisor.fullScanTable("SCAN record"));
+        assertNull(QueryPlanAdvisor.fullScanTable("SCAN TABLE record USING INDEX record_idx"));
+        assertNull(QueryPlanAdvisor
+                .fullScanTable("SEARCH TABLE record USING INDEX record_idx (_id=?)"));
+        assertNull(QueryPlanAdvisor.fullScanTable("SCAN SUBQUERY 1"));
+        assertNull(QueryPlanAdvisor.fullScanTable("SCAN CONSTANT ROW"));
+        assertNull(QueryPlanAdvisor.fullScanTable("USE TEMP B-TREE FOR ORDER BY"));
+    }
+
+    @Test
+    public void fullScansShouldReportTablesWithoutIndex() {
+        assertEquals(Collections.singletonList(Tables.RECORD), QueryPlanAdvisor.fullScans(db,
+                "SELECT * FROM " + Tables.RECORD + " WHERE " + RecordColumns.LATITUDE + " > 0"));
+    }
+
+    @Test
+    public void dataPointListJoinShouldUseIndexes() {
+        assertTrue(QueryPlanAdvisor.fullScans(db, "SELECT sl.*, MIN(r."
+                + SurveyInstanceColumns.STATUS + ") FROM " + Tables.RECORD + " AS sl LEFT JOIN "
+                + Tables.SURVEY_INSTANCE + " AS r ON sl." + RecordColumns.RECORD_ID + "=r."
+                + SurveyInstanceColumns.RECORD_ID + " WHERE sl." + RecordColumns.SURVEY_GROUP_ID
+                + " = ? GROUP BY sl." + RecordColumns.RECORD_ID).isEmpty());
+    }
+
+    @Test
+    public void unSyncedTransmissionsShouldUseIndexes() {
+        assertTrue(QueryPlanAdvisor.fullScans(db, "SELECT * FROM " + Tables.TRANSMISSION
+                + " WHERE " + TransmissionColumns.STATUS + " IN (?, ?, ?) AND "
+                + TransmissionColumns.SURVEY_ID + " = ?").isEmpty());
+    }
+}
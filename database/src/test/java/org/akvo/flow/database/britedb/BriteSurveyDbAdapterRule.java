@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.akvo.flow.database.britedb;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.squareup.sqlbrite2.BriteDatabase;
+import com.squareup.sqlbrite2.SqlBrite;
+
+import org.akvo.flow.database.DatabaseHelper;
+import org.akvo.flow.database.tables.DataPointDownloadTable;
+import org.akvo.flow.database.tables.FormUpdateNotifiedTable;
+import org.akvo.flow.database.tables.LanguageTable;
+import org.akvo.flow.database.tables.QuestionGroupTable;
+import org.junit.rules.ExternalResource;
+
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Creates the app database and a {@link BriteSurveyDbAdapter} on it before each test, running
+ * queries on the calling thread, and closes the database afterwards.
+ */
+public class BriteSurveyDbAdapterRule extends ExternalResource {
+
+    private DatabaseHelper databaseHelper;
+    private BriteSurveyDbAdapter adapter;
+
+    @Override
+    protected void before() {
+        Context context = ApplicationProvider.getApplicationContext();
+        databaseHelper = new DatabaseHelper(context, new LanguageTable(),
+                new DataPointDownloadTable(), new FormUpdateNotifiedTable(),
+                new QuestionGroupTable());
+        BriteDatabase db = new SqlBrite.Builder().build()
+                .wrapDatabaseHelper(databaseHelper, Schedulers.trampoline());
+        adapter = new BriteSurveyDbAdapter(db);
+    }
+
+    @Override
+    protected void after() {
+        databaseHelper.close();
+    }
+
+    public DatabaseHelper getDatabaseHelper() {
+        return databaseHelper;
+    }
+
+    public BriteSurveyDbAdapter getAdapter() {
+        return adapter;
+    }
+}
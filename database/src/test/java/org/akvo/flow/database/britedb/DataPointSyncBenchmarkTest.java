@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.akvo.flow.database.britedb;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import org.akvo.flow.database.RecordColumns;
+import org.akvo.flow.database.ResponseColumns;
+import org.akvo.flow.database.SurveyInstanceColumns;
+import org.akvo.flow.database.SurveyInstanceStatus;
+import org.akvo.flow.database.tables.Tables;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLog;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the per row ContentValues sync which was used before with the compiled statement
+ * one on a synthetic set of pages. Both write each page with
+ * {@link BriteSurveyDbAdapter#syncDataPoints(List, DataPointSyncWriter.DataPointWriter)}, as
+ * the datapoints download does. Results are logged to the test output.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DataPointSyncBenchmarkTest {
+
+    private static final String TAG = "DataPointSyncBenchmark";
+    private static final int PAGES = 2;
+    private static final int RECORDS_PER_PAGE = 500;
+    private static final int ANSWERS_PER_RECORD = 100;
+    private static final int REPEATED_ANSWERS = 10;
+    private static final long SURVEY_GROUP_ID = 1L;
+
+    @Rule
+    public final BriteSurveyDbAdapterRule database = new BriteSurveyDbAdapterRule();
+
+    private BriteSurveyDbAdapter adapter;
+    private List<List<String>> pages;
+
+    @Before
+    public void setUp() {
+        ShadowLog.stream = System.out;
+        adapter = database.getAdapter();
+        pages = new ArrayList<>();
+        for (int page = 0; page < PAGES; page++) {
+            List<String> recordIds = new ArrayList<>();
+            for (int r = 0; r < RECORDS_PER_PAGE; r++) {
+                recordIds.add("record-" + page + "-" + r);
+            }
+            pages.add(recordIds);
+        }
+    }
+
+    @Test
+    public void bulkSyncShouldWriteSameRowsAsLegacySync() {
+        long legacyTime = runTwice(new DataPointSyncWriter.DataPointWriter<String>() {
+            @Override
+            public boolean write(@NonNull DataPointSyncWriter writer, @NonNull String recordId) {
+                return writeLegacy(recordId);
+            }
+        });
+        int legacyResponses = countRows(Tables.RESPONSE);
+        int legacyRecords = countRows(Tables.RECORD);
+        adapter.clearAllData();
+
+        long bulkTime = runTwice(new DataPointSyncWriter.DataPointWriter<String>() {
+            @Override
+            public boolean write(@NonNull DataPointSyncWriter writer, @NonNull String recordId) {
+                return writeBulk(writer, recordId);
+            }
+        });
+
+        assertEquals(legacyResponses, countRows(Tables.RESPONSE));
+        assertEquals(legacyRecords, countRows(Tables.RECORD));
+        assertEquals(PAGES * RECORDS_PER_PAGE * ANSWERS_PER_RECORD, countRows(Tables.RESPONSE));
+
+        long rows = 2L * PAGES * RECORDS_PER_PAGE * (ANSWERS_PER_RECORD + 2);
+        Log.i(TAG, String.format("Legacy sync: %d ms, %.0f rows/s", legacyTime,
+                rows * 1000.0 / Math.max(1, legacyTime)));
+        Log.i(TAG, String.format("Bulk sync: %d ms, %.0f rows/s", bulkTime,
+                rows * 1000.0 / Math.max(1, bulkTime)));
+    }
+
+    /**
+     * The second pass updates the rows written by the first one, as a re-download does
+     */
+    private long runTwice(DataPointSyncWriter.DataPointWriter<String> dataPointWriter) {
+        long start = System.currentTimeMillis();
+        int newRecords = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            for (List<String> page : pages) {
+                newRecords += adapter.syncDataPoints(page, dataPointWriter);
+            }
+        }
+        assertEquals(PAGES * RECORDS_PER_PAGE, newRecords);
+        return System.currentTimeMillis() - start;
+    }
+
+    private boolean writeLegacy(String recordId) {
+        ContentValues instance = new ContentValues();
+        instance.put(SurveyInstanceColumns.SURVEY_ID, 1L);
+        instance.put(SurveyInstanceColumns.SUBMITTED_DATE, 1000L);
+        instance.put(SurveyInstanceColumns.RECORD_ID, recordId);
+        instance.put(SurveyInstanceColumns.STATUS, SurveyInstanceStatus.DOWNLOADED);
+        instance.put(SurveyInstanceColumns.SYNC_DATE, System.currentTimeMillis());
+        instance.put(SurveyInstanceColumns.SUBMITTER, "Submitter");
+        long instanceId = adapter.syncSurveyInstance(instance, recordId + "-instance");
+        for (int a = 0; a < ANSWERS_PER_RECORD; a++) {
+            adapter.deleteResponses(instanceId, questionId(a));
+        }
+        for (int a = 0; a < ANSWERS_PER_RECORD; a++) {
+            ContentValues answer = new ContentValues();
+            answer.put(ResponseColumns.ANSWER, "Answer " + a);
+            answer.put(ResponseColumns.TYPE, "VALUE");
+            answer.put(ResponseColumns.QUESTION_ID, questionId(a));
+            answer.put(ResponseColumns.INCLUDE, true);
+            answer.put(ResponseColumns.SURVEY_INSTANCE_ID, instanceId);
+            adapter.syncResponse(instanceId, answer, questionId(a));
+        }
+        ContentValues record = new ContentValues();
+        record.put(RecordColumns.RECORD_ID, recordId);
+        record.put(RecordColumns.SURVEY_GROUP_ID, SURVEY_GROUP_ID);
+        record.put(RecordColumns.NAME, "Name " + recordId);
+        record.put(RecordColumns.LATITUDE, 52.0d);
+        record.put(RecordColumns.LONGITUDE, 4.0d);
+        record.put(RecordColumns.LAST_MODIFIED, 1000L);
+        return adapter.insertOrUpdateRecord(recordId, record);
+    }
+
+    private boolean writeBulk(DataPointSyncWriter writer, String recordId) {
+        long instanceId = writer.upsertSurveyInstance(recordId + "-instance", 1L, 1000L,
+                recordId, "Submitter");
+        writer.deleteResponses(instanceId);
+        int repeatedIteration = 0;
+        for (int a = 0; a < ANSWERS_PER_RECORD; a++) {
+            long iteration = a < REPEATED_ANSWERS ? repeatedIteration++
+                    : DataPointSyncWriter.NO_ITERATION;
+            writer.insertResponse(instanceId, questionId(a), "Answer " + a, "VALUE", iteration);
+        }
+        return writer.upsertRecord(recordId, SURVEY_GROUP_ID, "Name " + recordId, 52.0d, 4.0d,
+                1000L);
+    }
+
+    /**
+     * The first answers of every record share a question id as a repeated group would
+     */
+    private String questionId(int answer) {
+        return answer < REPEATED_ANSWERS ? "0" : String.valueOf(answer);
+    }
+
+    private int countRows(String table) {
+        Cursor cursor = database.getDatabaseHelper().getReadableDatabase()
+                .rawQuery("SELECT COUNT(*) FROM " + table, null);
+        try {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.database.britedb;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import org.akvo.flow.database.Constants;
+import org.akvo.flow.database.RecordColumns;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class DataPointsPageTest {
+
+    private static final long SURVEY_GROUP_ID = 1L;
+    private static final int RECORDS = 25;
+    private static final int PAGE_SIZE = 4;
+
+    @Rule
+    public final BriteSurveyDbAdapterRule database = new BriteSurveyDbAdapterRule();
+
+    private BriteSurveyDbAdapter adapter;
+
+    @Before
+    public void setUp() {
+        adapter = database.getAdapter();
+        for (int i = 0; i < RECORDS; i++) {
+            // Few distinct names and dates so that pages have to break ties on the record id
+            insertRecord("record-" + i, i % 5 == 0 ? null : "Name " + (i % 3), 1000L * (i % 4));
+        }
+    }
+
+    @Test
+    public void pagesShouldMatchFullListSortedByDate() {
+        assertPagesMatchFullList(Constants.ORDER_BY_DATE, RecordColumns.LAST_MODIFIED);
+    }
+
+    @Test
+    public void pagesShouldMatchFullListSortedByName() {
+        assertPagesMatchFullList(Constants.ORDER_BY_NAME, RecordColumns.NAME);
+    }
+
+    @Test
+    public void pagesShouldMatchFullListSortedByStatus() {
+        assertPagesMatchFullList(Constants.ORDER_BY_STATUS, null);
+    }
+
+    @Test
+    public void previousPageShouldEndRightBeforeWindow() {
+        List<String> all = recordIds(adapter.getDataPointsPage(SURVEY_GROUP_ID,
+                Constants.ORDER_BY_DATE, null, null, RECORDS).blockingFirst());
+        int start = 10;
+        Cursor window = adapter.getDataPointsPage(SURVEY_GROUP_ID, Constants.ORDER_BY_DATE,
+                null, null, start + 1).blockingFirst();
+        window.moveToLast();
+        String sortKey = window.getString(window.getColumnIndexOrThrow(
+                RecordColumns.LAST_MODIFIED));
+        String recordId = window.getString(window.getColumnIndexOrThrow(
+                RecordColumns.RECORD_ID));
+        window.close();
+
+        List<String> previous = recordIds(adapter.getDataPointsBefore(SURVEY_GROUP_ID,
+                Constants.ORDER_BY_DATE, sortKey, recordId, PAGE_SIZE));
+        Collections.reverse(previous);
+
+        assertEquals(all.subList(start - PAGE_SIZE, start), previous);
+    }
+
+    /**
+     * Walks the whole list page by page starting every page at the last row of the previous one
+     *
+     * @param sortColumn column holding the sort key, null for the status which defaults to 0
+     */
+    private void assertPagesMatchFullList(int orderBy, String sortColumn) {
+        List<String> all = recordIds(adapter.getDataPointsPage(SURVEY_GROUP_ID, orderBy, null,
+                null, RECORDS).blockingFirst());
+        assertEquals(RECORDS, all.size());
+
+        List<String> paged = new ArrayList<>();
+        String sortKey = null;
+        String recordId = null;
+        while (true) {
+            Cursor cursor = adapter.getDataPointsPage(SURVEY_GROUP_ID, orderBy, sortKey,
+                    recordId, PAGE_SIZE + 1).blockingFirst();
+            List<String> page = recordIds(cursor, sortKey == null ? 0 : 1);
+            paged.addAll(page);
+            if (!cursor.moveToLast() || page.isEmpty()) {
+                cursor.close();
+                break;
+            }
+            if (sortColumn == null) {
+                sortKey = "0";
+            } else {
+                String value = cursor.getString(cursor.getColumnIndexOrThrow(sortColumn));
+                sortKey = value == null ? "" : value;
+            }
+            recordId = cursor.getString(cursor.getColumnIndexOrThrow(RecordColumns.RECORD_ID));
+            cursor.close();
+        }
+
+        assertEquals(all, paged);
+    }
+
+    private void insertRecord(String recordId, String name, long lastModified) {
+        ContentValues values = new ContentValues();
+        values.put(RecordColumns.RECORD_ID, recordId);
+        values.put(RecordColumns.SURVEY_GROUP_ID, SURVEY_GROUP_ID);
+        values.put(RecordColumns.NAME, name);
+        values.put(RecordColumns.LAST_MODIFIED, lastModified);
+        adapter.insertOrUpdateRecord(recordId, values);
+    }
+
+    private List<String> recordIds(Cursor cursor) {
+        List<String> recordIds = recordIds(cursor, 0);
+        cursor.close();
+        return recordIds;
+    }
+
+    /**
+     * @param skip number of rows to ignore, the start row is included in every page
+     */
+    private List<String> recordIds(Cursor cursor, int skip) {
+        List<String> recordIds = new ArrayList<>();
+        int column = cursor.getColumnIndexOrThrow(RecordColumns.RECORD_ID);
+        for (int i = skip; cursor.moveToPosition(i); i++) {
+            recordIds.add(cursor.getString(column));
+        }
+        return recordIds;
+    }
+}
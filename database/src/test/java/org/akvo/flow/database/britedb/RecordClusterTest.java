@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.database.britedb;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import org.akvo.flow.database.RecordColumns;
+import org.akvo.flow.database.SurveyDbAdapter;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class RecordClusterTest {
+
+    private static final long SURVEY_GROUP_ID = 1L;
+    private static final int ZOOM = 4;
+
+    @Rule
+    public final BriteSurveyDbAdapterRule database = new BriteSurveyDbAdapterRule();
+
+    private BriteSurveyDbAdapter adapter;
+
+    @Before
+    public void setUp() {
+        adapter = database.getAdapter();
+    }
+
+    @Test
+    public void clustersShouldCountRecordsAtTheirAverageLocation() {
+        insertRecord("first", 52.0d, 4.0d);
+        insertRecord("second", 52.2d, 4.2d);
+        insertRecord("far-away", -33.0d, 151.0d);
+        insertRecord("no-location", null, null);
+
+        Cursor cursor = clusters(51.0d, 3.0d, 53.0d, 5.0d);
+
+        assertEquals(1, cursor.getCount());
+        cursor.moveToFirst();
+        assertEquals(2, cursor.getInt(SurveyDbAdapter.DataPointClusterQuery.POINT_COUNT));
+        assertEquals(52.1d, cursor.getDouble(SurveyDbAdapter.DataPointClusterQuery.LATITUDE),
+                1e-9);
+        assertEquals(4.1d, cursor.getDouble(SurveyDbAdapter.DataPointClusterQuery.LONGITUDE),
+                1e-9);
+        cursor.close();
+    }
+
+    @Test
+    public void clustersShouldFollowRecordUpdates() {
+        insertRecord("synced", 52.0d, 4.0d);
+        insertRecord("edited", 52.0d, 4.0d);
+        DataPointSyncWriter writer = adapter.newDataPointSyncWriter();
+        try {
+            writer.upsertRecord("synced", SURVEY_GROUP_ID, "Synced", -33.0d, 151.0d, 1L);
+        } finally {
+            writer.close();
+        }
+        ContentValues values = new ContentValues();
+        values.put(RecordColumns.LATITUDE, -33.1d);
+        adapter.updateDataPoint("edited", values);
+
+        assertEquals(0, count(clusters(51.0d, 3.0d, 53.0d, 5.0d)));
+        assertEquals(1, count(clusters(-34.0d, 150.0d, -32.0d, 152.0d)));
+    }
+
+    @Test
+    public void clustersShouldWrapAroundAntimeridian() {
+        insertRecord("east", 0.0d, 179.5d);
+        insertRecord("west", 0.0d, -179.5d);
+        insertRecord("greenwich", 0.0d, 0.0d);
+
+        assertEquals(2, count(clusters(-1.0d, 179.0d, 1.0d, -179.0d)));
+    }
+
+    private Cursor clusters(double south, double west, double north, double east) {
+        return adapter.getDataPointClusters(SURVEY_GROUP_ID, south, west, north, east, ZOOM)
+                .blockingFirst();
+    }
+
+    private int count(Cursor cursor) {
+        int count = 0;
+        while (cursor.moveToNext()) {
+            count += cursor.getInt(SurveyDbAdapter.DataPointClusterQuery.POINT_COUNT);
+        }
+        cursor.close();
+        return count;
+    }
+
+    private void insertRecord(String recordId, Double latitude, Double longitude) {
+        ContentValues values = new ContentValues();
+        values.put(RecordColumns.RECORD_ID, recordId);
+        values.put(RecordColumns.SURVEY_GROUP_ID, SURVEY_GROUP_ID);
+        values.put(RecordColumns.NAME, recordId);
+        values.put(RecordColumns.LATITUDE, latitude);
+        values.put(RecordColumns.LONGITUDE, longitude);
+        adapter.insertOrUpdateRecord(recordId, values);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.database.britedb;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import org.akvo.flow.database.Constants;
+import org.akvo.flow.database.RecordColumns;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.observers.TestObserver;
+
+@RunWith(RobolectricTestRunner.class)
+public class RecordLocationTest {
+
+    private static final long SURVEY_GROUP_ID = 1L;
+
+    @Rule
+    public final BriteSurveyDbAdapterRule database = new BriteSurveyDbAdapterRule();
+
+    private BriteSurveyDbAdapter adapter;
+
+    @Before
+    public void setUp() {
+        adapter = database.getAdapter();
+    }
+
+    @Test
+    public void nearestShouldMatchFullSortByDistance() {
+        for (int i = 0; i < 200; i++) {
+            insertRecord("record-" + i, 52.0d + (i % 20) * 0.013d, 4.0d + (i / 20) * 0.021d);
+        }
+        insertRecord("far-away", -33.0d, 151.0d);
+        insertRecord("no-location", null, null);
+
+        List<String> all = recordIds(adapter.getFilteredDataPoints(SURVEY_GROUP_ID, 52.1d, 4.1d,
+                Constants.ORDER_BY_DISTANCE).blockingFirst());
+
+        assertEquals(all.subList(0, 15), recordIds(adapter.getNearestDataPoints(SURVEY_GROUP_ID,
+                52.1d, 4.1d, 15).blockingFirst()));
+        assertEquals(all, recordIds(adapter.getNearestDataPoints(SURVEY_GROUP_ID, 52.1d, 4.1d,
+                all.size()).blockingFirst()));
+    }
+
+    @Test
+    public void nearestShouldSearchAgainWhenRecordsMove() {
+        insertRecord("near-1", 52.1d, 4.1d);
+        insertRecord("near-2", 52.11d, 4.1d);
+        insertRecord("near-3", 52.12d, 4.1d);
+        insertRecord("far-1", 40.0d, 4.0d);
+        insertRecord("far-2", 40.1d, 4.0d);
+        TestObserver<Cursor> observer = adapter.getNearestDataPoints(SURVEY_GROUP_ID, 52.1d,
+                4.1d, 3).test();
+
+        insertRecord("near-3", 40.2d, 4.0d);
+
+        observer.assertValueCount(2);
+        assertEquals(3, recordIds(observer.values().get(0)).size());
+        List<String> moved = recordIds(observer.values().get(1));
+        assertEquals(3, moved.size());
+        assertEquals("near-1", moved.get(0));
+        assertEquals("near-2", moved.get(1));
+        observer.dispose();
+    }
+
+    @Test
+    public void boundsShouldOnlyReturnRecordsInside() {
+        insertRecord("inside", 52.0d, 4.0d);
+        insertRecord("outside", 40.0d, 4.0d);
+        insertRecord("no-location", null, null);
+
+        List<String> found = recordIds(adapter.getDataPointsInBounds(SURVEY_GROUP_ID, 51.0d,
+                3.0d, 53.0d, 5.0d).blockingFirst());
+
+        assertEquals(1, found.size());
+        assertEquals("inside", found.get(0));
+    }
+
+    @Test
+    public void boundsShouldWrapAroundAntimeridian() {
+        insertRecord("east", 0.0d, 179.5d);
+        insertRecord("west", 0.0d, -179.5d);
+        insertRecord("greenwich", 0.0d, 0.0d);
+
+        assertEquals(2, recordIds(adapter.getDataPointsInBounds(SURVEY_GROUP_ID, -1.0d, 179.0d,
+                1.0d, -179.0d).blockingFirst()).size());
+    }
+
+    @Test
+    public void locationIndexShouldFollowRecordUpdates() {
+        insertRecord("moving", 52.0d, 4.0d);
+        DataPointSyncWriter writer = adapter.newDataPointSyncWriter();
+        try {
+            writer.upsertRecord("moving", SURVEY_GROUP_ID, "Moving", 40.0d, 4.0d, 1L);
+        } finally {
+            writer.close();
+        }
+
+        assertEquals(0, recordIds(adapter.getDataPointsInBounds(SURVEY_GROUP_ID, 51.0d, 3.0d,
+                53.0d, 5.0d).blockingFirst()).size());
+        assertEquals(1, recordIds(adapter.getDataPointsInBounds(SURVEY_GROUP_ID, 39.0d, 3.0d,
+                41.0d, 5.0d).blockingFirst()).size());
+    }
+
+    private void insertRecord(String recordId, Double latitude, Double longitude) {
+        ContentValues values = new ContentValues();
+        values.put(RecordColumns.RECORD_ID, recordId);
+        values.put(RecordColumns.SURVEY_GROUP_ID, SURVEY_GROUP_ID);
+        values.put(RecordColumns.NAME, recordId);
+        values.put(RecordColumns.LATITUDE, latitude);
+        values.put(RecordColumns.LONGITUDE, longitude);
+        adapter.insertOrUpdateRecord(recordId, values);
+    }
+
+    private List<String> recordIds(Cursor cursor) {
+        List<String> recordIds = new ArrayList<>();
+        int column = cursor.getColumnIndexOrThrow(RecordColumns.RECORD_ID);
+        while (cursor.moveToNext()) {
+            recordIds.add(cursor.getString(column));
+        }
+        cursor.close();
+        return recordIds;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.database.britedb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import org.akvo.flow.database.Constants;
+import org.akvo.flow.database.RecordColumns;
+import org.akvo.flow.database.tables.RecordSearchTable;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class RecordSearchTest {
+
+    private static final long SURVEY_GROUP_ID = 1L;
+
+    @Rule
+    public final BriteSurveyDbAdapterRule database = new BriteSurveyDbAdapterRule();
+
+    private BriteSurveyDbAdapter adapter;
+
+    @Before
+    public void setUp() {
+        adapter = database.getAdapter();
+    }
+
+    @Test
+    public void matchQueryShouldSearchEveryWordAsPrefix() {
+        assertEquals("water* poi*", RecordSearchTable.matchQuery("Water  poi"));
+        assertEquals("abcd* ef*", RecordSearchTable.matchQuery("abcd-ef"));
+        assertNull(RecordSearchTable.matchQuery(" \"* "));
+        assertEquals("water* or* pump*", RecordSearchTable.matchQuery("Water OR pump"));
+        assertEquals("Émile* Ölmez*", RecordSearchTable.matchQuery("Émile ÖLMEZ"));
+    }
+
+    @Test
+    public void searchShouldMatchNamePrefixAndRecordId() {
+        insertRecord("abcd-1234", "Water point north");
+        insertRecord("efgh-5678", "School");
+
+        assertEquals(1, search("wat"));
+        assertEquals(1, search("point nor"));
+        assertEquals(1, search("efgh"));
+        assertEquals(0, search("ater"));
+    }
+
+    @Test
+    public void searchShouldMatchNonAsciiCapitals() {
+        insertRecord("abcd-1234", "Émile Ölmez");
+
+        assertEquals(1, search("Émile"));
+        assertEquals(1, search("ÖLMEZ"));
+    }
+
+    @Test
+    public void searchShouldFollowRecordUpdates() {
+        insertRecord("abcd-1234", "Water point");
+        DataPointSyncWriter writer = adapter.newDataPointSyncWriter();
+        try {
+            writer.upsertRecord("abcd-1234", SURVEY_GROUP_ID, "Health center", null, null, 1L);
+        } finally {
+            writer.close();
+        }
+
+        assertEquals(0, search("water"));
+        assertEquals(1, search("health"));
+    }
+
+    @Test
+    public void searchShouldNotReturnDeletedRecords() {
+        insertRecord("abcd-1234", "Water point");
+
+        adapter.clearCollectedData();
+
+        assertEquals(0, search("water"));
+    }
+
+    @Test
+    public void searchShouldApplyLimit() {
+        for (int i = 0; i < 10; i++) {
+            insertRecord("id-" + i, "Water point " + i);
+        }
+
+        assertEquals(3, count(adapter.searchDataPoints(SURVEY_GROUP_ID, "water*", null, null,
+                Constants.ORDER_BY_NAME, 3).blockingFirst()));
+    }
+
+    private void insertRecord(String recordId, String name) {
+        ContentValues values = new ContentValues();
+        values.put(RecordColumns.RECORD_ID, recordId);
+        values.put(RecordColumns.SURVEY_GROUP_ID, SURVEY_GROUP_ID);
+        values.put(RecordColumns.NAME, name);
+        adapter.insertOrUpdateRecord(recordId, values);
+    }
+
+    private int search(String text) {
+        //noinspection ConstantConditions
+        return count(adapter.searchDataPoints(SURVEY_GROUP_ID, RecordSearchTable.matchQuery(text),
+                null, null, Constants.ORDER_BY_NONE, 0).blockingFirst());
+    }
+
+    private int count(Cursor cursor) {
+        try {
+            return cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.database.britedb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import org.akvo.flow.database.RecordColumns;
+import org.akvo.flow.database.SurveyColumns;
+import org.akvo.flow.database.SurveyDbAdapter;
+import org.akvo.flow.database.SurveyDbAdapter.DataPointCountQuery;
+import org.akvo.flow.database.SurveyDbAdapter.FormInstanceCountQuery;
+import org.akvo.flow.database.SurveyInstanceColumns;
+import org.akvo.flow.database.SurveyInstanceStatus;
+import org.akvo.flow.database.tables.Tables;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+public class StatsQueriesTest {
+
+    private static final long SURVEY_GROUP_ID = 1L;
+    private static final long OTHER_SURVEY_GROUP_ID = 2L;
+    private static final String FORM_ID = "100";
+    private static final String OTHER_FORM_ID = "200";
+
+    @Rule
+    public final BriteSurveyDbAdapterRule database = new BriteSurveyDbAdapterRule();
+
+    private BriteSurveyDbAdapter briteAdapter;
+    private SurveyDbAdapter adapter;
+
+    @Before
+    public void setUp() {
+        briteAdapter = database.getAdapter();
+        adapter = new SurveyDbAdapter(database.getDatabaseHelper()).open();
+        insertForm(FORM_ID, SURVEY_GROUP_ID, "Registration");
+        insertForm(OTHER_FORM_ID, OTHER_SURVEY_GROUP_ID, "Other survey");
+    }
+
+    @After
+    public void tearDown() {
+        adapter.close();
+    }
+
+    @Test
+    public void dataPointCountsShouldCountEachPeriodInOneQuery() {
+        insertRecord("never-saved", SURVEY_GROUP_ID, 0L);
+        insertRecord("old", SURVEY_GROUP_ID, 1000L);
+        insertRecord("this-week", SURVEY_GROUP_ID, 5000L);
+        insertRecord("today", SURVEY_GROUP_ID, 9000L);
+        insertRecord("other-survey", OTHER_SURVEY_GROUP_ID, 9000L);
+
+        Cursor cursor = adapter.getDataPointCounts(SURVEY_GROUP_ID, 4000L, 8000L);
+        try {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(3, cursor.getInt(DataPointCountQuery.TOTAL));
+            assertEquals(2, cursor.getInt(DataPointCountQuery.THIS_WEEK));
+            assertEquals(1, cursor.getInt(DataPointCountQuery.TODAY));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void formInstanceCountsShouldFollowInsertsAndStatusChanges() {
+        long saved = insertFormInstance("uuid-1", FORM_ID);
+        long submitted = insertFormInstance("uuid-2", FORM_ID);
+        insertFormInstance("uuid-3", OTHER_FORM_ID);
+
+        briteAdapter.updateSurveyInstanceStatus(submitted, SurveyInstanceStatus.SUBMITTED);
+        briteAdapter.updateSurveyInstanceStatus(saved, SurveyInstanceStatus.SAVED);
+
+        Map<Integer, Integer> counts = formInstanceCounts();
+        assertEquals(2, counts.size());
+        assertEquals(Integer.valueOf(1), counts.get(SurveyInstanceStatus.SAVED));
+        assertEquals(Integer.valueOf(1), counts.get(SurveyInstanceStatus.SUBMITTED));
+    }
+
+    @Test
+    public void formInstanceCountsShouldFollowDataPointSync() {
+        insertFormInstance("uuid-1", FORM_ID);
+        DataPointSyncWriter writer = briteAdapter.newDataPointSyncWriter();
+        try {
+            writer.upsertSurveyInstance("uuid-1", Long.parseLong(FORM_ID), 1L, "record", null);
+            writer.upsertSurveyInstance("uuid-2", Long.parseLong(FORM_ID), 1L, "record", null);
+        } finally {
+            writer.close();
+        }
+
+        Map<Integer, Integer> counts = formInstanceCounts();
+        assertEquals(1, counts.size());
+        assertEquals(Integer.valueOf(2), counts.get(SurveyInstanceStatus.DOWNLOADED));
+    }
+
+    @Test
+    public void formInstanceCountsShouldNotCountReplacedOrDeletedInstances() {
+        insertFormInstance("uuid-1", FORM_ID);
+        insertFormInstance("uuid-1", FORM_ID);
+        assertEquals(Integer.valueOf(1), formInstanceCounts().get(SurveyInstanceStatus.SAVED));
+
+        adapter.clearCollectedData();
+
+        assertTrue(formInstanceCounts().isEmpty());
+    }
+
+    private Map<Integer, Integer> formInstanceCounts() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        Cursor cursor = adapter.getFormInstanceCounts(SURVEY_GROUP_ID);
+        try {
+            while (cursor.moveToNext()) {
+                assertEquals(FORM_ID, cursor.getString(FormInstanceCountQuery.SURVEY_ID));
+                counts.put(cursor.getInt(FormInstanceCountQuery.STATUS),
+                        cursor.getInt(FormInstanceCountQuery.INSTANCES));
+            }
+        } finally {
+            cursor.close();
+        }
+        return counts;
+    }
+
+    private void insertForm(String formId, long surveyGroupId, String name) {
+        ContentValues values = new ContentValues();
+        values.put(SurveyColumns.SURVEY_ID, formId);
+        values.put(SurveyColumns.SURVEY_GROUP_ID, surveyGroupId);
+        values.put(SurveyColumns.NAME, name);
+        database.getDatabaseHelper().getWritableDatabase().insert(Tables.SURVEY, null, values);
+        database.getDatabaseHelper().close();
+    }
+
+    private void insertRecord(String recordId, long surveyGroupId, long lastModified) {
+        ContentValues values = new ContentValues();
+        values.put(RecordColumns.RECORD_ID, recordId);
+        values.put(RecordColumns.SURVEY_GROUP_ID, surveyGroupId);
+        values.put(RecordColumns.LAST_MODIFIED, lastModified);
+        briteAdapter.insertOrUpdateRecord(recordId, values);
+    }
+
+    private long insertFormInstance(String uuid, String formId) {
+        ContentValues values = new ContentValues();
+        values.put(SurveyInstanceColumns.UUID, uuid);
+        values.put(SurveyInstanceColumns.SURVEY_ID, formId);
+        values.put(SurveyInstanceColumns.STATUS, SurveyInstanceStatus.SAVED);
+        return adapter.createSurveyRespondent(values);
+    }
+}
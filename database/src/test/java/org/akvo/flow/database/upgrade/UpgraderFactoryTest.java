@@ -48,7 +48,7 @@ public class UpgraderFactoryTest {
         UpgraderVisitor upgrader = (UpgraderVisitor) upgraderFactory
                 .createUpgrader(DatabaseHelper.VER_RESPONSE_ITERATION, mockDbHelper, mockDb);
 
-        assertEquals(8, upgrader.getUpgraders().size());
+        assertEquals(16, upgrader.getUpgraders().size());
         assertTrue(containsResponsesUpgrader(upgrader.getUpgraders()));
     }
 
@@ -58,7 +58,7 @@ public class UpgraderFactoryTest {
         UpgraderVisitor upgrader = (UpgraderVisitor) upgraderFactory
                 .createUpgrader(DatabaseHelper.VER_TRANSMISSION_ITERATION, mockDbHelper, mockDb);
 
-        assertEquals(7, upgrader.getUpgraders().size());
+        assertEquals(15, upgrader.getUpgraders().size());
     }
 
     @Test
@@ -67,7 +67,7 @@ public class UpgraderFactoryTest {
         UpgraderVisitor upgrader = (UpgraderVisitor) upgraderFactory
                 .createUpgrader(DatabaseHelper.VER_DATA_POINT_ASSIGNMENTS_ITERATION, mockDbHelper, mockDb);
 
-        assertEquals(6, upgrader.getUpgraders().size());
+        assertEquals(14, upgrader.getUpgraders().size());
     }
 
     @Test
@@ -77,7 +77,7 @@ public class UpgraderFactoryTest {
                 .createUpgrader(DatabaseHelper.VER_DATA_POINT_ASSIGNMENTS_ITERATION_2, mockDbHelper,
                         mockDb);
 
-        assertEquals(5, upgrader.getUpgraders().size());
+        assertEquals(13, upgrader.getUpgraders().size());
     }
 
     @Test
@@ -87,7 +87,7 @@ public class UpgraderFactoryTest {
                 .createUpgrader(DatabaseHelper.VER_CURSOR_ITERATION, mockDbHelper,
                         mockDb);
 
-        assertEquals(4, upgrader.getUpgraders().size());
+        assertEquals(12, upgrader.getUpgraders().size());
     }
 
     @Test
@@ -97,7 +97,7 @@ public class UpgraderFactoryTest {
                 .createUpgrader(DatabaseHelper.VER_SURVEY_VIEWED, mockDbHelper,
                         mockDb);
 
-        assertEquals(3, upgrader.getUpgraders().size());
+        assertEquals(11, upgrader.getUpgraders().size());
     }
 
     @Test
@@ -107,7 +107,7 @@ public class UpgraderFactoryTest {
                 .createUpgrader(DatabaseHelper.VER_DATAPOINT_STATUS, mockDbHelper,
                         mockDb);
 
-        assertEquals(2, upgrader.getUpgraders().size());
+        assertEquals(10, upgrader.getUpgraders().size());
     }
 
     @Test
@@ -117,16 +117,96 @@ public class UpgraderFactoryTest {
                 .createUpgrader(DatabaseHelper.VER_FORM_VERSION_UPDATE, mockDbHelper,
                         mockDb);
 
-        assertEquals(1, upgrader.getUpgraders().size());
+        assertEquals(9, upgrader.getUpgraders().size());
     }
 
     @Test
-    public void createUpgraderShouldCreateNoUpgraderWhenGroupsUpdateIteration() {
+    public void createUpgraderShouldCreateUpgraderWhenGroupsUpdateIteration() {
         UpgraderFactory upgraderFactory = new UpgraderFactory();
         UpgraderVisitor upgrader = (UpgraderVisitor) upgraderFactory
                 .createUpgrader(DatabaseHelper.VER_GROUPS, mockDbHelper,
                         mockDb);
 
+        assertEquals(8, upgrader.getUpgraders().size());
+    }
+
+    @Test
+    public void createUpgraderShouldCreateUpgraderWhenUploadPartsIteration() {
+        UpgraderFactory upgraderFactory = new UpgraderFactory();
+        UpgraderVisitor upgrader = (UpgraderVisitor) upgraderFactory
+                .createUpgrader(DatabaseHelper.VER_UPLOAD_PARTS, mockDbHelper,
+                        mockDb);
+
+        assertEquals(7, upgrader.getUpgraders().size());
+    }
+
+    @Test
+    public void createUpgraderShouldCreateUpgraderWhenTransmissionChecksumIteration() {
+        UpgraderFactory upgraderFactory = new UpgraderFactory();
+        UpgraderVisitor upgrader = (UpgraderVisitor) upgraderFactory
+                .createUpgrader(DatabaseHelper.VER_TRANSMISSION_CHECKSUM, mockDbHelper,
+                        mockDb);
+
+        assertEquals(6, upgrader.getUpgraders().size());
+    }
+
+    @Test
+    public void createUpgraderShouldCreateUpgraderWhenRecordSearchIteration() {
+        UpgraderFactory upgraderFactory = new UpgraderFactory();
+        UpgraderVisitor upgrader = (UpgraderVisitor) upgraderFactory
+                .createUpgrader(DatabaseHelper.VER_RECORD_SEARCH, mockDbHelper,
+                        mockDb);
+
+        assertEquals(5, upgrader.getUpgraders().size());
+    }
+
+    @Test
+    public void createUpgraderShouldCreateUpgraderWhenRecordLocationIteration() {
+        UpgraderFactory upgraderFactory = new UpgraderFactory();
+        UpgraderVisitor upgrader = (UpgraderVisitor) upgraderFactory
+                .createUpgrader(DatabaseHelper.VER_RECORD_LOCATION, mockDbHelper,
+                        mockDb);
+
+        assertEquals(4, upgrader.getUpgraders().size());
+    }
+
+    @Test
+    public void createUpgraderShouldCreateUpgraderWhenQueryIndexesIteration() {
+        UpgraderFactory upgraderFactory = new UpgraderFactory();
+        UpgraderVisitor upgrader = (UpgraderVisitor) upgraderFactory
+                .createUpgrader(DatabaseHelper.VER_QUERY_INDEXES, mockDbHelper,
+                        mockDb);
+
+        assertEquals(3, upgrader.getUpgraders().size());
+    }
+
+    @Test
+    public void createUpgraderShouldCreateUpgraderWhenResourceHashesIteration() {
+        UpgraderFactory upgraderFactory = new UpgraderFactory();
+        UpgraderVisitor upgrader = (UpgraderVisitor) upgraderFactory
+                .createUpgrader(DatabaseHelper.VER_RESOURCE_HASHES, mockDbHelper,
+                        mockDb);
+
+        assertEquals(2, upgrader.getUpgraders().size());
+    }
+
+    @Test
+    public void createUpgraderShouldCreateUpgraderWhenFormInstanceCountsIteration() {
+        UpgraderFactory upgraderFactory = new UpgraderFactory();
+        UpgraderVisitor upgrader = (UpgraderVisitor) upgraderFactory
+                .createUpgrader(DatabaseHelper.VER_FORM_INSTANCE_COUNTS, mockDbHelper,
+                        mockDb);
+
+        assertEquals(1, upgrader.getUpgraders().size());
+    }
+
+    @Test
+    public void createUpgraderShouldCreateNoUpgraderWhenRecordClustersIteration() {
+        UpgraderFactory upgraderFactory = new UpgraderFactory();
+        UpgraderVisitor upgrader = (UpgraderVisitor) upgraderFactory
+                .createUpgrader(DatabaseHelper.VER_RECORD_CLUSTERS, mockDbHelper,
+                        mockDb);
+
         assertEquals(0, upgrader.getUpgraders().size());
     }
 
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.domain.entity;
+
+/**
+ * Latitude/longitude bounds, west is greater than east when the bounds cross the antimeridian
+ */
+public class GeoBounds {
+
+    private static final double FULL_CIRCLE = 360;
+
+    private final double south;
+    private final double west;
+    private final double north;
+    private final double east;
+
+    public GeoBounds(double south, double west, double north, double east) {
+        this.south = south;
+        this.west = west;
+        this.north = north;
+        this.east = east;
+    }
+
+    public double getSouth() {
+        return south;
+    }
+
+    public double getWest() {
+        return west;
+    }
+
+    public double getNorth() {
+        return north;
+    }
+
+    public double getEast() {
+        return east;
+    }
+
+    /**
+     * @return the bounds grown by the given fraction of their size on every side
+     */
+    public GeoBounds expand(double fraction) {
+        double latitudeMargin = (north - south) * fraction;
+        double longitudeMargin = longitudeSpan() * fraction;
+        double newSouth = Math.max(south - latitudeMargin, -90);
+        double newNorth = Math.min(north + latitudeMargin, 90);
+        if (longitudeSpan() + 2 * longitudeMargin >= FULL_CIRCLE) {
+            return new GeoBounds(newSouth, -180, newNorth, 180);
+        }
+        return new GeoBounds(newSouth, wrap(west - longitudeMargin), newNorth,
+                wrap(east + longitudeMargin));
+    }
+
+    public boolean contains(GeoBounds other) {
+        if (other.south < south || other.north > north) {
+            return false;
+        }
+        double span = longitudeSpan();
+        return span >= FULL_CIRCLE || (offset(other.west) <= span
+                && offset(other.west) + other.longitudeSpan() <= span);
+    }
+
+    private double longitudeSpan() {
+        return east >= west ? east - west : east - west + FULL_CIRCLE;
+    }
+
+    /**
+     * Degrees east of the west edge
+     */
+    private double offset(double longitude) {
+        return ((longitude - west) % FULL_CIRCLE + FULL_CIRCLE) % FULL_CIRCLE;
+    }
+
+    private double wrap(double longitude) {
+        if (longitude < -180) {
+            return longitude + FULL_CIRCLE;
+        } else if (longitude > 180) {
+            return longitude - FULL_CIRCLE;
+        }
+        return longitude;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.domain.entity;
+
+public class UploadProgress {
+
+    private final long uploadedBytes;
+    private final long totalBytes;
+
+    public UploadProgress(long uploadedBytes, long totalBytes) {
+        this.uploadedBytes = uploadedBytes;
+        this.totalBytes = totalBytes;
+    }
+
+    public long getUploadedBytes() {
+        return uploadedBytes;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * @return the uploaded percentage, between 0 and 100
+     */
+    public int getPercentage() {
+        if (totalBytes <= 0) {
+            return 0;
+        }
+        return (int) Math.min(100, uploadedBytes * 100 / totalBytes);
+    }
+}
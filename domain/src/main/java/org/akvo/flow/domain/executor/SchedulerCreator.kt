@@ -23,5 +23,8 @@ import io.reactivex.schedulers.Schedulers
 
 open class SchedulerCreator (private val threadExecutor: ThreadExecutor) {
 
-    open fun obtainScheduler() = Schedulers.from(threadExecutor)
+    open fun obtainScheduler() = obtainScheduler(TaskPriority.USER_INITIATED)
+
+    open fun obtainScheduler(priority: TaskPriority) =
+        Schedulers.from(threadExecutor.forPriority(priority))
 }
\ No newline at end of file
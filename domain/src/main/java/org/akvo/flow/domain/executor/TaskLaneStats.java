@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.domain.executor;
+
+import java.util.Locale;
+
+/**
+ * Snapshot of the work run in one {@link TaskPriority} lane since the app was started. Times
+ * are in milliseconds: the wait time of a task is the time between it being queued and it
+ * starting, its execution time the time it took to run.
+ */
+public class TaskLaneStats {
+
+    private final TaskPriority priority;
+    private final int queued;
+    private final int running;
+    private final long completed;
+    private final long totalWaitMillis;
+    private final long maxWaitMillis;
+    private final long totalExecutionMillis;
+    private final long maxExecutionMillis;
+
+    public TaskLaneStats(TaskPriority priority, int queued, int running, long completed,
+            long totalWaitMillis, long maxWaitMillis, long totalExecutionMillis,
+            long maxExecutionMillis) {
+        this.priority = priority;
+        this.queued = queued;
+        this.running = running;
+        this.completed = completed;
+        this.totalWaitMillis = totalWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.totalExecutionMillis = totalExecutionMillis;
+        this.maxExecutionMillis = maxExecutionMillis;
+    }
+
+    public TaskPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return the number of tasks waiting for a thread
+     */
+    public int getQueued() {
+        return queued;
+    }
+
+    public int getRunning() {
+        return running;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getTotalWaitMillis() {
+        return totalWaitMillis;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public long getAverageWaitMillis() {
+        return completed == 0 ? 0 : totalWaitMillis / completed;
+    }
+
+    public long getTotalExecutionMillis() {
+        return totalExecutionMillis;
+    }
+
+    public long getMaxExecutionMillis() {
+        return maxExecutionMillis;
+    }
+
+    public long getAverageExecutionMillis() {
+        return completed == 0 ? 0 : totalExecutionMillis / completed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "%s: %d queued, %d running, %d completed, wait avg %d ms max %d ms, "
+                        + "execution avg %d ms max %d ms", priority, queued, running,
+                completed, getAverageWaitMillis(), maxWaitMillis, getAverageExecutionMillis(),
+                maxExecutionMillis);
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.domain.executor;
+
+/**
+ * Lanes in which background work is run. Each lane has its own threads so that work in a lower
+ * lane, however long, never delays the work queued in a higher one.
+ */
+public enum TaskPriority {
+
+    /**
+     * Loads of what the user is looking at, such as the lists of forms and data points
+     */
+    INTERACTIVE,
+
+    /**
+     * Actions the user asked for and is waiting on, the default for use cases
+     */
+    USER_INITIATED,
+
+    /**
+     * Work nobody is waiting on: uploads, notifications and update checks
+     */
+    BACKGROUND
+}
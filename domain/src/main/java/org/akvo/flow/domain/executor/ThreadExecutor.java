@@ -22,6 +22,16 @@ package org.akvo.flow.domain.executor;
 
 import java.util.concurrent.Executor;
 
+/**
+ * Runs use cases off the main thread. Plain {@link #execute(Runnable)} runs the task in the
+ * {@link TaskPriority#USER_INITIATED} lane.
+ */
 public interface ThreadExecutor extends Executor {
 
+    /**
+     * @return an executor running its tasks in the lane of the given priority
+     */
+    Executor forPriority(TaskPriority priority);
+
+    TaskLaneStats getStats(TaskPriority priority);
 }
@@ -24,6 +24,7 @@ import androidx.core.util.Pair;
 
 import org.akvo.flow.domain.entity.DomainSurvey;
 import org.akvo.flow.domain.executor.PostExecutionThread;
+import org.akvo.flow.domain.executor.TaskPriority;
 import org.akvo.flow.domain.executor.ThreadExecutor;
 import org.akvo.flow.domain.repository.SurveyRepository;
 import org.akvo.flow.domain.repository.UserRepository;
@@ -70,4 +71,9 @@ public class GetAllSurveys extends UseCase {
                     }
                 });
     }
+
+    @Override
+    protected TaskPriority getPriority() {
+        return TaskPriority.INTERACTIVE;
+    }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.akvo.flow.domain.interactor;
+
+import org.akvo.flow.domain.entity.UploadProgress;
+import org.akvo.flow.domain.repository.SurveyRepository;
+
+import javax.inject.Inject;
+
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.observers.DisposableObserver;
+
+/**
+ * Notifies the byte progress of the running uploads on the thread uploading them
+ */
+public class GetUploadProgress {
+
+    private final SurveyRepository surveyRepository;
+    private final CompositeDisposable disposables;
+
+    @Inject
+    protected GetUploadProgress(SurveyRepository surveyRepository) {
+        this.surveyRepository = surveyRepository;
+        this.disposables = new CompositeDisposable();
+    }
+
+    public void execute(DisposableObserver<UploadProgress> observer) {
+        disposables.add(surveyRepository.getUploadProgress().subscribeWith(observer));
+    }
+
+    public void dispose() {
+        if (!disposables.isDisposed()) {
+            disposables.clear();
+        }
+    }
+}
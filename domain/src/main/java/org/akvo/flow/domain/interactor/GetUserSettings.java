@@ -22,6 +22,7 @@ package org.akvo.flow.domain.interactor;
 
 import org.akvo.flow.domain.entity.UserSettings;
 import org.akvo.flow.domain.executor.PostExecutionThread;
+import org.akvo.flow.domain.executor.TaskPriority;
 import org.akvo.flow.domain.executor.ThreadExecutor;
 import org.akvo.flow.domain.repository.UserRepository;
 
@@ -56,4 +57,9 @@ public class GetUserSettings extends UseCase {
                     }
                 });
     }
+
+    @Override
+    protected TaskPriority getPriority() {
+        return TaskPriority.INTERACTIVE;
+    }
 }
@@ -22,6 +22,7 @@ package org.akvo.flow.domain.interactor;
 
 import org.akvo.flow.domain.exception.FullStorageException;
 import org.akvo.flow.domain.executor.PostExecutionThread;
+import org.akvo.flow.domain.executor.TaskPriority;
 import org.akvo.flow.domain.executor.ThreadExecutor;
 import org.akvo.flow.domain.repository.FileRepository;
 import org.akvo.flow.domain.repository.SurveyRepository;
@@ -111,4 +112,9 @@ public class PublishData extends UseCase {
         }
         return Observable.error(throwable);
     }
+
+    @Override
+    protected TaskPriority getPriority() {
+        return TaskPriority.BACKGROUND;
+    }
 }
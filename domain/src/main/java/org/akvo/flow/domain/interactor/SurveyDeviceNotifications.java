@@ -21,6 +21,7 @@
 package org.akvo.flow.domain.interactor;
 
 import org.akvo.flow.domain.executor.PostExecutionThread;
+import org.akvo.flow.domain.executor.TaskPriority;
 import org.akvo.flow.domain.executor.ThreadExecutor;
 import org.akvo.flow.domain.repository.MissingAndDeletedRepository;
 import org.akvo.flow.domain.repository.SurveyRepository;
@@ -74,4 +75,9 @@ public class SurveyDeviceNotifications extends UseCase {
                     }
                 });
     }
+
+    @Override
+    protected TaskPriority getPriority() {
+        return TaskPriority.BACKGROUND;
+    }
 }
@@ -51,10 +51,15 @@ public class UploadAllDataPoints {
         this.disposables = new CompositeDisposable();
     }
 
+    /**
+     * Blocks until all the uploads, which may run concurrently, have finished. The observer is
+     * notified on the calling thread.
+     */
     @SuppressWarnings("unchecked")
     public <T> void execute(DisposableObserver<T> observer) {
         final Observable<T> observable = buildUseCaseObservable();
-        addDisposable(observable.subscribeWith(observer));
+        addDisposable(observer);
+        observable.blockingSubscribe(observer);
     }
 
     public void dispose() {
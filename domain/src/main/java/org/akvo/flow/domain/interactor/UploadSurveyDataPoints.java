@@ -21,6 +21,7 @@
 package org.akvo.flow.domain.interactor;
 
 import org.akvo.flow.domain.executor.PostExecutionThread;
+import org.akvo.flow.domain.executor.TaskPriority;
 import org.akvo.flow.domain.executor.ThreadExecutor;
 import org.akvo.flow.domain.repository.SurveyRepository;
 import org.akvo.flow.domain.repository.UserRepository;
@@ -62,4 +63,9 @@ public class UploadSurveyDataPoints extends UseCase {
                     }
                 });
     }
+
+    @Override
+    protected TaskPriority getPriority() {
+        return TaskPriority.BACKGROUND;
+    }
 }
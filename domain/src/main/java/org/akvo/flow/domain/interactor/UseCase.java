@@ -21,6 +21,7 @@
 package org.akvo.flow.domain.interactor;
 
 import org.akvo.flow.domain.executor.PostExecutionThread;
+import org.akvo.flow.domain.executor.TaskPriority;
 import org.akvo.flow.domain.executor.ThreadExecutor;
 
 import java.util.Map;
@@ -56,10 +57,17 @@ public abstract class UseCase {
      */
     protected abstract <T> Observable buildUseCaseObservable(Map<String, T> parameters);
 
+    /**
+     * The lane of the {@link ThreadExecutor} the {@link UseCase} runs in
+     */
+    protected TaskPriority getPriority() {
+        return TaskPriority.USER_INITIATED;
+    }
+
     @SuppressWarnings("unchecked")
     public <T> void execute(DisposableObserver<T> observer, Map<String, Object> parameters) {
         final Observable<T> observable = buildUseCaseObservable(parameters)
-                .subscribeOn(Schedulers.from(threadExecutor))
+                .subscribeOn(Schedulers.from(threadExecutor.forPriority(getPriority())))
                 .observeOn(postExecutionThread.getScheduler());
         addDisposable(observable.subscribeWith(observer));
     }
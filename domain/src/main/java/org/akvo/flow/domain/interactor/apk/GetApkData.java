@@ -23,6 +23,7 @@ package org.akvo.flow.domain.interactor.apk;
 import android.os.Build;
 
 import org.akvo.flow.domain.executor.PostExecutionThread;
+import org.akvo.flow.domain.executor.TaskPriority;
 import org.akvo.flow.domain.executor.ThreadExecutor;
 import org.akvo.flow.domain.interactor.UseCase;
 import org.akvo.flow.domain.repository.ApkRepository;
@@ -53,4 +54,9 @@ public class GetApkData extends UseCase {
         }
         return apkRepository.loadApkData(Build.VERSION.SDK_INT + "");
     }
+
+    @Override
+    protected TaskPriority getPriority() {
+        return TaskPriority.BACKGROUND;
+    }
 }
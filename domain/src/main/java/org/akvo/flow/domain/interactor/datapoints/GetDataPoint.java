@@ -21,6 +21,7 @@ package org.akvo.flow.domain.interactor.datapoints;
 
 import org.akvo.flow.domain.executor.PostExecutionThread;
 import org.akvo.flow.domain.executor.SchedulerCreator;
+import org.akvo.flow.domain.executor.TaskPriority;
 import org.akvo.flow.domain.repository.SurveyRepository;
 
 import java.util.Map;
@@ -62,7 +63,7 @@ public class GetDataPoint {
     @SuppressWarnings("unchecked")
     public <T> void execute(DisposableSingleObserver<T> observer, Map<String, Object> parameters) {
         final Single<T> observable = buildUseCaseObservable(parameters)
-                .subscribeOn(schedulerCreator.obtainScheduler())
+                .subscribeOn(schedulerCreator.obtainScheduler(TaskPriority.INTERACTIVE))
                 .observeOn(postExecutionThread.getScheduler());
         addDisposable(observable.subscribeWith(observer));
     }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.domain.interactor.datapoints;
+
+import org.akvo.flow.domain.entity.DataPointCluster;
+import org.akvo.flow.domain.entity.GeoBounds;
+import org.akvo.flow.domain.executor.PostExecutionThread;
+import org.akvo.flow.domain.executor.TaskPriority;
+import org.akvo.flow.domain.executor.ThreadExecutor;
+import org.akvo.flow.domain.interactor.UseCase;
+import org.akvo.flow.domain.repository.SurveyRepository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import io.reactivex.Observable;
+import io.reactivex.functions.Function;
+
+/**
+ * Loads the pre-computed clusters of datapoints of the visible map area. The list is empty when
+ * the area holds few enough datapoints for them to be loaded and displayed one by one.
+ */
+public class GetDataPointClusters extends UseCase {
+
+    public static final String KEY_SURVEY_GROUP_ID = "survey_group_id";
+    public static final String KEY_BOUNDS = "bounds";
+    public static final String KEY_ZOOM = "zoom";
+
+    /**
+     * Above this number of datapoints in the area, clusters are displayed instead
+     */
+    public static final int MAX_DATA_POINTS = 1000;
+
+    private final SurveyRepository surveyRepository;
+
+    @Inject
+    protected GetDataPointClusters(ThreadExecutor threadExecutor,
+            PostExecutionThread postExecutionThread, SurveyRepository surveyRepository) {
+        super(threadExecutor, postExecutionThread);
+        this.surveyRepository = surveyRepository;
+    }
+
+    @Override
+    protected <T> Observable buildUseCaseObservable(Map<String, T> parameters) {
+        if (parameters == null || parameters.get(KEY_SURVEY_GROUP_ID) == null
+                || parameters.get(KEY_BOUNDS) == null || parameters.get(KEY_ZOOM) == null) {
+            return Observable.error(new IllegalArgumentException("Missing params"));
+        }
+        Long surveyGroupId = (Long) parameters.get(KEY_SURVEY_GROUP_ID);
+        GeoBounds bounds = (GeoBounds) parameters.get(KEY_BOUNDS);
+        Double zoom = (Double) parameters.get(KEY_ZOOM);
+        return surveyRepository.getDataPointClusters(surveyGroupId, bounds, zoom)
+                .map(new Function<List<DataPointCluster>, List<DataPointCluster>>() {
+                    @Override
+                    public List<DataPointCluster> apply(List<DataPointCluster> clusters) {
+                        int count = 0;
+                        for (DataPointCluster cluster : clusters) {
+                            count += cluster.getCount();
+                        }
+                        if (count <= MAX_DATA_POINTS) {
+                            return Collections.emptyList();
+                        }
+                        return clusters;
+                    }
+                });
+    }
+
+    @Override
+    protected TaskPriority getPriority() {
+        return TaskPriority.INTERACTIVE;
+    }
+}
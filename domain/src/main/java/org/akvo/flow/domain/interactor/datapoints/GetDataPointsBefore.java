@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.domain.interactor.datapoints;
+
+import org.akvo.flow.domain.entity.DataPoint;
+import org.akvo.flow.domain.executor.PostExecutionThread;
+import org.akvo.flow.domain.executor.TaskPriority;
+import org.akvo.flow.domain.executor.ThreadExecutor;
+import org.akvo.flow.domain.interactor.UseCase;
+import org.akvo.flow.domain.repository.SurveyRepository;
+
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import io.reactivex.Observable;
+
+/**
+ * Loads the page of datapoints displayed right before the current window of the list
+ */
+public class GetDataPointsBefore extends UseCase {
+
+    public static final String KEY_SURVEY_GROUP_ID = "survey_group_id";
+    public static final String KEY_ORDER_BY = "order_by";
+    public static final String KEY_END = "end";
+    public static final String KEY_PAGE_SIZE = "page_size";
+
+    private final SurveyRepository surveyRepository;
+
+    @Inject
+    protected GetDataPointsBefore(ThreadExecutor threadExecutor,
+            PostExecutionThread postExecutionThread, SurveyRepository surveyRepository) {
+        super(threadExecutor, postExecutionThread);
+        this.surveyRepository = surveyRepository;
+    }
+
+    @Override
+    protected <T> Observable buildUseCaseObservable(Map<String, T> parameters) {
+        if (parameters == null || parameters.get(KEY_SURVEY_GROUP_ID) == null
+                || parameters.get(KEY_END) == null || parameters.get(KEY_PAGE_SIZE) == null) {
+            return Observable.error(new IllegalArgumentException("Missing page parameters"));
+        }
+        Long surveyGroupId = (Long) parameters.get(KEY_SURVEY_GROUP_ID);
+        Integer orderBy = (Integer) parameters.get(KEY_ORDER_BY);
+        DataPoint end = (DataPoint) parameters.get(KEY_END);
+        Integer pageSize = (Integer) parameters.get(KEY_PAGE_SIZE);
+        return surveyRepository.getDataPointsBefore(surveyGroupId, orderBy, end, pageSize);
+    }
+
+    @Override
+    protected TaskPriority getPriority() {
+        return TaskPriority.INTERACTIVE;
+    }
+}
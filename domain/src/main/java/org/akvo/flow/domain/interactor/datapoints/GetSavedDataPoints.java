@@ -22,7 +22,9 @@ package org.akvo.flow.domain.interactor.datapoints;
 import android.text.TextUtils;
 
 import org.akvo.flow.domain.entity.DataPoint;
+import org.akvo.flow.domain.entity.GeoBounds;
 import org.akvo.flow.domain.executor.PostExecutionThread;
+import org.akvo.flow.domain.executor.TaskPriority;
 import org.akvo.flow.domain.executor.ThreadExecutor;
 import org.akvo.flow.domain.interactor.UseCase;
 import org.akvo.flow.domain.repository.SurveyRepository;
@@ -33,11 +35,6 @@ import java.util.Map;
 import javax.inject.Inject;
 
 import io.reactivex.Observable;
-import io.reactivex.ObservableSource;
-import io.reactivex.annotations.NonNull;
-import io.reactivex.annotations.Nullable;
-import io.reactivex.functions.Function;
-import io.reactivex.functions.Predicate;
 
 public class GetSavedDataPoints extends UseCase {
 
@@ -46,6 +43,16 @@ public class GetSavedDataPoints extends UseCase {
     public static final String KEY_LONGITUDE = "longitude";
     public static final String KEY_ORDER_BY = "order_by";
     public static final String KEY_FILTER = "filter";
+    public static final String KEY_LIMIT = "limit";
+    public static final String KEY_PAGE_START = "page_start";
+    public static final String KEY_PAGE_SIZE = "page_size";
+    public static final String KEY_NEAREST_LIMIT = "nearest_limit";
+    public static final String KEY_BOUNDS = "bounds";
+
+    /**
+     * Search results are limited so that a short prefix does not map the whole survey
+     */
+    public static final int DEFAULT_SEARCH_LIMIT = 500;
 
     private final SurveyRepository surveyRepository;
 
@@ -66,53 +73,38 @@ public class GetSavedDataPoints extends UseCase {
         Double longitude = (Double) parameters.get(KEY_LONGITUDE);
         Integer orderBy = (Integer) parameters.get(KEY_ORDER_BY);
         final String filter = (String) parameters.get(KEY_FILTER);
-        return loadDataPoints(filter, surveyGroupId, latitude, longitude, orderBy);
+        Integer limit = (Integer) parameters.get(KEY_LIMIT);
+        GeoBounds bounds = (GeoBounds) parameters.get(KEY_BOUNDS);
+        if (bounds != null) {
+            return surveyRepository.getDataPointsInBounds(surveyGroupId, bounds);
+        }
+        Integer nearestLimit = (Integer) parameters.get(KEY_NEAREST_LIMIT);
+        if (nearestLimit != null && latitude != null && longitude != null
+                && TextUtils.isEmpty(filter)) {
+            return surveyRepository
+                    .getNearestDataPoints(surveyGroupId, latitude, longitude, nearestLimit);
+        }
+        Integer pageSize = (Integer) parameters.get(KEY_PAGE_SIZE);
+        if (pageSize != null && TextUtils.isEmpty(filter)) {
+            DataPoint start = (DataPoint) parameters.get(KEY_PAGE_START);
+            return surveyRepository.getDataPointsPage(surveyGroupId, orderBy, start, pageSize);
+        }
+        return loadDataPoints(filter, surveyGroupId, latitude, longitude, orderBy,
+                limit == null ? DEFAULT_SEARCH_LIMIT : limit);
     }
 
     private Observable<List<DataPoint>> loadDataPoints(String filter, Long surveyGroupId,
-                                                       Double latitude, Double longitude, Integer orderBy) {
+                                                       Double latitude, Double longitude, Integer orderBy, int limit) {
         if (TextUtils.isEmpty(filter)) {
             return surveyRepository.getDataPoints(surveyGroupId, latitude, longitude, orderBy);
         } else {
-            return getFilteredDataPoints(surveyGroupId, latitude, longitude, orderBy, filter);
+            return surveyRepository
+                    .searchDataPoints(surveyGroupId, filter, latitude, longitude, orderBy, limit);
         }
     }
 
-    private Observable<List<DataPoint>> getFilteredDataPoints(Long surveyGroupId, Double latitude,
-                                                              Double longitude, Integer orderBy, @NonNull final String filter) {
-        return surveyRepository.getDataPoints(surveyGroupId, latitude, longitude, orderBy)
-                .flatMap(new Function<List<DataPoint>, ObservableSource<List<DataPoint>>>() {
-                    @Override
-                    public ObservableSource<List<DataPoint>> apply(
-                            @NonNull List<DataPoint> dataPoints) throws Exception {
-                        return filterDataPoints(dataPoints, filter);
-                    }
-                });
-
-    }
-
-    private Observable<List<DataPoint>> filterDataPoints(@NonNull List<DataPoint> dataPoints,
-                                                         @NonNull final String filter) {
-        return Observable
-                .fromIterable(dataPoints)
-                .filter(new Predicate<DataPoint>() {
-                    @Override
-                    public boolean test(@NonNull DataPoint dataPoint) throws Exception {
-                        String name = dataPoint.getName();
-                        String id = dataPoint.getId();
-                        return (fieldContains(name, filter)
-                                || fieldContains(id, filter));
-                    }
-                })
-                .toList()
-                .toObservable();
-    }
-
-    private boolean fieldContains(@Nullable String field, @NonNull String filter) {
-        if (field != null) {
-            field = field.toLowerCase();
-        }
-        return field != null && field
-                .contains(filter.toLowerCase());
+    @Override
+    protected TaskPriority getPriority() {
+        return TaskPriority.INTERACTIVE;
     }
 }
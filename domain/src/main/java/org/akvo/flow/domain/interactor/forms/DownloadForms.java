@@ -20,9 +20,12 @@
 
 package org.akvo.flow.domain.interactor.forms;
 
+import org.akvo.flow.domain.entity.FormDownloadResult;
 import org.akvo.flow.domain.repository.FormRepository;
 import org.akvo.flow.domain.repository.UserRepository;
 
+import java.util.List;
+
 import javax.inject.Inject;
 
 import io.reactivex.Observable;
@@ -63,9 +66,9 @@ public class DownloadForms {
 
     private Observable buildUseCaseObservable() {
         return userRepository.getDeviceId()
-                .concatMap(new Function<String, Observable<Integer>>() {
+                .concatMap(new Function<String, Observable<List<FormDownloadResult>>>() {
                     @Override
-                    public Observable<Integer> apply(String deviceId) {
+                    public Observable<List<FormDownloadResult>> apply(String deviceId) {
                         return formRepository.downloadForms(deviceId);
                     }
                 });
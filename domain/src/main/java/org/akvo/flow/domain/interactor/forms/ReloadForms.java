@@ -20,12 +20,14 @@
 
 package org.akvo.flow.domain.interactor.forms;
 
+import org.akvo.flow.domain.entity.FormDownloadResult;
 import org.akvo.flow.domain.executor.PostExecutionThread;
 import org.akvo.flow.domain.executor.ThreadExecutor;
 import org.akvo.flow.domain.interactor.UseCase;
 import org.akvo.flow.domain.repository.FormRepository;
 import org.akvo.flow.domain.repository.UserRepository;
 
+import java.util.List;
 import java.util.Map;
 
 import javax.inject.Inject;
@@ -49,9 +51,9 @@ public class ReloadForms extends UseCase {
     @Override
     protected <T> Observable buildUseCaseObservable(final Map<String, T> parameters) {
         return userRepository.getDeviceId()
-                .concatMap(new Function<String, Observable<Integer>>() {
+                .concatMap(new Function<String, Observable<List<FormDownloadResult>>>() {
                     @Override
-                    public Observable<Integer> apply(String deviceId) {
+                    public Observable<List<FormDownloadResult>> apply(String deviceId) {
                         return formRepository.reloadForms(deviceId);
                     }
                 });
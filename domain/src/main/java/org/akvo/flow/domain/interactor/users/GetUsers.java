@@ -25,6 +25,7 @@ import androidx.core.util.Pair;
 
 import org.akvo.flow.domain.entity.User;
 import org.akvo.flow.domain.executor.PostExecutionThread;
+import org.akvo.flow.domain.executor.TaskPriority;
 import org.akvo.flow.domain.executor.ThreadExecutor;
 import org.akvo.flow.domain.interactor.UseCase;
 import org.akvo.flow.domain.repository.SurveyRepository;
@@ -70,4 +71,9 @@ public class GetUsers extends UseCase {
         }
         return new Pair<>(currentUser, users);
     }
+
+    @Override
+    protected TaskPriority getPriority() {
+        return TaskPriority.INTERACTIVE;
+    }
 }
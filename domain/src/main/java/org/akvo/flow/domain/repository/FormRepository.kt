@@ -21,13 +21,14 @@ package org.akvo.flow.domain.repository
 
 import io.reactivex.Observable
 import org.akvo.flow.domain.entity.DomainForm
+import org.akvo.flow.domain.entity.FormDownloadResult
 import java.io.File
 
 
 interface FormRepository {
     fun loadForm(formId: String?, deviceId: String?): Observable<Boolean?>?
-    fun reloadForms(deviceId: String?): Observable<Int?>?
-    fun downloadForms(deviceId: String?): Observable<Int?>?
+    fun reloadForms(deviceId: String?): Observable<List<FormDownloadResult>>
+    fun downloadForms(deviceId: String?): Observable<List<FormDownloadResult>>
     fun getForm(formId: String): DomainForm
     fun getForms(surveyId: Long): List<DomainForm>
     suspend fun loadFormLanguages(formId: String): Set<String>
@@ -23,9 +23,12 @@ package org.akvo.flow.domain.repository;
 import androidx.annotation.NonNull;
 
 import org.akvo.flow.domain.entity.DataPoint;
+import org.akvo.flow.domain.entity.DataPointCluster;
 import org.akvo.flow.domain.entity.DomainSurvey;
 import org.akvo.flow.domain.entity.FormInstanceMetadata;
+import org.akvo.flow.domain.entity.GeoBounds;
 import org.akvo.flow.domain.entity.InstanceIdUuid;
+import org.akvo.flow.domain.entity.UploadProgress;
 import org.akvo.flow.domain.entity.User;
 import org.jetbrains.annotations.Nullable;
 
@@ -43,6 +46,48 @@ public interface SurveyRepository {
     Observable<List<DataPoint>> getDataPoints(Long surveyGroupId, Double latitude,
             Double longitude, Integer orderBy);
 
+    /**
+     * @param filter text typed by the user, every word is matched as a prefix of the datapoint
+     *               name or id
+     * @param limit  maximum number of datapoints returned, 0 for no limit
+     */
+    Observable<List<DataPoint>> searchDataPoints(Long surveyGroupId, String filter,
+            Double latitude, Double longitude, Integer orderBy, int limit);
+
+    /**
+     * Live window of datapoints sorted by date, name or status
+     *
+     * @param start first datapoint of the window, null to start with the first datapoint
+     * @param limit maximum number of datapoints of the window
+     */
+    Observable<List<DataPoint>> getDataPointsPage(Long surveyGroupId, Integer orderBy,
+            @Nullable DataPoint start, int limit);
+
+    /**
+     * @return up to limit datapoints placed right before the given one, in display order
+     */
+    Observable<List<DataPoint>> getDataPointsBefore(Long surveyGroupId, Integer orderBy,
+            DataPoint end, int limit);
+
+    /**
+     * Live list of the located datapoints closest to the given location, followed by the ones
+     * without location if there are not enough located ones
+     */
+    Observable<List<DataPoint>> getNearestDataPoints(Long surveyGroupId, double latitude,
+            double longitude, int limit);
+
+    /**
+     * Live list of the datapoints located inside the given bounds
+     */
+    Observable<List<DataPoint>> getDataPointsInBounds(Long surveyGroupId, GeoBounds bounds);
+
+    /**
+     * Live list of the clusters of datapoints located inside the given bounds, empty if the
+     * zoom is high enough for the datapoints to be displayed one by one
+     */
+    Observable<List<DataPointCluster>> getDataPointClusters(Long surveyGroupId, GeoBounds bounds,
+            double zoom);
+
     Single<DataPoint> getDataPoint(String datapointId);
 
     Observable<Boolean> deleteSurvey(long surveyToDeleteId);
@@ -79,6 +124,8 @@ public interface SurveyRepository {
 
     Completable createTransmissions(Long instanceId, String formId, Set<String> fileNames);
 
+    Observable<UploadProgress> getUploadProgress();
+
     Observable<List<String>> getFormIds(String surveyId);
 
     Observable<List<String>> getFormIds();
@@ -29,6 +29,7 @@ public class Constants {
     public static final String LONGITUDE_PROPERTY = "longitude";
     public static final String ID_PROPERTY = "id";
     public static final String NAME_PROPERTY = "name";
+    public static final String POINT_COUNT_PROPERTY = "point_count";
 
     public static final String CALLING_SCREEN_EXTRA = "calling-screen-extra";
     public static final int CALLING_SCREEN_EXTRA_DIALOG = 0;
@@ -28,8 +28,20 @@ import io.reactivex.Maybe;
 
 public class OfflineSharedPreferenceDataSource {
 
+    public static final String PREFERENCES_NAME = "offline_prefs";
+
+    /**
+     * Storage offline regions may use before the least recently used ones are deleted
+     */
+    public static final long DEFAULT_STORAGE_BUDGET = 500L * 1024 * 1024;
+    public static final int DEFAULT_MAX_CONCURRENT_DOWNLOADS = 2;
+
     private static final long LONG_VALUE_UNSET = -1;
     private static final String KEY_OFFLINE_AREA_ID = "offline_area_id";
+    private static final String KEY_LAST_USED_PREFIX = "offline_area_last_used_";
+    private static final String KEY_STORAGE_BUDGET = "offline_storage_budget";
+    private static final String KEY_MAX_CONCURRENT_DOWNLOADS = "offline_max_concurrent_downloads";
+    private static final String KEY_AVERAGE_TILE_BYTES = "offline_average_tile_bytes";
 
     private final SharedPreferences preferences;
 
@@ -39,7 +51,7 @@ public class OfflineSharedPreferenceDataSource {
     }
 
     public Maybe<Long> getSelectedOfflineArea() {
-        long areaId = preferences.getLong(KEY_OFFLINE_AREA_ID, LONG_VALUE_UNSET);
+        long areaId = getSelectedOfflineAreaId();
         if (areaId == LONG_VALUE_UNSET) {
             return Maybe.empty();
         } else {
@@ -47,8 +59,63 @@ public class OfflineSharedPreferenceDataSource {
         }
     }
 
+    public long getSelectedOfflineAreaId() {
+        return preferences.getLong(KEY_OFFLINE_AREA_ID, LONG_VALUE_UNSET);
+    }
+
+    /**
+     * Both the previously selected area and the new one are marked as used
+     */
     public Completable saveSelectedOfflineArea(long areaId) {
-        preferences.edit().putLong(KEY_OFFLINE_AREA_ID, areaId).apply();
+        long now = System.currentTimeMillis();
+        SharedPreferences.Editor editor = preferences.edit();
+        long previousAreaId = getSelectedOfflineAreaId();
+        if (previousAreaId != LONG_VALUE_UNSET) {
+            editor.putLong(KEY_LAST_USED_PREFIX + previousAreaId, now);
+        }
+        if (areaId != LONG_VALUE_UNSET) {
+            editor.putLong(KEY_LAST_USED_PREFIX + areaId, now);
+        }
+        editor.putLong(KEY_OFFLINE_AREA_ID, areaId).apply();
         return Completable.complete();
     }
+
+    /**
+     * @return the time the area was last selected or downloaded, 0 if never
+     */
+    public long getLastUsedTime(long areaId) {
+        return preferences.getLong(KEY_LAST_USED_PREFIX + areaId, 0);
+    }
+
+    public void saveLastUsedTime(long areaId, long time) {
+        preferences.edit().putLong(KEY_LAST_USED_PREFIX + areaId, time).apply();
+    }
+
+    public void removeLastUsedTime(long areaId) {
+        preferences.edit().remove(KEY_LAST_USED_PREFIX + areaId).apply();
+    }
+
+    public long getStorageBudget() {
+        return preferences.getLong(KEY_STORAGE_BUDGET, DEFAULT_STORAGE_BUDGET);
+    }
+
+    public void saveStorageBudget(long bytes) {
+        preferences.edit().putLong(KEY_STORAGE_BUDGET, bytes).apply();
+    }
+
+    public int getMaxConcurrentDownloads() {
+        return preferences.getInt(KEY_MAX_CONCURRENT_DOWNLOADS, DEFAULT_MAX_CONCURRENT_DOWNLOADS);
+    }
+
+    public void saveMaxConcurrentDownloads(int maxDownloads) {
+        preferences.edit().putInt(KEY_MAX_CONCURRENT_DOWNLOADS, maxDownloads).apply();
+    }
+
+    public long getAverageTileBytes(long defaultBytes) {
+        return preferences.getLong(KEY_AVERAGE_TILE_BYTES, defaultBytes);
+    }
+
+    public void saveAverageTileBytes(long bytes) {
+        preferences.edit().putLong(KEY_AVERAGE_TILE_BYTES, bytes).apply();
+    }
 }
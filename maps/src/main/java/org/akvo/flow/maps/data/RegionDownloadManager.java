@@ -0,0 +1,434 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.maps.data;
+
+import android.os.SystemClock;
+
+import com.mapbox.mapboxsdk.offline.OfflineManager;
+import com.mapbox.mapboxsdk.offline.OfflineRegion;
+import com.mapbox.mapboxsdk.offline.OfflineRegionDefinition;
+import com.mapbox.mapboxsdk.offline.OfflineRegionError;
+import com.mapbox.mapboxsdk.offline.OfflineRegionStatus;
+
+import org.akvo.flow.mapbox.offline.reactive.DeleteOfflineRegion;
+import org.akvo.flow.mapbox.offline.reactive.GetOfflineRegions;
+import org.akvo.flow.mapbox.offline.reactive.RegionNameMapper;
+import org.akvo.flow.maps.domain.entity.RegionDownload;
+import org.akvo.flow.maps.domain.entity.RegionEstimate;
+import org.akvo.flow.maps.domain.entity.RegionEstimator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.subjects.BehaviorSubject;
+import kotlin.Pair;
+import timber.log.Timber;
+
+/**
+ * Single download queue for the offline regions of the app. Regions are created inactive and
+ * started in the order they were queued, at most {@link #getMaxConcurrentDownloads()} at a time
+ * so that queued regions do not compete for a slow connection. Before a region is created its
+ * estimated size is checked against the storage budget, deleting the least recently used
+ * regions to make room for it. The queue outlives the screens, it is a singleton of the
+ * application wide offline feature component.
+ *
+ * Mapbox calls back on the main thread, the queue is only modified there.
+ */
+public class RegionDownloadManager {
+
+    private static final long PROGRESS_INTERVAL_MS = 500;
+    private static final long THROUGHPUT_SAMPLE_MS = 1000;
+    private static final double THROUGHPUT_SMOOTHING = 0.3;
+
+    private final OfflineManager offlineManager;
+    private final OfflineSharedPreferenceDataSource preferences;
+    private final GetOfflineRegions getOfflineRegions;
+    private final DeleteOfflineRegion deleteOfflineRegion;
+    private final RegionNameMapper regionNameMapper;
+    private final Scheduler mainScheduler;
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final Set<Long> evictedRegionIds = Collections.synchronizedSet(new HashSet<>());
+    private final Map<Long, Download> downloads = new LinkedHashMap<>();
+    private final BehaviorSubject<List<RegionDownload>> downloadsSubject = BehaviorSubject
+            .createDefault(Collections.emptyList());
+
+    public RegionDownloadManager(OfflineManager offlineManager,
+            OfflineSharedPreferenceDataSource preferences, GetOfflineRegions getOfflineRegions,
+            DeleteOfflineRegion deleteOfflineRegion, RegionNameMapper regionNameMapper,
+            Scheduler mainScheduler) {
+        this.offlineManager = offlineManager;
+        this.preferences = preferences;
+        this.getOfflineRegions = getOfflineRegions;
+        this.deleteOfflineRegion = deleteOfflineRegion;
+        this.regionNameMapper = regionNameMapper;
+        this.mainScheduler = mainScheduler;
+    }
+
+    /**
+     * Emits the regions in the queue every time one of them progresses, completed regions are
+     * emitted once and then removed
+     */
+    public Observable<List<RegionDownload>> getDownloads() {
+        return downloadsSubject;
+    }
+
+    public int getMaxConcurrentDownloads() {
+        return preferences.getMaxConcurrentDownloads();
+    }
+
+    public void setMaxConcurrentDownloads(int maxDownloads) {
+        preferences.saveMaxConcurrentDownloads(Math.max(1, maxDownloads));
+        startNext();
+    }
+
+    public long getStorageBudget() {
+        return preferences.getStorageBudget();
+    }
+
+    public void setStorageBudget(long bytes) {
+        preferences.saveStorageBudget(bytes);
+    }
+
+    /**
+     * @return the average size of the tiles downloaded so far, to estimate new regions
+     */
+    public long getAverageTileBytes() {
+        return preferences.getAverageTileBytes(RegionEstimator.DEFAULT_AVERAGE_TILE_BYTES);
+    }
+
+    /**
+     * Makes room for the region in the storage budget, creates it and queues it. The room is
+     * reserved until the region is queued so that regions requested at the same time do not
+     * count on the same free space.
+     */
+    public Completable download(OfflineRegionDefinition definition, String name,
+            RegionEstimate estimate) {
+        long bytes = estimate.getBytes();
+        return makeRoom(bytes)
+                .andThen(createRegion(definition, name)
+                        .doOnSuccess(region -> enqueue(region, name, bytes))
+                        .doFinally(() -> reservedBytes.addAndGet(-bytes)))
+                .ignoreElement();
+    }
+
+    public void pause(long regionId) {
+        Download download = downloads.get(regionId);
+        if (download == null || !download.isActive()) {
+            return;
+        }
+        if (download.state == RegionDownload.State.DOWNLOADING) {
+            download.region.setDownloadState(OfflineRegion.STATE_INACTIVE);
+        }
+        download.state = RegionDownload.State.PAUSED;
+        publish();
+        startNext();
+    }
+
+    /**
+     * Queues a paused region again, regions left incomplete by a previous run of the app are
+     * looked up and queued as well
+     */
+    public Completable resume(long regionId) {
+        Download download = downloads.get(regionId);
+        if (download != null) {
+            if (download.state == RegionDownload.State.PAUSED) {
+                download.state = RegionDownload.State.QUEUED;
+                publish();
+                startNext();
+            }
+            return Completable.complete();
+        }
+        return getOfflineRegions.execute()
+                .observeOn(mainScheduler)
+                .doOnSuccess(regions -> {
+                    for (Pair<OfflineRegion, OfflineRegionStatus> pair : regions) {
+                        OfflineRegion region = pair.getFirst();
+                        if (region.getID() == regionId && !pair.getSecond().isComplete()
+                                && !downloads.containsKey(regionId)) {
+                            enqueue(region, regionNameMapper.getRegionName(region), 0);
+                        }
+                    }
+                })
+                .ignoreElement();
+    }
+
+    /**
+     * Stops downloading the region and removes it from the queue, before it is deleted
+     */
+    public void cancel(long regionId) {
+        Download download = downloads.remove(regionId);
+        if (download != null) {
+            if (download.state == RegionDownload.State.DOWNLOADING) {
+                download.region.setDownloadState(OfflineRegion.STATE_INACTIVE);
+            }
+            download.region.setObserver(null);
+            publish();
+            startNext();
+        }
+    }
+
+    /**
+     * Deletes the least recently used complete regions until the new one fits in the budget and
+     * reserves its bytes, the caller releases them once the region is queued.
+     * Regions being downloaded and the selected one are never deleted.
+     */
+    @VisibleForTesting
+    Completable makeRoom(long bytes) {
+        return getOfflineRegions.execute()
+                .observeOn(mainScheduler)
+                .flatMapCompletable(regions -> {
+                    long budget = preferences.getStorageBudget();
+                    long selectedRegionId = preferences.getSelectedOfflineAreaId();
+                    long used = remainingQueuedBytes() + reservedBytes.get();
+                    List<Pair<OfflineRegion, OfflineRegionStatus>> evictable = new ArrayList<>();
+                    for (Pair<OfflineRegion, OfflineRegionStatus> pair : regions) {
+                        long regionId = pair.getFirst().getID();
+                        if (evictedRegionIds.contains(regionId)) {
+                            // being deleted to make room for another region
+                            continue;
+                        }
+                        used += pair.getSecond().getCompletedResourceSize();
+                        if (pair.getSecond().isComplete() && regionId != selectedRegionId
+                                && !downloads.containsKey(regionId)) {
+                            evictable.add(pair);
+                        }
+                    }
+                    Collections.sort(evictable, (first, second) -> Long.compare(
+                            preferences.getLastUsedTime(first.getFirst().getID()),
+                            preferences.getLastUsedTime(second.getFirst().getID())));
+                    List<Long> deletions = new ArrayList<>();
+                    for (Pair<OfflineRegion, OfflineRegionStatus> pair : evictable) {
+                        if (used + bytes <= budget) {
+                            break;
+                        }
+                        long regionId = pair.getFirst().getID();
+                        deletions.add(regionId);
+                        used -= pair.getSecond().getCompletedResourceSize();
+                    }
+                    if (used + bytes > budget) {
+                        return Completable.error(new StorageBudgetException(bytes, budget));
+                    }
+                    reservedBytes.addAndGet(bytes);
+                    evictedRegionIds.addAll(deletions);
+                    return deleteRegions(deletions)
+                            .doOnError(throwable -> reservedBytes.addAndGet(-bytes))
+                            .doOnDispose(() -> reservedBytes.addAndGet(-bytes));
+                });
+    }
+
+    private Completable deleteRegions(List<Long> regionIds) {
+        List<Completable> deletions = new ArrayList<>(regionIds.size());
+        for (long regionId : regionIds) {
+            Timber.d("Deleting least recently used offline region %d", regionId);
+            deletions.add(deleteOfflineRegion.execute(regionId)
+                    .doOnComplete(() -> preferences.removeLastUsedTime(regionId))
+                    .doFinally(() -> evictedRegionIds.remove(regionId)));
+        }
+        return Completable.concat(deletions);
+    }
+
+    private long remainingQueuedBytes() {
+        long bytes = 0;
+        for (Download download : downloads.values()) {
+            if (download.isActive() || download.state == RegionDownload.State.PAUSED) {
+                bytes += Math.max(0, download.estimatedBytes - download.completedBytes);
+            }
+        }
+        return bytes;
+    }
+
+    private Single<OfflineRegion> createRegion(OfflineRegionDefinition definition, String name) {
+        return Single.<OfflineRegion>create(emitter -> offlineManager.createOfflineRegion(
+                definition, regionNameMapper.getRegionMetadata(name),
+                new OfflineManager.CreateOfflineRegionCallback() {
+                    @Override
+                    public void onCreate(OfflineRegion offlineRegion) {
+                        Timber.d("Offline region created: %s", name);
+                        emitter.onSuccess(offlineRegion);
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        emitter.onError(new IllegalStateException(error));
+                    }
+                })).subscribeOn(mainScheduler);
+    }
+
+    private void enqueue(OfflineRegion region, String name, long estimatedBytes) {
+        downloads.put(region.getID(), new Download(region, name, estimatedBytes));
+        publish();
+        startNext();
+    }
+
+    private void startNext() {
+        int active = 0;
+        for (Download download : downloads.values()) {
+            if (download.state == RegionDownload.State.DOWNLOADING) {
+                active++;
+            }
+        }
+        int maxDownloads = preferences.getMaxConcurrentDownloads();
+        for (Download download : downloads.values()) {
+            if (active >= maxDownloads) {
+                break;
+            }
+            if (download.state == RegionDownload.State.QUEUED) {
+                start(download);
+                active++;
+            }
+        }
+    }
+
+    private void start(Download download) {
+        download.state = RegionDownload.State.DOWNLOADING;
+        download.sampleTime = 0;
+        download.bytesPerSecond = 0;
+        download.region.setObserver(new OfflineRegion.OfflineRegionObserver() {
+            @Override
+            public void onStatusChanged(OfflineRegionStatus status) {
+                onDownloadStatusChanged(download, status);
+            }
+
+            @Override
+            public void onError(OfflineRegionError error) {
+                // mapbox keeps retrying the resources which failed
+                Timber.w("Offline region %d error: %s", download.region.getID(),
+                        error.getMessage());
+            }
+
+            @Override
+            public void mapboxTileCountLimitExceeded(long limit) {
+                Timber.w("Offline region %d exceeds the tile limit %d", download.region.getID(),
+                        limit);
+                download.region.setDownloadState(OfflineRegion.STATE_INACTIVE);
+                download.state = RegionDownload.State.FAILED;
+                publish();
+                startNext();
+            }
+        });
+        download.region.setDownloadState(OfflineRegion.STATE_ACTIVE);
+        publish();
+    }
+
+    private void onDownloadStatusChanged(Download download, OfflineRegionStatus status) {
+        if (download.state != RegionDownload.State.DOWNLOADING) {
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        download.update(status, now);
+        if (status.isComplete()) {
+            download.region.setDownloadState(OfflineRegion.STATE_INACTIVE);
+            download.region.setObserver(null);
+            download.state = RegionDownload.State.COMPLETE;
+            download.bytesPerSecond = 0;
+            long regionId = download.region.getID();
+            preferences.saveLastUsedTime(regionId, System.currentTimeMillis());
+            if (status.getCompletedTileCount() > 0) {
+                preferences.saveAverageTileBytes(
+                        status.getCompletedTileSize() / status.getCompletedTileCount());
+            }
+            publish();
+            downloads.remove(regionId);
+            publish();
+            startNext();
+        } else if (now - download.publishTime >= PROGRESS_INTERVAL_MS) {
+            download.publishTime = now;
+            publish();
+        }
+    }
+
+    private void publish() {
+        List<RegionDownload> regionDownloads = new ArrayList<>(downloads.size());
+        for (Download download : downloads.values()) {
+            regionDownloads.add(download.toRegionDownload());
+        }
+        downloadsSubject.onNext(regionDownloads);
+    }
+
+    public static class StorageBudgetException extends Exception {
+
+        StorageBudgetException(long bytes, long budget) {
+            super("Region of " + bytes + " bytes does not fit in the budget of " + budget);
+        }
+    }
+
+    private static class Download {
+
+        final OfflineRegion region;
+        final String name;
+        final long estimatedBytes;
+        RegionDownload.State state = RegionDownload.State.QUEUED;
+        long completedResources;
+        long requiredResources;
+        long completedBytes;
+        double bytesPerSecond;
+        long sampleTime;
+        long sampleBytes;
+        long publishTime;
+
+        Download(OfflineRegion region, String name, long estimatedBytes) {
+            this.region = region;
+            this.name = name;
+            this.estimatedBytes = estimatedBytes;
+        }
+
+        boolean isActive() {
+            return state == RegionDownload.State.QUEUED
+                    || state == RegionDownload.State.DOWNLOADING;
+        }
+
+        /**
+         * The throughput is measured over samples of a second and smoothed so that it does not
+         * jump with each tile
+         */
+        void update(@NonNull OfflineRegionStatus status, long now) {
+            completedResources = status.getCompletedResourceCount();
+            requiredResources = status.getRequiredResourceCount();
+            completedBytes = status.getCompletedResourceSize();
+            if (sampleTime == 0) {
+                sampleTime = now;
+                sampleBytes = completedBytes;
+            } else if (now - sampleTime >= THROUGHPUT_SAMPLE_MS) {
+                double rate = (completedBytes - sampleBytes) * 1000d / (now - sampleTime);
+                bytesPerSecond = bytesPerSecond == 0 ? rate
+                        : THROUGHPUT_SMOOTHING * rate + (1 - THROUGHPUT_SMOOTHING) * bytesPerSecond;
+                sampleTime = now;
+                sampleBytes = completedBytes;
+            }
+        }
+
+        RegionDownload toRegionDownload() {
+            return new RegionDownload(region.getID(), name, state, completedResources,
+                    requiredResources, completedBytes, estimatedBytes, bytesPerSecond);
+        }
+    }
+}
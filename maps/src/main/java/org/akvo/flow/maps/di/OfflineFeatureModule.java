@@ -33,6 +33,7 @@ import org.akvo.flow.mapbox.offline.reactive.RenameOfflineRegion;
 import org.akvo.flow.maps.data.DataPreferencesRepository;
 import org.akvo.flow.maps.data.DataRegionRepository;
 import org.akvo.flow.maps.data.OfflineSharedPreferenceDataSource;
+import org.akvo.flow.maps.data.RegionDownloadManager;
 import org.akvo.flow.maps.domain.PreferencesRepository;
 import org.akvo.flow.maps.domain.RegionRepository;
 import org.akvo.flow.maps.domain.entity.DomainOfflineAreaMapper;
@@ -43,6 +44,7 @@ import javax.inject.Singleton;
 
 import dagger.Module;
 import dagger.Provides;
+import io.reactivex.android.schedulers.AndroidSchedulers;
 
 @Module
 public class OfflineFeatureModule {
@@ -69,7 +71,8 @@ public class OfflineFeatureModule {
     @Provides
     SharedPreferences providesSharedPreferences(Context context) {
         return context.getApplicationContext()
-                .getSharedPreferences("offline_prefs", Context.MODE_PRIVATE);
+                .getSharedPreferences(OfflineSharedPreferenceDataSource.PREFERENCES_NAME,
+                        Context.MODE_PRIVATE);
     }
 
     @Singleton
@@ -119,6 +122,15 @@ public class OfflineFeatureModule {
         return OfflineManager.getInstance(context);
     }
 
+    @Singleton
+    @Provides
+    RegionDownloadManager providesRegionDownloadManager(OfflineManager offlineManager,
+            OfflineSharedPreferenceDataSource preferences, GetOfflineRegions getOfflineRegions,
+            DeleteOfflineRegion deleteOfflineRegion, RegionNameMapper regionNameMapper) {
+        return new RegionDownloadManager(offlineManager, preferences, getOfflineRegions,
+                deleteOfflineRegion, regionNameMapper, AndroidSchedulers.mainThread());
+    }
+
     @Provides
     GetSelectedOfflineMapInfo provideGetSelectedOfflineMapInfo(
             PreferencesRepository preferenceRepository, RegionRepository regionRepository) {
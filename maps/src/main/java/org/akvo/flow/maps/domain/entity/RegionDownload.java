@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.maps.domain.entity;
+
+/**
+ * Progress of a region in the download queue
+ */
+public class RegionDownload {
+
+    public enum State {
+        QUEUED, DOWNLOADING, PAUSED, COMPLETE, FAILED
+    }
+
+    private final long regionId;
+    private final String name;
+    private final State state;
+    private final long completedResources;
+    private final long requiredResources;
+    private final long completedBytes;
+    private final long estimatedBytes;
+    private final double bytesPerSecond;
+
+    public RegionDownload(long regionId, String name, State state, long completedResources,
+            long requiredResources, long completedBytes, long estimatedBytes,
+            double bytesPerSecond) {
+        this.regionId = regionId;
+        this.name = name;
+        this.state = state;
+        this.completedResources = completedResources;
+        this.requiredResources = requiredResources;
+        this.completedBytes = completedBytes;
+        this.estimatedBytes = estimatedBytes;
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    public long getRegionId() {
+        return regionId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getCompletedResources() {
+        return completedResources;
+    }
+
+    public long getRequiredResources() {
+        return requiredResources;
+    }
+
+    public long getCompletedBytes() {
+        return completedBytes;
+    }
+
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * @return the download speed averaged over the last seconds, 0 when not downloading
+     */
+    public double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * @return the percentage of resources downloaded, the number of resources required grows
+     * a little as the style and the first tiles are parsed
+     */
+    public int getProgress() {
+        if (requiredResources <= 0) {
+            return 0;
+        }
+        return (int) Math.min(100, completedResources * 100 / requiredResources);
+    }
+
+    public boolean isActive() {
+        return state == State.QUEUED || state == State.DOWNLOADING;
+    }
+}
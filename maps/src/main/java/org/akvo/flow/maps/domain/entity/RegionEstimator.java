@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.maps.domain.entity;
+
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
+
+import javax.inject.Inject;
+
+/**
+ * Estimates the number of tiles and the storage needed by a region before it is downloaded.
+ * Tiles are counted the way mapbox covers the bounds with 512 pixels vector tiles on each zoom
+ * level, their size is the average one of the previous downloads.
+ */
+public class RegionEstimator {
+
+    /**
+     * Number of tiles mapbox allows to download by default
+     */
+    public static final long MAPBOX_TILE_COUNT_LIMIT = 6000;
+
+    /**
+     * Average size of a streets vector tile, used until a region has been downloaded
+     */
+    public static final long DEFAULT_AVERAGE_TILE_BYTES = 20 * 1024;
+
+    /**
+     * Style, sprites and glyphs downloaded along with the tiles of each region
+     */
+    private static final long STYLE_RESOURCES_BYTES = 2 * 1024 * 1024;
+
+    private static final double MAX_LATITUDE = 85.051128779806;
+
+    @Inject
+    public RegionEstimator() {
+    }
+
+    public RegionEstimate estimate(LatLngBounds bounds, double minZoom, double maxZoom,
+            long averageTileBytes) {
+        long tileCount = 0;
+        for (int zoom = (int) Math.floor(minZoom); zoom <= (int) Math.ceil(maxZoom); zoom++) {
+            tileCount += tileCount(bounds, zoom);
+        }
+        return new RegionEstimate(tileCount,
+                tileCount * averageTileBytes + STYLE_RESOURCES_BYTES);
+    }
+
+    private long tileCount(LatLngBounds bounds, int zoom) {
+        long tiles = 1L << zoom;
+        long west = tileX(bounds.getLonWest(), tiles);
+        long east = tileX(bounds.getLonEast(), tiles);
+        long columns = east >= west ? east - west + 1 : tiles - west + east + 1;
+        long rows = tileY(bounds.getLatSouth(), tiles) - tileY(bounds.getLatNorth(), tiles) + 1;
+        return columns * rows;
+    }
+
+    private long tileX(double longitude, long tiles) {
+        return clamp((long) Math.floor((longitude + 180) / 360 * tiles), tiles);
+    }
+
+    /**
+     * Web mercator row of the latitude, rows grow southwards
+     */
+    private long tileY(double latitude, long tiles) {
+        double radians = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)));
+        double y = (1 - Math.log(Math.tan(radians) + 1 / Math.cos(radians)) / Math.PI) / 2;
+        return clamp((long) Math.floor(y * tiles), tiles);
+    }
+
+    private long clamp(long tile, long tiles) {
+        return Math.max(0, Math.min(tiles - 1, tile));
+    }
+}
@@ -33,6 +33,7 @@ import com.mapbox.geojson.FeatureCollection;
 import com.mapbox.mapboxsdk.camera.CameraPosition;
 import com.mapbox.mapboxsdk.camera.CameraUpdateFactory;
 import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
 import com.mapbox.mapboxsdk.location.LocationComponent;
 import com.mapbox.mapboxsdk.location.LocationComponentActivationOptions;
 import com.mapbox.mapboxsdk.location.modes.CameraMode;
@@ -49,9 +50,9 @@ import com.mapbox.mapboxsdk.style.layers.SymbolLayer;
 import com.mapbox.mapboxsdk.style.sources.GeoJsonOptions;
 import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
 
+import org.akvo.flow.maps.Constants;
 import org.akvo.flow.maps.R;
-import org.akvo.flow.maps.di.DaggerOfflineFeatureComponent;
-import org.akvo.flow.maps.di.OfflineFeatureModule;
+import org.akvo.flow.maps.di.OfflineFeatureComponentProvider;
 import org.akvo.flow.maps.domain.entity.MapInfo;
 import org.akvo.flow.maps.presentation.infowindow.InfoWindowLayout;
 
@@ -62,7 +63,6 @@ import javax.inject.Inject;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
 import androidx.core.content.PermissionChecker;
 import androidx.fragment.app.FragmentActivity;
@@ -95,7 +95,9 @@ public class MapBoxMapItemListViewImpl extends MapView implements OnMapReadyCall
 
     private static final String MARKER_IMAGE = "custom-marker";
     private static final String SOURCE_ID = "points";
-    private static final String POINT_COUNT = "point_count";
+    private static final String TILE_CLUSTERS_SOURCE_ID = "tile-clusters";
+    private static final String TILE_CLUSTERS_LAYER_PREFIX = "tile-";
+    private static final String POINT_COUNT = Constants.POINT_COUNT_PROPERTY;
     private static final String UN_CLUSTERED_POINTS = "un-clustered-points";
 
     private SelectionManager selectionManager;
@@ -103,8 +105,12 @@ public class MapBoxMapItemListViewImpl extends MapView implements OnMapReadyCall
     @Nullable
     private MapboxMap mapboxMap;
     private GeoJsonSource source;
+    private GeoJsonSource tileClustersSource;
     private MapReadyCallback callback;
 
+    @Nullable
+    private ViewportListener viewportListener;
+
     @Inject
     MapBoxMapPresenter presenter;
 
@@ -136,12 +142,9 @@ public class MapBoxMapItemListViewImpl extends MapView implements OnMapReadyCall
     }
 
     private void initialiseInjector(Context context) {
-        DaggerOfflineFeatureComponent
-                .builder()
-                .offlineFeatureModule(
-                        new OfflineFeatureModule(((AppCompatActivity) context).getApplication()))
-                .build()
-                .inject(this);
+        OfflineFeatureComponentProvider provider =
+                (OfflineFeatureComponentProvider) context.getApplicationContext();
+        provider.getOfflineFeatureComponent().inject(this);
     }
 
     public void getMapAsyncWithCallback(MapReadyCallback callback) {
@@ -149,6 +152,10 @@ public class MapBoxMapItemListViewImpl extends MapView implements OnMapReadyCall
         getMapAsync(this);
     }
 
+    public void setViewportListener(@Nullable ViewportListener viewportListener) {
+        this.viewportListener = viewportListener;
+    }
+
     @Override
     public void onMapReady(@NonNull MapboxMap mapboxMap) {
         this.mapboxMap = mapboxMap;
@@ -156,19 +163,31 @@ public class MapBoxMapItemListViewImpl extends MapView implements OnMapReadyCall
                 getSelectionListener(getContext()));
         this.mapboxMap.addOnMapClickListener(this);
         addScaleAndMoveListeners();
+        this.mapboxMap.addOnCameraIdleListener(this::notifyViewportChanged);
 
         this.mapboxMap.setStyle(Style.MAPBOX_STREETS, style -> {
             style.addImage(MARKER_IMAGE, BitmapFactory.decodeResource(
                     getResources(), R.drawable.marker), true);
             addClusteredGeoJsonSource(style, new ArrayList<>());
+            addTileClustersSource(style);
             if (callback != null) {
                 callback.onMapReady();
                 callback = null;
             }
+            notifyViewportChanged();
             presenter.loadOfflineSettings();
         });
     }
 
+    private void notifyViewportChanged() {
+        if (mapboxMap != null && viewportListener != null) {
+            LatLngBounds bounds = mapboxMap.getProjection().getVisibleRegion().latLngBounds;
+            viewportListener.onViewportChanged(bounds.getLatSouth(), bounds.getLonWest(),
+                    bounds.getLatNorth(), bounds.getLonEast(),
+                    mapboxMap.getCameraPosition().zoom);
+        }
+    }
+
     /**
      * When the map is zoomed or moved the displayed window popup may get displaced compared to the
      * marker itself or the marker may get clustered and the popup becomes orphaned
@@ -228,10 +247,22 @@ public class MapBoxMapItemListViewImpl extends MapView implements OnMapReadyCall
     private void addClusteredGeoJsonSource(@NonNull Style loadedMapStyle, List<Feature> features) {
         addGeoJsonSource(loadedMapStyle, FeatureCollection.fromFeatures(features));
         addUnClusteredLayer(loadedMapStyle);
-        addClusteredLayers(loadedMapStyle);
+        addClusteredLayers(loadedMapStyle, SOURCE_ID, "");
+    }
+
+    /**
+     * Clusters already computed from the stored tiles, displayed with the same layers as the
+     * ones mapbox computes, instead of the points themselves
+     */
+    private void addTileClustersSource(@NonNull Style loadedMapStyle) {
+        tileClustersSource = new GeoJsonSource(TILE_CLUSTERS_SOURCE_ID,
+                FeatureCollection.fromFeatures(new ArrayList<>()));
+        loadedMapStyle.addSource(tileClustersSource);
+        addClusteredLayers(loadedMapStyle, TILE_CLUSTERS_SOURCE_ID, TILE_CLUSTERS_LAYER_PREFIX);
     }
 
-    private void addClusteredLayers(@NonNull Style loadedMapStyle) {
+    private void addClusteredLayers(@NonNull Style loadedMapStyle, String sourceId,
+            String layerPrefix) {
         int[][] layers = new int[][] {
                 new int[] { 50, Color.parseColor("#009954") },
                 new int[] { 20, Color.parseColor("#007B99") },
@@ -239,14 +270,15 @@ public class MapBoxMapItemListViewImpl extends MapView implements OnMapReadyCall
         };
 
         for (int i = 0; i < layers.length; i++) {
-            addClusterLayer(loadedMapStyle, layers, i);
+            addClusterLayer(loadedMapStyle, layers, i, sourceId, layerPrefix);
         }
-        addCountLabels(loadedMapStyle);
+        addCountLabels(loadedMapStyle, sourceId, layerPrefix);
     }
 
-    private void addClusterLayer(@NonNull Style loadedMapStyle, int[][] layers, int layer) {
+    private void addClusterLayer(@NonNull Style loadedMapStyle, int[][] layers, int layer,
+            String sourceId, String layerPrefix) {
         int layerColor = layers[layer][1];
-        CircleLayer circles = new CircleLayer("cluster-" + layer, SOURCE_ID);
+        CircleLayer circles = new CircleLayer(layerPrefix + "cluster-" + layer, sourceId);
         circles.setProperties(
                 circleColor(layerColor),
                 circleRadius(18f)
@@ -266,8 +298,9 @@ public class MapBoxMapItemListViewImpl extends MapView implements OnMapReadyCall
         loadedMapStyle.addLayer(circles);
     }
 
-    private void addCountLabels(@NonNull Style loadedMapStyle) {
-        SymbolLayer count = new SymbolLayer("count", SOURCE_ID);
+    private void addCountLabels(@NonNull Style loadedMapStyle, String sourceId,
+            String layerPrefix) {
+        SymbolLayer count = new SymbolLayer(layerPrefix + "count", sourceId);
         count.setProperties(
                 textField(Expression.toString(get(POINT_COUNT))),
                 textSize(12f),
@@ -355,6 +388,23 @@ public class MapBoxMapItemListViewImpl extends MapView implements OnMapReadyCall
         if (source != null) {
             source.setGeoJson(featureCollection);
         }
+        if (tileClustersSource != null) {
+            tileClustersSource.setGeoJson(FeatureCollection.fromFeatures(new ArrayList<>()));
+        }
+        selectionManager.unSelectFeature();
+    }
+
+    /**
+     * Displays clusters of datapoints, each feature being a point with its number of datapoints
+     * in the {@link Constants#POINT_COUNT_PROPERTY} property, in place of the datapoints
+     */
+    public void displayDataPointClusters(FeatureCollection clusters) {
+        if (tileClustersSource != null) {
+            tileClustersSource.setGeoJson(clusters);
+        }
+        if (source != null) {
+            source.setGeoJson(FeatureCollection.fromFeatures(new ArrayList<>()));
+        }
         selectionManager.unSelectFeature();
     }
 
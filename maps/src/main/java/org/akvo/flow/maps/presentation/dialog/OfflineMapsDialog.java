@@ -31,8 +31,7 @@ import android.widget.TextView;
 
 import org.akvo.flow.maps.Constants;
 import org.akvo.flow.maps.R;
-import org.akvo.flow.maps.di.DaggerOfflineFeatureComponent;
-import org.akvo.flow.maps.di.OfflineFeatureModule;
+import org.akvo.flow.maps.di.OfflineFeatureComponentProvider;
 import org.akvo.flow.maps.domain.entity.DomainOfflineArea;
 import org.akvo.flow.maps.presentation.Navigator;
 import org.akvo.flow.maps.presentation.OfflineMapSelectedListener;
@@ -138,11 +137,9 @@ public class OfflineMapsDialog extends DialogFragment implements OfflineMapsView
     }
 
     private void initialiseInjector() {
-        DaggerOfflineFeatureComponent
-                .builder()
-                .offlineFeatureModule(new OfflineFeatureModule(getActivity().getApplication()))
-                .build()
-                .inject(this);
+        OfflineFeatureComponentProvider provider =
+                (OfflineFeatureComponentProvider) getActivity().getApplication();
+        provider.getOfflineFeatureComponent().inject(this);
     }
 
     @Override
@@ -24,11 +24,13 @@ import android.os.Bundle;
 import android.text.Editable;
 import android.text.TextUtils;
 import android.text.TextWatcher;
+import android.text.format.Formatter;
 import android.view.View;
 import android.view.WindowManager;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.ProgressBar;
+import android.widget.TextView;
 
 import com.mapbox.mapboxsdk.geometry.LatLngBounds;
 import com.mapbox.mapboxsdk.maps.MapView;
@@ -37,8 +39,8 @@ import com.mapbox.mapboxsdk.maps.Style;
 
 import org.akvo.flow.maps.Constants;
 import org.akvo.flow.maps.R;
-import org.akvo.flow.maps.di.DaggerOfflineFeatureComponent;
-import org.akvo.flow.maps.di.OfflineFeatureModule;
+import org.akvo.flow.maps.di.OfflineFeatureComponentProvider;
+import org.akvo.flow.maps.domain.entity.RegionEstimate;
 import org.akvo.flow.maps.presentation.Navigator;
 import org.akvo.flow.maps.tracking.TrackingHelper;
 import org.akvo.flow.uicomponents.BackActivity;
@@ -55,6 +57,8 @@ public class OfflineMapDownloadActivity extends BackActivity
     private Button saveBt;
     private EditText mapNameEt;
     private ProgressBar downloadProgress;
+    private TextView estimateTv;
+    private boolean tooManyTiles;
     private MapboxMap mapboxMap;
     private int callingScreen;
     private TrackingHelper trackingHelper;
@@ -87,11 +91,9 @@ public class OfflineMapDownloadActivity extends BackActivity
     }
 
     private void initialiseInjector() {
-        DaggerOfflineFeatureComponent
-                .builder()
-                .offlineFeatureModule(new OfflineFeatureModule(getApplication()))
-                .build()
-                .inject(this);
+        OfflineFeatureComponentProvider provider =
+                (OfflineFeatureComponentProvider) getApplication();
+        provider.getOfflineFeatureComponent().inject(this);
     }
 
     private void setupMap(Bundle savedInstanceState) {
@@ -130,14 +132,15 @@ public class OfflineMapDownloadActivity extends BackActivity
 
             @Override
             public void afterTextChanged(Editable s) {
-                if (TextUtils.isEmpty(mapNameEt.getText().toString())) {
-                    saveBt.setEnabled(false);
-                } else {
-                    saveBt.setEnabled(true);
-                }
+                updateSaveButton();
             }
         });
         downloadProgress = findViewById(R.id.offline_map_download_progress);
+        estimateTv = findViewById(R.id.offline_map_estimate);
+    }
+
+    private void updateSaveButton() {
+        saveBt.setEnabled(!TextUtils.isEmpty(mapNameEt.getText().toString()) && !tooManyTiles);
     }
 
     private void setUpMapBox(MapboxMap mapboxMap) {
@@ -145,6 +148,14 @@ public class OfflineMapDownloadActivity extends BackActivity
         mapboxMap.setStyle(Style.MAPBOX_STREETS, style -> {
             //EMPTY
         });
+        mapboxMap.addOnCameraIdleListener(this::estimateArea);
+    }
+
+    private void estimateArea() {
+        if (mapboxMap != null) {
+            LatLngBounds bounds = mapboxMap.getProjection().getVisibleRegion().latLngBounds;
+            presenter.estimateArea(bounds, mapboxMap.getCameraPosition().zoom);
+        }
     }
 
     @Override
@@ -190,6 +201,22 @@ public class OfflineMapDownloadActivity extends BackActivity
         mapView.onLowMemory();
     }
 
+    @Override
+    public void showEstimate(RegionEstimate estimate) {
+        tooManyTiles = false;
+        estimateTv.setText(getString(R.string.offline_map_estimate, estimate.getTileCount(),
+                Formatter.formatShortFileSize(this, estimate.getBytes())));
+        updateSaveButton();
+    }
+
+    @Override
+    public void showTooManyTiles(RegionEstimate estimate) {
+        tooManyTiles = true;
+        estimateTv.setText(getString(R.string.offline_map_too_many_tiles,
+                estimate.getTileCount()));
+        updateSaveButton();
+    }
+
     @Override
     public void showProgress() {
         saveBt.setEnabled(false);
@@ -207,7 +234,14 @@ public class OfflineMapDownloadActivity extends BackActivity
     @Override
     public void showOfflineAreaError() {
         downloadProgress.setVisibility(View.GONE);
-        saveBt.setEnabled(true);
+        updateSaveButton();
         snackBarManager.displaySnackBar(downloadProgress, R.string.offline_map_create_error);
     }
+
+    @Override
+    public void showStorageBudgetError() {
+        downloadProgress.setVisibility(View.GONE);
+        updateSaveButton();
+        snackBarManager.displaySnackBar(downloadProgress, R.string.offline_map_budget_error);
+    }
 }
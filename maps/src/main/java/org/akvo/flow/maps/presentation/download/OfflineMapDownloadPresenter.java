@@ -21,59 +21,92 @@ package org.akvo.flow.maps.presentation.download;
 
 import com.mapbox.mapboxsdk.constants.MapboxConstants;
 import com.mapbox.mapboxsdk.geometry.LatLngBounds;
-import com.mapbox.mapboxsdk.offline.OfflineManager;
-import com.mapbox.mapboxsdk.offline.OfflineRegion;
 import com.mapbox.mapboxsdk.offline.OfflineTilePyramidRegionDefinition;
 
-import org.akvo.flow.mapbox.offline.reactive.RegionNameMapper;
+import org.akvo.flow.maps.data.RegionDownloadManager;
+import org.akvo.flow.maps.domain.entity.RegionEstimate;
+import org.akvo.flow.maps.domain.entity.RegionEstimator;
 
 import javax.inject.Inject;
 
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.observers.DisposableCompletableObserver;
 import timber.log.Timber;
 
 public class OfflineMapDownloadPresenter {
 
-    private final OfflineManager offlineManager;
-    private final RegionNameMapper regionNameMapper;
+    private static final double ZOOM_RANGE = 2;
+
+    private final RegionDownloadManager regionDownloadManager;
+    private final RegionEstimator regionEstimator;
+    private final CompositeDisposable disposables;
     private OfflineMapDownloadView view;
 
     @Inject
-    public OfflineMapDownloadPresenter(OfflineManager offlineManager,
-            RegionNameMapper regionNameMapper) {
-        this.offlineManager = offlineManager;
-        this.regionNameMapper = regionNameMapper;
+    public OfflineMapDownloadPresenter(RegionDownloadManager regionDownloadManager,
+            RegionEstimator regionEstimator) {
+        this.regionDownloadManager = regionDownloadManager;
+        this.regionEstimator = regionEstimator;
+        this.disposables = new CompositeDisposable();
     }
 
     public void destroy() {
-        //EMPTY
+        if (!disposables.isDisposed()) {
+            disposables.clear();
+        }
     }
 
     public void setView(OfflineMapDownloadView view) {
         this.view = view;
     }
 
+    /**
+     * Displays the number of tiles and the storage the visible area would take
+     */
+    public void estimateArea(LatLngBounds bounds, double zoom) {
+        RegionEstimate estimate = estimate(bounds, zoom);
+        if (estimate.getTileCount() > RegionEstimator.MAPBOX_TILE_COUNT_LIMIT) {
+            view.showTooManyTiles(estimate);
+        } else {
+            view.showEstimate(estimate);
+        }
+    }
+
     public void downloadArea(String styleUrl, LatLngBounds bounds, float pixelRatio, double zoom,
             String regionName) {
         view.showProgress();
-        double minZoom = Math.max(zoom - 2, MapboxConstants.MINIMUM_ZOOM);
-        double maxZoom = Math.min(zoom + 2, MapboxConstants.MAXIMUM_ZOOM);
         OfflineTilePyramidRegionDefinition definition = new OfflineTilePyramidRegionDefinition(
-                styleUrl, bounds, minZoom, maxZoom, pixelRatio);
-        byte[] metadata = regionNameMapper.getRegionMetadata(regionName);
-        offlineManager.createOfflineRegion(definition, metadata,
-                new OfflineManager.CreateOfflineRegionCallback() {
+                styleUrl, bounds, getMinZoom(zoom), getMaxZoom(zoom), pixelRatio);
+        disposables.add(regionDownloadManager
+                .download(definition, regionName, estimate(bounds, zoom))
+                .subscribeWith(new DisposableCompletableObserver() {
                     @Override
-                    public void onCreate(OfflineRegion offlineRegion) {
-                        Timber.d("Offline region created: %s", regionName);
-                        offlineRegion.setDownloadState(OfflineRegion.STATE_ACTIVE);
+                    public void onComplete() {
                         view.navigateToMapsList();
                     }
 
                     @Override
-                    public void onError(String error) {
-                        Timber.e("Error: %s", error);
-                        view.showOfflineAreaError();
+                    public void onError(Throwable e) {
+                        Timber.e(e);
+                        if (e instanceof RegionDownloadManager.StorageBudgetException) {
+                            view.showStorageBudgetError();
+                        } else {
+                            view.showOfflineAreaError();
+                        }
                     }
-                });
+                }));
+    }
+
+    private RegionEstimate estimate(LatLngBounds bounds, double zoom) {
+        return regionEstimator.estimate(bounds, getMinZoom(zoom), getMaxZoom(zoom),
+                regionDownloadManager.getAverageTileBytes());
+    }
+
+    private double getMinZoom(double zoom) {
+        return Math.max(zoom - ZOOM_RANGE, MapboxConstants.MINIMUM_ZOOM);
+    }
+
+    private double getMaxZoom(double zoom) {
+        return Math.min(zoom + ZOOM_RANGE, MapboxConstants.MAXIMUM_ZOOM);
     }
 }
@@ -19,11 +19,19 @@
 
 package org.akvo.flow.maps.presentation.download;
 
+import org.akvo.flow.maps.domain.entity.RegionEstimate;
+
 public interface OfflineMapDownloadView {
 
+    void showEstimate(RegionEstimate estimate);
+
+    void showTooManyTiles(RegionEstimate estimate);
+
     void showProgress();
 
     void navigateToMapsList();
 
     void showOfflineAreaError();
+
+    void showStorageBudgetError();
 }
@@ -21,9 +21,7 @@ package org.akvo.flow.maps.presentation.geoshapes;
 
 public class GeoShapeConstants {
     public static final String CIRCLE_SOURCE_ID = "circle-source-id";
-    public static final String CIRCLE_SOURCE_ID_LABEL = "circle-source-id-label";
-    public static final String FILL_SOURCE_ID = "fill-source-id";
-    public static final String LINE_SOURCE_ID = "line-source-id";
+    public static final String SHAPE_SOURCE_ID = "shape-source-id";
     public static final String CIRCLE_LAYER_ID = "unselected-point-layer-id";
     public static final String SELECTED_POINT_TEXT_LAYER_ID = "selected-point-text-layer-id";
     public static final String SELECTED_FEATURE_POINT_LAYER_ID = "selected-feature-point-layer-id";
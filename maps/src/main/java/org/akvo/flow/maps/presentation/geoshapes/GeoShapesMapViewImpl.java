@@ -28,7 +28,6 @@ import android.util.AttributeSet;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
 import androidx.core.content.PermissionChecker;
 import androidx.fragment.app.FragmentActivity;
@@ -63,8 +62,7 @@ import com.mapbox.mapboxsdk.style.layers.LineLayer;
 import com.mapbox.mapboxsdk.style.layers.SymbolLayer;
 import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
 
-import org.akvo.flow.maps.di.DaggerOfflineFeatureComponent;
-import org.akvo.flow.maps.di.OfflineFeatureModule;
+import org.akvo.flow.maps.di.OfflineFeatureComponentProvider;
 import org.akvo.flow.maps.domain.entity.MapInfo;
 import org.akvo.flow.maps.presentation.MapReadyCallback;
 
@@ -95,15 +93,12 @@ import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.CIRCLE
 import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.CIRCLE_LAYER_ID;
 import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.CIRCLE_LINE_COLOR;
 import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.CIRCLE_SOURCE_ID;
-import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.CIRCLE_SOURCE_ID_LABEL;
 import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.FEATURE_LINE;
 import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.FEATURE_POLYGON;
 import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.FILL_COLOR;
 import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.FILL_LAYER_ID;
-import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.FILL_SOURCE_ID;
 import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.LINE_COLOR;
 import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.LINE_LAYER_ID;
-import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.LINE_SOURCE_ID;
 import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.ONE_POINT_ZOOM;
 import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.SELECTED_FEATURE_POINT_LAYER_ID;
 import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.SELECTED_POINT_BORDER_COLOR;
@@ -112,6 +107,7 @@ import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.SELECT
 import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.SELECTED_POINT_TEXT_LAYER_ID;
 import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.SELECTED_SHAPE_BORDER_COLOR;
 import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.SELECTED_SHAPE_COLOR;
+import static org.akvo.flow.maps.presentation.geoshapes.GeoShapeConstants.SHAPE_SOURCE_ID;
 
 public class GeoShapesMapViewImpl extends MapView implements OnMapReadyCallback, GeoShapesMapView {
 
@@ -152,12 +148,9 @@ public class GeoShapesMapViewImpl extends MapView implements OnMapReadyCallback,
     }
 
     private void initialiseInjector(Context context) {
-        DaggerOfflineFeatureComponent
-                .builder()
-                .offlineFeatureModule(
-                        new OfflineFeatureModule(((AppCompatActivity) context).getApplication()))
-                .build()
-                .inject(this);
+        OfflineFeatureComponentProvider provider =
+                (OfflineFeatureComponentProvider) context.getApplicationContext();
+        provider.getOfflineFeatureComponent().inject(this);
     }
 
     public void getMapAsyncWithCallback(MapReadyCallback callback) {
@@ -193,9 +186,7 @@ public class GeoShapesMapViewImpl extends MapView implements OnMapReadyCallback,
             initCircleLayer(style);
 
             initCircleSource(style, pointFeatures);
-            initCircleTextSource(style, pointFeatures);
-            initLineSource(style, features);
-            initFillSource(style, features);
+            initShapeSource(style, features);
         }
     }
 
@@ -384,7 +375,7 @@ public class GeoShapesMapViewImpl extends MapView implements OnMapReadyCallback,
     }
 
     private void initFillLayer(@NonNull Style style) {
-        FillLayer fillLayer = new FillLayer(FILL_LAYER_ID, FILL_SOURCE_ID);
+        FillLayer fillLayer = new FillLayer(FILL_LAYER_ID, SHAPE_SOURCE_ID);
         fillLayer.setProperties(
                 fillColor(FILL_COLOR)
         );
@@ -393,7 +384,7 @@ public class GeoShapesMapViewImpl extends MapView implements OnMapReadyCallback,
     }
 
     private void initLineLayer(@NonNull Style style) {
-        LineLayer lineLayer = new LineLayer(LINE_LAYER_ID, LINE_SOURCE_ID);
+        LineLayer lineLayer = new LineLayer(LINE_LAYER_ID, SHAPE_SOURCE_ID);
         lineLayer.setProperties(
                 lineColor(LINE_COLOR),
                 lineWidth(4f)
@@ -416,22 +407,18 @@ public class GeoShapesMapViewImpl extends MapView implements OnMapReadyCallback,
         style.addLayerAbove(circleLayer, LINE_LAYER_ID);
     }
 
-    private void initLineSource(@NonNull Style style, @NonNull List<Feature> features) {
-        addJsonSourceToStyle(style, features, LINE_SOURCE_ID);
-    }
-
-    private void initFillSource(@NonNull Style style, @NonNull List<Feature> features) {
-        addJsonSourceToStyle(style, features, FILL_SOURCE_ID);
+    /**
+     * The fill and line layers draw the same shapes, they share a source so that it is only
+     * serialized once when the shapes change
+     */
+    private void initShapeSource(@NonNull Style style, @NonNull List<Feature> features) {
+        addJsonSourceToStyle(style, features, SHAPE_SOURCE_ID);
     }
 
     private void initCircleSource(@NonNull Style style, @NonNull List<Feature> features) {
         addJsonSourceToStyle(style, features, CIRCLE_SOURCE_ID);
     }
 
-    private void initCircleTextSource(@NonNull Style style, @NonNull List<Feature> features) {
-        addJsonSourceToStyle(style, features, CIRCLE_SOURCE_ID_LABEL);
-    }
-
     private void addJsonSourceToStyle(@NonNull Style style, @NonNull List<Feature> features,
                                       @NonNull String sourceId) {
         FeatureCollection featureCollection = FeatureCollection.fromFeatures(features);
@@ -462,7 +449,7 @@ public class GeoShapesMapViewImpl extends MapView implements OnMapReadyCallback,
      */
     private void initPointSelectedTextLayer(@NonNull Style style) {
         SymbolLayer symbolLayer = new SymbolLayer(SELECTED_POINT_TEXT_LAYER_ID,
-                CIRCLE_SOURCE_ID_LABEL);
+                CIRCLE_SOURCE_ID);
         symbolLayer.setProperties(
                 textField(Expression.toString(get(GeoShapeConstants.LAT_LNG_PROPERTY))),
                 textSize(12f),
@@ -33,4 +33,8 @@ public interface OfflineAreasActionListener {
     void viewArea(String mapName, MapInfo mapInfo);
 
     void deSelectRegion();
+
+    void pauseDownload(long areaId);
+
+    void resumeDownload(long areaId);
 }
@@ -27,10 +27,10 @@ import android.widget.TextView;
 
 import org.akvo.flow.maps.Constants;
 import org.akvo.flow.maps.R;
-import org.akvo.flow.maps.di.DaggerOfflineFeatureComponent;
-import org.akvo.flow.maps.di.OfflineFeatureModule;
+import org.akvo.flow.maps.di.OfflineFeatureComponentProvider;
 import org.akvo.flow.maps.domain.entity.DomainOfflineArea;
 import org.akvo.flow.maps.domain.entity.MapInfo;
+import org.akvo.flow.maps.domain.entity.RegionDownload;
 import org.akvo.flow.maps.presentation.Navigator;
 import org.akvo.flow.maps.presentation.list.delete.DeleteAreaDialog;
 import org.akvo.flow.maps.presentation.list.rename.RenameAreaDialog;
@@ -81,15 +81,14 @@ public class OfflineAreasListActivity extends BackActivity
     }
 
     private void initialiseInjector() {
-        DaggerOfflineFeatureComponent
-                .builder()
-                .offlineFeatureModule(new OfflineFeatureModule(getApplication()))
-                .build()
-                .inject(this);
+        OfflineFeatureComponentProvider provider =
+                (OfflineFeatureComponentProvider) getApplication();
+        provider.getOfflineFeatureComponent().inject(this);
     }
 
     private void setUpPresenter() {
         presenter.setView(this);
+        presenter.observeDownloads();
     }
 
     private void setUpViews() {
@@ -162,6 +161,11 @@ public class OfflineAreasListActivity extends BackActivity
         adapter.setOfflineAreas(viewOfflineAreas, selectedRegionId);
     }
 
+    @Override
+    public void showDownloads(List<RegionDownload> downloads) {
+        adapter.setDownloads(downloads);
+    }
+
     @Override
     public void showRenameError() {
         snackBarManager.displaySnackBar(offlineAreasRv, R.string.offline_map_rename_error);
@@ -207,6 +211,16 @@ public class OfflineAreasListActivity extends BackActivity
         dialog.show(getSupportFragmentManager(), DeleteAreaDialog.TAG);
     }
 
+    @Override
+    public void pauseDownload(long areaId) {
+        presenter.pauseDownload(areaId);
+    }
+
+    @Override
+    public void resumeDownload(long areaId) {
+        presenter.resumeDownload(areaId);
+    }
+
     @Override
     public void viewArea(String mapName, MapInfo mapInfo) {
         navigator.navigateToViewOffline(this, mapName, mapInfo);
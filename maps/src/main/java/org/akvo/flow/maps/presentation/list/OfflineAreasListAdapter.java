@@ -19,6 +19,8 @@
 
 package org.akvo.flow.maps.presentation.list;
 
+import android.content.Context;
+import android.text.format.Formatter;
 import android.view.LayoutInflater;
 import android.view.MenuItem;
 import android.view.View;
@@ -31,11 +33,15 @@ import android.widget.TextView;
 
 import org.akvo.flow.maps.R;
 import org.akvo.flow.maps.domain.entity.DomainOfflineArea;
+import org.akvo.flow.maps.domain.entity.RegionDownload;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.RecyclerView;
 
 public class OfflineAreasListAdapter
@@ -46,6 +52,7 @@ public class OfflineAreasListAdapter
     private long selectedRegionId = NONE_SELECTED;
 
     private final List<DomainOfflineArea> offlineAreas;
+    private final Map<Long, RegionDownload> downloads = new HashMap<>();
     private final OfflineAreasActionListener listener;
 
     public OfflineAreasListAdapter(ArrayList<DomainOfflineArea> offlineAreas,
@@ -64,7 +71,8 @@ public class OfflineAreasListAdapter
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        holder.setTextView(offlineAreas.get(position), selectedRegionId);
+        DomainOfflineArea offlineArea = offlineAreas.get(position);
+        holder.setTextView(offlineArea, selectedRegionId, downloads.get(offlineArea.getId()));
     }
 
     public void setOfflineAreas(@NonNull List<DomainOfflineArea> results, long selectedRegionId) {
@@ -74,6 +82,14 @@ public class OfflineAreasListAdapter
         notifyDataSetChanged();
     }
 
+    public void setDownloads(@NonNull List<RegionDownload> results) {
+        downloads.clear();
+        for (RegionDownload download : results) {
+            downloads.put(download.getRegionId(), download);
+        }
+        notifyItemRangeChanged(0, offlineAreas.size());
+    }
+
     @Override
     public int getItemCount() {
         return offlineAreas.size();
@@ -105,10 +121,15 @@ public class OfflineAreasListAdapter
             this.listener = listener;
         }
 
-        void setTextView(DomainOfflineArea offlineArea, long selectedRegionId) {
+        void setTextView(DomainOfflineArea offlineArea, long selectedRegionId,
+                @Nullable RegionDownload download) {
             if (offlineArea != null) {
                 nameTv.setText(offlineArea.getName());
-                if (offlineArea.isDownloading()) {
+                if (download != null) {
+                    stateTv.setText(getDownloadStatus(download));
+                    downloadProgress.setVisibility(download.getState()
+                            == RegionDownload.State.DOWNLOADING ? View.VISIBLE : View.GONE);
+                } else if (offlineArea.isDownloading()) {
                     stateTv.setText(nameTv.getContext().getString(R.string.offline_item_status));
                     downloadProgress.setVisibility(View.VISIBLE);
                 } else {
@@ -133,13 +154,41 @@ public class OfflineAreasListAdapter
                 }
                 selectBt.setOnClickListener(v -> listener.selectRegion(offlineArea));
                 deSelectBt.setOnClickListener(v -> listener.deSelectRegion());
-                revealMenuBt.setOnClickListener(v -> showMenu(revealMenuBt, offlineArea));
+                revealMenuBt.setOnClickListener(
+                        v -> showMenu(revealMenuBt, offlineArea, download));
+            }
+        }
+
+        private String getDownloadStatus(RegionDownload download) {
+            Context context = stateTv.getContext();
+            switch (download.getState()) {
+                case QUEUED:
+                    return context.getString(R.string.offline_item_status_queued);
+                case PAUSED:
+                    return context.getString(R.string.offline_item_status_paused,
+                            download.getProgress());
+                case FAILED:
+                    return context.getString(R.string.offline_item_status_failed);
+                case COMPLETE:
+                    return Formatter.formatShortFileSize(context, download.getCompletedBytes());
+                default:
+                    return context.getString(R.string.offline_item_status_progress,
+                            download.getProgress(),
+                            Formatter.formatShortFileSize(context, download.getCompletedBytes()),
+                            Formatter.formatShortFileSize(context,
+                                    (long) download.getBytesPerSecond()));
             }
         }
 
-        void showMenu(View anchor, DomainOfflineArea offlineArea) {
+        void showMenu(View anchor, DomainOfflineArea offlineArea,
+                @Nullable RegionDownload download) {
             PopupMenu popup = new PopupMenu(anchor.getContext(), anchor);
             popup.getMenuInflater().inflate(R.menu.offline_area_popup, popup.getMenu());
+            boolean active = download != null && download.isActive();
+            boolean paused = download == null ? !offlineArea.isAvailable()
+                    : download.getState() == RegionDownload.State.PAUSED;
+            popup.getMenu().findItem(R.id.pause_download).setVisible(active);
+            popup.getMenu().findItem(R.id.resume_download).setVisible(paused);
             popup.show();
             popup.setOnMenuItemClickListener(item -> onMenuItemClicked(item, offlineArea));
         }
@@ -152,6 +201,10 @@ public class OfflineAreasListAdapter
                 listener.renameArea(offlineArea.getId(), offlineArea.getName());
             } else if (i == R.id.delete_area) {
                 listener.deleteArea(offlineArea.getId(), offlineArea.getName());
+            } else if (i == R.id.pause_download) {
+                listener.pauseDownload(offlineArea.getId());
+            } else if (i == R.id.resume_download) {
+                listener.resumeDownload(offlineArea.getId());
             }
             return false;
         }
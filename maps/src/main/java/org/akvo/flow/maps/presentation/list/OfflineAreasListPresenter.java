@@ -21,7 +21,9 @@ package org.akvo.flow.maps.presentation.list;
 
 import org.akvo.flow.mapbox.offline.reactive.DeleteOfflineRegion;
 import org.akvo.flow.mapbox.offline.reactive.RenameOfflineRegion;
+import org.akvo.flow.maps.data.RegionDownloadManager;
 import org.akvo.flow.maps.domain.entity.DomainOfflineArea;
+import org.akvo.flow.maps.domain.entity.RegionDownload;
 import org.akvo.flow.maps.domain.interactor.GetSelectedOfflineRegionId;
 import org.akvo.flow.maps.domain.interactor.LoadOfflineRegions;
 import org.akvo.flow.maps.domain.interactor.SaveSelectedOfflineArea;
@@ -33,6 +35,7 @@ import java.util.Map;
 import javax.inject.Inject;
 
 import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.observers.DisposableObserver;
 import io.reactivex.observers.DisposableCompletableObserver;
 import io.reactivex.observers.DisposableMaybeObserver;
 import io.reactivex.observers.DisposableSingleObserver;
@@ -46,6 +49,7 @@ public class OfflineAreasListPresenter {
     private final DeleteOfflineRegion deleteOfflineRegion;
     private final SaveSelectedOfflineArea saveSelectedOfflineArea;
     private final GetSelectedOfflineRegionId getSelectedOfflineRegion;
+    private final RegionDownloadManager regionDownloadManager;
 
     private OfflineAreasListView view;
 
@@ -54,12 +58,14 @@ public class OfflineAreasListPresenter {
             DeleteOfflineRegion deleteOfflineRegion,
             SaveSelectedOfflineArea saveSelectedOfflineArea,
             GetSelectedOfflineRegionId getSelectedOfflineRegion,
-            LoadOfflineRegions loadOfflineRegions) {
+            LoadOfflineRegions loadOfflineRegions,
+            RegionDownloadManager regionDownloadManager) {
         this.loadOfflineRegions = loadOfflineRegions;
         this.renameOfflineRegion = renameOfflineRegion;
         this.deleteOfflineRegion = deleteOfflineRegion;
         this.saveSelectedOfflineArea = saveSelectedOfflineArea;
         this.getSelectedOfflineRegion = getSelectedOfflineRegion;
+        this.regionDownloadManager = regionDownloadManager;
         disposables = new CompositeDisposable();
     }
 
@@ -76,6 +82,55 @@ public class OfflineAreasListPresenter {
         this.view = view;
     }
 
+    /**
+     * Displays the progress of the queued regions, areas are loaded again once one of them is
+     * complete to display its size
+     */
+    public void observeDownloads() {
+        disposables.add(regionDownloadManager.getDownloads()
+                .subscribeWith(new DisposableObserver<List<RegionDownload>>() {
+                    @Override
+                    public void onNext(List<RegionDownload> downloads) {
+                        view.showDownloads(downloads);
+                        for (RegionDownload download : downloads) {
+                            if (download.getState() == RegionDownload.State.COMPLETE) {
+                                loadAreas();
+                                break;
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable e) {
+                        Timber.e(e);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        // EMPTY
+                    }
+                }));
+    }
+
+    public void pauseDownload(long areaId) {
+        regionDownloadManager.pause(areaId);
+    }
+
+    public void resumeDownload(long areaId) {
+        disposables.add(regionDownloadManager.resume(areaId)
+                .subscribeWith(new DisposableCompletableObserver() {
+                    @Override
+                    public void onComplete() {
+                        // EMPTY
+                    }
+
+                    @Override
+                    public void onError(Throwable e) {
+                        Timber.e(e);
+                    }
+                }));
+    }
+
     public void loadAreas() {
         view.showLoading();
         loadOfflineRegions.execute(new DisposableSingleObserver<List<DomainOfflineArea>>() {
@@ -139,6 +194,7 @@ public class OfflineAreasListPresenter {
 
     public void deleteArea(long areaId) {
         view.showLoading();
+        regionDownloadManager.cancel(areaId);
         DisposableCompletableObserver subscribeWith = deleteOfflineRegion.execute(areaId)
                 .subscribeWith(new DisposableCompletableObserver() {
                     @Override
@@ -20,6 +20,7 @@
 package org.akvo.flow.maps.presentation.list;
 
 import org.akvo.flow.maps.domain.entity.DomainOfflineArea;
+import org.akvo.flow.maps.domain.entity.RegionDownload;
 
 import java.util.List;
 
@@ -33,6 +34,8 @@ public interface OfflineAreasListView {
 
     void showOfflineRegions(List<DomainOfflineArea> transform, long selectedRegionId);
 
+    void showDownloads(List<RegionDownload> downloads);
+
     void showRenameError();
 
     void showDeleteError();
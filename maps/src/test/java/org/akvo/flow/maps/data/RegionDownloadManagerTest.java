@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.akvo.flow.maps.data;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mapbox.mapboxsdk.offline.OfflineManager;
+import com.mapbox.mapboxsdk.offline.OfflineRegion;
+import com.mapbox.mapboxsdk.offline.OfflineRegionDefinition;
+import com.mapbox.mapboxsdk.offline.OfflineRegionStatus;
+
+import org.akvo.flow.mapbox.offline.reactive.DeleteOfflineRegion;
+import org.akvo.flow.mapbox.offline.reactive.GetOfflineRegions;
+import org.akvo.flow.mapbox.offline.reactive.RegionNameMapper;
+import org.akvo.flow.maps.data.RegionDownloadManager.StorageBudgetException;
+import org.akvo.flow.maps.domain.entity.RegionEstimate;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.reactivex.Completable;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import kotlin.Pair;
+
+public class RegionDownloadManagerTest {
+
+    private static final long BUDGET = 100;
+    private static final long NONE_SELECTED = -1;
+
+    private OfflineManager offlineManager;
+    private OfflineSharedPreferenceDataSource preferences;
+    private GetOfflineRegions getOfflineRegions;
+    private DeleteOfflineRegion deleteOfflineRegion;
+    private RegionDownloadManager manager;
+
+    @Before
+    public void setUp() {
+        offlineManager = mock(OfflineManager.class);
+        preferences = mock(OfflineSharedPreferenceDataSource.class);
+        getOfflineRegions = mock(GetOfflineRegions.class);
+        deleteOfflineRegion = mock(DeleteOfflineRegion.class);
+        when(preferences.getStorageBudget()).thenReturn(BUDGET);
+        when(preferences.getSelectedOfflineAreaId()).thenReturn(NONE_SELECTED);
+        when(preferences.getMaxConcurrentDownloads()).thenReturn(1);
+        when(deleteOfflineRegion.execute(anyLong())).thenReturn(Completable.complete());
+        manager = new RegionDownloadManager(offlineManager, preferences, getOfflineRegions,
+                deleteOfflineRegion, mock(RegionNameMapper.class), Schedulers.trampoline());
+    }
+
+    @Test
+    public void makeRoomShouldDeleteLeastRecentlyUsedRegionsFirst() {
+        givenRegions(region(1, 40, true, 300), region(2, 40, true, 100), region(3, 10, true, 200));
+
+        manager.makeRoom(60).test().assertComplete();
+
+        InOrder inOrder = inOrder(deleteOfflineRegion);
+        inOrder.verify(deleteOfflineRegion).execute(2);
+        inOrder.verify(deleteOfflineRegion).execute(3);
+        verify(deleteOfflineRegion, never()).execute(1);
+        verify(preferences).removeLastUsedTime(2);
+        verify(preferences).removeLastUsedTime(3);
+    }
+
+    @Test
+    public void makeRoomShouldNotDeleteRegionsWhenThereIsRoom() {
+        givenRegions(region(1, 40, true, 100));
+
+        manager.makeRoom(60).test().assertComplete();
+
+        verify(deleteOfflineRegion, never()).execute(anyLong());
+    }
+
+    @Test
+    public void makeRoomShouldNotDeleteSelectedRegion() {
+        when(preferences.getSelectedOfflineAreaId()).thenReturn(2L);
+        givenRegions(region(1, 40, true, 300), region(2, 40, true, 100), region(3, 10, true, 200));
+
+        manager.makeRoom(30).test().assertComplete();
+
+        verify(deleteOfflineRegion, never()).execute(2);
+        verify(deleteOfflineRegion).execute(3);
+    }
+
+    @Test
+    public void makeRoomShouldNotDeleteIncompleteRegions() {
+        givenRegions(region(1, 40, false, 100), region(2, 40, true, 200));
+
+        manager.makeRoom(30).test().assertComplete();
+
+        verify(deleteOfflineRegion, never()).execute(1);
+        verify(deleteOfflineRegion).execute(2);
+    }
+
+    @Test
+    public void makeRoomShouldNotDeleteQueuedRegions() {
+        givenRegions(region(1, 40, true, 100));
+        givenCreatedRegion(4);
+        manager.download(mock(OfflineRegionDefinition.class), "queued", new RegionEstimate(1, 10))
+                .test().assertComplete();
+        givenRegions(region(1, 40, true, 100), region(4, 30, true, 0));
+
+        manager.makeRoom(50).test().assertComplete();
+
+        verify(deleteOfflineRegion, never()).execute(4);
+        verify(deleteOfflineRegion).execute(1);
+    }
+
+    @Test
+    public void makeRoomShouldFailWhenRegionDoesNotFitInBudget() {
+        when(preferences.getSelectedOfflineAreaId()).thenReturn(1L);
+        givenRegions(region(1, 80, true, 100));
+
+        manager.makeRoom(30).test().assertError(StorageBudgetException.class);
+
+        verify(deleteOfflineRegion, never()).execute(anyLong());
+    }
+
+    @Test
+    public void makeRoomShouldReserveRoomUntilRegionIsQueued() {
+        givenRegions();
+
+        manager.makeRoom(60).test().assertComplete();
+        manager.makeRoom(60).test().assertError(StorageBudgetException.class);
+    }
+
+    @Test
+    public void downloadShouldReleaseRoomWhenRegionIsNotCreated() {
+        givenRegions();
+        doAnswer(invocation -> {
+            OfflineManager.CreateOfflineRegionCallback callback = invocation.getArgument(2);
+            callback.onError("error");
+            return null;
+        }).when(offlineManager).createOfflineRegion(any(OfflineRegionDefinition.class), any(),
+                any(OfflineManager.CreateOfflineRegionCallback.class));
+
+        manager.download(mock(OfflineRegionDefinition.class), "failed", new RegionEstimate(1, 60))
+                .test().assertError(IllegalStateException.class);
+
+        manager.makeRoom(60).test().assertComplete();
+    }
+
+    @SafeVarargs
+    private final void givenRegions(Pair<OfflineRegion, OfflineRegionStatus>... regions) {
+        List<Pair<OfflineRegion, OfflineRegionStatus>> list = new ArrayList<>(
+                Arrays.asList(regions));
+        when(getOfflineRegions.execute()).thenReturn(Single.just(list));
+    }
+
+    private void givenCreatedRegion(long regionId) {
+        OfflineRegion region = mock(OfflineRegion.class);
+        when(region.getID()).thenReturn(regionId);
+        doAnswer(invocation -> {
+            OfflineManager.CreateOfflineRegionCallback callback = invocation.getArgument(2);
+            callback.onCreate(region);
+            return null;
+        }).when(offlineManager).createOfflineRegion(any(OfflineRegionDefinition.class), any(),
+                any(OfflineManager.CreateOfflineRegionCallback.class));
+    }
+
+    private Pair<OfflineRegion, OfflineRegionStatus> region(long regionId, long bytes,
+            boolean complete, long lastUsedTime) {
+        OfflineRegion region = mock(OfflineRegion.class);
+        when(region.getID()).thenReturn(regionId);
+        OfflineRegionStatus status = mock(OfflineRegionStatus.class);
+        when(status.getCompletedResourceSize()).thenReturn(bytes);
+        when(status.isComplete()).thenReturn(complete);
+        when(preferences.getLastUsedTime(regionId)).thenReturn(lastUsedTime);
+        return new Pair<>(region, status);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.akvo.flow.maps.domain.entity;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
+
+import org.junit.Test;
+
+public class RegionEstimatorTest {
+
+    private static final long TILE_BYTES = 1000;
+    private static final long STYLE_RESOURCES_BYTES = 2 * 1024 * 1024;
+
+    private final RegionEstimator estimator = new RegionEstimator();
+
+    @Test
+    public void estimateShouldCountTilesOfEachZoomLevel() {
+        RegionEstimate estimate = estimator.estimate(bounds(52.4, 4.95, 52.3, 4.8), 10, 14,
+                TILE_BYTES);
+
+        // 2 + 4 + 9 + 16 + 64 tiles from zoom 10 to 14
+        assertEquals(95, estimate.getTileCount());
+        assertEquals(95 * TILE_BYTES + STYLE_RESOURCES_BYTES, estimate.getBytes());
+    }
+
+    @Test
+    public void estimateShouldIncludeZoomLevelsPartiallyInRange() {
+        LatLngBounds world = bounds(85, 180, -85, -180);
+
+        assertEquals(1, estimator.estimate(world, 0, 0, TILE_BYTES).getTileCount());
+        assertEquals(1 + 4 + 16, estimator.estimate(world, 0.5, 1.2, TILE_BYTES).getTileCount());
+    }
+
+    @Test
+    public void estimateShouldClampLatitudesToWebMercator() {
+        RegionEstimate poles = estimator.estimate(bounds(90, 180, -90, -180), 0, 2, TILE_BYTES);
+
+        assertEquals(1 + 4 + 16, poles.getTileCount());
+    }
+
+    @Test
+    public void estimateShouldWrapBoundsCrossingAntimeridian() {
+        RegionEstimate estimate = estimator.estimate(bounds(1, -179, -1, 179), 3, 7, TILE_BYTES);
+
+        // 2 columns, one on each side of the antimeridian, and 2 rows on each zoom level
+        assertEquals(5 * 4, estimate.getTileCount());
+    }
+
+    private LatLngBounds bounds(double north, double east, double south, double west) {
+        LatLngBounds bounds = mock(LatLngBounds.class);
+        when(bounds.getLatNorth()).thenReturn(north);
+        when(bounds.getLonEast()).thenReturn(east);
+        when(bounds.getLatSouth()).thenReturn(south);
+        when(bounds.getLonWest()).thenReturn(west);
+        return bounds;
+    }
+}
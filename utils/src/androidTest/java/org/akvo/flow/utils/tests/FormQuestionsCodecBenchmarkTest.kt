@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.utils.tests
+
+import android.util.Log
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.akvo.flow.utils.FileHelper
+import org.akvo.flow.utils.FormQuestionsCodec
+import org.akvo.flow.utils.XmlFormParser
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+
+/**
+ * Compares the time needed to get the questions of a form from the xml and from the compiled
+ * representation, for a small, a medium and a large generated form. Results are logged with the
+ * tag of this class.
+ */
+@RunWith(AndroidJUnit4::class)
+class FormQuestionsCodecBenchmarkTest {
+
+    private val parser = XmlFormParser(FileHelper())
+    private val codec = FormQuestionsCodec()
+
+    @Test
+    fun compiledFormShouldMatchXmlForm() {
+        for (size in SIZES) {
+            val xml = formXml(size).toByteArray()
+            val parsed = parser.parseXmlQuestions(ByteArrayInputStream(xml))
+            val compiled = compile(xml)
+
+            val read = codec.read(ByteArrayInputStream(compiled), xml.size.toLong(), 0L)!!
+
+            assertEquals(parsed, read)
+            assertEquals(size, read.values.sumBy { it.size })
+
+            val xmlTime = averageMillis {
+                parser.parseXmlQuestions(ByteArrayInputStream(xml))
+            }
+            val compiledTime = averageMillis {
+                codec.read(ByteArrayInputStream(compiled), xml.size.toLong(), 0L)
+            }
+            Log.i(TAG, String.format("%d questions: xml %.2f ms (%d bytes), compiled %.2f ms"
+                    + " (%d bytes)", size, xmlTime, xml.size, compiledTime, compiled.size))
+        }
+    }
+
+    private fun compile(xml: ByteArray): ByteArray {
+        val output = ByteArrayOutputStream()
+        codec.write(parser.parseXmlQuestions(ByteArrayInputStream(xml)), output,
+            xml.size.toLong(), 0L)
+        return output.toByteArray()
+    }
+
+    private fun averageMillis(block: () -> Unit): Double {
+        block()
+        val start = System.nanoTime()
+        for (i in 0 until RUNS) {
+            block()
+        }
+        return (System.nanoTime() - start) / 1000000.0 / RUNS
+    }
+
+    /**
+     * Every group has ten questions, every other question is an option question with a
+     * translated list of options
+     */
+    private fun formXml(questions: Int): String {
+        val xml = StringBuilder()
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+            .append("<survey name=\"Benchmark\" defaultLanguageCode=\"en\" surveyId=\"1\"")
+            .append(" surveyGroupId=\"2\" app=\"benchmark\" version=\"1.0\">")
+        for (q in 0 until questions) {
+            if (q % QUESTIONS_PER_GROUP == 0) {
+                xml.append("<questionGroup><heading>Group ").append(q).append("</heading>")
+            }
+            val option = q % 2 == 0
+            xml.append("<question id=\"").append(q).append("\" order=\"").append(q + 1)
+                .append("\" mandatory=\"true\" type=\"").append(if (option) "option" else "free")
+                .append("\">")
+            xml.append("<text>Question ").append(q).append("</text>")
+            xml.append(altTexts("Question $q"))
+            xml.append("<help><text>Help ").append(q).append("</text></help>")
+            if (option) {
+                xml.append("<options allowOther=\"true\">")
+                for (o in 0 until OPTIONS) {
+                    xml.append("<option code=\"").append(o).append("\"><text>Option ")
+                        .append(o).append("</text>").append(altTexts("Option $o"))
+                        .append("</option>")
+                }
+                xml.append("</options>")
+            }
+            if (q > 0) {
+                xml.append("<dependency question=\"").append(q - 1)
+                    .append("\" answer-value=\"Option 1\"/>")
+            }
+            xml.append("</question>")
+            if (q % QUESTIONS_PER_GROUP == QUESTIONS_PER_GROUP - 1 || q == questions - 1) {
+                xml.append("</questionGroup>")
+            }
+        }
+        return xml.append("</survey>").toString()
+    }
+
+    private fun altTexts(text: String): String {
+        return LANGUAGES.joinToString("") { language ->
+            "<altText language=\"$language\" type=\"translation\">$text $language</altText>"
+        }
+    }
+
+    companion object {
+        private const val TAG = "FormCodecBenchmark"
+        private val SIZES = intArrayOf(20, 100, 500)
+        private const val QUESTIONS_PER_GROUP = 10
+        private const val OPTIONS = 10
+        private val LANGUAGES = listOf("fr", "es", "pt")
+        private const val RUNS = 5
+    }
+}
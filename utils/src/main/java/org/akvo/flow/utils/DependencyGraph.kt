@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.akvo.flow.utils
+package org.akvo.flow.utils
+
+import org.akvo.flow.utils.entity.OptionValue
+import org.akvo.flow.utils.entity.Question
+
+/**
+ * Dependencies between the questions of a form, compiled once when the form is opened. Every
+ * question is ranked in topological order so that, when an answer changes, the dependent
+ * questions can be evaluated once each, after all the questions they depend on. The expected
+ * answers of every dependency are split into a set up front.
+ *
+ * Questions of repeatable groups are identified as questionId|iteration. A dependency on a
+ * question of the same repeatable group refers to the question of the same iteration.
+ */
+class DependencyGraph private constructor(private val nodes: Map<String, Node>) {
+
+    val size: Int
+        get() = nodes.size
+
+    fun newEvaluator(fallbackAnswer: (String) -> String?): VisibilityEvaluator {
+        return VisibilityEvaluator(this, fallbackAnswer)
+    }
+
+    internal fun node(questionId: String): Node? = nodes[questionId]
+
+    internal class Node(val questionId: String, val group: Int, val repeatable: Boolean) {
+        var rank = 0
+        var dependencies: List<Edge> = emptyList()
+        val children = mutableListOf<Node>()
+
+        fun isInRepeatableGroupOf(other: Node): Boolean = repeatable && group == other.group
+    }
+
+    internal class Edge(val parentId: String, val answers: Set<String>)
+
+    class Builder {
+        private val groups = mutableListOf<Pair<List<Question>, Boolean>>()
+
+        fun addGroup(questions: List<Question>, repeatable: Boolean): Builder {
+            groups.add(Pair(questions, repeatable))
+            return this
+        }
+
+        fun build(): DependencyGraph {
+            val nodes = LinkedHashMap<String, Node>()
+            groups.forEachIndexed { index, (questions, repeatable) ->
+                for (question in questions) {
+                    val questionId = question.questionId ?: continue
+                    nodes[questionId] = Node(questionId, index, repeatable)
+                }
+            }
+            for ((questions, _) in groups) {
+                for (question in questions) {
+                    val node = nodes[question.questionId] ?: continue
+                    node.dependencies = question.dependencies.mapNotNull { dependency ->
+                        val parentId = dependency.question
+                        if (parentId == null || parentId == node.questionId) {
+                            null
+                        } else {
+                            Edge(parentId, splitAnswers(dependency.answer))
+                        }
+                    }
+                    for (parentId in node.dependencies.map { it.parentId }.distinct()) {
+                        nodes[parentId]?.children?.add(node)
+                    }
+                }
+            }
+            rank(nodes.values)
+            return DependencyGraph(nodes)
+        }
+
+        /**
+         * Kahn's algorithm. Questions which are part of a cycle, which the dashboard should not
+         * allow, are ranked after all the others
+         */
+        private fun rank(nodes: Collection<Node>) {
+            val pending = HashMap<Node, Int>(nodes.size * 2)
+            for (node in nodes) {
+                for (child in node.children) {
+                    pending[child] = (pending[child] ?: 0) + 1
+                }
+            }
+            val queue = ArrayDeque<Node>()
+            nodes.filterTo(queue) { (pending[it] ?: 0) == 0 }
+            var rank = 0
+            val ranked = HashSet<Node>(nodes.size * 2)
+            while (queue.isNotEmpty()) {
+                val node = queue.removeFirst()
+                node.rank = rank++
+                ranked.add(node)
+                for (child in node.children) {
+                    val remaining = pending.getValue(child) - 1
+                    pending[child] = remaining
+                    if (remaining == 0) {
+                        queue.addLast(child)
+                    }
+                }
+            }
+            for (node in nodes) {
+                if (node !in ranked) {
+                    node.rank = rank++
+                }
+            }
+        }
+    }
+
+    companion object {
+        private const val ITERATION_SEPARATOR = '|'
+        private const val ANSWER_SEPARATOR = '|'
+
+        @JvmStatic
+        fun questionIdOf(instanceId: String): String {
+            return instanceId.substringBefore(ITERATION_SEPARATOR)
+        }
+
+        @JvmStatic
+        fun iterationOf(instanceId: String): Int? {
+            return instanceId.substringAfter(ITERATION_SEPARATOR, "").toIntOrNull()
+        }
+
+        internal fun repeatedId(questionId: String, iteration: Int): String {
+            return "$questionId$ITERATION_SEPARATOR$iteration"
+        }
+
+        /**
+         * Dependencies may list several answers separated by |, any of them satisfies it
+         */
+        internal fun splitAnswers(answer: String?): Set<String> {
+            if (answer.isNullOrEmpty()) {
+                return emptySet()
+            }
+            return answer.split(ANSWER_SEPARATOR)
+                .map { it.trim() }
+                .filterTo(HashSet()) { it.isNotEmpty() }
+        }
+
+        /**
+         * Option responses are stored as a json array of the selected options, matched by their
+         * text. Older responses are a | separated list of values.
+         */
+        internal fun responseValues(value: String?): Set<String> {
+            if (value.isNullOrBlank()) {
+                return emptySet()
+            }
+            if (value.trimStart().startsWith("[")) {
+                return OptionValue.deserialize(value)
+                    .mapNotNull { option -> (option.text ?: option.code)?.trim() }
+                    .filterTo(HashSet()) { it.isNotEmpty() }
+            }
+            return splitAnswers(value)
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.akvo.flow.utils
 import android.text.TextUtils
 import android.util.Base64
 import okhttp3.ResponseBody
+import org.akvo.flow.utils.entity.Md5Checksum
 import timber.log.Timber
 import java.io.BufferedInputStream
 import java.io.Closeable
@@ -69,24 +70,23 @@ class FileHelper @Inject constructor() {
     }
 
     fun getMd5Base64(file: File): String {
-        val md5Checksum = getMD5Checksum(file)
-        return if (md5Checksum != null) {
-            Base64.encodeToString(md5Checksum, Base64.NO_WRAP)
-        } else {
-            ""
-        }
+        return getMd5(file)?.base64 ?: ""
     }
 
     fun hexMd5(file: File): String {
-        val rawHash = getMD5Checksum(file)
-        if (rawHash != null) {
-            val builder = StringBuilder()
-            for (b in rawHash) {
-                builder.append(String.format("%02x", b))
-            }
-            return builder.toString()
+        return getMd5(file)?.hex ?: ""
+    }
+
+    /**
+     * Reads the file once and returns the MD5 checksum in both the encodings S3 needs
+     */
+    fun getMd5(file: File): Md5Checksum? {
+        val md5Checksum = getMD5Checksum(file) ?: return null
+        val builder = StringBuilder(md5Checksum.size * 2)
+        for (b in md5Checksum) {
+            builder.append(String.format("%02x", b))
         }
-        return ""
+        return Md5Checksum(Base64.encodeToString(md5Checksum, Base64.NO_WRAP), builder.toString())
     }
 
     fun copyFileToFolder(originalFile: File, destinationFolder: File?): String? {
@@ -0,0 +1,347 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.akvo.flow.utils
+
+import org.akvo.flow.utils.entity.AltText
+import org.akvo.flow.utils.entity.Dependency
+import org.akvo.flow.utils.entity.Level
+import org.akvo.flow.utils.entity.Option
+import org.akvo.flow.utils.entity.Question
+import org.akvo.flow.utils.entity.QuestionHelp
+import org.akvo.flow.utils.entity.ValidationRule
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+import javax.inject.Inject
+
+/**
+ * Compact binary representation of the questions of a form, as returned by
+ * [XmlFormParser.parseXmlQuestions]. Forms are compiled once when they are downloaded so opening
+ * them does not need to parse the xml again.
+ *
+ * The header holds the format version and the length and modification date of the xml file the
+ * questions were compiled from: [read] returns null when any of them does not match so the caller
+ * can fall back to the xml. Strings are written once and referenced by index afterwards, which
+ * keeps the repeated language codes and option texts small.
+ */
+class FormQuestionsCodec @Inject constructor() {
+
+    @Throws(IOException::class)
+    fun write(
+        questions: Map<Int, List<Question>>,
+        output: OutputStream,
+        sourceLength: Long,
+        sourceModified: Long,
+    ) {
+        val out = Writer(DataOutputStream(BufferedOutputStream(output)))
+        out.data.writeInt(MAGIC)
+        out.data.writeInt(FORMAT_VERSION)
+        out.data.writeLong(sourceLength)
+        out.data.writeLong(sourceModified)
+        out.data.writeInt(questions.size)
+        for ((groupOrder, groupQuestions) in questions) {
+            out.data.writeInt(groupOrder)
+            out.data.writeInt(groupQuestions.size)
+            for (question in groupQuestions) {
+                writeQuestion(out, question)
+            }
+        }
+        out.data.flush()
+    }
+
+    /**
+     * @return the questions by group order, or null if the data was not compiled from the given
+     * xml file with the current format
+     */
+    @Throws(IOException::class)
+    fun read(
+        input: InputStream,
+        sourceLength: Long,
+        sourceModified: Long,
+    ): HashMap<Int, MutableList<Question>>? {
+        val data = DataInputStream(BufferedInputStream(input))
+        if (data.readInt() != MAGIC || data.readInt() != FORMAT_VERSION
+            || data.readLong() != sourceLength || data.readLong() != sourceModified) {
+            return null
+        }
+        val reader = Reader(data)
+        val groups = data.readInt()
+        val map = HashMap<Int, MutableList<Question>>(groups * 2)
+        for (g in 0 until groups) {
+            val groupOrder = data.readInt()
+            val size = data.readInt()
+            val groupQuestions = ArrayList<Question>(size)
+            for (q in 0 until size) {
+                groupQuestions.add(readQuestion(reader))
+            }
+            map[groupOrder] = groupQuestions
+        }
+        return map
+    }
+
+    private fun writeQuestion(out: Writer, question: Question) {
+        out.string(question.questionId)
+        out.string(question.text)
+        out.string(question.type)
+        out.data.writeInt(question.order)
+        out.data.writeInt(flags(question))
+        out.string(question.caddisflyRes)
+        out.string(question.cascadeResource)
+        writeAltTexts(out, question.languageTranslationMap)
+
+        out.data.writeInt(question.questionHelp.size)
+        for (help in question.questionHelp) {
+            out.string(help.text)
+            writeAltTexts(out, help.altTextMap)
+        }
+
+        val options = question.options
+        out.data.writeInt(options?.size ?: -1)
+        options?.forEach { option ->
+            out.string(option.text)
+            out.string(option.code)
+            out.data.writeBoolean(option.isOther)
+            writeAltTexts(out, option.altTextMap)
+        }
+
+        out.data.writeInt(question.dependencies.size)
+        for (dependency in question.dependencies) {
+            out.string(dependency.question)
+            out.string(dependency.answer)
+        }
+
+        out.data.writeInt(question.levels.size)
+        for (level in question.levels) {
+            out.string(level.text)
+            writeAltTexts(out, level.altTextMap)
+        }
+
+        val rule = question.validationRule
+        out.data.writeBoolean(rule != null)
+        if (rule != null) {
+            out.string(rule.validationType)
+            writeNullableInt(out, rule.maxLength)
+            writeNullableBoolean(out, rule.allowSigned)
+            writeNullableBoolean(out, rule.allowDecimal)
+            writeNullableDouble(out, rule.minVal)
+            writeNullableDouble(out, rule.maxVal)
+        }
+    }
+
+    private fun readQuestion(reader: Reader): Question {
+        val data = reader.data
+        val question = Question(
+            questionId = reader.string(),
+            text = reader.string(),
+            type = reader.string(),
+            order = data.readInt()
+        )
+        setFlags(question, data.readInt())
+        question.caddisflyRes = reader.string()
+        question.cascadeResource = reader.string()
+        readAltTexts(reader, question.languageTranslationMap)
+
+        val helpCount = data.readInt()
+        for (i in 0 until helpCount) {
+            val help = QuestionHelp(text = reader.string())
+            readAltTexts(reader, help.altTextMap)
+            question.questionHelp.add(help)
+        }
+
+        val optionCount = data.readInt()
+        if (optionCount >= 0) {
+            val options = ArrayList<Option>(optionCount)
+            for (i in 0 until optionCount) {
+                val option = Option(text = reader.string(), code = reader.string(),
+                    isOther = data.readBoolean())
+                readAltTexts(reader, option.altTextMap)
+                options.add(option)
+            }
+            question.options = options
+        }
+
+        val dependencyCount = data.readInt()
+        for (i in 0 until dependencyCount) {
+            question.dependencies.add(Dependency(reader.string(), reader.string()))
+        }
+
+        val levelCount = data.readInt()
+        for (i in 0 until levelCount) {
+            val level = Level(text = reader.string())
+            readAltTexts(reader, level.altTextMap)
+            question.levels.add(level)
+        }
+
+        if (data.readBoolean()) {
+            val rule = ValidationRule(reader.string())
+            rule.maxLength = readNullableInt(data)
+            rule.allowSigned = readNullableBoolean(data)
+            rule.allowDecimal = readNullableBoolean(data)
+            rule.minVal = readNullableDouble(data)
+            rule.maxVal = readNullableDouble(data)
+            question.validationRule = rule
+        }
+        return question
+    }
+
+    private fun writeAltTexts(out: Writer, altTexts: Map<String?, AltText>) {
+        out.data.writeInt(altTexts.size)
+        for (altText in altTexts.values) {
+            out.string(altText.languageCode)
+            out.string(altText.type)
+            out.string(altText.text)
+        }
+    }
+
+    private fun readAltTexts(reader: Reader, altTexts: HashMap<String?, AltText>) {
+        val size = reader.data.readInt()
+        for (i in 0 until size) {
+            val altText = AltText(reader.string(), reader.string(), reader.string())
+            altTexts[altText.languageCode] = altText
+        }
+    }
+
+    private fun flags(question: Question): Int {
+        var flags = 0
+        if (question.isMandatory) flags = flags or FLAG_MANDATORY
+        if (question.isAllowOther) flags = flags or FLAG_ALLOW_OTHER
+        if (question.isAllowMultiple) flags = flags or FLAG_ALLOW_MULTIPLE
+        if (question.isLocked) flags = flags or FLAG_LOCKED
+        if (question.isLocaleName) flags = flags or FLAG_LOCALE_NAME
+        if (question.isLocaleLocation) flags = flags or FLAG_LOCALE_LOCATION
+        if (question.isDoubleEntry) flags = flags or FLAG_DOUBLE_ENTRY
+        if (question.isAllowPoints) flags = flags or FLAG_ALLOW_POINTS
+        if (question.isAllowLine) flags = flags or FLAG_ALLOW_LINE
+        if (question.isAllowPolygon) flags = flags or FLAG_ALLOW_POLYGON
+        return flags
+    }
+
+    private fun setFlags(question: Question, flags: Int) {
+        question.isMandatory = flags and FLAG_MANDATORY != 0
+        question.isAllowOther = flags and FLAG_ALLOW_OTHER != 0
+        question.isAllowMultiple = flags and FLAG_ALLOW_MULTIPLE != 0
+        question.isLocked = flags and FLAG_LOCKED != 0
+        question.isLocaleName = flags and FLAG_LOCALE_NAME != 0
+        question.isLocaleLocation = flags and FLAG_LOCALE_LOCATION != 0
+        question.isDoubleEntry = flags and FLAG_DOUBLE_ENTRY != 0
+        question.isAllowPoints = flags and FLAG_ALLOW_POINTS != 0
+        question.isAllowLine = flags and FLAG_ALLOW_LINE != 0
+        question.isAllowPolygon = flags and FLAG_ALLOW_POLYGON != 0
+    }
+
+    private fun writeNullableInt(out: Writer, value: Int?) {
+        out.data.writeBoolean(value != null)
+        if (value != null) out.data.writeInt(value)
+    }
+
+    private fun writeNullableBoolean(out: Writer, value: Boolean?) {
+        out.data.writeBoolean(value != null)
+        if (value != null) out.data.writeBoolean(value)
+    }
+
+    private fun writeNullableDouble(out: Writer, value: Double?) {
+        out.data.writeBoolean(value != null)
+        if (value != null) out.data.writeDouble(value)
+    }
+
+    private fun readNullableInt(data: DataInputStream): Int? {
+        return if (data.readBoolean()) data.readInt() else null
+    }
+
+    private fun readNullableBoolean(data: DataInputStream): Boolean? {
+        return if (data.readBoolean()) data.readBoolean() else null
+    }
+
+    private fun readNullableDouble(data: DataInputStream): Double? {
+        return if (data.readBoolean()) data.readDouble() else null
+    }
+
+    /**
+     * Strings are written as [NULL_STRING], as [NEW_STRING] followed by the utf-8 bytes or as the
+     * index of a previously written string shifted by [FIRST_REFERENCE]
+     */
+    private class Writer(val data: DataOutputStream) {
+        private val indexes = HashMap<String, Int>()
+
+        fun string(value: String?) {
+            if (value == null) {
+                data.writeInt(NULL_STRING)
+                return
+            }
+            val index = indexes[value]
+            if (index != null) {
+                data.writeInt(index + FIRST_REFERENCE)
+                return
+            }
+            indexes[value] = indexes.size
+            val bytes = value.toByteArray(Charsets.UTF_8)
+            data.writeInt(NEW_STRING)
+            data.writeInt(bytes.size)
+            data.write(bytes)
+        }
+    }
+
+    private class Reader(val data: DataInputStream) {
+        private val strings = ArrayList<String>()
+
+        fun string(): String? {
+            return when (val tag = data.readInt()) {
+                NULL_STRING -> null
+                NEW_STRING -> {
+                    val bytes = ByteArray(data.readInt())
+                    data.readFully(bytes)
+                    val value = String(bytes, Charsets.UTF_8)
+                    strings.add(value)
+                    value
+                }
+                else -> strings[tag - FIRST_REFERENCE]
+            }
+        }
+    }
+
+    companion object {
+        /**
+         * Needs to be increased whenever the layout changes, so forms compiled by an older
+         * version of the app are compiled again from the xml
+         */
+        const val FORMAT_VERSION = 2
+        const val COMPILED_FORM_SUFFIX = ".bin"
+
+        private const val MAGIC = 0x464c4f57
+
+        private const val NULL_STRING = 0
+        private const val NEW_STRING = 1
+        private const val FIRST_REFERENCE = 2
+
+        private const val FLAG_MANDATORY = 1
+        private const val FLAG_ALLOW_OTHER = 1 shl 1
+        private const val FLAG_ALLOW_MULTIPLE = 1 shl 2
+        private const val FLAG_LOCKED = 1 shl 3
+        private const val FLAG_LOCALE_NAME = 1 shl 4
+        private const val FLAG_LOCALE_LOCATION = 1 shl 5
+        private const val FLAG_DOUBLE_ENTRY = 1 shl 6
+        private const val FLAG_ALLOW_POINTS = 1 shl 7
+        private const val FLAG_ALLOW_LINE = 1 shl 8
+        private const val FLAG_ALLOW_POLYGON = 1 shl 9
+    }
+}
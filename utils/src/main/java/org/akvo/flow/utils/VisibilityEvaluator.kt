@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.akvo.flow.utils
+package org.akvo.flow.utils
+
+import org.akvo.flow.utils.DependencyGraph.Companion.repeatedId
+import org.akvo.flow.utils.DependencyGraph.Companion.iterationOf
+import org.akvo.flow.utils.DependencyGraph.Companion.questionIdOf
+import org.akvo.flow.utils.DependencyGraph.Companion.responseValues
+import java.util.PriorityQueue
+
+/**
+ * Keeps the visibility of the questions being filled in up to date. A question is visible when
+ * every question it depends on is visible and has one of the expected answers.
+ *
+ * Questions are registered as they are displayed. When an answer changes only the questions
+ * depending on it are evaluated, in topological order, and the evaluation stops at the questions
+ * whose visibility did not change. Answers of questions which have not been registered yet are
+ * read from [fallbackAnswer].
+ */
+class VisibilityEvaluator internal constructor(
+    private val graph: DependencyGraph,
+    private val fallbackAnswer: (String) -> String?,
+) {
+
+    private val answers = HashMap<String, Set<String>>()
+    private val visibility = HashMap<String, Boolean>()
+    private val instances = HashMap<String, MutableSet<String>>()
+
+    /**
+     * Number of question evaluations done so far
+     */
+    var evaluationCount = 0L
+        private set
+
+    /**
+     * @return whether the question is visible
+     */
+    fun register(instanceId: String): Boolean {
+        instances.getOrPut(questionIdOf(instanceId)) { LinkedHashSet() }.add(instanceId)
+        val visible = evaluate(instanceId, HashSet())
+        visibility[instanceId] = visible
+        return visible
+    }
+
+    fun unregister(instanceId: String) {
+        instances[questionIdOf(instanceId)]?.remove(instanceId)
+        visibility.remove(instanceId)
+        answers.remove(instanceId)
+    }
+
+    fun isVisible(instanceId: String): Boolean {
+        return visibility[instanceId] ?: evaluate(instanceId, HashSet())
+    }
+
+    /**
+     * @return the registered questions whose visibility changed, in evaluation order
+     */
+    fun setAnswer(instanceId: String, value: String?): List<String> {
+        val values = responseValues(value)
+        if (answers.put(instanceId, values) == values) {
+            return emptyList()
+        }
+        return propagate(instanceId)
+    }
+
+    private fun propagate(source: String): List<String> {
+        val changed = mutableListOf<String>()
+        val queue = PriorityQueue<Pair<Int, String>>(compareBy { it.first })
+        val queued = HashSet<String>()
+        enqueueDependents(source, queue, queued)
+        while (queue.isNotEmpty()) {
+            val instanceId = queue.poll()!!.second
+            val visible = evaluate(instanceId, HashSet())
+            if (visibility.put(instanceId, visible) != visible) {
+                changed.add(instanceId)
+                enqueueDependents(instanceId, queue, queued)
+            }
+        }
+        return changed
+    }
+
+    private fun enqueueDependents(
+        instanceId: String,
+        queue: PriorityQueue<Pair<Int, String>>,
+        queued: MutableSet<String>,
+    ) {
+        val node = graph.node(questionIdOf(instanceId)) ?: return
+        val iteration = iterationOf(instanceId)
+        for (child in node.children) {
+            val dependents = if (iteration != null && child.isInRepeatableGroupOf(node)) {
+                listOf(repeatedId(child.questionId, iteration))
+            } else {
+                instances[child.questionId] ?: emptySet<String>()
+            }
+            for (dependent in dependents) {
+                if (dependent in visibility && queued.add(dependent)) {
+                    queue.add(Pair(child.rank, dependent))
+                }
+            }
+        }
+    }
+
+    /**
+     * @param visiting questions being evaluated, which guards against dependency cycles
+     */
+    private fun evaluate(instanceId: String, visiting: MutableSet<String>): Boolean {
+        evaluationCount++
+        val node = graph.node(questionIdOf(instanceId))
+        if (node == null || node.dependencies.isEmpty()) {
+            return true
+        }
+        if (!visiting.add(instanceId)) {
+            return false
+        }
+        val iteration = iterationOf(instanceId)
+        for (dependency in node.dependencies) {
+            val parent = graph.node(dependency.parentId)
+            val parentId = if (iteration != null && parent != null
+                && parent.isInRepeatableGroupOf(node)) {
+                repeatedId(dependency.parentId, iteration)
+            } else {
+                dependency.parentId
+            }
+            if (answerOf(parentId).none { it in dependency.answers }) {
+                return false
+            }
+            if (!(visibility[parentId] ?: evaluate(parentId, visiting))) {
+                return false
+            }
+        }
+        return true
+    }
+
+    private fun answerOf(instanceId: String): Set<String> {
+        return answers[instanceId] ?: responseValues(fallbackAnswer(instanceId))
+    }
+}
@@ -23,6 +23,7 @@ import org.akvo.flow.utils.entity.Dependency
 import org.akvo.flow.utils.entity.Form
 import org.akvo.flow.utils.entity.Level
 import org.akvo.flow.utils.entity.Option
+import org.akvo.flow.utils.entity.ParsedForm
 import org.akvo.flow.utils.entity.Question
 import org.akvo.flow.utils.entity.QuestionGroup
 import org.akvo.flow.utils.entity.QuestionHelp
@@ -39,504 +40,49 @@ import java.io.InputStream
 import java.util.LinkedHashSet
 import javax.inject.Inject
 
-class XmlFormParser @Inject constructor(private val helper: FileHelper) {
+/**
+ * Parses a form xml in a single streaming pass. All the parse functions share it so a file
+ * is never read more than once to get its questions, metadata and languages. Repeated strings
+ * such as language codes, option codes and translated texts are interned for the duration of a
+ * parse so the form model keeps a single copy of each of them.
+ */
+class XmlFormParser(
+    private val helper: FileHelper,
+    private val parserProvider: () -> XmlPullParser,
+) {
+
+    @Inject
+    constructor(helper: FileHelper) : this(helper, { newPullParser() })
 
     fun parseLanguages(input: InputStream?): Set<String> {
-        val languageCodes: MutableSet<String> = LinkedHashSet()
-        val questionLanguagesCodes: MutableSet<String> = LinkedHashSet()
-        var defaultLanguage = ""
-        val parserFactory: XmlPullParserFactory
-        try {
-            parserFactory = XmlPullParserFactory.newInstance()
-            val parser = parserFactory.newPullParser()
-            parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false)
-            parser.setInput(input, null)
-            var eventType = parser.eventType
-            while (eventType != XmlPullParser.END_DOCUMENT) {
-                var eltName: String
-                when (eventType) {
-                    XmlPullParser.START_TAG -> {
-                        eltName = parser.name
-                        if (SURVEY == eltName) {
-                            val parsedAttribute = parser.getAttributeValue(null, DEFAULT_LANG)
-                            if (!parsedAttribute.isNullOrEmpty()) {
-                                defaultLanguage = parsedAttribute
-                            }
-                        } else if (ALT_TEXT == eltName) {
-                            val language = parser.getAttributeValue(null, LANG)
-                            if (!language.isNullOrEmpty()) {
-                                questionLanguagesCodes.add(language)
-                            }
-                        }
-                    }
-                }
-                eventType = parser.next()
-            }
-        } catch (e: XmlPullParserException) {
-            Timber.e(e)
-        } catch (e: IOException) {
-            Timber.e(e)
-        } finally {
-            helper.close(input)
-        }
-        if (defaultLanguage.isEmpty()) {
-            defaultLanguage = "en"
-        }
-        languageCodes.add(defaultLanguage)
-        languageCodes.addAll(questionLanguagesCodes)
-        return languageCodes
+        return parse(input).languages
     }
 
     @JvmOverloads
     fun parseXmlForm(inputStream: InputStream, backUpVersion: Double? = null): Form {
-        val groups: MutableList<QuestionGroup> = mutableListOf()
-        var version = backUpVersion ?: 0.0
-        var name = ""
-        var formId = -1
-        var surveyId = -1L
-        var defaultLanguage = ""
-        val parserFactory: XmlPullParserFactory
-        var currentQuestionGroup: QuestionGroup? = null
-        var currentQuestion: Question? = null
-        var currentOptions = mutableListOf<Option>()
-        var currentOption: Option? = null
-        var currentLevels = mutableListOf<Level>()
-        var currentLevel: Level? = null
-        var currentAltText: AltText? = null
-        var currentHelp: QuestionHelp? = null
-        var lastText: String? = null
-        var groupOrder = 0
-        try {
-            parserFactory = XmlPullParserFactory.newInstance()
-            val parser = parserFactory.newPullParser()
-            parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false)
-            parser.setInput(inputStream, null)
-            var eventType = parser.eventType
-            while (eventType != XmlPullParser.END_DOCUMENT) {
-
-                when (eventType) {
-                    /**
-                     * Beginning of a tag for example <question>
-                     */
-                    XmlPullParser.START_TAG -> {
-                        when (parser.name) {
-                            SURVEY -> {
-                                version = getDoubleAttribute(parser, VERSION)
-                                name = getNonNullStringAttribute(parser, NAME)
-                                formId = getIntAttribute(parser, FORM_ID, -1)
-                                surveyId = getNonNullLongAttribute(parser, SURVEY_ID)
-                                val parsedAttribute = parser.getAttributeValue(null, DEFAULT_LANG)
-                                if (!parsedAttribute.isNullOrEmpty()) {
-                                    defaultLanguage = parsedAttribute
-                                }
-                            }
-                            QUESTION_GROUP -> {
-                                groupOrder++
-                                val repeatable = "true" == getStringAttribute(parser, REPEATABLE)
-                                val groupId = getLongAttribute(parser, "groupId")
-                                currentQuestionGroup = QuestionGroup(groupId,
-                                    "",
-                                    repeatable = repeatable,
-                                    formId.toString(), groupOrder)
-                            }
-                            QUESTION_GROUP_HEADING -> {
-                                currentQuestionGroup?.heading = parser.nextText()
-                            }
-                            QUESTION -> {
-                                val resource = getStringAttribute(parser, CASCADE_RESOURCE)
-                                var order = getIntAttribute(parser, ORDER, -1)
-                                if (order == -1) {
-                                    order = 1
-                                    if (currentQuestionGroup != null) {
-                                        order = currentQuestionGroup.questions.size + 1
-                                    }
-                                }
-
-                                currentQuestion = Question(
-                                    cascadeResource = resource,
-                                    order = order,
-                                    isMandatory = getBooleanAttribute(parser, MANDATORY),
-                                    isLocked = getBooleanAttribute(parser, LOCKED),
-                                    isDoubleEntry = getBooleanAttribute(parser, DOUBLE_ENTRY),
-                                    isAllowMultiple = getBooleanAttribute(parser, ALLOW_MULT),
-                                    type = parser.getAttributeValue(null, TYPE),
-                                    questionId = parser.getAttributeValue(null, ID),
-                                    isLocaleName = getBooleanAttribute(parser, LOCALE_NAME),
-                                    isLocaleLocation = getBooleanAttribute(parser, LOCALE_LOCATION),
-                                    caddisflyRes = getStringAttribute(parser, CADDISFLY_RESOURCE),
-                                    isAllowPoints = getBooleanAttribute(parser, ALLOW_POINTS),
-                                    isAllowLine = getBooleanAttribute(parser, ALLOW_LINE),
-                                    isAllowPolygon = getBooleanAttribute(parser, ALLOW_POLYGON)
-                                )
-                            }
-                            OPTIONS -> {
-                                currentOptions = mutableListOf()
-                                if (currentQuestion != null) {
-                                    currentQuestion.isAllowOther = getBooleanAttribute(
-                                        parser,
-                                        ALLOW_OTHER
-                                    )
-                                    currentQuestion.isAllowMultiple = getBooleanAttribute(
-                                        parser,
-                                        ALLOW_MULT
-                                    )
-                                }
-                            }
-                            OPTION -> {
-                                currentOption = Option(code = getStringAttribute(parser, CODE))
-                            }
-                            LEVELS -> {
-                                currentLevels = mutableListOf()
-                            }
-                            LEVEL -> {
-                                currentLevel = Level()
-                            }
-                            DEPENDENCY -> {
-                                currentQuestion?.dependencies?.add(
-                                    Dependency(
-                                        question = getStringAttribute(parser, QUESTION),
-                                        answer = getStringAttribute(parser, ANSWER)
-                                    )
-                                )
-                            }
-                            VALIDATION_RULE -> {
-                                currentQuestion?.validationRule = parseValidationValue(parser)
-                            }
-                            ALT_TEXT -> {
-                                currentAltText = AltText(
-                                    languageCode = getStringAttribute(parser, LANG),
-                                    type = getStringAttribute(parser, TYPE)
-                                )
-                            }
-                            HELP -> {
-                                currentHelp = QuestionHelp()
-                            }
-
-                        }
-                    }
-                    /**
-                     * End of a tag for example </question>
-                     */
-                    XmlPullParser.END_TAG -> {
-                        when (parser.name) {
-                            QUESTION_GROUP -> {
-                                currentQuestionGroup?.let {
-                                    groups.add(it)
-                                }
-                            }
-                            QUESTION -> {
-                                if (currentQuestionGroup != null && currentQuestion != null) {
-                                    if (lastText != null) {
-                                        currentQuestion.text = lastText
-                                        lastText = null
-                                    }
-                                    currentQuestionGroup.questions.add(currentQuestion)
-                                    currentQuestion = null
-                                }
-                            }
-                            OPTIONS -> {
-                                if (currentQuestion != null) {
-                                    if (currentQuestion.options == null) {
-                                        currentQuestion.options = mutableListOf()
-                                    }
-                                    currentQuestion.options?.addAll(currentOptions)
-                                    currentOptions = mutableListOf()
-                                }
-                            }
-                            OPTION -> {
-                                if (currentOption != null) {
-                                    if (lastText != null) {
-                                        currentOption.text = lastText
-                                        lastText = null
-                                    }
-                                    currentOptions.add(currentOption)
-                                    currentOption = null
-                                }
-                            }
-                            LEVELS -> {
-                                currentQuestion?.levels?.addAll(currentLevels)
-                                currentLevels = mutableListOf()
-                            }
-                            LEVEL -> {
-                                if (currentLevel != null) {
-                                    if (lastText != null) {
-                                        currentLevel.text = lastText
-                                        lastText = null
-                                    }
-                                    currentLevels.add(currentLevel)
-                                    currentLevel = null
-                                }
-                            }
-                            DEPENDENCY -> {
-                                //nothing to do
-                            }
-                            ALT_TEXT -> {
-                                //can be inside question, help or option
-                                if (currentAltText != null) {
-                                    when {
-                                        currentOption != null -> {
-                                            currentOption.addAltText(currentAltText)
-                                        }
-                                        currentHelp != null -> {
-                                            currentHelp.addAltText(currentAltText)
-                                        }
-                                        currentQuestion != null -> {
-                                            currentQuestion.addAltText(currentAltText)
-                                        }
-                                    }
-                                    currentAltText = null
-                                }
-                            }
-                            HELP -> {
-                                if (currentHelp != null) {
-                                    if (lastText != null) {
-                                        currentHelp.text = lastText
-                                        lastText = null
-                                    }
-                                    currentQuestion?.questionHelp?.add(currentHelp)
-                                    currentHelp = null
-                                }
-
-                            }
-                        }
-                    }
-                    /**
-                     * this is the <text>some text</text> content
-                     * <text> can appear in multiple places: inside question, option, level, help
-                     */
-                    XmlPullParser.TEXT -> {
-                        lastText = parser.text
-                    }
-                }
-                eventType = parser.next()
-            }
-        } catch (e: XmlPullParserException) {
-            Timber.e(e)
-        } catch (e: IOException) {
-            Timber.e(e)
-        } finally {
-            helper.close(inputStream)
-        }
-        return Form(formId, formId.toString(),
-            surveyId,
-            name = name,
-            version = version,
-            filename = "$formId.xml",
-            language = defaultLanguage,
-            groups = groups)
+        return parse(inputStream, backUpVersion).form
     }
 
     fun parseXmlQuestions(inputStream: InputStream): HashMap<Int, MutableList<Question>> {
-        val parserFactory: XmlPullParserFactory
-        var currentQuestion: Question? = null
-        var currentOptions = mutableListOf<Option>()
-        var currentOption: Option? = null
-        var currentLevels = mutableListOf<Level>()
-        var currentLevel: Level? = null
-        var currentAltText: AltText? = null
-        var currentHelp: QuestionHelp? = null
-        var lastText: String? = null
-        var groupOrder = 0
-        var currentQuestions = mutableListOf<Question>()
-        val map = HashMap<Int, MutableList<Question>>()
-        try {
-            parserFactory = XmlPullParserFactory.newInstance()
-            val parser = parserFactory.newPullParser()
-            parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false)
-            parser.setInput(inputStream, null)
-            var eventType = parser.eventType
-            while (eventType != XmlPullParser.END_DOCUMENT) {
-
-                when (eventType) {
-                    /**
-                     * Beginning of a tag for example <question>
-                     */
-                    XmlPullParser.START_TAG -> {
-                        when (parser.name) {
-                            QUESTION_GROUP -> {
-                                groupOrder++
-                                currentQuestions = mutableListOf()
-                            }
-                            QUESTION -> {
-                                val resource = getStringAttribute(parser, CASCADE_RESOURCE)
-                                var order = getIntAttribute(parser, ORDER, -1)
-                                if (order == -1) {
-                                    order = 1
-                                }
-
-                                currentQuestion = Question(
-                                    cascadeResource = resource,
-                                    order = order,
-                                    isMandatory = getBooleanAttribute(parser, MANDATORY),
-                                    isLocked = getBooleanAttribute(parser, LOCKED),
-                                    isDoubleEntry = getBooleanAttribute(parser, DOUBLE_ENTRY),
-                                    isAllowMultiple = getBooleanAttribute(parser, ALLOW_MULT),
-                                    type = parser.getAttributeValue(null, TYPE),
-                                    questionId = parser.getAttributeValue(null, ID),
-                                    isLocaleName = getBooleanAttribute(parser, LOCALE_NAME),
-                                    isLocaleLocation = getBooleanAttribute(parser, LOCALE_LOCATION),
-                                    caddisflyRes = getStringAttribute(parser, CADDISFLY_RESOURCE),
-                                    isAllowPoints = getBooleanAttribute(parser, ALLOW_POINTS),
-                                    isAllowLine = getBooleanAttribute(parser, ALLOW_LINE),
-                                    isAllowPolygon = getBooleanAttribute(parser, ALLOW_POLYGON)
-                                )
-                            }
-                            OPTIONS -> {
-                                currentOptions = mutableListOf()
-                                if (currentQuestion != null) {
-                                    currentQuestion.isAllowOther = getBooleanAttribute(
-                                        parser,
-                                        ALLOW_OTHER
-                                    )
-                                    currentQuestion.isAllowMultiple = getBooleanAttribute(
-                                        parser,
-                                        ALLOW_MULT
-                                    )
-                                }
-                            }
-                            OPTION -> {
-                                currentOption = Option(code = getStringAttribute(parser, CODE))
-                            }
-                            LEVELS -> {
-                                currentLevels = mutableListOf()
-                            }
-                            LEVEL -> {
-                                currentLevel = Level()
-                            }
-                            DEPENDENCY -> {
-                                currentQuestion?.dependencies?.add(
-                                    Dependency(
-                                        question = getStringAttribute(parser, QUESTION),
-                                        answer = getStringAttribute(parser, ANSWER)
-                                    )
-                                )
-                            }
-                            VALIDATION_RULE -> {
-                                currentQuestion?.validationRule = parseValidationValue(parser)
-                            }
-                            ALT_TEXT -> {
-                                currentAltText = AltText(
-                                    languageCode = getStringAttribute(parser, LANG),
-                                    type = getStringAttribute(parser, TYPE)
-                                )
-                            }
-                            HELP -> {
-                                currentHelp = QuestionHelp()
-                            }
-                        }
-                    }
-                    /**
-                     * End of a tag for example </question>
-                     */
-                    XmlPullParser.END_TAG -> {
-                        when (parser.name) {
-                            QUESTION_GROUP -> {
-                                map[groupOrder] = currentQuestions
-                            }
-                            QUESTION -> {
-                                if (currentQuestion != null) {
-                                    if (lastText != null) {
-                                        currentQuestion.text = lastText
-                                        lastText = null
-                                    }
-                                    currentQuestions.add(currentQuestion)
-                                    currentQuestion = null
-                                }
-                            }
-                            OPTIONS -> {
-                                if (currentQuestion != null) {
-                                    if (currentQuestion.options == null) {
-                                        currentQuestion.options = mutableListOf()
-                                    }
-                                    currentQuestion.options?.addAll(currentOptions)
-                                    currentOptions = mutableListOf()
-                                }
-                            }
-                            OPTION -> {
-                                if (currentOption != null) {
-                                    if (lastText != null) {
-                                        currentOption.text = lastText
-                                        lastText = null
-                                    }
-                                    currentOptions.add(currentOption)
-                                    currentOption = null
-                                }
-                            }
-                            LEVELS -> {
-                                currentQuestion?.levels?.addAll(currentLevels)
-                                currentLevels = mutableListOf()
-                            }
-                            LEVEL -> {
-                                if (currentLevel != null) {
-                                    if (lastText != null) {
-                                        currentLevel.text = lastText
-                                        lastText = null
-                                    }
-                                    currentLevels.add(currentLevel)
-                                    currentLevel = null
-                                }
-                            }
-                            DEPENDENCY -> {
-                                //TODO: add dependency
-                            }
-                            ALT_TEXT -> {
-                                //can be inside question, help or option
-                                if (currentAltText != null) {
-                                    when {
-                                        currentOption != null -> {
-                                            currentOption.addAltText(currentAltText)
-                                        }
-                                        currentHelp != null -> {
-                                            currentHelp.addAltText(currentAltText)
-                                        }
-                                        currentQuestion != null -> {
-                                            currentQuestion.addAltText(currentAltText)
-                                        }
-                                    }
-                                    currentAltText = null
-                                }
-                            }
-                            HELP -> {
-                                if (currentHelp != null) {
-                                    if (lastText != null) {
-                                        currentHelp.text = lastText
-                                        lastText = null
-                                    }
-                                    currentQuestion?.questionHelp?.add(currentHelp)
-                                    currentHelp = null
-                                }
-
-                            }
-                        }
-                    }
-                    /**
-                     * this is the <text>some text</text> content
-                     * <text> can appear in multiple places: inside question, option, level, help
-                     */
-                    XmlPullParser.TEXT -> {
-                        lastText = parser.text
-                    }
-                }
-                eventType = parser.next()
-            }
-        } catch (e: XmlPullParserException) {
-            Timber.e(e)
-        } catch (e: IOException) {
-            Timber.e(e)
-        } finally {
-            helper.close(inputStream)
-        }
-        return map
+        return parse(inputStream).questionsByGroup()
     }
 
     fun parseXmlFormWithMeta(inputStream: InputStream, backUpVersion: Double? = null): Pair<Form, SurveyMetadata> {
+        val parsedForm = parse(inputStream, backUpVersion)
+        return Pair(parsedForm.form, parsedForm.metadata)
+    }
+
+    @JvmOverloads
+    fun parse(inputStream: InputStream?, backUpVersion: Double? = null): ParsedForm {
         val groups: MutableList<QuestionGroup> = mutableListOf()
         var version = backUpVersion ?: 0.0
         var name = ""
         var formId = -1
         var surveyId = -1L
         var defaultLanguage = ""
-        val parserFactory: XmlPullParserFactory
+        val questionLanguages: MutableSet<String> = LinkedHashSet()
+        var surveyMetadata = SurveyMetadata()
+        val strings = HashMap<String, String>()
         var currentQuestionGroup: QuestionGroup? = null
         var currentQuestion: Question? = null
         var currentOptions = mutableListOf<Option>()
@@ -547,11 +93,8 @@ class XmlFormParser @Inject constructor(private val helper: FileHelper) {
         var currentHelp: QuestionHelp? = null
         var lastText: String? = null
         var groupOrder = 0
-        var surveyMetadata = SurveyMetadata()
         try {
-            parserFactory = XmlPullParserFactory.newInstance()
-            val parser = parserFactory.newPullParser()
-            parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false)
+            val parser = parserProvider()
             parser.setInput(inputStream, null)
             var eventType = parser.eventType
             while (eventType != XmlPullParser.END_DOCUMENT) {
@@ -561,6 +104,7 @@ class XmlFormParser @Inject constructor(private val helper: FileHelper) {
                      * Beginning of a tag for example <question>
                      */
                     XmlPullParser.START_TAG -> {
+                        lastText = null
                         when (parser.name) {
                             SURVEY -> {
                                 val surveyName = getStringAttribute(parser, SURVEY_GROUP_NAME)
@@ -613,7 +157,7 @@ class XmlFormParser @Inject constructor(private val helper: FileHelper) {
                                     isLocked = getBooleanAttribute(parser, LOCKED),
                                     isDoubleEntry = getBooleanAttribute(parser, DOUBLE_ENTRY),
                                     isAllowMultiple = getBooleanAttribute(parser, ALLOW_MULT),
-                                    type = parser.getAttributeValue(null, TYPE),
+                                    type = intern(strings, parser.getAttributeValue(null, TYPE)),
                                     questionId = parser.getAttributeValue(null, ID),
                                     isLocaleName = getBooleanAttribute(parser, LOCALE_NAME),
                                     isLocaleLocation = getBooleanAttribute(parser, LOCALE_LOCATION),
@@ -637,7 +181,9 @@ class XmlFormParser @Inject constructor(private val helper: FileHelper) {
                                 }
                             }
                             OPTION -> {
-                                currentOption = Option(code = getStringAttribute(parser, CODE))
+                                currentOption = Option(
+                                    code = intern(strings, getStringAttribute(parser, CODE))
+                                )
                             }
                             LEVELS -> {
                                 currentLevels = mutableListOf()
@@ -649,7 +195,7 @@ class XmlFormParser @Inject constructor(private val helper: FileHelper) {
                                 currentQuestion?.dependencies?.add(
                                     Dependency(
                                         question = getStringAttribute(parser, QUESTION),
-                                        answer = getStringAttribute(parser, ANSWER)
+                                        answer = intern(strings, getStringAttribute(parser, ANSWER))
                                     )
                                 )
                             }
@@ -657,15 +203,18 @@ class XmlFormParser @Inject constructor(private val helper: FileHelper) {
                                 currentQuestion?.validationRule = parseValidationValue(parser)
                             }
                             ALT_TEXT -> {
+                                val language = intern(strings, getStringAttribute(parser, LANG))
+                                if (!language.isNullOrEmpty()) {
+                                    questionLanguages.add(language)
+                                }
                                 currentAltText = AltText(
-                                    languageCode = getStringAttribute(parser, LANG),
-                                    type = getStringAttribute(parser, TYPE)
+                                    languageCode = language,
+                                    type = intern(strings, getStringAttribute(parser, TYPE))
                                 )
                             }
                             HELP -> {
                                 currentHelp = QuestionHelp()
                             }
-
                         }
                     }
                     /**
@@ -680,14 +229,23 @@ class XmlFormParser @Inject constructor(private val helper: FileHelper) {
                             }
                             QUESTION -> {
                                 if (currentQuestionGroup != null && currentQuestion != null) {
-                                    if (lastText != null) {
-                                        currentQuestion.text = lastText
-                                        lastText = null
+                                    if (currentQuestion.text == null) {
+                                        currentQuestion.text = contentText(strings, lastText)
                                     }
                                     currentQuestionGroup.questions.add(currentQuestion)
                                     currentQuestion = null
                                 }
                             }
+                            TEXT -> {
+                                //can be inside question, help, option or level
+                                val text = contentText(strings, lastText)
+                                when {
+                                    currentOption != null -> currentOption.text = text
+                                    currentLevel != null -> currentLevel.text = text
+                                    currentHelp != null -> currentHelp.text = text
+                                    currentQuestion != null -> currentQuestion.text = text
+                                }
+                            }
                             OPTIONS -> {
                                 if (currentQuestion != null) {
                                     if (currentQuestion.options == null) {
@@ -699,9 +257,9 @@ class XmlFormParser @Inject constructor(private val helper: FileHelper) {
                             }
                             OPTION -> {
                                 if (currentOption != null) {
-                                    if (lastText != null) {
-                                        currentOption.text = lastText
-                                        lastText = null
+                                    // older forms have the option text without a <text> element
+                                    if (currentOption.text == null) {
+                                        currentOption.text = contentText(strings, lastText)
                                     }
                                     currentOptions.add(currentOption)
                                     currentOption = null
@@ -713,9 +271,8 @@ class XmlFormParser @Inject constructor(private val helper: FileHelper) {
                             }
                             LEVEL -> {
                                 if (currentLevel != null) {
-                                    if (lastText != null) {
-                                        currentLevel.text = lastText
-                                        lastText = null
+                                    if (currentLevel.text == null) {
+                                        currentLevel.text = contentText(strings, lastText)
                                     }
                                     currentLevels.add(currentLevel)
                                     currentLevel = null
@@ -725,12 +282,16 @@ class XmlFormParser @Inject constructor(private val helper: FileHelper) {
                                 //nothing to do
                             }
                             ALT_TEXT -> {
-                                //can be inside question, help or option
+                                //can be inside question, help, option or level
                                 if (currentAltText != null) {
+                                    currentAltText.text = contentText(strings, lastText)
                                     when {
                                         currentOption != null -> {
                                             currentOption.addAltText(currentAltText)
                                         }
+                                        currentLevel != null -> {
+                                            currentLevel.addAltText(currentAltText)
+                                        }
                                         currentHelp != null -> {
                                             currentHelp.addAltText(currentAltText)
                                         }
@@ -743,9 +304,8 @@ class XmlFormParser @Inject constructor(private val helper: FileHelper) {
                             }
                             HELP -> {
                                 if (currentHelp != null) {
-                                    if (lastText != null) {
-                                        currentHelp.text = lastText
-                                        lastText = null
+                                    if (currentHelp.text == null) {
+                                        currentHelp.text = contentText(strings, lastText)
                                     }
                                     currentQuestion?.questionHelp?.add(currentHelp)
                                     currentHelp = null
@@ -755,8 +315,8 @@ class XmlFormParser @Inject constructor(private val helper: FileHelper) {
                         }
                     }
                     /**
-                     * this is the <text>some text</text> content
-                     * <text> can appear in multiple places: inside question, option, level, help
+                     * this is the <text>some text</text> content, it is assigned when the
+                     * element holding it ends
                      */
                     XmlPullParser.TEXT -> {
                         lastText = parser.text
@@ -778,7 +338,25 @@ class XmlFormParser @Inject constructor(private val helper: FileHelper) {
             filename = "$formId.xml",
             language = defaultLanguage,
             groups = groups)
-        return Pair(form, surveyMetadata)
+        val languages: MutableSet<String> = LinkedHashSet()
+        languages.add(if (defaultLanguage.isEmpty()) "en" else defaultLanguage)
+        languages.addAll(questionLanguages)
+        return ParsedForm(form, surveyMetadata, languages)
+    }
+
+    /**
+     * @return the trimmed content of an element, or null if it only had whitespace
+     */
+    private fun contentText(strings: HashMap<String, String>, value: String?): String? {
+        val text = value?.trim()
+        return if (text.isNullOrEmpty()) null else intern(strings, text)
+    }
+
+    private fun intern(strings: HashMap<String, String>, value: String?): String? {
+        if (value == null) {
+            return null
+        }
+        return strings.getOrPut(value) { value }
     }
 
     private fun parseValidationValue(parser: XmlPullParser): ValidationRule {
@@ -820,10 +398,24 @@ class XmlFormParser @Inject constructor(private val helper: FileHelper) {
         parser.getAttributeValue(null, attributeName)?.toBoolean() ?: false
 
     companion object {
+        /**
+         * Creating the factory looks up the parser implementation, it is done once per process
+         */
+        private val parserFactory: XmlPullParserFactory by lazy {
+            XmlPullParserFactory.newInstance()
+        }
+
+        private fun newPullParser(): XmlPullParser {
+            val parser = parserFactory.newPullParser()
+            parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false)
+            return parser
+        }
+
         private const val OPTIONS = "options"
         private const val QUESTION = "question"
         private const val QUESTION_GROUP = "questionGroup"
         private const val QUESTION_GROUP_HEADING = "heading"
+        private const val TEXT = "text"
         private const val SURVEY = "survey"
         private const val CASCADE_RESOURCE = "cascadeResource"
         private const val ORDER = "order"
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.utils.entity
+
+/**
+ * Everything read from a form xml file
+ */
+data class ParsedForm(
+    val form: Form,
+    val metadata: SurveyMetadata,
+    val languages: Set<String>
+) {
+
+    /**
+     * @return the questions of each group, keyed by group order
+     */
+    fun questionsByGroup(): HashMap<Int, MutableList<Question>> {
+        val questions = HashMap<Int, MutableList<Question>>()
+        for (group in form.groups) {
+            questions[group.order] = group.questions
+        }
+        return questions
+    }
+}
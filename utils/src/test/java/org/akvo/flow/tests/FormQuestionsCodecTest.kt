@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.tests
+
+import org.akvo.flow.utils.FormQuestionsCodec
+import org.akvo.flow.utils.entity.AltText
+import org.akvo.flow.utils.entity.Dependency
+import org.akvo.flow.utils.entity.Level
+import org.akvo.flow.utils.entity.Option
+import org.akvo.flow.utils.entity.Question
+import org.akvo.flow.utils.entity.QuestionHelp
+import org.akvo.flow.utils.entity.ValidationRule
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+
+class FormQuestionsCodecTest {
+
+    private val codec = FormQuestionsCodec()
+
+    @Test
+    fun readShouldReturnWrittenQuestions() {
+        val questions = hashMapOf(
+            1 to mutableListOf(optionQuestion(), Question(questionId = "2", type = "free")),
+            2 to mutableListOf(validatedQuestion())
+        )
+
+        val read = codec.read(ByteArrayInputStream(write(questions)), SOURCE_LENGTH,
+            SOURCE_MODIFIED)!!
+
+        assertEquals(questions.keys, read.keys)
+        assertQuestionEquals(questions[1]!![0], read[1]!![0])
+        assertQuestionEquals(questions[1]!![1], read[1]!![1])
+        assertQuestionEquals(questions[2]!![0], read[2]!![0])
+    }
+
+    @Test
+    fun readShouldReturnNullIfSourceChanged() {
+        val questions = hashMapOf(1 to mutableListOf(optionQuestion()))
+
+        val bytes = write(questions)
+
+        assertNull(codec.read(ByteArrayInputStream(bytes), SOURCE_LENGTH + 1, SOURCE_MODIFIED))
+        assertNull(codec.read(ByteArrayInputStream(bytes), SOURCE_LENGTH, SOURCE_MODIFIED + 1))
+    }
+
+    private fun write(questions: Map<Int, List<Question>>): ByteArray {
+        val output = ByteArrayOutputStream()
+        codec.write(questions, output, SOURCE_LENGTH, SOURCE_MODIFIED)
+        return output.toByteArray()
+    }
+
+    private fun optionQuestion(): Question {
+        val question = Question(questionId = "1", text = "Colour", type = "option", order = 1,
+            isMandatory = true, isAllowOther = true, isAllowMultiple = true,
+            cascadeResource = null, caddisflyRes = "caddisfly")
+        question.addAltText(AltText("fr", "translation", "Couleur"))
+        question.addAltText(AltText("es", "translation", "Color"))
+        val red = Option("Red", "R")
+        red.addAltText(AltText("fr", "translation", "Rouge"))
+        question.options = mutableListOf(red, Option("Other", null, true))
+        val help = QuestionHelp(text = "Pick one")
+        help.addAltText(AltText("fr", "translation", "Choisir"))
+        question.questionHelp.add(help)
+        question.dependencies.add(Dependency("0", "Yes|Maybe"))
+        val level = Level("Region")
+        level.addAltText(AltText("fr", "translation", "Région"))
+        question.levels.add(level)
+        return question
+    }
+
+    private fun validatedQuestion(): Question {
+        val rule = ValidationRule(ValidationRule.NUMERIC_VALIDATION_TYPE)
+        rule.allowDecimal = false
+        rule.minVal = -5.5
+        rule.maxVal = null
+        return Question(questionId = "3", type = "free", order = 1, isLocked = true,
+            isAllowPolygon = true, validationRule = rule)
+    }
+
+    private fun assertQuestionEquals(expected: Question, actual: Question) {
+        assertEquals(expected.copy(validationRule = null), actual.copy(validationRule = null))
+        assertEquals(expected.options?.map { it.code }, actual.options?.map { it.code })
+        assertEquals(expected.options?.map { it.isOther }, actual.options?.map { it.isOther })
+        assertEquals(expected.options?.map { it.altTextMap }, actual.options?.map { it.altTextMap })
+        val expectedRule = expected.validationRule
+        val actualRule = actual.validationRule
+        if (expectedRule == null) {
+            assertNull(actualRule)
+        } else {
+            assertEquals(expectedRule.validationType, actualRule!!.validationType)
+            assertEquals(expectedRule.maxLength, actualRule.maxLength)
+            assertEquals(expectedRule.allowSigned, actualRule.allowSigned)
+            assertEquals(expectedRule.allowDecimal, actualRule.allowDecimal)
+            assertEquals(expectedRule.minVal, actualRule.minVal)
+            assertEquals(expectedRule.maxVal, actualRule.maxVal)
+        }
+    }
+
+    companion object {
+        private const val SOURCE_LENGTH = 1234L
+        private const val SOURCE_MODIFIED = 1600000000000L
+    }
+}
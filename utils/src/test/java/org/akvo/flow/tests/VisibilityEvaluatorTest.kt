@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.tests
+
+import org.akvo.flow.utils.DependencyGraph
+import org.akvo.flow.utils.VisibilityEvaluator
+import org.akvo.flow.utils.entity.Dependency
+import org.akvo.flow.utils.entity.Question
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class VisibilityEvaluatorTest {
+
+    @Test
+    fun setAnswerShouldShowAndHideDependencyChain() {
+        val evaluator = evaluator(
+            listOf(question("a"), question("b", "a" to "yes"), question("c", "b" to "no"))
+        )
+        listOf("a", "b", "c").forEach { evaluator.register(it) }
+
+        assertEquals(listOf("b"), evaluator.setAnswer("a", options("yes")))
+        assertEquals(listOf("c"), evaluator.setAnswer("b", options("no")))
+        assertTrue(evaluator.isVisible("c"))
+
+        assertEquals(listOf("b", "c"), evaluator.setAnswer("a", options("maybe")))
+        assertFalse(evaluator.isVisible("b"))
+        assertFalse(evaluator.isVisible("c"))
+    }
+
+    @Test
+    fun setAnswerShouldMatchAnyOfTheSelectedAndExpectedAnswers() {
+        val evaluator = evaluator(listOf(question("a"), question("b", "a" to "red|green")))
+        evaluator.register("b")
+
+        evaluator.setAnswer("a", options("blue", "green"))
+        assertTrue(evaluator.isVisible("b"))
+
+        evaluator.setAnswer("a", "blue|red")
+        assertTrue(evaluator.isVisible("b"))
+
+        evaluator.setAnswer("a", null)
+        assertFalse(evaluator.isVisible("b"))
+    }
+
+    @Test
+    fun questionShouldRequireAllItsDependencies() {
+        val evaluator = evaluator(
+            listOf(question("a"), question("b"), question("c", "a" to "1", "b" to "2"))
+        )
+        evaluator.register("c")
+
+        evaluator.setAnswer("a", "1")
+        assertFalse(evaluator.isVisible("c"))
+
+        evaluator.setAnswer("b", "2")
+        assertTrue(evaluator.isVisible("c"))
+    }
+
+    @Test
+    fun repeatedQuestionsShouldDependOnTheSameIteration() {
+        val graph = DependencyGraph.Builder()
+            .addGroup(listOf(question("a"), question("b", "a" to "yes")), true)
+            .build()
+        val evaluator = graph.newEvaluator { null }
+        listOf("a|0", "b|0", "a|1", "b|1").forEach { evaluator.register(it) }
+
+        assertEquals(listOf("b|1"), evaluator.setAnswer("a|1", "yes"))
+        assertFalse(evaluator.isVisible("b|0"))
+        assertTrue(evaluator.isVisible("b|1"))
+    }
+
+    @Test
+    fun repeatedQuestionsShouldDependOnQuestionsOutsideTheirGroup() {
+        val graph = DependencyGraph.Builder()
+            .addGroup(listOf(question("a")), false)
+            .addGroup(listOf(question("b", "a" to "yes")), true)
+            .build()
+        val evaluator = graph.newEvaluator { null }
+        listOf("a", "b|0", "b|1").forEach { evaluator.register(it) }
+
+        assertEquals(listOf("b|0", "b|1"), evaluator.setAnswer("a", "yes").sorted())
+    }
+
+    @Test
+    fun unregisteredQuestionsShouldUseFallbackAnswers() {
+        val evaluator = evaluator(listOf(question("a"), question("b", "a" to "yes"))) { id ->
+            if (id == "a") "yes" else null
+        }
+
+        assertTrue(evaluator.register("b"))
+    }
+
+    @Test
+    fun setAnswerShouldOnlyEvaluateAffectedQuestions() {
+        val questions = mutableListOf(question("a"), question("b"))
+        for (i in 0 until 200) {
+            questions.add(question("a$i", "a" to "yes"))
+        }
+        questions.add(question("b0", "b" to "yes"))
+        val evaluator = evaluator(questions)
+        questions.forEach { evaluator.register(it.questionId!!) }
+        val evaluations = evaluator.evaluationCount
+
+        evaluator.setAnswer("b", "yes")
+
+        assertEquals(1L, evaluator.evaluationCount - evaluations)
+    }
+
+    @Test
+    fun setAnswerShouldStopAtUnchangedQuestions() {
+        val evaluator = evaluator(
+            listOf(question("a"), question("b", "a" to "yes|also"), question("c", "b" to "x"))
+        )
+        listOf("a", "b", "c").forEach { evaluator.register(it) }
+        evaluator.setAnswer("a", "yes")
+        val evaluations = evaluator.evaluationCount
+
+        assertEquals(emptyList<String>(), evaluator.setAnswer("a", "also"))
+        assertEquals(1L, evaluator.evaluationCount - evaluations)
+    }
+
+    @Test
+    fun dependencyCyclesShouldHideQuestions() {
+        val evaluator = evaluator(listOf(question("a", "b" to "1"), question("b", "a" to "1")))
+        evaluator.register("a")
+        evaluator.register("b")
+
+        evaluator.setAnswer("a", "1")
+        evaluator.setAnswer("b", "1")
+
+        assertFalse(evaluator.isVisible("a"))
+        assertFalse(evaluator.isVisible("b"))
+    }
+
+    private fun evaluator(
+        questions: List<Question>,
+        fallbackAnswer: (String) -> String? = { null },
+    ): VisibilityEvaluator {
+        return DependencyGraph.Builder()
+            .addGroup(questions, false)
+            .build()
+            .newEvaluator(fallbackAnswer)
+    }
+
+    private fun question(id: String, vararg dependencies: Pair<String, String>): Question {
+        return Question(
+            questionId = id,
+            dependencies = dependencies.mapTo(mutableListOf()) { (question, answer) ->
+                Dependency(question, answer)
+            })
+    }
+
+    private fun options(vararg texts: String): String {
+        return texts.joinToString(",", "[", "]") { "{\"text\":\"$it\"}" }
+    }
+}
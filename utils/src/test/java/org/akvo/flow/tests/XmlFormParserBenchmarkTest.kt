@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2021 Stichting Akvo (Akvo Foundation)
+ *
+ * This file is part of Akvo Flow.
+ *
+ * Akvo Flow is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Akvo Flow is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Akvo Flow.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.akvo.flow.tests
+
+import org.akvo.flow.utils.FileHelper
+import org.akvo.flow.utils.XmlFormParser
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertSame
+import org.junit.Before
+import org.junit.Test
+import org.kxml2.io.KXmlParser
+import timber.log.Timber
+import java.io.ByteArrayInputStream
+
+/**
+ * Measures the single pass parse against the three parses a form download used to need
+ * (form, questions and languages), over the test forms and a generated 500 question form.
+ * Uses kxml, the parser Android ships with, so it runs on the JVM. Results are logged with the
+ * tag of this class, through a tree writing to the test output.
+ */
+class XmlFormParserBenchmarkTest {
+
+    private val parser = XmlFormParser(FileHelper()) { KXmlParser() }
+    private val testOutputTree = object : Timber.Tree() {
+        override fun log(priority: Int, tag: String?, message: String, t: Throwable?) {
+            System.out.println("$tag: $message")
+        }
+    }
+
+    @Before
+    fun setUp() {
+        Timber.plant(testOutputTree)
+    }
+
+    @After
+    fun tearDown() {
+        Timber.uproot(testOutputTree)
+    }
+
+    @Test
+    fun parseShouldReadTheWholeFormInOnePass() {
+        val xml = generatedForm(QUESTIONS).toByteArray()
+
+        val parsedForm = parser.parse(ByteArrayInputStream(xml))
+
+        assertEquals(QUESTIONS, parsedForm.form.groups.sumBy { it.questions.size })
+        assertEquals(QUESTIONS / QUESTIONS_PER_GROUP, parsedForm.questionsByGroup().size)
+        assertEquals(setOf("en", "fr", "es"), parsedForm.languages)
+        assertEquals("app", parsedForm.metadata.app)
+        val first = parsedForm.form.groups[0].questions[0]
+        val second = parsedForm.form.groups[1].questions[0]
+        assertEquals("Option 1 fr", first.options!![1].getAltText("fr")!!.text)
+        assertSame(first.options!![1].code, second.options!![1].code)
+        assertSame(first.languageTranslationMap["fr"]!!.languageCode,
+            second.languageTranslationMap["fr"]!!.languageCode)
+    }
+
+    @Test
+    fun benchmarkSinglePassAgainstSeparateParses() {
+        val forms = linkedMapOf(
+            "date_form" to resource("date_form.xml"),
+            "empty_form" to resource("empty_form.xml"),
+            "generated_$QUESTIONS" to generatedForm(QUESTIONS).toByteArray()
+        )
+        for ((name, xml) in forms) {
+            val separate = averageMillis {
+                parser.parseXmlForm(ByteArrayInputStream(xml))
+                parser.parseXmlQuestions(ByteArrayInputStream(xml))
+                parser.parseLanguages(ByteArrayInputStream(xml))
+            }
+            val single = averageMillis {
+                parser.parse(ByteArrayInputStream(xml))
+            }
+            Timber.tag(TAG).i("%s (%d bytes): separate parses %.3f ms, single pass %.3f ms",
+                name, xml.size, separate, single)
+        }
+    }
+
+    private fun resource(name: String): ByteArray {
+        return javaClass.classLoader!!.getResourceAsStream(name).use { it.readBytes() }
+    }
+
+    private fun averageMillis(block: () -> Unit): Double {
+        for (i in 0 until WARM_UP_RUNS) {
+            block()
+        }
+        val start = System.nanoTime()
+        for (i in 0 until RUNS) {
+            block()
+        }
+        return (System.nanoTime() - start) / 1000000.0 / RUNS
+    }
+
+    private fun generatedForm(questions: Int): String {
+        val xml = StringBuilder()
+        xml.append("<survey name=\"Generated\" app=\"app\" defaultLanguageCode=\"en\"")
+            .append(" surveyGroupId=\"1\" surveyId=\"2\" version=\"1.0\">")
+        for (q in 0 until questions) {
+            if (q % QUESTIONS_PER_GROUP == 0) {
+                xml.append("<questionGroup><heading>Group ").append(q).append("</heading>")
+            }
+            xml.append("<question id=\"").append(q).append("\" order=\"").append(q + 1)
+                .append("\" type=\"option\"><text>Question ").append(q).append("</text>")
+                .append(altTexts("Question $q"))
+                .append("<options>")
+            for (o in 0 until OPTIONS) {
+                xml.append("<option code=\"C").append(o).append("\"><text>Option ").append(o)
+                    .append("</text>").append(altTexts("Option $o")).append("</option>")
+            }
+            xml.append("</options></question>")
+            if (q % QUESTIONS_PER_GROUP == QUESTIONS_PER_GROUP - 1) {
+                xml.append("</questionGroup>")
+            }
+        }
+        return xml.append("</survey>").toString()
+    }
+
+    private fun altTexts(text: String): String {
+        return "<altText language=\"fr\" type=\"translation\">$text fr</altText>" +
+                "<altText language=\"es\" type=\"translation\">$text es</altText>"
+    }
+
+    companion object {
+        private const val TAG = "XmlParserBenchmark"
+        private const val QUESTIONS = 500
+        private const val QUESTIONS_PER_GROUP = 10
+        private const val OPTIONS = 8
+        private const val WARM_UP_RUNS = 5
+        private const val RUNS = 20
+    }
+}